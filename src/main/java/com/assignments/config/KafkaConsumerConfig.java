@@ -1,6 +1,7 @@
 package com.assignments.config;
 
 import com.assignments.model.BankTransferPaymentEvent;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -10,6 +11,7 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
@@ -29,7 +31,7 @@ public class KafkaConsumerConfig {
     private String groupId;
 
     @Bean
-    public ConsumerFactory<String, BankTransferPaymentEvent> consumerFactory() {
+    public ConsumerFactory<String, BankTransferPaymentEvent> consumerFactory(MeterRegistry meterRegistry) {
         Map<String, Object> config = new HashMap<>();
 
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
@@ -40,16 +42,20 @@ public class KafkaConsumerConfig {
         config.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
         config.put(JsonDeserializer.VALUE_DEFAULT_TYPE, BankTransferPaymentEvent.class.getName());
 
-        return new DefaultKafkaConsumerFactory<>(
+        DefaultKafkaConsumerFactory<String, BankTransferPaymentEvent> factory = new DefaultKafkaConsumerFactory<>(
                 config,
                 new StringDeserializer(),
                 new JsonDeserializer<>(BankTransferPaymentEvent.class, false));
+        // Client metrics, including kafka.consumer.fetch.manager.records.lag per partition
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, BankTransferPaymentEvent> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, BankTransferPaymentEvent> kafkaListenerContainerFactory(
+            ConsumerFactory<String, BankTransferPaymentEvent> consumerFactory) {
         ConcurrentKafkaListenerContainerFactory<String, BankTransferPaymentEvent> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
         return factory;
     }
 }
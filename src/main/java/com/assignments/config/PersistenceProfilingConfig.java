@@ -0,0 +1,69 @@
+package com.assignments.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Persistence profiling, enabled with {@code persistence.profiling.enabled=true}.
+ *
+ * Turns on Hibernate statistics and publishes entity load/fetch/insert/update counts,
+ * flushes and prepared statements as {@code persistence.hibernate.*} counters, counts
+ * SQL statements per thread ({@link SqlStatementCounter}) and profiles every
+ * reservation repository call ({@link RepositoryProfilingAspect}). Statistics collection
+ * synchronizes on shared counters, so it stays off by default.
+ */
+@Configuration
+@ConditionalOnProperty(name = "persistence.profiling.enabled", havingValue = "true")
+public class PersistenceProfilingConfig {
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer persistenceProfilingCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> {
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+        };
+    }
+
+    @Bean
+    public RepositoryProfilingAspect repositoryProfilingAspect(SqlStatementCounter sqlStatementCounter,
+            MeterRegistry meterRegistry) {
+        return new RepositoryProfilingAspect(sqlStatementCounter, meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder hibernateStatisticsMetrics(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        return registry -> {
+            counter(registry, statistics, "entities.loaded", Statistics::getEntityLoadCount);
+            counter(registry, statistics, "entities.fetched", Statistics::getEntityFetchCount);
+            counter(registry, statistics, "entities.inserted", Statistics::getEntityInsertCount);
+            counter(registry, statistics, "entities.updated", Statistics::getEntityUpdateCount);
+            counter(registry, statistics, "entities.deleted", Statistics::getEntityDeleteCount);
+            counter(registry, statistics, "flushes", Statistics::getFlushCount);
+            counter(registry, statistics, "statements.prepared", Statistics::getPrepareStatementCount);
+            counter(registry, statistics, "queries.executed", Statistics::getQueryExecutionCount);
+            counter(registry, statistics, "transactions", Statistics::getTransactionCount);
+        };
+    }
+
+    private static void counter(MeterRegistry registry, Statistics statistics, String name,
+            ToDoubleFunction<Statistics> count) {
+        FunctionCounter.builder("persistence.hibernate." + name, statistics, count).register(registry);
+    }
+}
@@ -0,0 +1,39 @@
+package com.assignments.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Infrastructure for the reactive profile
+ */
+@Configuration
+@Profile("reactive")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveProfileConfig {
+
+    /**
+     * Serve WebFlux on Netty; with Tomcat also on the classpath Boot would pick Tomcat
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * JDBC DataSource built from the regular spring.datasource.* properties.
+     * Boot backs off its DataSource auto-configuration as soon as an R2DBC
+     * ConnectionFactory exists, but JPA is still needed: Hibernate owns the schema and
+     * the Kafka consumer, scheduler and reports keep using the blocking repository.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.assignments.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Read/write splitting: {@code @Transactional(readOnly = true)} work (including the
+ * default read methods of the Spring Data repositories) runs on a read replica with its
+ * own connection pool, guarded by {@link ReplicaLagGuard}; all other work runs on the
+ * primary from spring.datasource.*.
+ * Not available with the reactive profile, which defines its own DataSource.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "spring.datasource.replica.enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Replica pool, configured with Hikari property names under spring.datasource.replica
+     * (jdbc-url, username, password, maximum-pool-size, ...)
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica")
+    public HikariDataSource replicaDataSource(@Value("${spring.datasource.replica.jdbc-url:}") String jdbcUrl) {
+        if (jdbcUrl.isBlank()) {
+            throw new IllegalStateException(
+                    "spring.datasource.replica.jdbc-url is required when spring.datasource.replica.enabled=true");
+        }
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaLagGuard replicaLagGuard(@Value("${spring.datasource.replica.max-lag:1s}") Duration maxLag) {
+        return new ReplicaLagGuard(maxLag);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica, ReplicaLagGuard lagGuard,
+            MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica, lagGuard, meterRegistry));
+    }
+}
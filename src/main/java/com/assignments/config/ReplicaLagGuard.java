@@ -0,0 +1,74 @@
+package com.assignments.config;
+
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Decides whether read-only transactions may use the read replica.
+ *
+ * The replica is assumed to lag the primary by up to {@code maxLag}: for that long after
+ * a thread commits a read-write transaction, its own reads go to the primary so it sees
+ * its writes; other threads keep using the replica. Work that must see every commit
+ * (projection rebuilds) reads through {@link #onPrimary(Supplier)}. Until the
+ * application accepts traffic all reads go to the primary as well, so projections
+ * rebuilt at startup never start from a stale snapshot.
+ */
+public class ReplicaLagGuard {
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final long maxLagNanos;
+    private final ThreadLocal<Long> lastWriteNanos = new ThreadLocal<>();
+    private volatile boolean ready;
+
+    public ReplicaLagGuard(Duration maxLag) {
+        this.maxLagNanos = maxLag.toNanos();
+    }
+
+    /**
+     * Run the work with all its read-only transactions on the primary. Harmless without a replica.
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (PRIMARY_ONLY.get() != null) {
+            return work.get();
+        }
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    @EventListener
+    public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        ready = event.getState() == ReadinessState.ACCEPTING_TRAFFIC;
+    }
+
+    /**
+     * Record a write committed on the primary by the current thread
+     */
+    public void markWrite() {
+        lastWriteNanos.set(System.nanoTime());
+    }
+
+    public boolean replicaUsable() {
+        if (!ready || PRIMARY_ONLY.get() != null) {
+            return false;
+        }
+        Long lastWrite = lastWriteNanos.get();
+        if (lastWrite == null) {
+            return true;
+        }
+        if (System.nanoTime() - lastWrite < maxLagNanos) {
+            return false;
+        }
+        // Pooled threads would otherwise keep the timestamp forever
+        lastWriteNanos.remove();
+        return true;
+    }
+}
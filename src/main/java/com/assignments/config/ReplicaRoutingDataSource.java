@@ -0,0 +1,64 @@
+package com.assignments.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections of read-only transactions to the replica and everything else to the
+ * primary. Must be wrapped in a LazyConnectionDataSourceProxy so the connection is only
+ * fetched once the transaction's read-only flag is known. Commits of read-write
+ * transactions (not rollbacks) start the committing thread's read-your-writes window.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Route {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagGuard lagGuard;
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagGuard lagGuard,
+            MeterRegistry meterRegistry) {
+        this.lagGuard = lagGuard;
+        this.primaryReads = Counter.builder("datasource.routing.reads")
+                .description("Read-only transactions by target data source")
+                .tag("target", "primary")
+                .register(meterRegistry);
+        this.replicaReads = Counter.builder("datasource.routing.reads")
+                .tag("target", "replica")
+                .register(meterRegistry);
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (lagGuard.replicaUsable()) {
+                replicaReads.increment();
+                return Route.REPLICA;
+            }
+            primaryReads.increment();
+            return Route.PRIMARY;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                lagGuard.markWrite();
+            }
+        });
+        return Route.PRIMARY;
+    }
+}
@@ -0,0 +1,54 @@
+package com.assignments.config;
+
+import com.assignments.repository.ReservationRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Times every {@link ReservationRepository} call and counts the SQL statements it prepares.
+ *
+ * Publishes {@code persistence.repository.calls} (latency histogram) and
+ * {@code persistence.repository.statements}, both tagged with the repository method.
+ * Writes are usually flushed at commit, so {@code save} calls mostly count the lookups
+ * a merge needs; the INSERT/UPDATE shows up in the calling transaction.
+ */
+@Aspect
+public class RepositoryProfilingAspect {
+
+    private static final String REPOSITORY = ReservationRepository.class.getSimpleName();
+
+    private final SqlStatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+
+    public RepositoryProfilingAspect(SqlStatementCounter statementCounter, MeterRegistry meterRegistry) {
+        this.statementCounter = statementCounter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.assignments.repository.ReservationRepository+.*(..))")
+    public Object profile(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getName();
+        SqlStatementCounter.Snapshot before = statementCounter.currentThread();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("persistence.repository.calls")
+                    .tags("repository", REPOSITORY, "method", method, "outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+            DistributionSummary.builder("persistence.repository.statements")
+                    .tags("repository", REPOSITORY, "method", method)
+                    .register(meterRegistry)
+                    .record(statementCounter.currentThread().since(before).total());
+        }
+    }
+}
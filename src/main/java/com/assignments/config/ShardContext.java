@@ -0,0 +1,47 @@
+package com.assignments.config;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard the current thread works on, read by {@link ShardRoutingDataSource} when a
+ * connection is fetched. Unbound threads use the default shard. Must be bound before the
+ * transaction starts: a transaction keeps the connection it started with.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Shard bound to the current thread, or null when none is
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static void run(String shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Run the work bound to the shard, restoring the previous binding afterwards
+     */
+    public static <T> T call(String shard, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.assignments.config;
+
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationIds;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Maps properties (hotels) and reservation IDs to database shards.
+ *
+ * Every shard owns one ID prefix: the first character of a reservation ID names the shard
+ * holding it, so a payment event can be routed without a lookup. Properties that are not
+ * listed, and IDs with an unknown prefix, belong to the default shard (the first one, on
+ * spring.datasource). With sharding disabled there is only the default shard.
+ */
+@Component
+public class ShardRouter {
+
+    private final boolean enabled;
+    private final String defaultShard;
+    private final Map<String, Character> prefixes = new LinkedHashMap<>();
+    private final Map<Character, String> shardsByPrefix = new LinkedHashMap<>();
+    private final Map<String, String> shardsByProperty = new LinkedHashMap<>();
+
+    public ShardRouter(@Value("${reservation.sharding.enabled:false}") boolean enabled,
+            @Value("${reservation.sharding.shards:main:P}") List<String> shards,
+            @Value("${reservation.sharding.properties:}") List<String> properties) {
+        for (String shard : shards) {
+            String[] nameAndPrefix = split(shard, "reservation.sharding.shards");
+            String prefix = nameAndPrefix[1];
+            if (prefix.length() != 1 || prefix.charAt(0) < 'A' || prefix.charAt(0) > 'Z') {
+                throw new IllegalArgumentException("Shard ID prefix must be one uppercase letter: " + shard);
+            }
+            if (prefixes.put(nameAndPrefix[0], prefix.charAt(0)) != null
+                    || shardsByPrefix.put(prefix.charAt(0), nameAndPrefix[0]) != null) {
+                throw new IllegalArgumentException("Duplicate shard or ID prefix: " + shard);
+            }
+            if (!enabled) {
+                break;
+            }
+        }
+        if (prefixes.isEmpty()) {
+            throw new IllegalArgumentException("reservation.sharding.shards must name at least one shard");
+        }
+        this.enabled = enabled;
+        this.defaultShard = prefixes.keySet().iterator().next();
+        if (enabled) {
+            for (String property : properties) {
+                String[] propertyAndShard = split(property, "reservation.sharding.properties");
+                if (!prefixes.containsKey(propertyAndShard[1])) {
+                    throw new IllegalArgumentException("Unknown shard for property: " + property);
+                }
+                shardsByProperty.put(propertyAndShard[0], propertyAndShard[1]);
+            }
+        }
+    }
+
+    /**
+     * Single database, as when reservation.sharding.enabled is false
+     */
+    public static ShardRouter unsharded() {
+        return new ShardRouter(false, List.of("main:P"), List.of());
+    }
+
+    private static String[] split(String entry, String key) {
+        String[] parts = entry.trim().split(":");
+        if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+            throw new IllegalArgumentException(key + " entries must look like name:value, got: " + entry);
+        }
+        return new String[] {parts[0].trim(), parts[1].trim()};
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String defaultShard() {
+        return defaultShard;
+    }
+
+    /**
+     * All shards, the default one first
+     */
+    public List<String> shards() {
+        return List.copyOf(prefixes.keySet());
+    }
+
+    public String shardOfProperty(String propertyId) {
+        String property = propertyId == null ? ReservationEntity.DEFAULT_PROPERTY_ID : propertyId;
+        return shardsByProperty.getOrDefault(property, defaultShard);
+    }
+
+    public String shardOfReservation(String reservationId) {
+        if (reservationId == null || reservationId.isEmpty()) {
+            return defaultShard;
+        }
+        return shardsByPrefix.getOrDefault(reservationId.charAt(0), defaultShard);
+    }
+
+    /**
+     * New reservation ID carrying the shard's prefix
+     */
+    public String newReservationId(String shard) {
+        Character prefix = prefixes.get(shard);
+        if (prefix == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shard);
+        }
+        return ReservationIds.generate(prefix);
+    }
+
+    /**
+     * Run the query on every shard and concatenate the results
+     */
+    public <T> List<T> collect(Supplier<? extends Collection<T>> query) {
+        if (!enabled) {
+            return new ArrayList<>(query.get());
+        }
+        List<T> results = new ArrayList<>();
+        for (String shard : prefixes.keySet()) {
+            results.addAll(ShardContext.call(shard, query));
+        }
+        return results;
+    }
+
+    /**
+     * Reservation IDs by the shard holding them, in the order given
+     */
+    public Map<String, List<String>> groupByShard(Collection<String> reservationIds) {
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String reservationId : reservationIds) {
+            groups.computeIfAbsent(shardOfReservation(reservationId), shard -> new ArrayList<>()).add(reservationId);
+        }
+        return groups;
+    }
+}
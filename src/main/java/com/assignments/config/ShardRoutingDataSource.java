@@ -0,0 +1,52 @@
+package com.assignments.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections of the shard bound in {@link ShardContext}, or of the default
+ * shard when none is. Must be wrapped in a LazyConnectionDataSourceProxy so the shard is
+ * read when the first statement runs. Closes the pools of the other shards, which are
+ * not beans of their own.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final String defaultShard;
+    private final Map<String, HikariDataSource> shardPools;
+
+    public ShardRoutingDataSource(String defaultShard, DataSource defaultDataSource,
+            Map<String, HikariDataSource> shardPools) {
+        this.defaultShard = defaultShard;
+        this.shardPools = Map.copyOf(shardPools);
+        Map<Object, Object> targets = new HashMap<>(shardPools);
+        targets.put(defaultShard, defaultDataSource);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(defaultDataSource);
+        // A misspelt shard must fail, not silently write to the default database
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String shard = ShardContext.current();
+        return shard == null ? defaultShard : shard;
+    }
+
+    /**
+     * Pools of the shards other than the default one
+     */
+    public Collection<HikariDataSource> shardPools() {
+        return shardPools.values();
+    }
+
+    @Override
+    public void close() {
+        shardPools.values().forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,52 @@
+package com.assignments.config;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.schema.spi.DelayedDropAction;
+import org.hibernate.tool.schema.spi.SchemaManagementToolCoordinator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Applies spring.jpa.hibernate.ddl-auto to the shards besides the default one, which
+ * Hibernate itself only does for the connection it is given. Drops registered by
+ * create-drop run when the session factory closes, like Hibernate's own.
+ */
+class ShardSchemaIntegrator implements Integrator {
+
+    private record Drop(String shard, DelayedDropAction action) {
+    }
+
+    private final List<String> shards;
+    private final List<Drop> drops = new ArrayList<>();
+
+    ShardSchemaIntegrator(List<String> shards) {
+        this.shards = List.copyOf(shards);
+    }
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+            SessionFactoryImplementor sessionFactory) {
+        Map<String, Object> settings = new HashMap<>(
+                sessionFactory.getServiceRegistry().getService(ConfigurationService.class).getSettings());
+        for (String shard : shards) {
+            ShardContext.run(shard, () -> SchemaManagementToolCoordinator.process(metadata,
+                    sessionFactory.getServiceRegistry(), settings, action -> drops.add(new Drop(shard, action))));
+        }
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        for (Drop drop : drops) {
+            ShardContext.run(drop.shard(), () -> drop.action().perform(serviceRegistry));
+        }
+        drops.clear();
+    }
+}
@@ -0,0 +1,87 @@
+package com.assignments.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reservations sharded by property ({@link ShardRouter}): the default shard runs on
+ * spring.datasource.*, every other shard on its own connection pool configured with
+ * Hikari property names under reservation.sharding.datasource.&lt;shard&gt; (jdbc-url,
+ * username, password, maximum-pool-size, ...). The schema is created on every shard.
+ * Not available with the reactive profile or together with the read replica.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "reservation.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ShardingDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource defaultShardDataSource(DataSourceProperties properties, ShardRouter shardRouter,
+            @Value("${spring.datasource.replica.enabled:false}") boolean replicaEnabled) {
+        if (replicaEnabled) {
+            throw new IllegalStateException("reservation.sharding cannot be combined with spring.datasource.replica");
+        }
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("shard-" + shardRouter.defaultShard());
+        return dataSource;
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(
+            @Qualifier("defaultShardDataSource") DataSource defaultShardDataSource, ShardRouter shardRouter,
+            Environment environment, MeterRegistry meterRegistry) {
+        Binder binder = Binder.get(environment);
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        for (String shard : otherShards(shardRouter)) {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName("shard-" + shard);
+            binder.bind("reservation.sharding.datasource." + shard, Bindable.ofInstance(pool));
+            if (pool.getJdbcUrl() == null) {
+                throw new IllegalStateException("reservation.sharding.datasource." + shard + ".jdbc-url is not set");
+            }
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.put(shard, pool);
+        }
+        return new ShardRoutingDataSource(shardRouter.defaultShard(), defaultShardDataSource, pools);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer shardSchemaCustomizer(ShardRouter shardRouter) {
+        IntegratorProvider integrators = () -> List.of(new ShardSchemaIntegrator(otherShards(shardRouter)));
+        return properties -> properties.put("hibernate.integrator_provider", integrators);
+    }
+
+    private static List<String> otherShards(ShardRouter shardRouter) {
+        return shardRouter.shards().subList(1, shardRouter.shards().size());
+    }
+}
@@ -0,0 +1,86 @@
+package com.assignments.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+
+/**
+ * Counts the SQL statements Hibernate prepares, per thread and per statement kind.
+ *
+ * Installed as the session factory's statement inspector when persistence profiling is
+ * enabled. A transaction runs on one thread, so the difference between two
+ * {@link #currentThread()} snapshots taken around a call is the number of statements
+ * that call executed, including the ones flushed at commit.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    public enum Kind { SELECT, INSERT, UPDATE, DELETE, OTHER }
+
+    private final ThreadLocal<long[]> counts = ThreadLocal.withInitial(() -> new long[Kind.values().length]);
+
+    @Override
+    public String inspect(String sql) {
+        counts.get()[kindOf(sql).ordinal()]++;
+        return sql;
+    }
+
+    /**
+     * Statements prepared so far on the calling thread
+     */
+    public Snapshot currentThread() {
+        return new Snapshot(counts.get().clone());
+    }
+
+    static Kind kindOf(String sql) {
+        String statement = sql.stripLeading();
+        int end = 0;
+        while (end < statement.length() && Character.isLetter(statement.charAt(end))) {
+            end++;
+        }
+        return switch (statement.substring(0, end).toLowerCase(Locale.ROOT)) {
+            case "select", "with" -> Kind.SELECT;
+            case "insert" -> Kind.INSERT;
+            case "update" -> Kind.UPDATE;
+            case "delete" -> Kind.DELETE;
+            default -> Kind.OTHER;
+        };
+    }
+
+    /**
+     * Per-kind statement counts of one thread at a point in time
+     */
+    public record Snapshot(long[] counts) {
+
+        public long total() {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long count(Kind kind) {
+            return counts[kind.ordinal()];
+        }
+
+        /**
+         * Statements prepared between the given earlier snapshot and this one
+         */
+        public Snapshot since(Snapshot earlier) {
+            long[] delta = new long[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = counts[i] - earlier.counts[i];
+            }
+            return new Snapshot(delta);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder().append(total()).append(" statements (");
+            for (Kind kind : Kind.values()) {
+                text.append(kind == Kind.SELECT ? "" : ", ").append(kind).append('=').append(count(kind));
+            }
+            return text.append(')').toString();
+        }
+    }
+}
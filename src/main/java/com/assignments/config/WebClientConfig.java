@@ -0,0 +1,32 @@
+package com.assignments.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Connection pool of the WebClient used for the credit card payment service.
+ * Reactor Netty defaults to 2 connections per core (at least 16), which caps
+ * concurrent verifications far below what the non-blocking stack can carry.
+ */
+@Configuration
+public class WebClientConfig {
+
+    @Bean
+    public WebClientCustomizer paymentConnectionPool(
+            @Value("${credit.card.payment.max-connections:500}") int maxConnections,
+            @Value("${credit.card.payment.pending-acquire-timeout:2s}") Duration pendingAcquireTimeout) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("credit-card-payment")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .build();
+        return builder -> builder.clientConnector(
+                new ReactorClientHttpConnector(HttpClient.create(connectionProvider)));
+    }
+}
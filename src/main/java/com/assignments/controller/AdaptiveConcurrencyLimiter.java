@@ -0,0 +1,192 @@
+package com.assignments.controller;
+
+import com.assignments.exception.OverloadedException;
+import com.assignments.model.ReservationEntity.ModeOfPayment;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive limit on the number of reservation requests processed at once.
+ *
+ * Gradient algorithm: latencies are averaged over windows of {@code sample-window}
+ * requests, a long-term exponential average of those windows is the baseline and each
+ * window is compared against it. While latency stays
+ * within {@code tolerance} of the baseline the limit grows by about sqrt(limit); when
+ * requests get slower (queueing on the DB pool or the payment provider) the limit
+ * shrinks in proportion, never by more than half per window. The limit only grows
+ * while at least half of it is in use, so an idle service does not inflate it.
+ *
+ * Requests above the limit are rejected at once with {@link OverloadedException}
+ * (503 with Retry-After). Credit card requests, which call the payment provider, may
+ * only use {@code credit-card-share} of the limit, keeping the rest for cash and bank
+ * transfer requests that only touch the database. Opt-in with
+ * {@code reservation.concurrency-limit.enabled=true}; otherwise every request passes.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final int sampleWindow;
+    private final int baselineWindow;
+    private final double creditCardShare;
+    private final Duration retryAfter;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejectedPriority;
+    private final Counter rejectedCreditCard;
+
+    private volatile double limit;
+    private double baselineNanos;
+    private long windows;
+    private long windowNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+            @Value("${reservation.concurrency-limit.enabled:false}") boolean enabled,
+            @Value("${reservation.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${reservation.concurrency-limit.min-limit:4}") int minLimit,
+            @Value("${reservation.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${reservation.concurrency-limit.tolerance:1.5}") double tolerance,
+            @Value("${reservation.concurrency-limit.smoothing:0.2}") double smoothing,
+            @Value("${reservation.concurrency-limit.sample-window:20}") int sampleWindow,
+            @Value("${reservation.concurrency-limit.baseline-window:60}") int baselineWindow,
+            @Value("${reservation.concurrency-limit.credit-card-share:0.8}") double creditCardShare,
+            @Value("${reservation.concurrency-limit.retry-after:1s}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.sampleWindow = sampleWindow;
+        this.baselineWindow = baselineWindow;
+        this.creditCardShare = creditCardShare;
+        this.retryAfter = retryAfter;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        Gauge.builder("reservation.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Current adaptive limit of concurrent reservation requests")
+                .register(meterRegistry);
+        Gauge.builder("reservation.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+        this.rejectedPriority = Counter.builder("reservation.concurrency.rejected")
+                .tag("priority", "high")
+                .register(meterRegistry);
+        this.rejectedCreditCard = Counter.builder("reservation.concurrency.rejected")
+                .tag("priority", "low")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take a slot for a request of the given payment mode
+     *
+     * @throws OverloadedException if the limit for that payment mode is reached
+     */
+    public Permit acquire(ModeOfPayment modeOfPayment) {
+        if (!enabled) {
+            return Permit.NONE;
+        }
+        boolean lowPriority = modeOfPayment == ModeOfPayment.CREDIT_CARD;
+        int allowed = (int) (lowPriority ? Math.max(1, limit * creditCardShare) : limit);
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= allowed) {
+                (lowPriority ? rejectedCreditCard : rejectedPriority).increment();
+                throw new OverloadedException("Too many concurrent reservation requests, retry later", retryAfter);
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return new Permit(this, System.nanoTime(), current + 1);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    synchronized void onSample(long latencyNanos, int inFlightAtStart) {
+        windowNanos += latencyNanos;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        if (++windowSamples < sampleWindow) {
+            return;
+        }
+        // Average over the window so a mix of fast (cash) and slow (credit card) requests does not swing the limit
+        double latency = (double) windowNanos / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        windowNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+
+        // Plain average over the first windows, exponential average over baseline-window windows afterwards
+        windows = Math.min(windows + 1, baselineWindow);
+        baselineNanos += (latency - baselineNanos) / windows;
+        if (baselineNanos > 2 * latency) {
+            // Latency dropped well below the baseline: catch up quickly
+            baselineNanos = (baselineNanos + latency) / 2;
+        }
+        double current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineNanos / latency));
+        if (gradient == 1.0 && maxInFlight < current / 2) {
+            // Not using the limit: no evidence that more concurrency would be fine
+            return;
+        }
+        double target = current * gradient + (gradient == 1.0 ? Math.sqrt(current) : 0);
+        double next = current * (1 - smoothing) + target * smoothing;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    private void release(long startNanos, int inFlightAtStart, boolean sample) {
+        inFlight.decrementAndGet();
+        if (sample) {
+            onSample(System.nanoTime() - startNanos, inFlightAtStart);
+        }
+    }
+
+    /**
+     * A slot held by one request; release exactly once
+     */
+    public static final class Permit {
+
+        static final Permit NONE = new Permit(null, 0, 0);
+
+        private final AdaptiveConcurrencyLimiter limiter;
+        private final long startNanos;
+        private final int inFlightAtStart;
+
+        private Permit(AdaptiveConcurrencyLimiter limiter, long startNanos, int inFlightAtStart) {
+            this.limiter = limiter;
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Release the slot and feed the request latency to the limit
+         */
+        public void release() {
+            if (limiter != null) {
+                limiter.release(startNanos, inFlightAtStart, true);
+            }
+        }
+
+        /**
+         * Release the slot without a latency sample (e.g. the request was invalid)
+         */
+        public void releaseIgnored() {
+            if (limiter != null) {
+                limiter.release(startNanos, inFlightAtStart, false);
+            }
+        }
+    }
+}
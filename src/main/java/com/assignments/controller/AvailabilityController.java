@@ -0,0 +1,55 @@
+package com.assignments.controller;
+
+import com.assignments.api.AvailabilityApi;
+import com.assignments.model.AvailabilityResponse;
+import com.assignments.model.ReservationEntity;
+import com.assignments.projection.AvailabilityIndex;
+import com.assignments.service.ReservationService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * REST Controller implementing the Availability API, served from the bitmap calendar index
+ */
+@RestController
+public class AvailabilityController implements AvailabilityApi {
+
+    private final AvailabilityIndex availabilityIndex;
+
+    public AvailabilityController(AvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @Override
+    public ResponseEntity<AvailabilityResponse> findFreeRooms(String roomSegment, LocalDate startDate,
+            LocalDate endDate, String propertyId) {
+        ReservationEntity.RoomSegment segment = ReservationEntity.RoomSegment.valueOf(roomSegment);
+        validateStay(startDate, endDate);
+
+        AvailabilityResponse response = new AvailabilityResponse()
+                .propertyId(propertyId)
+                .roomSegment(segment.name())
+                .startDate(startDate)
+                .endDate(endDate)
+                .freeRooms(availabilityIndex.findFreeRooms(propertyId, segment, startDate, endDate));
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Same bounds as a reservation: at least one night, at most MAX_RESERVATION_DAYS
+     */
+    private void validateStay(LocalDate startDate, LocalDate endDate) {
+        if (!startDate.isBefore(endDate)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+        long days = ChronoUnit.DAYS.between(startDate, endDate);
+        if (days > ReservationService.MAX_RESERVATION_DAYS) {
+            throw new IllegalArgumentException(
+                    String.format("Stay cannot exceed %d days. Requested: %d days",
+                            ReservationService.MAX_RESERVATION_DAYS, days));
+        }
+    }
+}
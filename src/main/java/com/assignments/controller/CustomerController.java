@@ -0,0 +1,56 @@
+package com.assignments.controller;
+
+import com.assignments.api.CustomersApi;
+import com.assignments.model.CustomerHistory;
+import com.assignments.model.CustomerReservation;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.projection.CustomerHistoryProjection;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+
+/**
+ * REST Controller implementing the Customers API, served from the customer history projection
+ */
+@RestController
+public class CustomerController implements CustomersApi {
+
+    private final CustomerHistoryProjection customerHistoryProjection;
+
+    public CustomerController(CustomerHistoryProjection customerHistoryProjection) {
+        this.customerHistoryProjection = customerHistoryProjection;
+    }
+
+    @Override
+    public ResponseEntity<CustomerHistory> getCustomerHistory(String customerName) {
+        String customerKey = CustomerHistoryProjection.customerKey(customerName);
+        if (customerKey.isEmpty()) {
+            throw new IllegalArgumentException("Customer name must not be blank");
+        }
+
+        CustomerHistory history = new CustomerHistory().customerKey(customerKey).reservations(new ArrayList<>());
+        Money outstanding = Money.ZERO;
+        for (CustomerHistoryProjection.Entry entry : customerHistoryProjection.history(customerName)) {
+            history.addReservationsItem(new CustomerReservation()
+                    .reservationId(entry.reservationId())
+                    .propertyId(entry.propertyId())
+                    .customerName(entry.customerName())
+                    .roomNumber(entry.roomNumber())
+                    .roomSegment(entry.roomSegment() == null ? null : entry.roomSegment().name())
+                    .startDate(entry.startDate())
+                    .endDate(entry.endDate())
+                    .status(entry.status() == null ? null
+                            : CustomerReservation.StatusEnum.fromValue(entry.status().name()))
+                    .totalAmount(entry.totalAmount().toBigDecimal())
+                    .amountReceived(entry.amountReceived().toBigDecimal())
+                    .balance(entry.balance().toBigDecimal()));
+            if (entry.status() == ReservationEntity.ReservationStatus.PENDING_PAYMENT) {
+                outstanding = outstanding.plus(entry.balance());
+            }
+        }
+        history.setTotalOutstanding(outstanding.toBigDecimal());
+        return ResponseEntity.ok(history);
+    }
+}
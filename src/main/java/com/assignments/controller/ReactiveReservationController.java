@@ -0,0 +1,60 @@
+package com.assignments.controller;
+
+import com.assignments.api.reactive.ReservationsApi;
+import com.assignments.model.ReservationRequest;
+import com.assignments.model.ReservationResponse;
+import com.assignments.service.ReactiveReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static com.assignments.controller.ReservationController.convertModeOfPayment;
+import static com.assignments.controller.ReservationController.convertRoomSegment;
+import static com.assignments.controller.ReservationController.convertStatus;
+
+/**
+ * Non-blocking REST Controller implementing the Reservations API in the reactive profile
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveReservationController implements ReservationsApi {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveReservationController.class);
+
+    private final ReactiveReservationService reservationService;
+
+    public ReactiveReservationController(ReactiveReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    @Override
+    public Mono<ResponseEntity<ReservationResponse>> confirmReservation(Mono<ReservationRequest> reservationRequest,
+            ServerWebExchange exchange) {
+        return reservationRequest
+                .doOnNext(request -> logger.info(
+                        "Received reservation request for customer: {}, room: {}, payment mode: {}",
+                        request.getCustomerName(), request.getRoomNumber(), request.getModeOfPayment()))
+                .flatMap(request -> reservationService.confirmReservation(
+                        request.getPropertyId(),
+                        request.getCustomerName(),
+                        request.getRoomNumber(),
+                        request.getStartDate(),
+                        request.getEndDate(),
+                        convertRoomSegment(request.getRoomSegment()),
+                        convertModeOfPayment(request.getModeOfPayment()),
+                        request.getPaymentReference()))
+                .map(reservation -> {
+                    ReservationResponse response = new ReservationResponse();
+                    response.setReservationId(reservation.getReservationId());
+                    response.setStatus(convertStatus(reservation.getStatus()));
+
+                    logger.info("Reservation created successfully: {}, status: {}",
+                            reservation.getReservationId(), reservation.getStatus());
+                    return ResponseEntity.ok(response);
+                });
+    }
+}
@@ -0,0 +1,80 @@
+package com.assignments.controller;
+
+import com.assignments.api.ReportsApi;
+import com.assignments.model.Money;
+import com.assignments.model.NightlyOccupancy;
+import com.assignments.model.OccupancyReport;
+import com.assignments.model.ReceivablesReport;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.SegmentOccupancy;
+import com.assignments.model.SegmentReceivables;
+import com.assignments.projection.OccupancyRollup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * REST Controller implementing the Reports API, served from in-memory rollups
+ */
+@RestController
+public class ReportController implements ReportsApi {
+
+    private static final int MAX_REPORT_DAYS = 366;
+
+    private final OccupancyRollup occupancyRollup;
+
+    public ReportController(OccupancyRollup occupancyRollup) {
+        this.occupancyRollup = occupancyRollup;
+    }
+
+    @Override
+    public ResponseEntity<OccupancyReport> getOccupancyReport(LocalDate from, LocalDate to, String propertyId) {
+        validateRange(from, to);
+
+        OccupancyReport report = new OccupancyReport().propertyId(propertyId);
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            NightlyOccupancy night = new NightlyOccupancy().date(day);
+            for (ReservationEntity.RoomSegment segment : ReservationEntity.RoomSegment.values()) {
+                night.addSegmentsItem(new SegmentOccupancy()
+                        .roomSegment(segment.name())
+                        .confirmedRooms(occupancyRollup.confirmedRooms(propertyId, day, segment))
+                        .pendingRooms(occupancyRollup.pendingRooms(propertyId, day, segment)));
+            }
+            report.addNightsItem(night);
+        }
+        return ResponseEntity.ok(report);
+    }
+
+    @Override
+    public ResponseEntity<ReceivablesReport> getReceivablesReport(LocalDate from, LocalDate to, String propertyId) {
+        validateRange(from, to);
+
+        ReceivablesReport report = new ReceivablesReport().propertyId(propertyId);
+        Money total = Money.ZERO;
+        for (ReservationEntity.RoomSegment segment : ReservationEntity.RoomSegment.values()) {
+            Money outstanding = occupancyRollup.outstandingAmount(propertyId, from, to, segment);
+            report.addSegmentsItem(new SegmentReceivables()
+                    .roomSegment(segment.name())
+                    .outstandingAmount(outstanding.toBigDecimal()));
+            total = total.plus(outstanding);
+        }
+        report.setTotalOutstanding(total.toBigDecimal());
+        return ResponseEntity.ok(report);
+    }
+
+    /**
+     * Validate that the report range is ordered and bounded
+     */
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_REPORT_DAYS) {
+            throw new IllegalArgumentException(
+                    String.format("Report range cannot exceed %d days. Requested: %d days", MAX_REPORT_DAYS, days));
+        }
+    }
+}
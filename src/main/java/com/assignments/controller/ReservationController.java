@@ -1,27 +1,37 @@
 package com.assignments.controller;
 
 import com.assignments.api.ReservationsApi;
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
 import com.assignments.model.ReservationEntity;
 import com.assignments.model.ReservationRequest;
 import com.assignments.model.ReservationResponse;
 import com.assignments.service.ReservationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
  * REST Controller implementing the Reservations API
+ * (replaced by {@link ReactiveReservationController} in the reactive profile)
  */
 @RestController
+@Profile("!reactive")
 public class ReservationController implements ReservationsApi {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationController.class);
 
     private final ReservationService reservationService;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ShardRouter shardRouter;
 
-    public ReservationController(ReservationService reservationService) {
+    public ReservationController(ReservationService reservationService,
+            AdaptiveConcurrencyLimiter concurrencyLimiter, ShardRouter shardRouter) {
         this.reservationService = reservationService;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.shardRouter = shardRouter;
     }
 
     @Override
@@ -35,15 +45,31 @@ public class ReservationController implements ReservationsApi {
         ReservationEntity.RoomSegment roomSegment = convertRoomSegment(reservationRequest.getRoomSegment());
         ReservationEntity.ModeOfPayment modeOfPayment = convertModeOfPayment(reservationRequest.getModeOfPayment());
 
-        // Create confirmation on reservation
-        ReservationEntity reservation = reservationService.confirmReservation(
-                reservationRequest.getCustomerName(),
-                reservationRequest.getRoomNumber(),
-                reservationRequest.getStartDate(),
-                reservationRequest.getEndDate(),
-                roomSegment,
-                modeOfPayment,
-                reservationRequest.getPaymentReference());
+        // Shed load before touching the database or the payment provider
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(modeOfPayment);
+        ReservationEntity reservation;
+        try {
+            // Create confirmation on reservation, in the database of the property's shard
+            String propertyId = reservationRequest.getPropertyId();
+            reservation = ShardContext.call(shardRouter.shardOfProperty(propertyId),
+                    () -> reservationService.confirmReservation(
+                            propertyId,
+                            reservationRequest.getCustomerName(),
+                            reservationRequest.getRoomNumber(),
+                            reservationRequest.getStartDate(),
+                            reservationRequest.getEndDate(),
+                            roomSegment,
+                            modeOfPayment,
+                            reservationRequest.getPaymentReference()));
+        } catch (IllegalArgumentException e) {
+            // Rejected input says nothing about the service latency
+            permit.releaseIgnored();
+            throw e;
+        } catch (RuntimeException e) {
+            permit.release();
+            throw e;
+        }
+        permit.release();
 
         // Build response
         ReservationResponse response = new ReservationResponse();
@@ -59,21 +85,21 @@ public class ReservationController implements ReservationsApi {
     /**
      * Convert API RoomSegment enum to Entity enum
      */
-    private ReservationEntity.RoomSegment convertRoomSegment(ReservationRequest.RoomSegmentEnum apiSegment) {
+    static ReservationEntity.RoomSegment convertRoomSegment(ReservationRequest.RoomSegmentEnum apiSegment) {
         return ReservationEntity.RoomSegment.valueOf(apiSegment.name());
     }
 
     /**
      * Convert API ModeOfPayment enum to Entity enum
      */
-    private ReservationEntity.ModeOfPayment convertModeOfPayment(ReservationRequest.ModeOfPaymentEnum apiMode) {
+    static ReservationEntity.ModeOfPayment convertModeOfPayment(ReservationRequest.ModeOfPaymentEnum apiMode) {
         return ReservationEntity.ModeOfPayment.valueOf(apiMode.name());
     }
 
     /**
      * Convert Entity Status enum to API enum
      */
-    private ReservationResponse.StatusEnum convertStatus(ReservationEntity.ReservationStatus entityStatus) {
+    static ReservationResponse.StatusEnum convertStatus(ReservationEntity.ReservationStatus entityStatus) {
         return ReservationResponse.StatusEnum.valueOf(entityStatus.name());
     }
 }
@@ -0,0 +1,61 @@
+package com.assignments.controller;
+
+import com.assignments.model.ReservationEntity;
+import com.assignments.service.ReservationExportService;
+import com.assignments.service.ReservationExportService.Format;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+/**
+ * Streaming reservation extracts for finance. Not part of the generated API: the
+ * generated interfaces cannot return a {@link StreamingResponseBody}.
+ */
+@RestController
+public class ReservationExportController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    private final ReservationExportService reservationExportService;
+
+    public ReservationExportController(ReservationExportService reservationExportService) {
+        this.reservationExportService = reservationExportService;
+    }
+
+    /**
+     * Reservations starting in [from, to] (both optional) in the given status (optional),
+     * as NDJSON (default) or CSV, written while they are read from the database.
+     * Archived reservations are included unless includeArchived=false.
+     */
+    @GetMapping("/exports/reservations")
+    public ResponseEntity<StreamingResponseBody> exportReservations(
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "status", required = false) String status,
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            @RequestParam(value = "includeArchived", defaultValue = "true") boolean includeArchived) {
+        Format exportFormat = Format.of(format);
+        ReservationEntity.ReservationStatus exportStatus = status == null ? null
+                : ReservationEntity.ReservationStatus.valueOf(status);
+        // Checked before the response is committed; failures while streaming can only truncate it
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        StreamingResponseBody body = output -> reservationExportService.export(
+                from, to, exportStatus, includeArchived, exportFormat, output);
+        return ResponseEntity.ok()
+                .contentType(exportFormat == Format.CSV ? CSV : NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"reservations."
+                        + exportFormat.name().toLowerCase() + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,11 @@
+package com.assignments.exception;
+
+/**
+ * Exception thrown when the payment provider gives a definitive negative answer
+ * (payment rejected, or reference unknown), as opposed to being unavailable
+ */
+public class PaymentRejectedException extends RuntimeException {
+    public PaymentRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,49 @@
+package com.assignments.journal;
+
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity.ModeOfPayment;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationStateChangedEvent;
+
+import java.time.Instant;
+
+/**
+ * One reservation state transition as stored in the {@link ReservationJournal}.
+ *
+ * @param sequence        position in the journal, starting at 1
+ * @param timestamp       when the transition was journaled (millisecond precision)
+ * @param previousStatus  status before the transition, null for a newly created reservation
+ * @param amountDelta     change of the received amount
+ */
+public record JournalRecord(long sequence, Instant timestamp, String reservationId,
+        ReservationStatus previousStatus, ReservationStatus status, Money amountDelta, Source source) {
+
+    /**
+     * What caused the transition
+     */
+    public enum Source {
+        RESERVATION_REQUEST, CASH, BANK_TRANSFER, CREDIT_CARD, CANCELLATION
+    }
+
+    /**
+     * Derive the source from the kind of transition: creation, cancellation, or a
+     * payment through the reservation's mode of payment
+     */
+    static Source sourceOf(ReservationStateChangedEvent event) {
+        if (event.isCreated()) {
+            return Source.RESERVATION_REQUEST;
+        }
+        if (event.getStatus() == ReservationStatus.CANCELLED) {
+            return Source.CANCELLATION;
+        }
+        ModeOfPayment mode = event.getModeOfPayment();
+        if (mode == null) {
+            return Source.RESERVATION_REQUEST;
+        }
+        return switch (mode) {
+            case CASH -> Source.CASH;
+            case BANK_TRANSFER -> Source.BANK_TRANSFER;
+            case CREDIT_CARD -> Source.CREDIT_CARD;
+        };
+    }
+}
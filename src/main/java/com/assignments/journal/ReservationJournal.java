@@ -0,0 +1,460 @@
+package com.assignments.journal;
+
+import com.assignments.journal.JournalRecord.Source;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationIds;
+import com.assignments.model.ReservationStateChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of committed reservation state transitions, for auditing and
+ * for rebuilding derived state without querying the database.
+ *
+ * Records have a fixed size of 40 bytes: sequence, timestamp, packed reservation ID,
+ * amount delta in cents, previous and new status, source and a CRC32C. They are
+ * written into memory-mapped segment files named after their first sequence; a new
+ * segment is started when the current one is full.
+ *
+ * A background thread forces the written range to disk (group commit). By default
+ * it flushes every {@code flush-interval} and appends do not wait. With
+ * {@code sync-commit=true} an append blocks until its record is on disk, and one
+ * fsync covers every record appended while the previous fsync was running.
+ *
+ * On startup the last segment is scanned, and appending resumes after its last
+ * valid record. A record torn by a crash fails the CRC and is overwritten.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.journal.enabled", havingValue = "true")
+public class ReservationJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationJournal.class);
+
+    static final int HEADER_SIZE = 16;
+    static final int RECORD_SIZE = 40;
+    private static final int CHECKSUMMED_SIZE = RECORD_SIZE - Integer.BYTES;
+    private static final int MAGIC = 0x524A4E4C; // "RJNL"
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".journal";
+    private static final ReservationStatus[] STATUSES = ReservationStatus.values();
+    private static final Source[] SOURCES = Source.values();
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final boolean syncCommit;
+    private final Counter recordCounter;
+    private final Counter fsyncCounter;
+    private final Thread flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushRequested = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    // Guarded by lock
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private final CRC32C checksum = new CRC32C();
+    private Segment segment;
+    private long lastSequence;
+    private long durableSequence;
+    private IOException flushFailure;
+    private boolean closed;
+
+    public ReservationJournal(MeterRegistry meterRegistry,
+            @Value("${reservation.journal.directory:journal}") Path directory,
+            @Value("${reservation.journal.segment-size:64MB}") DataSize segmentSize,
+            @Value("${reservation.journal.flush-interval:10ms}") Duration flushInterval,
+            @Value("${reservation.journal.sync-commit:false}") boolean syncCommit) throws IOException {
+        if (segmentSize.toBytes() < HEADER_SIZE + RECORD_SIZE || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("reservation.journal.segment-size out of range: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.syncCommit = syncCommit;
+        this.recordCounter = Counter.builder("reservation.journal.records")
+                .description("Transition records appended to the journal")
+                .register(meterRegistry);
+        this.fsyncCounter = Counter.builder("reservation.journal.fsyncs")
+                .description("Journal flushes to disk, each covering one or more records")
+                .register(meterRegistry);
+
+        recover();
+        this.flusher = new Thread(this::flushLoop, "reservation-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Journals committed transitions only; also applied when published outside a transaction (reactive profile)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationStateChanged(ReservationStateChangedEvent event) {
+        if (ReservationIds.pack(event.getReservationId()) == 0) {
+            logger.warn("Not journaling reservation {}: ID is not 8 ASCII characters", event.getReservationId());
+            return;
+        }
+        try {
+            append(event.getReservationId(), event.getPreviousStatus(), event.getStatus(),
+                    minorUnits(event.getAmountReceived()) - minorUnits(event.getPreviousAmountReceived()),
+                    JournalRecord.sourceOf(event));
+        } catch (RuntimeException e) {
+            // The transition is committed either way; the journal must not fail the caller
+            logger.error("Could not journal transition of reservation {}: {}", event.getReservationId(),
+                    e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Append a transition record
+     *
+     * @return sequence of the record
+     */
+    public long append(String reservationId, ReservationStatus previousStatus, ReservationStatus status,
+            long amountDeltaMinor, Source source) {
+        long key = ReservationIds.pack(reservationId);
+        if (key == 0) {
+            throw new IllegalArgumentException("Reservation ID cannot be journaled: " + reservationId);
+        }
+        long sequence;
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Reservation journal is closed");
+            }
+            if (segment.position + RECORD_SIZE > segment.buffer.capacity()) {
+                roll();
+            }
+            sequence = lastSequence + 1;
+            ByteBuffer record = ByteBuffer.wrap(scratch);
+            record.putLong(sequence)
+                    .putLong(System.currentTimeMillis())
+                    .putLong(key)
+                    .putLong(amountDeltaMinor)
+                    .put((byte) (previousStatus == null ? 0 : previousStatus.ordinal() + 1))
+                    .put((byte) (status.ordinal() + 1))
+                    .put((byte) source.ordinal())
+                    .put((byte) 0);
+            checksum.reset();
+            checksum.update(scratch, 0, CHECKSUMMED_SIZE);
+            record.putInt((int) checksum.getValue());
+            segment.buffer.put(segment.position, scratch);
+            segment.position += RECORD_SIZE;
+            lastSequence = sequence;
+            if (syncCommit) {
+                flushRequested.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+        recordCounter.increment();
+        if (syncCommit) {
+            awaitDurable(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Block until every record up to {@code sequence} has been forced to disk
+     */
+    public void awaitDurable(long sequence) {
+        lock.lock();
+        try {
+            while (durableSequence < sequence) {
+                if (flushFailure != null) {
+                    throw new UncheckedIOException("Journal flush failed", flushFailure);
+                }
+                flushRequested.signal();
+                flushed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sequence of the last appended record, 0 when the journal is empty
+     */
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Feed the records from {@code fromSequence} up to the last appended one, in order, to the consumer
+     *
+     * @return number of records replayed
+     */
+    public long replay(long fromSequence, Consumer<JournalRecord> consumer) {
+        return replay(directory, fromSequence, lastSequence(), consumer);
+    }
+
+    /**
+     * Replay a journal directory that is not open, e.g. a copy taken from a crashed instance
+     *
+     * @return number of records replayed
+     */
+    public static long replay(Path directory, long fromSequence, Consumer<JournalRecord> consumer) {
+        return replay(directory, fromSequence, Long.MAX_VALUE, consumer);
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            closed = true;
+            flushRequested.signal();
+        } finally {
+            lock.unlock();
+        }
+        flusher.join();
+        segment.buffer.force();
+        logger.info("Reservation journal closed at sequence {}", lastSequence);
+    }
+
+    private static long replay(Path directory, long fromSequence, long toSequence, Consumer<JournalRecord> consumer) {
+        List<Path> segments = segments(directory);
+        byte[] bytes = new byte[RECORD_SIZE];
+        CRC32C crc = new CRC32C();
+        long count = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            long nextFirst = i + 1 < segments.size() ? firstSequenceOf(segments.get(i + 1)) : Long.MAX_VALUE;
+            if (nextFirst <= fromSequence) {
+                continue;
+            }
+            ByteBuffer buffer = map(segments.get(i), FileChannel.MapMode.READ_ONLY, 0);
+            long sequence = Math.max(fromSequence, checkHeader(buffer, segments.get(i)));
+            long position = HEADER_SIZE + (sequence - readFirstSequence(buffer)) * RECORD_SIZE;
+            while (sequence <= toSequence && position + RECORD_SIZE <= buffer.capacity()
+                    && readRecord(buffer, (int) position, sequence, bytes, crc)) {
+                consumer.accept(decode(bytes));
+                count++;
+                sequence++;
+                position += RECORD_SIZE;
+            }
+            if (sequence > toSequence) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Open the last segment and position after its last valid record, or start the first segment
+     */
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            segment = createSegment(1);
+            return;
+        }
+        Path last = segments.get(segments.size() - 1);
+        MappedByteBuffer buffer = map(last, FileChannel.MapMode.READ_WRITE, 0);
+        if (buffer.capacity() >= HEADER_SIZE && buffer.getInt(0) == 0) {
+            // Crashed between creating the segment and writing its header
+            buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, firstSequenceOf(last));
+        }
+        long sequence = checkHeader(buffer, last);
+        int position = HEADER_SIZE;
+        byte[] bytes = new byte[RECORD_SIZE];
+        while (position + RECORD_SIZE <= buffer.capacity() && readRecord(buffer, position, sequence, bytes, checksum)) {
+            sequence++;
+            position += RECORD_SIZE;
+        }
+        segment = new Segment(buffer, position);
+        lastSequence = sequence - 1;
+        durableSequence = lastSequence;
+        logger.info("Reservation journal opened in {} at sequence {}", directory.toAbsolutePath(), lastSequence);
+    }
+
+    // Called with the lock held
+    private void roll() {
+        segment.buffer.force();
+        fsyncCounter.increment();
+        durableSequence = lastSequence;
+        flushed.signalAll();
+        try {
+            segment = createSegment(lastSequence + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start a new journal segment", e);
+        }
+    }
+
+    private Segment createSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        MappedByteBuffer buffer = map(path, FileChannel.MapMode.READ_WRITE, segmentSize);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, firstSequence);
+        buffer.force(0, HEADER_SIZE);
+        return new Segment(buffer, HEADER_SIZE);
+    }
+
+    private void flushLoop() {
+        while (true) {
+            Segment target;
+            int from;
+            int to;
+            long upTo;
+            lock.lock();
+            try {
+                if (!closed && (!syncCommit || lastSequence == durableSequence)) {
+                    flushRequested.awaitNanos(flushIntervalNanos);
+                }
+                if (lastSequence == durableSequence) {
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                target = segment;
+                from = segment.forcedPosition;
+                to = segment.position;
+                upTo = lastSequence;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException failure = null;
+            try {
+                target.buffer.force(from, to - from);
+                fsyncCounter.increment();
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+                logger.error("Journal flush failed: {}", e.getMessage(), e);
+            }
+
+            lock.lock();
+            try {
+                flushFailure = failure;
+                if (failure == null) {
+                    target.forcedPosition = Math.max(target.forcedPosition, to);
+                    durableSequence = Math.max(durableSequence, upTo);
+                }
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (failure != null) {
+                // Back off before retrying
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    private static boolean readRecord(ByteBuffer buffer, int position, long expectedSequence, byte[] bytes,
+            CRC32C crc) {
+        buffer.get(position, bytes);
+        crc.reset();
+        crc.update(bytes, 0, CHECKSUMMED_SIZE);
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        return record.getLong(0) == expectedSequence && record.getInt(CHECKSUMMED_SIZE) == (int) crc.getValue();
+    }
+
+    private static JournalRecord decode(byte[] bytes) {
+        ByteBuffer record = ByteBuffer.wrap(bytes);
+        long sequence = record.getLong();
+        Instant timestamp = Instant.ofEpochMilli(record.getLong());
+        String reservationId = ReservationIds.unpack(record.getLong());
+        Money amountDelta = Money.ofMinor(record.getLong());
+        int previous = record.get();
+        ReservationStatus status = STATUSES[record.get() - 1];
+        Source source = SOURCES[record.get()];
+        return new JournalRecord(sequence, timestamp, reservationId,
+                previous == 0 ? null : STATUSES[previous - 1], status, amountDelta, source);
+    }
+
+    private static long checkHeader(ByteBuffer buffer, Path path) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a reservation journal segment: " + path);
+        }
+        return readFirstSequence(buffer);
+    }
+
+    private static long readFirstSequence(ByteBuffer buffer) {
+        return buffer.getLong(8);
+    }
+
+    private static List<Path> segments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        // Zero-padded names sort by first sequence
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Map a whole segment file; {@code size} 0 maps an existing file at its current size
+     */
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode, int size) {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[] {StandardOpenOption.READ}
+                : new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE};
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(mode, 0, size == 0 ? channel.size() : size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map journal segment " + path, e);
+        }
+    }
+
+    private static long minorUnits(Money amount) {
+        return amount == null ? 0 : amount.getMinorUnits();
+    }
+
+    /**
+     * Mapped segment file and the write position in it
+     */
+    private static final class Segment {
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int forcedPosition;
+
+        Segment(MappedByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+            this.forcedPosition = position;
+        }
+    }
+}
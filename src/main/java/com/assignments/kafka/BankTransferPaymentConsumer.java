@@ -1,51 +1,100 @@
 package com.assignments.kafka;
 
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
 import com.assignments.model.BankTransferPaymentEvent;
 import com.assignments.service.ReservationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+
 /**
- * Kafka consumer for bank transfer payment update events
+ * Kafka consumer for bank transfer payment update events.
+ *
+ * Failed events are not retried in place: they are forwarded to retry topics
+ * (bank-transfer-payment-update-retry-0, -retry-1, ...) with exponential backoff and,
+ * once the attempts are exhausted, to bank-transfer-payment-update-dlt.
+ * The main topic partition keeps flowing while an event waits for its next attempt.
+ * Consumption pauses while the database is saturated, see {@link ConsumerBackpressure}.
  */
 @Component
 public class BankTransferPaymentConsumer {
 
     private static final Logger logger = LoggerFactory.getLogger(BankTransferPaymentConsumer.class);
 
+    /**
+     * Listener ID; the retry and dead-letter topic containers get suffixed IDs
+     */
+    public static final String LISTENER_ID = "bankTransferPayments";
+
     private final ReservationService reservationService;
+    private final ConsumerBackpressure consumerBackpressure;
+    private final ShardRouter shardRouter;
 
-    public BankTransferPaymentConsumer(ReservationService reservationService) {
+    public BankTransferPaymentConsumer(ReservationService reservationService,
+            ConsumerBackpressure consumerBackpressure, ShardRouter shardRouter) {
         this.reservationService = reservationService;
+        this.consumerBackpressure = consumerBackpressure;
+        this.shardRouter = shardRouter;
     }
 
     /**
      * Listen to bank-transfer-payment-update topic and process payment events
      */
-    @KafkaListener(topics = "${kafka.topic.bank-transfer-payment:bank-transfer-payment-update}", groupId = "${kafka.consumer.group-id:room-reservation-service}", containerFactory = "kafkaListenerContainerFactory")
+    @RetryableTopic(
+            attempts = "${kafka.retry.attempts:4}",
+            backoff = @Backoff(
+                    delayExpression = "${kafka.retry.backoff.delay-ms:1000}",
+                    multiplierExpression = "${kafka.retry.backoff.multiplier:2}",
+                    maxDelayExpression = "${kafka.retry.backoff.max-delay-ms:30000}"),
+            topicSuffixingStrategy = TopicSuffixingStrategy.SUFFIX_WITH_INDEX_VALUE,
+            autoCreateTopics = "${kafka.retry.auto-create-topics:true}",
+            kafkaTemplate = "kafkaTemplate")
+    @KafkaListener(id = LISTENER_ID, idIsGroup = false, topics = "${kafka.topic.bank-transfer-payment:bank-transfer-payment-update}", groupId = "${kafka.consumer.group-id:room-reservation-service}", containerFactory = "kafkaListenerContainerFactory")
     public void consumePaymentUpdate(BankTransferPaymentEvent event) {
-        logger.info("Received bank transfer payment event: {}", event);
-
-        try {
-            // Extract reservation ID from transaction description
-            String reservationId = event.extractReservationId();
+        logger.info("Received bank transfer payment event: {}", event.getPaymentId());
+        logger.debug("Bank transfer payment event details: {}", event);
 
-            if (reservationId == null || reservationId.isEmpty()) {
-                logger.warn("Could not extract reservation ID from transaction description: {}",
-                        event.getTransactionDescription());
-                return;
-            }
+        // Extract reservation ID from transaction description
+        String reservationId = event.extractReservationId();
 
-            logger.info("Processing payment for reservation: {}, amount: {}",
-                    reservationId, event.getAmountReceived());
+        if (reservationId == null || reservationId.isEmpty()) {
+            logger.warn("Could not extract reservation ID from transaction description: {}",
+                    event.getTransactionDescription());
+            return;
+        }
 
-            // Process the payment
-            reservationService.processBankTransferPayment(reservationId, event.getAmountReceived());
+        logger.info("Processing payment for reservation: {}, amount: {}",
+                reservationId, event.getAmountReceived());
 
-        } catch (Exception e) {
-            logger.error("Error processing bank transfer payment event: {}", e.getMessage(), e);
+        // Process the payment on the shard named by the ID's prefix; failures propagate so the
+        // event goes to the retry topics
+        long started = System.nanoTime();
+        try {
+            ShardContext.run(shardRouter.shardOfReservation(reservationId),
+                    () -> reservationService.processBankTransferPayment(reservationId, event.getAmountReceived()));
+        } finally {
+            consumerBackpressure.recordProcessing(System.nanoTime() - started);
         }
     }
+
+    /**
+     * Events that failed every attempt. They stay on the dead-letter topic until
+     * replayed through {@link DeadLetterReplayer}.
+     */
+    @DltHandler
+    public void handleDeadLetter(BankTransferPaymentEvent event,
+            @Header(name = KafkaHeaders.EXCEPTION_MESSAGE, required = false) byte[] error) {
+        logger.error("Bank transfer payment event {} moved to dead-letter topic: {}", event.getPaymentId(),
+                error == null ? null : new String(error, StandardCharsets.UTF_8));
+    }
 }
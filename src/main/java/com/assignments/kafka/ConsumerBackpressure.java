@@ -0,0 +1,158 @@
+package com.assignments.kafka;
+
+import com.assignments.config.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pauses the bank transfer payment listener containers while the database is saturated
+ * and resumes them once it has recovered.
+ *
+ * The database counts as saturated when more than {@code max-pending-connections}
+ * threads wait for a connection from one read-write Hikari pool (the primary one or,
+ * when sharding is enabled, any shard's), or when the average processing time of the
+ * records handled since the last check exceeds {@code max-processing-latency}. A paused container keeps polling: this keeps
+ * heartbeats and max.poll.interval.ms satisfied, but no records are fetched for its
+ * assigned partitions, so the consumer group does not rebalance. The containers
+ * resume after at least {@code min-pause}, once both signals are below half their
+ * threshold. The dead-letter container is never paused, because it does not use the
+ * database.
+ */
+@Component
+public class ConsumerBackpressure {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsumerBackpressure.class);
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final List<HikariDataSource> pools;
+    private final boolean enabled;
+    private final int maxPendingConnections;
+    private final long maxLatencyNanos;
+    private final long minPauseNanos;
+
+    private final LongAdder processedNanos = new LongAdder();
+    private final LongAdder processedRecords = new LongAdder();
+    private final Counter pausedForConnections;
+    private final Counter pausedForLatency;
+
+    private volatile boolean paused;
+    private long pausedAt;
+
+    public ConsumerBackpressure(KafkaListenerEndpointRegistry listenerRegistry,
+            ObjectProvider<HikariDataSource> dataSources, ObjectProvider<ShardRoutingDataSource> shardRouting,
+            MeterRegistry meterRegistry,
+            @Value("${kafka.backpressure.enabled:true}") boolean enabled,
+            @Value("${kafka.backpressure.max-pending-connections:2}") int maxPendingConnections,
+            @Value("${kafka.backpressure.max-processing-latency:2s}") Duration maxProcessingLatency,
+            @Value("${kafka.backpressure.min-pause:5s}") Duration minPause) {
+        this.listenerRegistry = listenerRegistry;
+        // The consumer writes, so only the read-write pools matter (not the read replica)
+        List<HikariDataSource> writePools = new ArrayList<>();
+        dataSources.orderedStream().filter(dataSource -> !dataSource.isReadOnly()).forEach(writePools::add);
+        shardRouting.ifAvailable(routing -> writePools.addAll(routing.shardPools()));
+        this.pools = List.copyOf(writePools);
+        this.enabled = enabled;
+        this.maxPendingConnections = maxPendingConnections;
+        this.maxLatencyNanos = maxProcessingLatency.toNanos();
+        this.minPauseNanos = minPause.toNanos();
+        Gauge.builder("kafka.consumer.backpressure.paused", this, backpressure -> backpressure.paused ? 1 : 0)
+                .description("1 while the bank transfer payment listener is paused for database saturation")
+                .register(meterRegistry);
+        this.pausedForConnections = Counter.builder("kafka.consumer.backpressure.pauses")
+                .tag("reason", "pending-connections")
+                .register(meterRegistry);
+        this.pausedForLatency = Counter.builder("kafka.consumer.backpressure.pauses")
+                .tag("reason", "processing-latency")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record the time spent processing one record
+     */
+    public void recordProcessing(long nanos) {
+        processedNanos.add(nanos);
+        processedRecords.increment();
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.backpressure.check-interval:PT0.5S}")
+    public synchronized void check() {
+        if (!enabled) {
+            return;
+        }
+        int pending = pendingConnections();
+        long records = processedRecords.sumThenReset();
+        long latency = records == 0 ? 0 : processedNanos.sumThenReset() / records;
+
+        if (!paused) {
+            boolean tooManyPending = pending > maxPendingConnections;
+            if (tooManyPending || latency > maxLatencyNanos) {
+                (tooManyPending ? pausedForConnections : pausedForLatency).increment();
+                logger.warn("Pausing bank transfer payment consumption: {} threads waiting for a connection, "
+                        + "average processing time {} ms", pending, latency / 1_000_000);
+                setPaused(true);
+                pausedAt = System.nanoTime();
+            }
+        } else if (System.nanoTime() - pausedAt >= minPauseNanos
+                && pending * 2 <= maxPendingConnections && latency * 2 <= maxLatencyNanos) {
+            logger.info("Resuming bank transfer payment consumption: {} threads waiting for a connection", pending);
+            setPaused(false);
+        }
+    }
+
+    /**
+     * Threads waiting on the busiest pool: a payment only touches its reservation's shard,
+     * so one saturated shard is enough to hold the consumer back
+     */
+    private int pendingConnections() {
+        int pending = 0;
+        for (HikariDataSource pool : pools) {
+            HikariPoolMXBean poolBean = pool.getHikariPoolMXBean();
+            if (poolBean != null) {
+                pending = Math.max(pending, poolBean.getThreadsAwaitingConnection());
+            }
+        }
+        return pending;
+    }
+
+    private void setPaused(boolean pause) {
+        for (MessageListenerContainer container : containers()) {
+            if (pause) {
+                container.pause();
+            } else {
+                container.resume();
+            }
+        }
+        paused = pause;
+    }
+
+    /**
+     * The main and retry topic containers of the bank transfer payment listener
+     */
+    private List<MessageListenerContainer> containers() {
+        return listenerRegistry.getAllListenerContainers().stream()
+                .filter(container -> container.getListenerId() != null
+                        && container.getListenerId().startsWith(BankTransferPaymentConsumer.LISTENER_ID)
+                        && !container.getListenerId().endsWith("-dlt"))
+                .toList();
+    }
+}
@@ -0,0 +1,150 @@
+package com.assignments.kafka;
+
+import com.assignments.model.BankTransferPaymentEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Pushes bank transfer payment events from the dead-letter topic back to the main topic.
+ *
+ * Reads the dead-letter topic with its own consumer group up to the end offsets seen
+ * when the replay starts, republishes each batch and commits it once the sends are
+ * acknowledged, so a replay never pushes the same dead letter twice.
+ * Exposed as the actuator write operation POST /actuator/dltreplay once added to
+ * management.endpoints.web.exposure.include (not exposed by default).
+ */
+@Component
+@Endpoint(id = "dltreplay")
+public class DeadLetterReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayer.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1);
+    private static final long SEND_TIMEOUT_SECONDS = 30;
+
+    private final ConsumerFactory<String, BankTransferPaymentEvent> consumerFactory;
+    private final KafkaTemplate<String, BankTransferPaymentEvent> kafkaTemplate;
+    private final String topic;
+    private final String deadLetterTopic;
+    private final String replayGroupId;
+    private final int batchSize;
+
+    public DeadLetterReplayer(ConsumerFactory<String, BankTransferPaymentEvent> consumerFactory,
+            KafkaTemplate<String, BankTransferPaymentEvent> kafkaTemplate,
+            @Value("${kafka.topic.bank-transfer-payment:bank-transfer-payment-update}") String topic,
+            @Value("${kafka.consumer.group-id:room-reservation-service}") String groupId,
+            @Value("${kafka.dlt.replay.batch-size:500}") int batchSize) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.deadLetterTopic = topic + "-dlt";
+        this.replayGroupId = groupId + "-dlt-replay";
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Replay dead letters to the main topic
+     *
+     * @param maxRecords upper bound of records to replay, all pending records when null
+     */
+    @WriteOperation
+    public ReplayResult replay(@Nullable Integer maxRecords) {
+        long limit = maxRecords == null || maxRecords <= 0 ? Long.MAX_VALUE : maxRecords;
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        overrides.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(batchSize));
+
+        try (Consumer<String, BankTransferPaymentEvent> consumer =
+                consumerFactory.createConsumer(replayGroupId, null, null, overrides)) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(deadLetterTopic);
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                logger.info("Dead-letter topic {} has no partitions, nothing to replay", deadLetterTopic);
+                return new ReplayResult(0, 0);
+            }
+            List<TopicPartition> partitions = partitionInfos.stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+
+            long replayed = 0;
+            while (replayed < limit && !caughtUp(consumer, endOffsets)) {
+                List<CompletableFuture<?>> sends = new ArrayList<>();
+                Map<TopicPartition, OffsetAndMetadata> processed = new HashMap<>();
+                for (ConsumerRecord<String, BankTransferPaymentEvent> record : consumer.poll(POLL_TIMEOUT)) {
+                    TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                    if (replayed >= limit || record.offset() >= endOffsets.get(partition)) {
+                        continue;
+                    }
+                    if (record.value() != null) {
+                        sends.add(kafkaTemplate.send(topic, record.key(), record.value()));
+                        replayed++;
+                    }
+                    processed.put(partition, new OffsetAndMetadata(record.offset() + 1));
+                }
+                awaitSends(sends);
+                if (!processed.isEmpty()) {
+                    consumer.commitSync(processed);
+                }
+            }
+
+            long remaining = 0;
+            Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(endOffsets.keySet());
+            for (Map.Entry<TopicPartition, Long> end : endOffsets.entrySet()) {
+                OffsetAndMetadata offset = committed.get(end.getKey());
+                remaining += end.getValue() - (offset == null ? 0 : offset.offset());
+            }
+            logger.info("Replayed {} dead-letter events from {} to {}, {} left", replayed, deadLetterTopic, topic,
+                    remaining);
+            return new ReplayResult(replayed, remaining);
+        }
+    }
+
+    private static boolean caughtUp(Consumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream()
+                .allMatch(end -> consumer.position(end.getKey()) >= end.getValue());
+    }
+
+    private void awaitSends(List<CompletableFuture<?>> sends) {
+        kafkaTemplate.flush();
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(SEND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dead-letter replay interrupted", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Could not republish dead-letter events to " + topic, e);
+        }
+    }
+
+    /**
+     * Outcome of a replay: events republished and dead letters still pending
+     */
+    public record ReplayResult(long replayed, long remaining) {
+    }
+}
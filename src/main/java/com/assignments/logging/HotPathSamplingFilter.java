@@ -0,0 +1,114 @@
+package com.assignments.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback turbo filter that rate-limits INFO/DEBUG/TRACE events of hot-path loggers.
+ * Each configured logger prefix gets its own one-second window of permits; events
+ * beyond the limit are denied before any message formatting happens.
+ * WARN and ERROR events are never sampled. Events below the logger's level and
+ * {@code isXxxEnabled()} probes (no format) are left to logback and use no permit.
+ */
+public class HotPathSamplingFilter extends TurboFilter {
+
+    private static final Window UNSAMPLED = new Window();
+
+    private final List<String> prefixes = new ArrayList<>();
+    // Built once in start(), read-only afterwards
+    private Map<String, Window> windowsByPrefix = Map.of();
+    private final ConcurrentMap<String, Window> windowsByLogger = new ConcurrentHashMap<>();
+    private final AtomicLong suppressed = new AtomicLong();
+    private int permitsPerSecond = 20;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+            Throwable t) {
+        if (level == null || level.isGreaterOrEqual(Level.WARN) || !isStarted()) {
+            return FilterReply.NEUTRAL;
+        }
+        // Disabled levels and enabled-checks would otherwise use up the permits of events that get written
+        if (format == null || !level.isGreaterOrEqual(logger.getEffectiveLevel())) {
+            return FilterReply.NEUTRAL;
+        }
+        Window window = windowsByLogger.computeIfAbsent(logger.getName(), this::resolveWindow);
+        if (window == UNSAMPLED || window.tryAcquire(permitsPerSecond, System.nanoTime())) {
+            return FilterReply.NEUTRAL;
+        }
+        suppressed.incrementAndGet();
+        return FilterReply.DENY;
+    }
+
+    private Window resolveWindow(String loggerName) {
+        for (Map.Entry<String, Window> entry : windowsByPrefix.entrySet()) {
+            if (loggerName.startsWith(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return UNSAMPLED;
+    }
+
+    @Override
+    public void start() {
+        Map<String, Window> windows = new LinkedHashMap<>();
+        for (String prefix : prefixes) {
+            windows.putIfAbsent(prefix, new Window());
+        }
+        windowsByPrefix = windows;
+        windowsByLogger.clear();
+        super.start();
+    }
+
+    /**
+     * Comma separated logger name prefixes to sample
+     */
+    public void setLoggers(String loggers) {
+        prefixes.clear();
+        windowsByLogger.clear();
+        for (String prefix : loggers.split(",")) {
+            if (!prefix.isBlank()) {
+                prefixes.add(prefix.trim());
+            }
+        }
+    }
+
+    public void setPermitsPerSecond(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Number of events denied since start
+     */
+    public long getSuppressedCount() {
+        return suppressed.get();
+    }
+
+    /**
+     * Fixed one-second window shared by all loggers under one prefix
+     */
+    private static final class Window {
+        private static final long WINDOW_NANOS = 1_000_000_000L;
+
+        private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+        private final AtomicLong used = new AtomicLong();
+
+        boolean tryAcquire(int permits, long now) {
+            long start = windowStart.get();
+            if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+                used.set(0);
+            }
+            return used.incrementAndGet() <= permits;
+        }
+    }
+}
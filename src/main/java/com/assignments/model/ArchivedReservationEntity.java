@@ -0,0 +1,102 @@
+package com.assignments.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDate;
+
+/**
+ * A finished reservation moved out of the hot {@code reservations} table by the archival job.
+ * Same columns as {@link ReservationEntity} plus the day it was archived; rows are never updated.
+ */
+@Entity
+@Immutable
+@Table(name = "reservations_archive")
+public class ArchivedReservationEntity {
+
+    @Id
+    @Type(ReservationIdType.class)
+    private String reservationId;
+
+    @Column(nullable = false)
+    @ColumnDefault("'" + ReservationEntity.DEFAULT_PROPERTY_ID + "'")
+    private String propertyId;
+
+    @Column(nullable = false)
+    private String customerName;
+
+    @Column(nullable = false)
+    private String roomNumber;
+
+    @Column(nullable = false)
+    private LocalDate startDate;
+
+    @Column(nullable = false)
+    private LocalDate endDate;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ReservationEntity.RoomSegment roomSegment;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ReservationEntity.ModeOfPayment modeOfPayment;
+
+    private String paymentReference;
+
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ReservationEntity.ReservationStatus status;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = Money.SCALE)
+    private Money totalAmount;
+
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = Money.SCALE)
+    private Money amountReceived;
+
+    @Column(nullable = false)
+    private LocalDate archivedOn;
+
+    protected ArchivedReservationEntity() {
+    }
+
+    /**
+     * Detached copy as a regular reservation, for callers that read both tables alike
+     */
+    public ReservationEntity toReservation() {
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setReservationId(reservationId);
+        reservation.setPropertyId(propertyId);
+        reservation.setCustomerName(customerName);
+        reservation.setRoomNumber(roomNumber);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(endDate);
+        reservation.setRoomSegment(roomSegment);
+        reservation.setModeOfPayment(modeOfPayment);
+        reservation.setPaymentReference(paymentReference);
+        reservation.setStatus(status);
+        reservation.setTotalAmount(totalAmount);
+        reservation.setAmountReceived(amountReceived);
+        return reservation;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public ReservationEntity.ReservationStatus getStatus() {
+        return status;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public LocalDate getArchivedOn() {
+        return archivedOn;
+    }
+}
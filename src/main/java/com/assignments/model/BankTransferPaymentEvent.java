@@ -1,7 +1,5 @@
 package com.assignments.model;
 
-import java.math.BigDecimal;
-
 /**
  * Event model for bank transfer payment updates from Kafka topic
  */
@@ -9,14 +7,14 @@ public class BankTransferPaymentEvent {
 
     private String paymentId;
     private String debtorAccountNumber;
-    private BigDecimal amountReceived;
+    private Money amountReceived;
     private String transactionDescription;
 
     public BankTransferPaymentEvent() {
     }
 
     public BankTransferPaymentEvent(String paymentId, String debtorAccountNumber,
-            BigDecimal amountReceived, String transactionDescription) {
+            Money amountReceived, String transactionDescription) {
         this.paymentId = paymentId;
         this.debtorAccountNumber = debtorAccountNumber;
         this.amountReceived = amountReceived;
@@ -53,11 +51,11 @@ public class BankTransferPaymentEvent {
         this.debtorAccountNumber = debtorAccountNumber;
     }
 
-    public BigDecimal getAmountReceived() {
+    public Money getAmountReceived() {
         return amountReceived;
     }
 
-    public void setAmountReceived(BigDecimal amountReceived) {
+    public void setAmountReceived(Money amountReceived) {
         this.amountReceived = amountReceived;
     }
 
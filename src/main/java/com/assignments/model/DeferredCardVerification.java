@@ -0,0 +1,81 @@
+package com.assignments.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Type;
+
+import java.time.Instant;
+
+/**
+ * Credit card payment reference waiting to be verified for a reservation accepted while
+ * the payment provider's circuit breaker was open. Written in the same transaction as the
+ * reservation, so the queue survives restarts and never holds a reference without its booking.
+ */
+@Entity
+@Table(name = "deferred_card_verifications")
+public class DeferredCardVerification {
+
+    @Id
+    @Type(ReservationIdType.class)
+    private String reservationId;
+
+    @Column(nullable = false)
+    private String paymentReference;
+
+    @Column(nullable = false)
+    private Instant enqueuedAt;
+
+    @Column(nullable = false)
+    private Instant nextAttemptAt;
+
+    private int attempts;
+
+    public DeferredCardVerification() {
+    }
+
+    public DeferredCardVerification(String reservationId, String paymentReference, Instant enqueuedAt) {
+        this.reservationId = reservationId;
+        this.paymentReference = paymentReference;
+        this.enqueuedAt = enqueuedAt;
+        this.nextAttemptAt = enqueuedAt;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public void setReservationId(String reservationId) {
+        this.reservationId = reservationId;
+    }
+
+    public String getPaymentReference() {
+        return paymentReference;
+    }
+
+    public void setPaymentReference(String paymentReference) {
+        this.paymentReference = paymentReference;
+    }
+
+    public Instant getEnqueuedAt() {
+        return enqueuedAt;
+    }
+
+    public void setEnqueuedAt(Instant enqueuedAt) {
+        this.enqueuedAt = enqueuedAt;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+}
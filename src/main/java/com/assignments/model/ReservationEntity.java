@@ -1,20 +1,31 @@
 package com.assignments.model;
 
 import jakarta.persistence.*;
-import java.math.BigDecimal;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Type;
+
 import java.time.LocalDate;
-import java.util.UUID;
 
 /**
  * JPA Entity for storing reservation data
  */
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = @Index(name = "idx_reservations_start_date", columnList = "startDate, reservationId"))
 public class ReservationEntity {
 
+    /**
+     * Property of reservations made without one (and of rows written before properties existed)
+     */
+    public static final String DEFAULT_PROPERTY_ID = "default";
+
     @Id
+    @Type(ReservationIdType.class)
     private String reservationId;
 
+    @Column(nullable = false)
+    @ColumnDefault("'" + DEFAULT_PROPERTY_ID + "'")
+    private String propertyId;
+
     @Column(nullable = false)
     private String customerName;
 
@@ -41,9 +52,13 @@ public class ReservationEntity {
     @Enumerated(EnumType.STRING)
     private ReservationStatus status;
 
-    private BigDecimal totalAmount;
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = Money.SCALE)
+    private Money totalAmount;
 
-    private BigDecimal amountReceived;
+    @Convert(converter = MoneyConverter.class)
+    @Column(precision = 19, scale = Money.SCALE)
+    private Money amountReceived;
 
     public enum RoomSegment {
         SMALL, MEDIUM, LARGE, EXTRA_LARGE
@@ -59,14 +74,9 @@ public class ReservationEntity {
 
     // Constructors
     public ReservationEntity() {
-        this.reservationId = generateReservationId();
-        this.amountReceived = BigDecimal.ZERO;
-    }
-
-    private String generateReservationId() {
-        // Generate 8-character reservation ID (e.g., P4145478)
-        String uuid = UUID.randomUUID().toString().replace("-", "");
-        return "P" + uuid.substring(0, 7).toUpperCase();
+        this.reservationId = ReservationIds.generate();
+        this.propertyId = DEFAULT_PROPERTY_ID;
+        this.amountReceived = Money.ZERO;
     }
 
     // Getters and Setters
@@ -78,6 +88,14 @@ public class ReservationEntity {
         this.reservationId = reservationId;
     }
 
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+
     public String getCustomerName() {
         return customerName;
     }
@@ -142,19 +160,19 @@ public class ReservationEntity {
         this.status = status;
     }
 
-    public BigDecimal getTotalAmount() {
+    public Money getTotalAmount() {
         return totalAmount;
     }
 
-    public void setTotalAmount(BigDecimal totalAmount) {
+    public void setTotalAmount(Money totalAmount) {
         this.totalAmount = totalAmount;
     }
 
-    public BigDecimal getAmountReceived() {
+    public Money getAmountReceived() {
         return amountReceived;
     }
 
-    public void setAmountReceived(BigDecimal amountReceived) {
+    public void setAmountReceived(Money amountReceived) {
         this.amountReceived = amountReceived;
     }
 }
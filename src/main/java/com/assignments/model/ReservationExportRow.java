@@ -0,0 +1,22 @@
+package com.assignments.model;
+
+import java.time.LocalDate;
+
+/**
+ * One reservation as written to an export. Selected with a constructor expression,
+ * so rows are never managed by the persistence context.
+ */
+public record ReservationExportRow(
+        String reservationId,
+        String propertyId,
+        String customerName,
+        String roomNumber,
+        ReservationEntity.RoomSegment roomSegment,
+        LocalDate startDate,
+        LocalDate endDate,
+        ReservationEntity.ModeOfPayment modeOfPayment,
+        String paymentReference,
+        ReservationEntity.ReservationStatus status,
+        Money totalAmount,
+        Money amountReceived) {
+}
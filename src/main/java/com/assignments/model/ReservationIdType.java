@@ -0,0 +1,114 @@
+package com.assignments.model;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.type.spi.TypeConfiguration;
+import org.hibernate.type.spi.TypeConfigurationAware;
+import org.hibernate.usertype.UserType;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Objects;
+
+/**
+ * Column mapping of reservation IDs, selected with {@code reservation.id-storage}:
+ * VARCHAR stores the 8-character form as is, BIGINT stores it packed into a long
+ * ({@link ReservationIds}), which halves the key size of the primary key index.
+ * Entities and the API always see the string form.
+ *
+ * The mode is read from the Hibernate setting {@value #STORAGE_SETTING}, which
+ * application.properties fills from reservation.id-storage.
+ */
+public class ReservationIdType implements UserType<String>, TypeConfigurationAware {
+
+    public static final String STORAGE_SETTING = "reservation.id_storage";
+
+    public enum Storage {
+        VARCHAR, BIGINT
+    }
+
+    private TypeConfiguration typeConfiguration;
+    private Storage storage = Storage.VARCHAR;
+
+    @Override
+    public TypeConfiguration getTypeConfiguration() {
+        return typeConfiguration;
+    }
+
+    @Override
+    public void setTypeConfiguration(TypeConfiguration typeConfiguration) {
+        this.typeConfiguration = typeConfiguration;
+        String setting = typeConfiguration.getServiceRegistry().getService(ConfigurationService.class)
+                .getSetting(STORAGE_SETTING, String.class, Storage.VARCHAR.name());
+        this.storage = Storage.valueOf(setting.trim().toUpperCase());
+    }
+
+    @Override
+    public int getSqlType() {
+        return storage == Storage.BIGINT ? Types.BIGINT : Types.VARCHAR;
+    }
+
+    @Override
+    public Class<String> returnedClass() {
+        return String.class;
+    }
+
+    @Override
+    public boolean equals(String x, String y) {
+        return Objects.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(String x) {
+        return Objects.hashCode(x);
+    }
+
+    @Override
+    public String nullSafeGet(ResultSet rs, int position, SharedSessionContractImplementor session, Object owner)
+            throws SQLException {
+        if (storage == Storage.VARCHAR) {
+            return rs.getString(position);
+        }
+        long packed = rs.getLong(position);
+        return rs.wasNull() ? null : ReservationIds.unpack(packed);
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, String value, int index, SharedSessionContractImplementor session)
+            throws SQLException {
+        if (value == null) {
+            st.setNull(index, getSqlType());
+        } else if (storage == Storage.VARCHAR) {
+            st.setString(index, value);
+        } else {
+            long packed = ReservationIds.pack(value);
+            if (packed == 0) {
+                throw new IllegalArgumentException("Reservation ID is not 8 ASCII characters: " + value);
+            }
+            st.setLong(index, packed);
+        }
+    }
+
+    @Override
+    public String deepCopy(String value) {
+        return value;
+    }
+
+    @Override
+    public boolean isMutable() {
+        return false;
+    }
+
+    @Override
+    public Serializable disassemble(String value) {
+        return value;
+    }
+
+    @Override
+    public String assemble(Serializable cached, Object owner) {
+        return (String) cached;
+    }
+}
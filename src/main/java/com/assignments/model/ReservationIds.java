@@ -0,0 +1,57 @@
+package com.assignments.model;
+
+import java.util.UUID;
+
+/**
+ * Lossless encoding of 8-character ASCII reservation IDs (e.g. P4145478) into a long.
+ * The first character goes into the high byte, so packed IDs sort like the strings.
+ */
+public final class ReservationIds {
+
+    private ReservationIds() {
+    }
+
+    /**
+     * New random 8-character reservation ID (e.g. P4145478)
+     */
+    public static String generate() {
+        return generate('P');
+    }
+
+    /**
+     * New random reservation ID starting with the given prefix, which identifies the
+     * shard holding the reservation
+     */
+    public static String generate(char prefix) {
+        String uuid = UUID.randomUUID().toString().replace("-", "");
+        return prefix + uuid.substring(0, 7).toUpperCase();
+    }
+
+    /**
+     * Pack an ID into a long, or return 0 when it is not 8 ASCII characters
+     * (0 is never a valid packed ID)
+     */
+    public static long pack(String reservationId) {
+        if (reservationId == null || reservationId.length() != Long.BYTES) {
+            return 0;
+        }
+        long packed = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            char c = reservationId.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                return 0;
+            }
+            packed = (packed << 8) | c;
+        }
+        return packed;
+    }
+
+    public static String unpack(long packed) {
+        char[] chars = new char[Long.BYTES];
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            chars[i] = (char) (packed & 0x7F);
+            packed >>>= 8;
+        }
+        return new String(chars);
+    }
+}
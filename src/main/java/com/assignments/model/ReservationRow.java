@@ -0,0 +1,120 @@
+package com.assignments.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * R2DBC mapping of the reservations table used by the reactive profile.
+ * The schema is owned by the JPA {@link ReservationEntity}; column names follow
+ * the same snake_case naming.
+ */
+@Table("reservations")
+public class ReservationRow implements Persistable<String> {
+
+    @Id
+    private String reservationId;
+    private String propertyId;
+    private String customerName;
+    private String roomNumber;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private ReservationEntity.RoomSegment roomSegment;
+    private ReservationEntity.ModeOfPayment modeOfPayment;
+    private String paymentReference;
+    private ReservationEntity.ReservationStatus status;
+    private BigDecimal totalAmount;
+    private BigDecimal amountReceived;
+
+    // Reservation IDs are assigned by the application, so the row cannot tell insert from update by itself
+    @Transient
+    private boolean newRow;
+
+    /**
+     * Row to insert for a reservation that has not been stored yet
+     */
+    public static ReservationRow newRow(ReservationEntity reservation) {
+        ReservationRow row = new ReservationRow();
+        row.reservationId = reservation.getReservationId();
+        row.propertyId = reservation.getPropertyId();
+        row.customerName = reservation.getCustomerName();
+        row.roomNumber = reservation.getRoomNumber();
+        row.startDate = reservation.getStartDate();
+        row.endDate = reservation.getEndDate();
+        row.roomSegment = reservation.getRoomSegment();
+        row.modeOfPayment = reservation.getModeOfPayment();
+        row.paymentReference = reservation.getPaymentReference();
+        row.status = reservation.getStatus();
+        row.totalAmount = toColumn(reservation.getTotalAmount());
+        row.amountReceived = toColumn(reservation.getAmountReceived());
+        row.newRow = true;
+        return row;
+    }
+
+    // No R2DBC converter for Money: the row holds the column values as they are stored
+    private static BigDecimal toColumn(Money amount) {
+        return amount == null ? null : amount.toBigDecimal();
+    }
+
+    @Override
+    public String getId() {
+        return reservationId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRow;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getRoomNumber() {
+        return roomNumber;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public ReservationEntity.RoomSegment getRoomSegment() {
+        return roomSegment;
+    }
+
+    public ReservationEntity.ModeOfPayment getModeOfPayment() {
+        return modeOfPayment;
+    }
+
+    public String getPaymentReference() {
+        return paymentReference;
+    }
+
+    public ReservationEntity.ReservationStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public BigDecimal getAmountReceived() {
+        return amountReceived;
+    }
+}
@@ -0,0 +1,117 @@
+package com.assignments.model;
+
+import java.time.LocalDate;
+
+/**
+ * Application event published whenever a reservation is created or its status or
+ * received amount changes. Carries a snapshot of the reservation after the change
+ * plus the previous status and amount, so listeners can maintain derived state
+ * incrementally.
+ */
+public class ReservationStateChangedEvent {
+
+    private final String reservationId;
+    private final String propertyId;
+    private final String customerName;
+    private final String roomNumber;
+    private final ReservationEntity.RoomSegment roomSegment;
+    private final ReservationEntity.ModeOfPayment modeOfPayment;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final ReservationEntity.ReservationStatus previousStatus;
+    private final ReservationEntity.ReservationStatus status;
+    private final Money totalAmount;
+    private final Money previousAmountReceived;
+    private final Money amountReceived;
+
+    public ReservationStateChangedEvent(ReservationEntity reservation,
+            ReservationEntity.ReservationStatus previousStatus, Money previousAmountReceived) {
+        this.reservationId = reservation.getReservationId();
+        this.propertyId = reservation.getPropertyId();
+        this.customerName = reservation.getCustomerName();
+        this.roomNumber = reservation.getRoomNumber();
+        this.roomSegment = reservation.getRoomSegment();
+        this.modeOfPayment = reservation.getModeOfPayment();
+        this.startDate = reservation.getStartDate();
+        this.endDate = reservation.getEndDate();
+        this.previousStatus = previousStatus;
+        this.status = reservation.getStatus();
+        this.totalAmount = reservation.getTotalAmount();
+        this.previousAmountReceived = previousAmountReceived;
+        this.amountReceived = reservation.getAmountReceived();
+    }
+
+    /**
+     * Event for a newly created reservation
+     */
+    public static ReservationStateChangedEvent created(ReservationEntity reservation) {
+        return new ReservationStateChangedEvent(reservation, null, Money.ZERO);
+    }
+
+    public boolean isCreated() {
+        return previousStatus == null;
+    }
+
+    public String getReservationId() {
+        return reservationId;
+    }
+
+    public String getPropertyId() {
+        return propertyId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getRoomNumber() {
+        return roomNumber;
+    }
+
+    public ReservationEntity.RoomSegment getRoomSegment() {
+        return roomSegment;
+    }
+
+    public ReservationEntity.ModeOfPayment getModeOfPayment() {
+        return modeOfPayment;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public ReservationEntity.ReservationStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public ReservationEntity.ReservationStatus getStatus() {
+        return status;
+    }
+
+    public Money getTotalAmount() {
+        return totalAmount;
+    }
+
+    public Money getPreviousAmountReceived() {
+        return previousAmountReceived;
+    }
+
+    public Money getAmountReceived() {
+        return amountReceived;
+    }
+
+    @Override
+    public String toString() {
+        return "ReservationStateChangedEvent{" +
+                "reservationId='" + reservationId + '\'' +
+                ", previousStatus=" + previousStatus +
+                ", status=" + status +
+                ", previousAmountReceived=" + previousAmountReceived +
+                ", amountReceived=" + amountReceived +
+                '}';
+    }
+}
@@ -0,0 +1,9 @@
+package com.assignments.model;
+
+/**
+ * Application event published after a bulk import wrote reservations straight into the
+ * table. No {@link ReservationStateChangedEvent} is published for imported rows, so
+ * derived state is rebuilt instead.
+ */
+public record ReservationsImportedEvent(long imported) {
+}
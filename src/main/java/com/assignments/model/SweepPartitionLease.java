@@ -0,0 +1,63 @@
+package com.assignments.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Lease on one hash partition of the cancellation sweep.
+ * A node may only sweep a partition while it holds an unexpired lease on it;
+ * {@code completedRun} records the last run date the partition was fully swept.
+ */
+@Entity
+@Table(name = "sweep_partition_leases")
+public class SweepPartitionLease {
+
+    @Id
+    private Integer partitionId;
+
+    private String owner;
+
+    private Instant leaseUntil;
+
+    private LocalDate completedRun;
+
+    public SweepPartitionLease() {
+    }
+
+    public SweepPartitionLease(Integer partitionId) {
+        this.partitionId = partitionId;
+    }
+
+    public Integer getPartitionId() {
+        return partitionId;
+    }
+
+    public void setPartitionId(Integer partitionId) {
+        this.partitionId = partitionId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public Instant getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(Instant leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+
+    public LocalDate getCompletedRun() {
+        return completedRun;
+    }
+
+    public void setCompletedRun(LocalDate completedRun) {
+        this.completedRun = completedRun;
+    }
+}
@@ -0,0 +1,265 @@
+package com.assignments.projection;
+
+import com.assignments.config.ReplicaLagGuard;
+import com.assignments.config.ShardRouter;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationEntity.RoomSegment;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.model.ReservationsImportedEvent;
+import com.assignments.repository.ReservationRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Calendar index of occupied rooms: for every property, room segment and night, a
+ * Roaring bitmap of the rooms held by confirmed or pending-payment reservations.
+ *
+ * Rooms are numbered per property and segment through a dictionary seeded from the
+ * configured inventory, which every property shares; rooms seen in reservations but
+ * missing from the inventory are added to their property on the fly. Free rooms for
+ * a stay are the complement of the OR of the nightly bitmaps, so a 30-night search
+ * touches at most 30 bitmaps.
+ *
+ * Each occupied room-night also records the IDs of the reservations holding it, so
+ * a room booked twice for the same night stays occupied until both are cancelled,
+ * and applying the same state change twice is harmless. Rebuilds fill fresh
+ * calendars off to the side, replay the changes committed meanwhile and swap them in.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    private final ReservationRepository reservationRepository;
+    private final ShardRouter shardRouter;
+    private final Map<RoomSegment, List<String>> inventory = new EnumMap<>(RoomSegment.class);
+    private final Object rebuildLock = new Object();
+
+    // propertyId -> calendars of its segments, created on the property's first reservation
+    private volatile Map<String, Map<RoomSegment, SegmentCalendar>> calendars = new ConcurrentHashMap<>();
+    private List<ReservationStateChangedEvent> eventsDuringRebuild;
+
+    public AvailabilityIndex(ReservationRepository reservationRepository, ShardRouter shardRouter,
+            @Value("${reservation.inventory.small:}") List<String> smallRooms,
+            @Value("${reservation.inventory.medium:}") List<String> mediumRooms,
+            @Value("${reservation.inventory.large:}") List<String> largeRooms,
+            @Value("${reservation.inventory.extra-large:}") List<String> extraLargeRooms) {
+        this.reservationRepository = reservationRepository;
+        this.shardRouter = shardRouter;
+        inventory.put(RoomSegment.SMALL, smallRooms);
+        inventory.put(RoomSegment.MEDIUM, mediumRooms);
+        inventory.put(RoomSegment.LARGE, largeRooms);
+        inventory.put(RoomSegment.EXTRA_LARGE, extraLargeRooms);
+    }
+
+    /**
+     * Rebuild all nightly bitmaps from the active reservations in the repository
+     */
+    @EventListener({ApplicationReadyEvent.class, ReservationsImportedEvent.class})
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            eventsDuringRebuild = new ArrayList<>();
+        }
+        Map<String, Map<RoomSegment, SegmentCalendar>> rebuilt = new ConcurrentHashMap<>();
+        List<ReservationEntity> active = ReplicaLagGuard.onPrimary(() -> shardRouter.collect(
+                () -> reservationRepository.findByStatusNotAndEndDateAfter(ReservationStatus.CANCELLED,
+                        LocalDate.now().minusDays(1))));
+        for (ReservationEntity reservation : active) {
+            occupy(rebuilt, reservation.getReservationId(), reservation.getPropertyId(),
+                    reservation.getRoomSegment(), reservation.getRoomNumber(), reservation.getStartDate(),
+                    reservation.getEndDate(), true);
+        }
+        synchronized (rebuildLock) {
+            for (ReservationStateChangedEvent event : eventsDuringRebuild) {
+                apply(rebuilt, event);
+            }
+            eventsDuringRebuild = null;
+            calendars = rebuilt;
+        }
+        logger.info("Availability index rebuilt from {} active reservations", active.size());
+    }
+
+    /**
+     * Drop the bitmaps of nights that are already in the past
+     */
+    @Scheduled(cron = "${reservation.availability.evict-cron:0 45 2 * * *}")
+    public void evictPastNights() {
+        long today = LocalDate.now().toEpochDay();
+        calendars.values().forEach(segments -> segments.values().forEach(calendar -> calendar.evictBefore(today)));
+    }
+
+    // Also applied when published outside a transaction (reactive profile)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationStateChanged(ReservationStateChangedEvent event) {
+        synchronized (rebuildLock) {
+            if (eventsDuringRebuild != null) {
+                eventsDuringRebuild.add(event);
+            }
+            apply(calendars, event);
+        }
+    }
+
+    /**
+     * Rooms of the property's segment with no active reservation on any night in [startDate, endDate)
+     */
+    public List<String> findFreeRooms(String propertyId, RoomSegment segment, LocalDate startDate,
+            LocalDate endDate) {
+        Map<RoomSegment, SegmentCalendar> segments = calendars.get(propertyId);
+        // A property without reservations has its whole inventory free
+        SegmentCalendar calendar = segments == null ? new SegmentCalendar(inventory.get(segment))
+                : segments.get(segment);
+        return calendar.freeRooms(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    private Map<RoomSegment, SegmentCalendar> emptyCalendars() {
+        Map<RoomSegment, SegmentCalendar> empty = new EnumMap<>(RoomSegment.class);
+        inventory.forEach((segment, rooms) -> empty.put(segment, new SegmentCalendar(rooms)));
+        return empty;
+    }
+
+    private void apply(Map<String, Map<RoomSegment, SegmentCalendar>> target, ReservationStateChangedEvent event) {
+        // Holds are idempotent, so the current status alone decides
+        occupy(target, event.getReservationId(), event.getPropertyId(), event.getRoomSegment(),
+                event.getRoomNumber(), event.getStartDate(), event.getEndDate(),
+                event.getStatus() != ReservationStatus.CANCELLED);
+    }
+
+    private void occupy(Map<String, Map<RoomSegment, SegmentCalendar>> target, String reservationId,
+            String propertyId, RoomSegment segment, String roomNumber, LocalDate startDate, LocalDate endDate,
+            boolean occupied) {
+        if (reservationId == null || propertyId == null || segment == null || roomNumber == null
+                || startDate == null || endDate == null) {
+            return;
+        }
+        target.computeIfAbsent(propertyId, property -> emptyCalendars()).get(segment)
+                .mark(reservationId, roomNumber, startDate.toEpochDay(), endDate.toEpochDay(), occupied);
+    }
+
+    /**
+     * Room dictionary, nightly bitmaps and room-night holders of one segment.
+     * Bitmaps are not thread-safe, so access is guarded by a read/write lock.
+     */
+    private static final class SegmentCalendar {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Integer> roomIndex = new HashMap<>();
+        private final List<String> rooms = new ArrayList<>();
+        private final Map<Long, RoaringBitmap> nights = new HashMap<>();
+        // (night << 32 | room) -> IDs of the reservations holding that room-night
+        private final Map<Long, Set<String>> holders = new HashMap<>();
+
+        SegmentCalendar(List<String> inventory) {
+            for (String room : inventory) {
+                if (!room.isBlank()) {
+                    indexOf(room.trim());
+                }
+            }
+        }
+
+        void mark(String reservationId, String roomNumber, long fromDay, long toDay, boolean occupied) {
+            lock.writeLock().lock();
+            try {
+                int room = indexOf(roomNumber);
+                for (long day = fromDay; day < toDay; day++) {
+                    if (occupied) {
+                        hold(reservationId, room, day);
+                    } else {
+                        release(reservationId, room, day);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void hold(String reservationId, int room, long day) {
+            long key = day << 32 | room;
+            Set<String> current = holders.get(key);
+            if (current == null) {
+                holders.put(key, Set.of(reservationId));
+                nights.computeIfAbsent(day, night -> new RoaringBitmap()).add(room);
+            } else if (!current.contains(reservationId)) {
+                // Double bookings are rare, so the holder set is copied rather than kept mutable
+                Set<String> grown = new HashSet<>(current);
+                grown.add(reservationId);
+                holders.put(key, grown);
+            }
+        }
+
+        private void release(String reservationId, int room, long day) {
+            long key = day << 32 | room;
+            Set<String> current = holders.get(key);
+            if (current == null || !current.contains(reservationId)) {
+                return;
+            }
+            if (current.size() > 1) {
+                Set<String> shrunk = new HashSet<>(current);
+                shrunk.remove(reservationId);
+                holders.put(key, shrunk);
+                return;
+            }
+            holders.remove(key);
+            RoaringBitmap night = nights.get(day);
+            if (night != null) {
+                night.remove(room);
+            }
+        }
+
+        List<String> freeRooms(long fromDay, long toDay) {
+            lock.readLock().lock();
+            try {
+                RoaringBitmap occupied = new RoaringBitmap();
+                for (long day = fromDay; day < toDay; day++) {
+                    RoaringBitmap night = nights.get(day);
+                    if (night != null) {
+                        occupied.or(night);
+                    }
+                }
+                RoaringBitmap free = RoaringBitmap.flip(occupied, 0L, rooms.size());
+                List<String> result = new ArrayList<>(free.getCardinality());
+                free.forEach((int room) -> result.add(rooms.get(room)));
+                return result;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        void evictBefore(long day) {
+            lock.writeLock().lock();
+            try {
+                nights.keySet().removeIf(night -> night < day);
+                holders.keySet().removeIf(key -> (key >> 32) < day);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private int indexOf(String roomNumber) {
+            Integer index = roomIndex.get(roomNumber);
+            if (index == null) {
+                index = rooms.size();
+                rooms.add(roomNumber);
+                roomIndex.put(roomNumber, index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.assignments.projection;
+
+import com.assignments.config.ReplicaLagGuard;
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationEntity.RoomSegment;
+import com.assignments.model.ReservationExportRow;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.model.ReservationsImportedEvent;
+import com.assignments.repository.ArchivedReservationRepository;
+import com.assignments.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Read model of every customer's reservations, keyed by the normalized customer name,
+ * so front-desk lookups never scan the reservations table.
+ *
+ * Entries are replaced from committed reservation state changes. Listeners of two
+ * commits on the same reservation may run in either order, so an entry only moves
+ * forward: a final status is never replaced by PENDING_PAYMENT, and a pending entry
+ * only by one with at least the same amount received. Rebuilt from the reservations
+ * and the archive on boot and nightly, after the archival job, streaming unmanaged rows
+ * shard by shard; changes committed while a rebuild reads the tables are replayed onto
+ * the rebuilt map before the swap.
+ */
+@Component
+public class CustomerHistoryProjection {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomerHistoryProjection.class);
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final ReservationRepository reservationRepository;
+    private final ArchivedReservationRepository archivedReservationRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Object rebuildLock = new Object();
+
+    private volatile Map<String, Map<String, Entry>> byCustomer = new ConcurrentHashMap<>();
+    private List<ReservationStateChangedEvent> eventsDuringRebuild;
+
+    public CustomerHistoryProjection(ReservationRepository reservationRepository,
+            ArchivedReservationRepository archivedReservationRepository, ShardRouter shardRouter,
+            PlatformTransactionManager transactionManager) {
+        this.reservationRepository = reservationRepository;
+        this.archivedReservationRepository = archivedReservationRepository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Recompute the histories of all customers from the reservations and the archive
+     */
+    @EventListener({ApplicationReadyEvent.class, ReservationsImportedEvent.class})
+    @Scheduled(cron = "${reservation.customer-history.rebuild-cron:0 30 4 * * *}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            eventsDuringRebuild = new ArrayList<>();
+        }
+        Map<String, Map<String, Entry>> rebuilt = new ConcurrentHashMap<>();
+        long count = 0;
+        for (String shard : shardRouter.shards()) {
+            count += load(shard, rebuilt, reservationRepository::streamForProjection);
+            count += load(shard, rebuilt, archivedReservationRepository::streamForProjection);
+        }
+        synchronized (rebuildLock) {
+            // Entries only move forward, so replaying a change the tables already show is harmless
+            for (ReservationStateChangedEvent event : eventsDuringRebuild) {
+                put(rebuilt, Entry.of(event));
+            }
+            eventsDuringRebuild = null;
+            byCustomer = rebuilt;
+        }
+        logger.info("Customer history rebuilt from {} reservations of {} customers", count, rebuilt.size());
+    }
+
+    /**
+     * Put the rows of the cursor into the map, on the shard's primary connection
+     */
+    private long load(String shard, Map<String, Map<String, Entry>> target,
+            Supplier<Stream<ReservationExportRow>> cursor) {
+        Long loaded = ReplicaLagGuard.onPrimary(() -> ShardContext.call(shard,
+                () -> readOnlyTransaction.execute(transaction -> {
+                    long count = 0;
+                    try (Stream<ReservationExportRow> stream = cursor.get()) {
+                        Iterator<ReservationExportRow> rows = stream.iterator();
+                        while (rows.hasNext()) {
+                            put(target, Entry.of(rows.next()));
+                            count++;
+                        }
+                    }
+                    return count;
+                })));
+        return loaded == null ? 0 : loaded;
+    }
+
+    // fallbackExecution: the reactive stack publishes without a Spring-managed transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationStateChanged(ReservationStateChangedEvent event) {
+        synchronized (rebuildLock) {
+            if (eventsDuringRebuild != null) {
+                eventsDuringRebuild.add(event);
+            }
+            put(byCustomer, Entry.of(event));
+        }
+    }
+
+    /**
+     * Reservations of the customer, latest stay first; empty for an unknown customer
+     */
+    public List<Entry> history(String customerName) {
+        Map<String, Entry> entries = byCustomer.get(customerKey(customerName));
+        if (entries == null) {
+            return List.of();
+        }
+        return entries.values().stream()
+                .sorted(Comparator.comparing(Entry::startDate, Comparator.nullsLast(Comparator.reverseOrder()))
+                        .thenComparing(Entry::reservationId))
+                .toList();
+    }
+
+    /**
+     * Lower case, without accents, trimmed, inner whitespace collapsed to one space
+     */
+    public static String customerKey(String customerName) {
+        if (customerName == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(customerName, Normalizer.Form.NFKD);
+        String unaccented = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(unaccented.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    private static void put(Map<String, Map<String, Entry>> target, Entry entry) {
+        if (entry.reservationId() == null) {
+            return;
+        }
+        target.computeIfAbsent(customerKey(entry.customerName()), key -> new ConcurrentHashMap<>())
+                .merge(entry.reservationId(), entry, CustomerHistoryProjection::later);
+    }
+
+    /**
+     * The more advanced of two states of the same reservation
+     */
+    private static Entry later(Entry current, Entry update) {
+        if (update.status() == ReservationStatus.PENDING_PAYMENT) {
+            if (current.status() != ReservationStatus.PENDING_PAYMENT) {
+                return current;
+            }
+            if (update.amountReceived().isLessThan(current.amountReceived())) {
+                return current;
+            }
+        }
+        return update;
+    }
+
+    /**
+     * One reservation as listed in a customer's history
+     */
+    public record Entry(String reservationId, String propertyId, String customerName, String roomNumber,
+            RoomSegment roomSegment, LocalDate startDate, LocalDate endDate, ReservationStatus status,
+            Money totalAmount, Money amountReceived) {
+
+        public Entry {
+            totalAmount = totalAmount == null ? Money.ZERO : totalAmount;
+            amountReceived = amountReceived == null ? Money.ZERO : amountReceived;
+        }
+
+        static Entry of(ReservationExportRow row) {
+            return new Entry(row.reservationId(), row.propertyId(), row.customerName(), row.roomNumber(),
+                    row.roomSegment(), row.startDate(), row.endDate(), row.status(), row.totalAmount(),
+                    row.amountReceived());
+        }
+
+        static Entry of(ReservationStateChangedEvent event) {
+            return new Entry(event.getReservationId(), event.getPropertyId(), event.getCustomerName(),
+                    event.getRoomNumber(), event.getRoomSegment(), event.getStartDate(), event.getEndDate(),
+                    event.getStatus(), event.getTotalAmount(), event.getAmountReceived());
+        }
+
+        /**
+         * Amount still to be received, never negative
+         */
+        public Money balance() {
+            return amountReceived.isLessThan(totalAmount) ? totalAmount.minus(amountReceived) : Money.ZERO;
+        }
+    }
+}
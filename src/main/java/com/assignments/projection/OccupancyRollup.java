@@ -0,0 +1,285 @@
+package com.assignments.projection;
+
+import com.assignments.config.ReplicaLagGuard;
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationEntity.RoomSegment;
+import com.assignments.model.ReservationExportRow;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.model.ReservationsImportedEvent;
+import com.assignments.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * In-memory rollups of nightly occupancy per property and room segment and of
+ * outstanding bank transfer receivables, kept per property in primitive arrays
+ * indexed by (day, segment).
+ *
+ * Counters are updated incrementally from committed reservation state changes,
+ * so reports are answered in O(days) without touching the reservations table.
+ * The window covers {@code past-days} before and {@code future-days} after the
+ * day of the last rebuild; it is rebuilt on boot and nightly by streaming, shard by
+ * shard, only the reservations with a night in the window. Changes committed while a
+ * rebuild reads the repository are replayed onto the rebuilt window unless the rows it
+ * read already reflect them.
+ */
+@Component
+public class OccupancyRollup {
+
+    private static final Logger logger = LoggerFactory.getLogger(OccupancyRollup.class);
+    private static final int SEGMENTS = RoomSegment.values().length;
+
+    private final ReservationRepository reservationRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int pastDays;
+    private final int futureDays;
+
+    private final Object rebuildLock = new Object();
+
+    private volatile Windows windows;
+    private List<ReservationStateChangedEvent> eventsDuringRebuild;
+
+    public OccupancyRollup(ReservationRepository reservationRepository, ShardRouter shardRouter,
+            PlatformTransactionManager transactionManager,
+            @Value("${reservation.rollup.past-days:31}") int pastDays,
+            @Value("${reservation.rollup.future-days:400}") int futureDays) {
+        this.reservationRepository = reservationRepository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pastDays = pastDays;
+        this.futureDays = futureDays;
+        this.windows = new Windows(LocalDate.now().toEpochDay() - pastDays, pastDays + futureDays + 1);
+    }
+
+    /**
+     * Recompute all counters from the repository, re-centering the window on today
+     */
+    @EventListener({ApplicationReadyEvent.class, ReservationsImportedEvent.class})
+    @Scheduled(cron = "${reservation.rollup.rebuild-cron:0 30 2 * * *}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            eventsDuringRebuild = new ArrayList<>();
+        }
+        Windows rebuilt = new Windows(LocalDate.now().toEpochDay() - pastDays, pastDays + futureDays + 1);
+        LocalDate from = LocalDate.ofEpochDay(rebuilt.baseEpochDay);
+        LocalDate to = from.plusDays(rebuilt.days);
+        // Only the status and amount of each row read are kept, for the replay
+        Map<String, State> read = new HashMap<>();
+        for (String shard : shardRouter.shards()) {
+            // The cursor needs an open transaction, on the shard's primary connection
+            ReplicaLagGuard.onPrimary(() -> ShardContext.call(shard,
+                    () -> readOnlyTransaction.execute(transaction -> load(rebuilt, read, from, to))));
+        }
+        synchronized (rebuildLock) {
+            replay(rebuilt, read, eventsDuringRebuild);
+            eventsDuringRebuild = null;
+            windows = rebuilt;
+        }
+        logger.info("Occupancy rollup rebuilt from {} reservations", read.size());
+    }
+
+    private Void load(Windows rebuilt, Map<String, State> read, LocalDate from, LocalDate to) {
+        try (Stream<ReservationExportRow> stream = reservationRepository.streamStayingBetween(from, to)) {
+            Iterator<ReservationExportRow> rows = stream.iterator();
+            while (rows.hasNext()) {
+                ReservationExportRow row = rows.next();
+                rebuilt.of(row.propertyId()).apply(row.status(), row.modeOfPayment(), row.roomSegment(),
+                        row.startDate(), row.endDate(), toMinorUnits(row.totalAmount()),
+                        toMinorUnits(row.amountReceived()), 1);
+                if (row.reservationId() != null) {
+                    read.put(row.reservationId(), new State(row.status(), toMinorUnits(row.amountReceived())));
+                }
+            }
+        }
+        return null;
+    }
+
+    // fallbackExecution: the reactive stack publishes without a Spring-managed transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationStateChanged(ReservationStateChangedEvent event) {
+        synchronized (rebuildLock) {
+            if (eventsDuringRebuild != null) {
+                eventsDuringRebuild.add(event);
+            }
+            apply(windows, event);
+        }
+    }
+
+    /**
+     * Counters are deltas, so a buffered change is only replayed when the rows read by
+     * the rebuild still show the state it started from (or, for a creation, lack the
+     * reservation); a change committed just before the read is already counted.
+     */
+    private static void replay(Windows rebuilt, Map<String, State> states,
+            List<ReservationStateChangedEvent> events) {
+        for (ReservationStateChangedEvent event : events) {
+            State read = states.get(event.getReservationId());
+            State previous = event.isCreated() ? null
+                    : new State(event.getPreviousStatus(), toMinorUnits(event.getPreviousAmountReceived()));
+            if (event.getReservationId() == null || Objects.equals(read, previous)) {
+                apply(rebuilt, event);
+            }
+            states.put(event.getReservationId(),
+                    new State(event.getStatus(), toMinorUnits(event.getAmountReceived())));
+        }
+    }
+
+    private static void apply(Windows windows, ReservationStateChangedEvent event) {
+        Window target = windows.of(event.getPropertyId());
+        long totalMinor = toMinorUnits(event.getTotalAmount());
+        if (!event.isCreated()) {
+            target.apply(event.getPreviousStatus(), event.getModeOfPayment(), event.getRoomSegment(),
+                    event.getStartDate(), event.getEndDate(),
+                    totalMinor, toMinorUnits(event.getPreviousAmountReceived()), -1);
+        }
+        target.apply(event.getStatus(), event.getModeOfPayment(), event.getRoomSegment(),
+                event.getStartDate(), event.getEndDate(),
+                totalMinor, toMinorUnits(event.getAmountReceived()), 1);
+    }
+
+    /**
+     * Number of the property's rooms of the segment occupied by confirmed reservations on the night of {@code day}
+     */
+    public long confirmedRooms(String propertyId, LocalDate day, RoomSegment segment) {
+        Window current = windows.find(propertyId);
+        return current == null ? 0 : current.read(current.confirmed, day, segment);
+    }
+
+    /**
+     * Number of the property's rooms of the segment held by reservations pending payment on the night of
+     * {@code day}
+     */
+    public long pendingRooms(String propertyId, LocalDate day, RoomSegment segment) {
+        Window current = windows.find(propertyId);
+        return current == null ? 0 : current.read(current.pending, day, segment);
+    }
+
+    /**
+     * Outstanding bank transfer amount for the property's reservations of the segment starting in [from, to]
+     */
+    public Money outstandingAmount(String propertyId, LocalDate from, LocalDate to, RoomSegment segment) {
+        Window current = windows.find(propertyId);
+        if (current == null) {
+            return Money.ZERO;
+        }
+        long sum = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            sum += current.read(current.outstandingMinor, day, segment);
+        }
+        return Money.ofMinor(sum);
+    }
+
+    private static long toMinorUnits(Money amount) {
+        return amount == null ? 0 : amount.getMinorUnits();
+    }
+
+    private record State(ReservationStatus status, long receivedMinor) {
+    }
+
+    /**
+     * Windows of all properties over the same range of days, created on a property's first reservation
+     */
+    private static final class Windows {
+        private final long baseEpochDay;
+        private final int days;
+        private final ConcurrentMap<String, Window> byProperty = new ConcurrentHashMap<>();
+
+        Windows(long baseEpochDay, int days) {
+            this.baseEpochDay = baseEpochDay;
+            this.days = days;
+        }
+
+        Window of(String propertyId) {
+            return byProperty.computeIfAbsent(
+                    propertyId == null ? ReservationEntity.DEFAULT_PROPERTY_ID : propertyId,
+                    property -> new Window(baseEpochDay, days));
+        }
+
+        Window find(String propertyId) {
+            return byProperty.get(propertyId);
+        }
+    }
+
+    /**
+     * Counters for a fixed range of days, flattened as [dayIndex * SEGMENTS + segment]
+     */
+    private static final class Window {
+        private final long baseEpochDay;
+        private final int days;
+        private final AtomicLongArray confirmed;
+        private final AtomicLongArray pending;
+        private final AtomicLongArray outstandingMinor;
+
+        Window(long baseEpochDay, int days) {
+            this.baseEpochDay = baseEpochDay;
+            this.days = days;
+            this.confirmed = new AtomicLongArray(days * SEGMENTS);
+            this.pending = new AtomicLongArray(days * SEGMENTS);
+            this.outstandingMinor = new AtomicLongArray(days * SEGMENTS);
+        }
+
+        void apply(ReservationStatus status, ReservationEntity.ModeOfPayment mode, RoomSegment segment,
+                LocalDate startDate, LocalDate endDate, long totalMinor, long receivedMinor, int sign) {
+            if (status == null || segment == null || startDate == null || endDate == null) {
+                return;
+            }
+            AtomicLongArray nights = switch (status) {
+                case CONFIRMED -> confirmed;
+                case PENDING_PAYMENT -> pending;
+                case CANCELLED -> null;
+            };
+            if (nights != null) {
+                int from = (int) Math.max(0, startDate.toEpochDay() - baseEpochDay);
+                int to = (int) Math.min(days, endDate.toEpochDay() - baseEpochDay);
+                for (int day = from; day < to; day++) {
+                    nights.addAndGet(day * SEGMENTS + segment.ordinal(), sign);
+                }
+            }
+            if (status == ReservationStatus.PENDING_PAYMENT && mode == ReservationEntity.ModeOfPayment.BANK_TRANSFER) {
+                int index = index(startDate, segment);
+                if (index >= 0) {
+                    outstandingMinor.addAndGet(index, sign * Math.max(0, totalMinor - receivedMinor));
+                }
+            }
+        }
+
+        long read(AtomicLongArray counters, LocalDate day, RoomSegment segment) {
+            int index = index(day, segment);
+            return index < 0 ? 0 : counters.get(index);
+        }
+
+        private int index(LocalDate day, RoomSegment segment) {
+            long offset = day.toEpochDay() - baseEpochDay;
+            if (offset < 0 || offset >= days) {
+                return -1;
+            }
+            return (int) offset * SEGMENTS + segment.ordinal();
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.assignments.projection;
+
+import com.assignments.config.ReplicaLagGuard;
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationIds;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.model.ReservationsImportedEvent;
+import com.assignments.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory working set of all PENDING_PAYMENT reservations.
+ *
+ * Reservation IDs are 8 ASCII characters, so each one is packed losslessly into a
+ * {@code long} and used as the key of a linear-probing open-addressing table with
+ * parallel primitive arrays for the total and received amounts (minor units) and the
+ * start epoch-day. No objects are allocated per entry.
+ *
+ * Once loaded, the single-node cancellation sweeps take their candidates from it
+ * instead of scanning the database; every candidate is re-checked under lock before
+ * it is cancelled. The set only sees changes committed by this instance (imports are
+ * picked up when they finish), so a miss never proves that a reservation is not
+ * pending and payments always go to the database. It is rebuilt from the repository
+ * on boot and follows committed state changes afterwards; events arriving during a
+ * rebuild are replayed on top of the rebuilt table. Off by default and in cluster mode.
+ */
+@Component
+public class PendingPaymentWorkingSet {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingPaymentWorkingSet.class);
+
+    private final ReservationRepository reservationRepository;
+    private final ShardRouter shardRouter;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private LongTable table = new LongTable(16);
+    private List<ReservationStateChangedEvent> eventsDuringRebuild;
+    private volatile boolean loaded;
+
+    public PendingPaymentWorkingSet(ReservationRepository reservationRepository, ShardRouter shardRouter,
+            @Value("${reservation.working-set.enabled:false}") boolean enabled,
+            @Value("${reservation.cancellation.cluster.enabled:false}") boolean clusterMode) {
+        this.reservationRepository = reservationRepository;
+        this.shardRouter = shardRouter;
+        this.enabled = enabled && !clusterMode;
+    }
+
+    /**
+     * Reload all pending reservations from the repository
+     */
+    @EventListener({ApplicationReadyEvent.class, ReservationsImportedEvent.class})
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            eventsDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<ReservationEntity> pending = ReplicaLagGuard.onPrimary(() -> shardRouter.collect(
+                () -> reservationRepository.findByStatus(ReservationStatus.PENDING_PAYMENT)));
+        LongTable rebuilt = new LongTable(pending.size());
+        for (ReservationEntity reservation : pending) {
+            long key = ReservationIds.pack(reservation.getReservationId());
+            if (key != 0) {
+                rebuilt.put(key, minorUnits(reservation.getTotalAmount()),
+                        minorUnits(reservation.getAmountReceived()), reservation.getStartDate().toEpochDay());
+            }
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (ReservationStateChangedEvent event : eventsDuringRebuild) {
+                apply(rebuilt, event);
+            }
+            eventsDuringRebuild = null;
+            table = rebuilt;
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Pending payment working set rebuilt with {} reservations", rebuilt.size());
+    }
+
+    // Also applied when published outside a transaction (reactive profile)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onReservationStateChanged(ReservationStateChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (eventsDuringRebuild != null) {
+                eventsDuringRebuild.add(event);
+            }
+            apply(table, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * True when the working set is loaded and authoritative
+     */
+    public boolean isLoaded() {
+        return enabled && loaded;
+    }
+
+    /**
+     * IDs of the pending reservations starting before the cutoff whose received amount
+     * is below the total amount, ordered by start date then ID.
+     * Only meaningful when {@link #isLoaded()}.
+     */
+    public List<String> findCancellationCandidates(LocalDate startBefore) {
+        long cutoff = startBefore.toEpochDay();
+        lock.readLock().lock();
+        try {
+            return table.unpaidStartingBefore(cutoff);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return table.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static void apply(LongTable target, ReservationStateChangedEvent event) {
+        long key = ReservationIds.pack(event.getReservationId());
+        if (key == 0) {
+            return;
+        }
+        if (event.getStatus() == ReservationStatus.PENDING_PAYMENT) {
+            target.put(key, minorUnits(event.getTotalAmount()), minorUnits(event.getAmountReceived()),
+                    event.getStartDate().toEpochDay());
+        } else {
+            target.remove(key);
+        }
+    }
+
+    private static long minorUnits(Money amount) {
+        return amount == null ? 0 : amount.getMinorUnits();
+    }
+
+    /**
+     * Linear-probing hash table from packed ID to (total, received, start day).
+     * Removal shifts the following entries back, so no tombstones are needed.
+     * Not thread-safe; guarded by the working set's lock.
+     */
+    static final class LongTable {
+        private long[] keys;
+        private long[] totals;
+        private long[] received;
+        private long[] startDays;
+        private int size;
+        private int mask;
+
+        LongTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+            allocate(capacity);
+        }
+
+        int size() {
+            return size;
+        }
+
+        void put(long key, long total, long receivedAmount, long startDay) {
+            int slot = slotOf(key);
+            if (keys[slot] == 0) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    slot = slotOf(key);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            totals[slot] = total;
+            received[slot] = receivedAmount;
+            startDays[slot] = startDay;
+        }
+
+        int indexOf(long key) {
+            int slot = slotOf(key);
+            return keys[slot] == 0 ? -1 : slot;
+        }
+
+        void remove(long key) {
+            int slot = indexOf(key);
+            if (slot < 0) {
+                return;
+            }
+            size--;
+            // Backward-shift deletion: move later entries of the probe run into the gap
+            int gap = slot;
+            int next = (gap + 1) & mask;
+            while (keys[next] != 0) {
+                int home = hash(keys[next]);
+                if (((next - home) & mask) >= ((next - gap) & mask)) {
+                    keys[gap] = keys[next];
+                    totals[gap] = totals[next];
+                    received[gap] = received[next];
+                    startDays[gap] = startDays[next];
+                    gap = next;
+                }
+                next = (next + 1) & mask;
+            }
+            keys[gap] = 0;
+        }
+
+        /**
+         * Unpaid entries starting before the cutoff, ordered by start day then ID
+         */
+        List<String> unpaidStartingBefore(long cutoffDay) {
+            List<Integer> slots = new ArrayList<>();
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != 0 && startDays[slot] < cutoffDay && received[slot] < totals[slot]) {
+                    slots.add(slot);
+                }
+            }
+            // Packed keys compare like the ID strings (ASCII, first character in the high byte)
+            slots.sort(Comparator.<Integer>comparingLong(slot -> startDays[slot]).thenComparingLong(slot -> keys[slot]));
+            List<String> ids = new ArrayList<>(slots.size());
+            for (int slot : slots) {
+                ids.add(ReservationIds.unpack(keys[slot]));
+            }
+            return ids;
+        }
+
+        /**
+         * Slot holding the key, or the empty slot where it would be inserted
+         */
+        private int slotOf(long key) {
+            int slot = hash(key);
+            while (keys[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private int hash(long key) {
+            long mixed = key * 0x9E3779B97F4A7C15L;
+            return (int) (mixed ^ (mixed >>> 32)) & mask;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            long[] oldTotals = totals;
+            long[] oldReceived = received;
+            long[] oldStartDays = startDays;
+            allocate(oldKeys.length * 2);
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    int target = slotOf(oldKeys[slot]);
+                    keys[target] = oldKeys[slot];
+                    totals[target] = oldTotals[slot];
+                    received[target] = oldReceived[slot];
+                    startDays[target] = oldStartDays[slot];
+                    size++;
+                }
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            totals = new long[capacity];
+            received = new long[capacity];
+            startDays = new long[capacity];
+            mask = capacity - 1;
+        }
+    }
+}
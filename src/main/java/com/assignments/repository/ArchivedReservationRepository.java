@@ -0,0 +1,83 @@
+package com.assignments.repository;
+
+import com.assignments.model.ArchivedReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repository for the archived (cold) reservations.
+ * Rows are copied set-based from the hot table, so a chunk costs one INSERT and one DELETE
+ * regardless of its size and works with either reservation ID column type.
+ */
+@Repository
+public interface ArchivedReservationRepository extends JpaRepository<ArchivedReservationEntity, String> {
+
+    /**
+     * Copy up to {@code limit} finished reservations (not pending payment) that ended before
+     * the cutoff into the archive. Must run in the same transaction as
+     * {@link ReservationRepository#deleteArchived(LocalDate)}.
+     *
+     * @return number of rows copied
+     */
+    @Modifying
+    @Query(value = "insert into reservations_archive (reservation_id, property_id, customer_name, room_number,"
+            + " start_date, end_date, room_segment, mode_of_payment, payment_reference, status, total_amount,"
+            + " amount_received, archived_on)"
+            + " select r.reservation_id, r.property_id, r.customer_name, r.room_number, r.start_date,"
+            + " r.end_date, r.room_segment, r.mode_of_payment, r.payment_reference, r.status, r.total_amount,"
+            + " r.amount_received, :archivedOn from reservations r"
+            + " where r.end_date < :cutoff and r.status <> 'PENDING_PAYMENT'"
+            + " order by r.end_date fetch first :limit rows only", nativeQuery = true)
+    int copyFinishedReservations(@Param("cutoff") LocalDate cutoff, @Param("archivedOn") LocalDate archivedOn,
+            @Param("limit") int limit);
+
+    /**
+     * Find an archived reservation by ID (a primary key lookup on the cold table)
+     */
+    @Transactional(readOnly = true)
+    Optional<ArchivedReservationEntity> findByReservationId(String reservationId);
+
+    /**
+     * Archived counterpart of {@link ReservationRepository#streamForExport}: same filters,
+     * order, cursor fetch size and row type. Must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.assignments.model.ReservationExportRow(r.reservationId, r.propertyId, r.customerName,"
+            + " r.roomNumber, r.roomSegment, r.startDate, r.endDate, r.modeOfPayment, r.paymentReference, r.status,"
+            + " r.totalAmount, r.amountReceived) from ArchivedReservationEntity r"
+            + " where (cast(:from as date) is null or r.startDate >= :from)"
+            + " and (cast(:to as date) is null or r.startDate <= :to)"
+            + " and (:status is null or r.status = :status)"
+            + " order by r.startDate, r.reservationId")
+    Stream<ReservationExportRow> streamForExport(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("status") ReservationStatus status);
+
+    /**
+     * Archived counterpart of {@link ReservationRepository#streamForProjection}. Must be consumed
+     * and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.assignments.model.ReservationExportRow(r.reservationId, r.propertyId, r.customerName,"
+            + " r.roomNumber, r.roomSegment, r.startDate, r.endDate, r.modeOfPayment, r.paymentReference, r.status,"
+            + " r.totalAmount, r.amountReceived) from ArchivedReservationEntity r")
+    Stream<ReservationExportRow> streamForProjection();
+}
@@ -0,0 +1,21 @@
+package com.assignments.repository;
+
+import com.assignments.model.DeferredCardVerification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Repository for the durable queue of deferred credit card verifications
+ */
+@Repository
+public interface DeferredCardVerificationRepository extends JpaRepository<DeferredCardVerification, String> {
+
+    /**
+     * Entries due for a verification attempt, oldest first
+     */
+    List<DeferredCardVerification> findByNextAttemptAtLessThanEqualOrderByEnqueuedAt(Instant now, Pageable page);
+}
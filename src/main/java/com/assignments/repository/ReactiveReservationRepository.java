@@ -0,0 +1,12 @@
+package com.assignments.repository;
+
+import com.assignments.model.ReservationRow;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * R2DBC repository for reservation data access in the reactive profile
+ */
+@Repository
+public interface ReactiveReservationRepository extends R2dbcRepository<ReservationRow, String> {
+}
@@ -1,13 +1,26 @@
 package com.assignments.repository;
 
 import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationExportRow;
 import com.assignments.model.ReservationEntity.ReservationStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for reservation data access
@@ -18,15 +31,116 @@ public interface ReservationRepository extends JpaRepository<ReservationEntity,
     /**
      * Find all reservations with PENDING_PAYMENT status and bank transfer payment
      * mode
-     * where start date is within the specified number of days
+     * where start date is within the specified number of days.
+     * Rows are locked for the rest of the transaction, in reservation ID order.
      */
-    List<ReservationEntity> findByStatusAndModeOfPaymentAndStartDateBefore(
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ReservationEntity> findByStatusAndModeOfPaymentAndStartDateBeforeOrderByReservationId(
             ReservationStatus status,
             ReservationEntity.ModeOfPayment modeOfPayment,
             LocalDate startDate);
 
     /**
-     * Find reservation by reservation ID
+     * IDs of the reservations in the given status and payment mode, starting before
+     * the given date, whose received amount is below the total amount, in the given order
      */
+    @Query("select r.reservationId from ReservationEntity r where r.status = :status"
+            + " and r.modeOfPayment = :modeOfPayment and r.startDate < :startDate"
+            + " and r.amountReceived < r.totalAmount")
+    List<String> findUnpaidReservationIds(@Param("status") ReservationStatus status,
+            @Param("modeOfPayment") ReservationEntity.ModeOfPayment modeOfPayment,
+            @Param("startDate") LocalDate startDate, Sort sort);
+
+    /**
+     * Reservations starting in [from, to] in the given status, ordered by start date; null
+     * bounds and status match everything. Rows are fetched from a cursor in chunks of 500
+     * and are not managed entities, so memory stays flat however many rows match.
+     * The stream must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.assignments.model.ReservationExportRow(r.reservationId, r.propertyId, r.customerName,"
+            + " r.roomNumber, r.roomSegment, r.startDate, r.endDate, r.modeOfPayment, r.paymentReference, r.status,"
+            + " r.totalAmount, r.amountReceived) from ReservationEntity r"
+            + " where (cast(:from as date) is null or r.startDate >= :from)"
+            + " and (cast(:to as date) is null or r.startDate <= :to)"
+            + " and (:status is null or r.status = :status)"
+            + " order by r.startDate, r.reservationId")
+    Stream<ReservationExportRow> streamForExport(@Param("from") LocalDate from, @Param("to") LocalDate to,
+            @Param("status") ReservationStatus status);
+
+    /**
+     * Every reservation, unordered, as unmanaged rows fetched from a cursor in chunks of 500,
+     * for rebuilding read models. The stream must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.assignments.model.ReservationExportRow(r.reservationId, r.propertyId, r.customerName,"
+            + " r.roomNumber, r.roomSegment, r.startDate, r.endDate, r.modeOfPayment, r.paymentReference, r.status,"
+            + " r.totalAmount, r.amountReceived) from ReservationEntity r")
+    Stream<ReservationExportRow> streamForProjection();
+
+    /**
+     * Reservations with a night in [from, to), unordered, as unmanaged rows fetched from a cursor
+     * in chunks of 500. The stream must be consumed and closed inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select new com.assignments.model.ReservationExportRow(r.reservationId, r.propertyId, r.customerName,"
+            + " r.roomNumber, r.roomSegment, r.startDate, r.endDate, r.modeOfPayment, r.paymentReference, r.status,"
+            + " r.totalAmount, r.amountReceived) from ReservationEntity r"
+            + " where r.endDate > :from and r.startDate < :to")
+    Stream<ReservationExportRow> streamStayingBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    /**
+     * Find all reservations in the given status
+     */
+    List<ReservationEntity> findByStatus(ReservationStatus status);
+
+    /**
+     * Find all reservations not in the given status that end after the given date
+     */
+    List<ReservationEntity> findByStatusNotAndEndDateAfter(ReservationStatus status, LocalDate endDate);
+
+    /**
+     * Find reservation by reservation ID.
+     * Read-only, so outside a read-write transaction it may be served by the read replica.
+     */
+    @Transactional(readOnly = true)
     Optional<ReservationEntity> findByReservationId(String reservationId);
+
+    /**
+     * Find reservation by reservation ID and lock the row until the transaction ends,
+     * so concurrent payment updates and cancellations of it are serialized
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ReservationEntity r where r.reservationId = :reservationId")
+    Optional<ReservationEntity> findForUpdate(@Param("reservationId") String reservationId);
+
+    /**
+     * Find the given reservations and lock their rows until the transaction ends.
+     * Locks are taken in reservation ID order, the same order as the cancellation
+     * query, so concurrent sweeps cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from ReservationEntity r where r.reservationId in :reservationIds order by r.reservationId")
+    List<ReservationEntity> findAllForUpdate(@Param("reservationIds") Collection<String> reservationIds);
+
+    /**
+     * Delete the finished reservations that ended before the cutoff and have been copied
+     * to the archive by {@link ArchivedReservationRepository#copyFinishedReservations}
+     *
+     * @return number of rows deleted
+     */
+    @Modifying
+    @Query(value = "delete from reservations r where r.end_date < :cutoff and r.status <> 'PENDING_PAYMENT'"
+            + " and exists (select 1 from reservations_archive a where a.reservation_id = r.reservation_id)",
+            nativeQuery = true)
+    int deleteArchived(@Param("cutoff") LocalDate cutoff);
 }
@@ -0,0 +1,53 @@
+package com.assignments.repository;
+
+import com.assignments.model.SweepPartitionLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Repository for the cancellation sweep partition leases.
+ * Claims are single conditional UPDATEs, so two nodes can never both win the same partition.
+ */
+@Repository
+public interface SweepPartitionLeaseRepository extends JpaRepository<SweepPartitionLease, Integer> {
+
+    /**
+     * Take (or extend) the lease on a partition not yet swept for the run date,
+     * unless another node holds an unexpired lease on it
+     *
+     * @return 1 if the lease was acquired, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update SweepPartitionLease l set l.owner = :owner, l.leaseUntil = :leaseUntil"
+            + " where l.partitionId = :partitionId"
+            + " and (l.leaseUntil is null or l.leaseUntil < :now or l.owner = :owner)"
+            + " and (l.completedRun is null or l.completedRun < :runDate)")
+    int claim(@Param("partitionId") Integer partitionId, @Param("owner") String owner,
+            @Param("leaseUntil") Instant leaseUntil, @Param("now") Instant now,
+            @Param("runDate") LocalDate runDate);
+
+    /**
+     * Mark a partition as swept for the run date and release the lease
+     *
+     * @return 1 if the caller still owned the lease, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update SweepPartitionLease l set l.completedRun = :runDate, l.leaseUntil = null"
+            + " where l.partitionId = :partitionId and l.owner = :owner")
+    int complete(@Param("partitionId") Integer partitionId, @Param("owner") String owner,
+            @Param("runDate") LocalDate runDate);
+
+    /**
+     * Number of partitions not yet swept for the run date
+     */
+    long countByCompletedRunIsNullOrCompletedRunBefore(LocalDate runDate);
+}
@@ -0,0 +1,146 @@
+package com.assignments.scheduler;
+
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.exception.PaymentRejectedException;
+import com.assignments.model.DeferredCardVerification;
+import com.assignments.repository.DeferredCardVerificationRepository;
+import com.assignments.service.CreditCardPaymentService;
+import com.assignments.service.ReservationService;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Verifies the credit card payments of reservations accepted while the payment
+ * provider's circuit breaker was open.
+ *
+ * Every {@code interval} the worker takes at most {@code batch-size} due entries from
+ * the deferred verification queue, oldest first, and verifies them one after the other
+ * through the regular (breaker-protected) client, so the recovering provider sees at most
+ * that many calls per interval. While the breaker is open the first call is rejected
+ * without reaching the provider and the run stops; once the breaker lets calls through
+ * again (half-open, then closed) the queue drains. A confirmed payment confirms the
+ * reservation, a rejected one cancels it. Other failures are retried with exponential
+ * backoff; after {@code max-attempts} the reservation is cancelled. With sharding every
+ * shard keeps its own queue, and the batch size applies per shard.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.credit-card.deferred-verification.enabled", havingValue = "true")
+public class DeferredCardVerificationWorker {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeferredCardVerificationWorker.class);
+
+    private final DeferredCardVerificationRepository queue;
+    private final CreditCardPaymentService creditCardPaymentService;
+    private final ReservationService reservationService;
+    private final ShardRouter shardRouter;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Counter confirmed;
+    private final Counter cancelled;
+    private final Counter retried;
+
+    public DeferredCardVerificationWorker(DeferredCardVerificationRepository queue,
+            CreditCardPaymentService creditCardPaymentService, ReservationService reservationService,
+            ShardRouter shardRouter, MeterRegistry meterRegistry,
+            @Value("${reservation.credit-card.deferred-verification.batch-size:5}") int batchSize,
+            @Value("${reservation.credit-card.deferred-verification.max-attempts:10}") int maxAttempts,
+            @Value("${reservation.credit-card.deferred-verification.backoff:30s}") Duration backoff) {
+        this.queue = queue;
+        this.creditCardPaymentService = creditCardPaymentService;
+        this.reservationService = reservationService;
+        this.shardRouter = shardRouter;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        Gauge.builder("reservation.credit-card.deferred.queued", this, DeferredCardVerificationWorker::queued)
+                .description("Credit card verifications waiting in the deferred queue")
+                .register(meterRegistry);
+        this.confirmed = Counter.builder("reservation.credit-card.deferred.completed")
+                .tag("outcome", "confirmed")
+                .register(meterRegistry);
+        this.cancelled = Counter.builder("reservation.credit-card.deferred.completed")
+                .tag("outcome", "cancelled")
+                .register(meterRegistry);
+        this.retried = Counter.builder("reservation.credit-card.deferred.retries")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${reservation.credit-card.deferred-verification.interval:PT1S}")
+    public void verifyDeferred() {
+        for (String shard : shardRouter.shards()) {
+            if (!ShardContext.call(shard, this::verifyDue)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Verify the due entries of the current shard
+     *
+     * @return false when the breaker rejected a call
+     */
+    private boolean verifyDue() {
+        List<DeferredCardVerification> due = queue.findByNextAttemptAtLessThanEqualOrderByEnqueuedAt(
+                Instant.now(), PageRequest.ofSize(batchSize));
+        for (DeferredCardVerification entry : due) {
+            if (!verify(entry)) {
+                // The breaker opened again: leave the rest for a later run
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double queued() {
+        return shardRouter.collect(() -> List.of(queue.count())).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return false when the breaker rejected the call
+     */
+    private boolean verify(DeferredCardVerification entry) {
+        String reservationId = entry.getReservationId();
+        try {
+            boolean paid = creditCardPaymentService.verifyPayment(entry.getPaymentReference());
+            complete(reservationId, paid);
+        } catch (RuntimeException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof PaymentRejectedException) {
+                complete(reservationId, false);
+            } else if (cause instanceof CallNotPermittedException) {
+                return false;
+            } else if (entry.getAttempts() + 1 >= maxAttempts) {
+                logger.error("Giving up on deferred credit card verification for {} after {} attempts: {}",
+                        reservationId, maxAttempts, e.getMessage());
+                complete(reservationId, false);
+            } else {
+                entry.setAttempts(entry.getAttempts() + 1);
+                Duration delay = backoff.multipliedBy(1L << Math.min(entry.getAttempts() - 1, 10));
+                entry.setNextAttemptAt(Instant.now().plus(delay));
+                queue.save(entry);
+                retried.increment();
+            }
+        }
+        return true;
+    }
+
+    private void complete(String reservationId, boolean paid) {
+        reservationService.completeDeferredCardVerification(reservationId, paid);
+        (paid ? confirmed : cancelled).increment();
+    }
+}
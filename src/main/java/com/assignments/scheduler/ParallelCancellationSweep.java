@@ -0,0 +1,182 @@
+package com.assignments.scheduler;
+
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.projection.PendingPaymentWorkingSet;
+import com.assignments.service.ReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-node cancellation sweep for large backlogs (e.g. after an outage).
+ *
+ * The candidate IDs are sorted by reservation ID or start date and split into
+ * contiguous ranges, which are cancelled on a bounded fork-join pool, each range
+ * in its own short transaction (one per shard when a range spans shards, the shards
+ * being listed one after the other). A failing range is counted and skipped; the
+ * reservations in it are retried on the next run.
+ * Replaces {@link ReservationCancellationScheduler} when
+ * {@code reservation.cancellation.parallel.enabled=true} and cluster mode is off.
+ */
+@Component
+@ConditionalOnExpression("${reservation.cancellation.parallel.enabled:false}"
+        + " and !${reservation.cancellation.cluster.enabled:false}")
+public class ParallelCancellationSweep {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelCancellationSweep.class);
+
+    public enum SplitBy {
+        ID, START_DATE
+    }
+
+    private final ReservationService reservationService;
+    private final PendingPaymentWorkingSet pendingPaymentWorkingSet;
+    private final ShardRouter shardRouter;
+    private final int parallelism;
+    private final int chunkSize;
+    private final SplitBy splitBy;
+
+    private final AtomicLong candidates = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final Counter cancelledCounter;
+    private final Counter chunksSucceeded;
+    private final Counter chunksFailed;
+
+    public ParallelCancellationSweep(ReservationService reservationService,
+            PendingPaymentWorkingSet pendingPaymentWorkingSet, ShardRouter shardRouter, MeterRegistry meterRegistry,
+            @Value("${reservation.cancellation.parallel.parallelism:4}") int parallelism,
+            @Value("${reservation.cancellation.parallel.chunk-size:500}") int chunkSize,
+            @Value("${reservation.cancellation.parallel.split-by:ID}") SplitBy splitBy) {
+        this.reservationService = reservationService;
+        this.pendingPaymentWorkingSet = pendingPaymentWorkingSet;
+        this.shardRouter = shardRouter;
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.splitBy = splitBy;
+        Gauge.builder("reservation.cancellation.sweep.candidates", candidates, AtomicLong::get)
+                .description("Cancellation candidates of the current or last sweep")
+                .register(meterRegistry);
+        Gauge.builder("reservation.cancellation.sweep.processed", processed, AtomicLong::get)
+                .description("Candidates processed so far by the current or last sweep")
+                .register(meterRegistry);
+        this.cancelledCounter = Counter.builder("reservation.cancellation.sweep.cancelled")
+                .register(meterRegistry);
+        this.chunksSucceeded = Counter.builder("reservation.cancellation.sweep.chunks")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.chunksFailed = Counter.builder("reservation.cancellation.sweep.chunks")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${reservation.cancellation.cron:0 0 2 * * *}")
+    public void cancelUnpaidReservations() {
+        logger.info("Running parallel cancellation sweep (parallelism {}, chunk size {})", parallelism, chunkSize);
+
+        try {
+            SweepProgress progress = run();
+            logger.info("Completed parallel cancellation sweep: {}", progress);
+        } catch (Exception e) {
+            logger.error("Error during parallel cancellation sweep: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Cancel all current candidates and wait for the sweep to finish
+     */
+    public SweepProgress run() {
+        List<String> ids = findCandidates();
+        candidates.set(ids.size());
+        processed.set(0);
+
+        AtomicInteger cancelled = new AtomicInteger();
+        AtomicInteger failedChunks = new AtomicInteger();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ChunkTask(ids, cancelled, failedChunks));
+        } finally {
+            pool.shutdown();
+        }
+        return new SweepProgress(ids.size(), processed.get(), cancelled.get(), failedChunks.get());
+    }
+
+    /**
+     * Candidates in split order, from the pending payment working set when it is loaded
+     */
+    private List<String> findCandidates() {
+        if (pendingPaymentWorkingSet.isLoaded()) {
+            List<String> ids = pendingPaymentWorkingSet.findCancellationCandidates(
+                    ReservationService.cancellationCutoff());
+            return splitBy == SplitBy.START_DATE ? ids : ids.stream().sorted().toList();
+        }
+        Sort order = splitBy == SplitBy.START_DATE
+                ? Sort.by("startDate", "reservationId")
+                : Sort.by("reservationId");
+        return shardRouter.collect(() -> reservationService.findCancellationCandidateIds(order));
+    }
+
+    /**
+     * Bisects its ID range until it fits in one chunk, then cancels the chunk
+     */
+    private final class ChunkTask extends RecursiveAction {
+        private final List<String> ids;
+        private final AtomicInteger cancelled;
+        private final AtomicInteger failedChunks;
+
+        ChunkTask(List<String> ids, AtomicInteger cancelled, AtomicInteger failedChunks) {
+            this.ids = ids;
+            this.cancelled = cancelled;
+            this.failedChunks = failedChunks;
+        }
+
+        @Override
+        protected void compute() {
+            if (ids.size() > chunkSize) {
+                int middle = ids.size() / 2;
+                invokeAll(new ChunkTask(ids.subList(0, middle), cancelled, failedChunks),
+                        new ChunkTask(ids.subList(middle, ids.size()), cancelled, failedChunks));
+                return;
+            }
+            if (ids.isEmpty()) {
+                return;
+            }
+            try {
+                int count = 0;
+                for (Map.Entry<String, List<String>> shard : shardRouter.groupByShard(ids).entrySet()) {
+                    count += ShardContext.call(shard.getKey(),
+                            () -> reservationService.cancelUnpaidReservations(shard.getValue()));
+                }
+                cancelled.addAndGet(count);
+                cancelledCounter.increment(count);
+                chunksSucceeded.increment();
+            } catch (RuntimeException e) {
+                failedChunks.incrementAndGet();
+                chunksFailed.increment();
+                logger.warn("Cancellation chunk {}..{} failed: {}", ids.get(0), ids.get(ids.size() - 1),
+                        e.getMessage());
+            }
+            processed.addAndGet(ids.size());
+        }
+    }
+
+    /**
+     * Outcome of one sweep
+     */
+    public record SweepProgress(long candidates, long processed, int cancelled, int failedChunks) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.assignments.scheduler;
+
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.model.SweepPartitionLease;
+import com.assignments.repository.SweepPartitionLeaseRepository;
+import com.assignments.service.ReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cluster-safe variant of the unpaid reservation cancellation task.
+ *
+ * Candidates are split into hash partitions of their reservation ID. Every node
+ * runs the sweep on the same schedule and only processes the partitions it wins a
+ * lease for in the shared {@code sweep_partition_leases} table, so each partition
+ * is swept by exactly one node per run. Until every partition is completed for the
+ * run date, each node re-scans the leases about once per lease duration, so a partition
+ * whose owner dies is picked up by another node once the lease expires. The re-scans stop
+ * at the takeover deadline; anything still open is left for the next run. Partitions span
+ * all shards; the leases live on the default one. Replaces {@link ReservationCancellationScheduler}
+ * when {@code reservation.cancellation.cluster.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.cancellation.cluster.enabled", havingValue = "true")
+public class PartitionedCancellationSweep {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedCancellationSweep.class);
+
+    private final ReservationService reservationService;
+    private final SweepPartitionLeaseRepository leaseRepository;
+    private final ShardRouter shardRouter;
+    private final String nodeId;
+    private final int partitions;
+    private final Duration leaseDuration;
+    private final int batchSize;
+    private final Duration takeoverTimeout;
+
+    public PartitionedCancellationSweep(ReservationService reservationService,
+            SweepPartitionLeaseRepository leaseRepository, ShardRouter shardRouter,
+            @Value("${reservation.cancellation.cluster.node-id:}") String nodeId,
+            @Value("${reservation.cancellation.cluster.partitions:16}") int partitions,
+            @Value("${reservation.cancellation.cluster.lease-duration:PT5M}") Duration leaseDuration,
+            @Value("${reservation.cancellation.cluster.batch-size:200}") int batchSize,
+            @Value("${reservation.cancellation.cluster.takeover-timeout:PT30M}") Duration takeoverTimeout) {
+        this.reservationService = reservationService;
+        this.leaseRepository = leaseRepository;
+        this.shardRouter = shardRouter;
+        this.nodeId = nodeId.isBlank() ? UUID.randomUUID().toString() : nodeId;
+        this.partitions = partitions;
+        this.leaseDuration = leaseDuration;
+        this.batchSize = batchSize;
+        this.takeoverTimeout = takeoverTimeout;
+    }
+
+    @Scheduled(cron = "${reservation.cancellation.cron:0 0 2 * * *}")
+    public void cancelUnpaidReservations() {
+        logger.info("Running partitioned cancellation sweep on node {}", nodeId);
+
+        try {
+            SweepResult result = run(LocalDate.now());
+            logger.info("Node {} swept partitions {} and cancelled {} reservations",
+                    nodeId, result.partitions(), result.cancelled());
+        } catch (Exception e) {
+            logger.error("Error during partitioned cancellation sweep: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sweep every partition this node can claim for the given run date, re-scanning
+     * for expired leases until all partitions are completed or the takeover deadline passes
+     */
+    public SweepResult run(LocalDate runDate) {
+        ensurePartitionsExist();
+
+        Instant deadline = Instant.now().plus(takeoverTimeout);
+        List<Integer> swept = new ArrayList<>();
+        int cancelled = 0;
+        while (true) {
+            cancelled += sweepPass(runDate, swept);
+            long open = leaseRepository.countByCompletedRunIsNullOrCompletedRunBefore(runDate);
+            Duration remaining = Duration.between(Instant.now(), deadline);
+            if (open == 0) {
+                break;
+            }
+            if (remaining.isNegative() || remaining.isZero()) {
+                logger.warn("Node {} gives up on {} partitions still leased by other nodes; they are retried "
+                        + "on the next run", nodeId, open);
+                break;
+            }
+            if (!pause(remaining.compareTo(leaseDuration) < 0 ? remaining : leaseDuration)) {
+                break;
+            }
+        }
+        return new SweepResult(nodeId, swept, cancelled);
+    }
+
+    private int sweepPass(LocalDate runDate, List<Integer> swept) {
+        // Candidates are only loaded once this pass actually wins a partition
+        Map<Integer, List<String>> candidates = null;
+
+        // Start at a node-specific offset so nodes do not all race for partition 0 first
+        int offset = Math.floorMod(nodeId.hashCode(), partitions);
+        int cancelled = 0;
+        for (int i = 0; i < partitions; i++) {
+            int partition = (offset + i) % partitions;
+            if (!claim(partition, runDate)) {
+                continue;
+            }
+            if (candidates == null) {
+                candidates = loadCandidates();
+            }
+            List<String> ids = candidates.getOrDefault(partition, List.of());
+            boolean leaseHeld = true;
+            for (int from = 0; from < ids.size() && leaseHeld; from += batchSize) {
+                cancelled += cancel(ids.subList(from, Math.min(from + batchSize, ids.size())));
+                // Extend the lease before the next batch; stop if another node took over
+                leaseHeld = from + batchSize >= ids.size() || claim(partition, runDate);
+            }
+            if (leaseHeld && leaseRepository.complete(partition, nodeId, runDate) == 1) {
+                swept.add(partition);
+            }
+        }
+        return cancelled;
+    }
+
+    private Map<Integer, List<String>> loadCandidates() {
+        Map<Integer, List<String>> candidates = new HashMap<>();
+        for (String reservationId : shardRouter.collect(reservationService::findCancellationCandidateIds)) {
+            candidates.computeIfAbsent(partitionOf(reservationId), key -> new ArrayList<>()).add(reservationId);
+        }
+        return candidates;
+    }
+
+    private boolean pause(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private int cancel(List<String> ids) {
+        int cancelled = 0;
+        for (Map.Entry<String, List<String>> shard : shardRouter.groupByShard(ids).entrySet()) {
+            cancelled += ShardContext.call(shard.getKey(),
+                    () -> reservationService.cancelUnpaidReservations(shard.getValue()));
+        }
+        return cancelled;
+    }
+
+    int partitionOf(String reservationId) {
+        return Math.floorMod(reservationId.hashCode(), partitions);
+    }
+
+    private boolean claim(int partition, LocalDate runDate) {
+        Instant now = Instant.now();
+        return leaseRepository.claim(partition, nodeId, now.plus(leaseDuration), now, runDate) == 1;
+    }
+
+    private void ensurePartitionsExist() {
+        if (leaseRepository.count() >= partitions) {
+            return;
+        }
+        for (int partition = 0; partition < partitions; partition++) {
+            if (!leaseRepository.existsById(partition)) {
+                try {
+                    leaseRepository.saveAndFlush(new SweepPartitionLease(partition));
+                } catch (DataIntegrityViolationException e) {
+                    // Another node seeded it concurrently
+                }
+            }
+        }
+    }
+
+    /**
+     * Outcome of one sweep on this node
+     */
+    public record SweepResult(String nodeId, List<Integer> partitions, int cancelled) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.assignments.scheduler;
+
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.service.ReservationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * Nightly job moving finished reservations out of the hot table.
+ *
+ * Confirmed and cancelled reservations whose end date is more than {@code retention-days}
+ * in the past are moved to {@code reservations_archive} in chunks of {@code chunk-size},
+ * each chunk in its own short transaction, so the cancellation queries and ID lookups only
+ * scan current reservations. Lookups by ID fall through to the archive
+ * ({@link ReservationService#findReservation(String)}). Shards are archived one after
+ * the other. A failing chunk stops the run on its shard; the remaining rows are picked up
+ * by the next one. Opt-in with {@code reservation.archival.enabled=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "reservation.archival.enabled", havingValue = "true")
+public class ReservationArchivalJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationArchivalJob.class);
+
+    private final ReservationService reservationService;
+    private final ShardRouter shardRouter;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final int maxChunks;
+    private final Counter archivedCounter;
+
+    public ReservationArchivalJob(ReservationService reservationService, ShardRouter shardRouter,
+            MeterRegistry meterRegistry,
+            @Value("${reservation.archival.retention-days:90}") int retentionDays,
+            @Value("${reservation.archival.chunk-size:1000}") int chunkSize,
+            @Value("${reservation.archival.max-chunks-per-run:1000}") int maxChunks) {
+        this.reservationService = reservationService;
+        this.shardRouter = shardRouter;
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+        this.maxChunks = maxChunks;
+        this.archivedCounter = Counter.builder("reservation.archival.archived")
+                .description("Reservations moved to the archive table")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${reservation.archival.cron:0 0 3 * * *}")
+    public void archive() {
+        archive(LocalDate.now().minusDays(retentionDays));
+    }
+
+    /**
+     * Archive the finished reservations that ended before the cutoff
+     *
+     * @return number of reservations archived
+     */
+    public int archive(LocalDate cutoff) {
+        logger.info("Archiving finished reservations that ended before {}", cutoff);
+        int total = 0;
+        for (String shard : shardRouter.shards()) {
+            total += ShardContext.call(shard, () -> archiveShard(shard, cutoff));
+        }
+        logger.info("Archived {} reservations", total);
+        return total;
+    }
+
+    private int archiveShard(String shard, LocalDate cutoff) {
+        int total = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunks; chunk++) {
+                int archived = reservationService.archiveFinishedReservations(cutoff, chunkSize);
+                total += archived;
+                archivedCounter.increment(archived);
+                if (archived < chunkSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Archival on shard {} stopped after {} reservations: {}", shard, total, e.getMessage(), e);
+        }
+        return total;
+    }
+}
@@ -1,25 +1,38 @@
 package com.assignments.scheduler;
 
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.projection.PendingPaymentWorkingSet;
 import com.assignments.service.ReservationService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 /**
  * Scheduled task to automatically cancel unpaid bank transfer reservations
  * Runs daily to check for reservations that haven't received full payment
- * 2 days before the start date
+ * 2 days before the start date.
+ * Single-node mode; see {@link PartitionedCancellationSweep} for running several instances
+ * and {@link ParallelCancellationSweep} for large backlogs.
  */
 @Component
+@ConditionalOnExpression("!${reservation.cancellation.cluster.enabled:false}"
+        + " and !${reservation.cancellation.parallel.enabled:false}")
 public class ReservationCancellationScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationCancellationScheduler.class);
 
     private final ReservationService reservationService;
+    private final PendingPaymentWorkingSet pendingPaymentWorkingSet;
+    private final ShardRouter shardRouter;
 
-    public ReservationCancellationScheduler(ReservationService reservationService) {
+    public ReservationCancellationScheduler(ReservationService reservationService,
+            PendingPaymentWorkingSet pendingPaymentWorkingSet, ShardRouter shardRouter) {
         this.reservationService = reservationService;
+        this.pendingPaymentWorkingSet = pendingPaymentWorkingSet;
+        this.shardRouter = shardRouter;
     }
 
     /**
@@ -31,7 +44,17 @@ public class ReservationCancellationScheduler {
         logger.info("Running scheduled task to cancel unpaid reservations");
 
         try {
-            reservationService.cancelUnpaidReservations();
+            if (pendingPaymentWorkingSet.isLoaded()) {
+                // Candidates come from memory; the service re-checks each one in its shard's database
+                shardRouter.groupByShard(
+                        pendingPaymentWorkingSet.findCancellationCandidates(ReservationService.cancellationCutoff()))
+                        .forEach((shard, ids) -> ShardContext.run(shard,
+                                () -> reservationService.cancelUnpaidReservations(ids)));
+            } else {
+                for (String shard : shardRouter.shards()) {
+                    ShardContext.run(shard, () -> reservationService.cancelUnpaidReservations());
+                }
+            }
             logger.info("Completed scheduled cancellation task");
         } catch (Exception e) {
             logger.error("Error during scheduled cancellation task: {}", e.getMessage(), e);
@@ -1,33 +1,85 @@
 package com.assignments.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import com.assignments.exception.ExternalServiceException;
+import com.assignments.exception.PaymentRejectedException;
+import io.github.resilience4j.bulkhead.annotation.Bulkhead;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * Service for verifying credit card payments via external API
+ *
+ * Calls are protected by (outermost first) a circuit breaker, a semaphore
+ * bulkhead capping concurrent verifications and a time limiter. Optionally a
+ * hedged second request is fired when the first one has not answered within
+ * the observed p95 latency; whichever answers first wins. With batching enabled
+ * lookups go through the {@link PaymentStatusBatcher}, falling back to the
+ * single-call endpoint when a batch cannot answer.
  */
 @Service
 public class CreditCardPaymentService {
 
     private static final Logger logger = LoggerFactory.getLogger(CreditCardPaymentService.class);
 
+    private static final String INSTANCE = "creditCardPaymentService";
+    private static final double HEDGE_PERCENTILE = 0.95;
+
     private final WebClient webClient;
     private final ObjectMapper objectMapper;
+    private final TimeLimiter timeLimiter;
+    private final Timer latencyTimer;
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+    private PaymentStatusBatcher batcher;
 
     @Value("${credit.card.payment.service.url:http://localhost:9090/credit-card-payment-api}")
     private String paymentServiceUrl;
 
-    public CreditCardPaymentService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper) {
+    @Value("${credit.card.payment.hedging.enabled:false}")
+    private boolean hedgingEnabled;
+
+    @Value("${credit.card.payment.hedging.min-delay:50ms}")
+    private Duration hedgingMinDelay = Duration.ofMillis(50);
+
+    public CreditCardPaymentService(WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry, TimeLimiterRegistry timeLimiterRegistry) {
         this.webClient = webClientBuilder.build();
         this.objectMapper = objectMapper;
+        this.timeLimiter = timeLimiterRegistry.timeLimiter(INSTANCE);
+        this.latencyTimer = Timer.builder("credit.card.payment.latency")
+                .description("Latency of successful payment-status calls")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.hedgesFired = Counter.builder("credit.card.payment.hedges")
+                .tag("outcome", "fired")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("credit.card.payment.hedges")
+                .tag("outcome", "won")
+                .register(meterRegistry);
+    }
+
+    @Autowired(required = false)
+    void setBatcher(PaymentStatusBatcher batcher) {
+        this.batcher = batcher;
     }
 
     /**
@@ -37,43 +89,138 @@ public class CreditCardPaymentService {
      * @return true if payment is CONFIRMED, false otherwise
      * @throws RuntimeException if payment service fails or payment is not found
      */
-    @CircuitBreaker(name = "creditCardPaymentService", fallbackMethod = "verifyPaymentFallback")
+    @CircuitBreaker(name = INSTANCE, fallbackMethod = "verifyPaymentFallback")
+    @Bulkhead(name = INSTANCE)
     public boolean verifyPayment(String paymentReference) {
         logger.info("Verifying credit card payment for reference: {}", paymentReference);
 
         try {
-            String requestBody = String.format("{\"paymentReference\":\"%s\"}", paymentReference);
+            return isConfirmed(paymentReference, limitedPaymentStatus(paymentReference).block());
+        } catch (Exception e) {
+            throw verificationFailure(e);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #verifyPayment(String)} for the reactive stack,
+     * guarded by the same circuit breaker, bulkhead and time limiter instances
+     */
+    @CircuitBreaker(name = INSTANCE, fallbackMethod = "verifyPaymentReactiveFallback")
+    @Bulkhead(name = INSTANCE)
+    public Mono<Boolean> verifyPaymentReactive(String paymentReference) {
+        return Mono.defer(() -> {
+            logger.info("Verifying credit card payment for reference: {}", paymentReference);
+            return limitedPaymentStatus(paymentReference)
+                    .map(response -> isConfirmed(paymentReference, response))
+                    .onErrorMap(this::verificationFailure);
+        });
+    }
 
-            String response = webClient.post()
+    /**
+     * Payment-status call, hedged when enabled, bounded by the time limiter
+     */
+    private Mono<String> limitedPaymentStatus(String paymentReference) {
+        Mono<String> call = batcher != null ? batchedPaymentStatus(paymentReference)
+                : requestPaymentStatus(paymentReference);
+        return (hedgingEnabled ? hedged(call) : call)
+                .timeout(timeLimiter.getTimeLimiterConfig().getTimeoutDuration())
+                .doOnSuccess(body -> timeLimiter.onSuccess())
+                .doOnError(timeLimiter::onError);
+    }
+
+    private boolean isConfirmed(String paymentReference, String response) {
+        // Parse response to check status
+        JsonNode jsonNode;
+        try {
+            jsonNode = objectMapper.readTree(response);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+        String status = jsonNode.get("status").asText();
+
+        logger.info("Payment status for reference {}: {}", paymentReference, status);
+
+        if ("CONFIRMED".equals(status)) {
+            return true;
+        } else if ("REJECTED".equals(status)) {
+            throw new PaymentRejectedException("Credit card payment was rejected");
+        } else {
+            throw new RuntimeException("Unknown payment status: " + status);
+        }
+    }
+
+    private RuntimeException verificationFailure(Throwable e) {
+        if (e instanceof PaymentRejectedException rejected) {
+            logger.warn("Credit card payment not accepted: {}", rejected.getMessage());
+            return rejected;
+        }
+        String message = e instanceof TimeoutException || e.getCause() instanceof TimeoutException
+                ? "Payment service did not answer in time"
+                : e.getMessage();
+        logger.error("Error verifying credit card payment: {}", message);
+        return new RuntimeException("Failed to verify credit card payment: " + message, e);
+    }
+
+    /**
+     * Cold Mono issuing one payment-status call per subscription
+     */
+    private Mono<String> requestPaymentStatus(String paymentReference) {
+        String requestBody = String.format("{\"paymentReference\":\"%s\"}", paymentReference);
+
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return webClient.post()
                     .uri(paymentServiceUrl + "/payment-status")
                     .header("Content-Type", "application/json")
                     .bodyValue(requestBody)
                     .retrieve()
                     .onStatus(status -> status.is4xxClientError(),
-                            clientResponse -> Mono.error(new RuntimeException("Payment not found or invalid")))
+                            clientResponse -> Mono.error(new PaymentRejectedException("Payment not found or invalid")))
                     .onStatus(status -> status.is5xxServerError(),
                             clientResponse -> Mono.error(new RuntimeException("Payment service unavailable")))
                     .bodyToMono(String.class)
-                    .block();
+                    .doOnSuccess(body -> latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
 
-            // Parse response to check status
-            JsonNode jsonNode = objectMapper.readTree(response);
-            String status = jsonNode.get("status").asText();
+    /**
+     * Cold Mono looking the reference up in the next batch, or with its own call
+     * when the batch cannot answer
+     */
+    private Mono<String> batchedPaymentStatus(String paymentReference) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return batcher.paymentStatus(paymentReference)
+                    .doOnSuccess(body -> latencyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        }).onErrorResume(PaymentStatusBatcher.BatchUnavailableException.class,
+                e -> requestPaymentStatus(paymentReference));
+    }
 
-            logger.info("Payment status for reference {}: {}", paymentReference, status);
+    /**
+     * Subscribe to the call once, and a second time if no signal arrived within the
+     * hedge delay. The first signal (value or error) of either attempt wins and the
+     * other one is cancelled.
+     */
+    private Mono<String> hedged(Mono<String> call) {
+        Mono<String> hedge = Mono.delay(hedgeDelay())
+                .then(Mono.defer(() -> {
+                    hedgesFired.increment();
+                    return call.doOnSuccess(body -> hedgesWon.increment());
+                }));
+        return Mono.firstWithSignal(call, hedge);
+    }
 
-            if ("CONFIRMED".equals(status)) {
-                return true;
-            } else if ("REJECTED".equals(status)) {
-                throw new RuntimeException("Credit card payment was rejected");
-            } else {
-                throw new RuntimeException("Unknown payment status: " + status);
+    /**
+     * Observed p95 latency of successful calls, but never below the configured minimum
+     */
+    Duration hedgeDelay() {
+        for (ValueAtPercentile percentile : latencyTimer.takeSnapshot().percentileValues()) {
+            if (percentile.percentile() == HEDGE_PERCENTILE) {
+                long nanos = (long) percentile.value(TimeUnit.NANOSECONDS);
+                return nanos > hedgingMinDelay.toNanos() ? Duration.ofNanos(nanos) : hedgingMinDelay;
             }
-
-        } catch (Exception e) {
-            logger.error("Error verifying credit card payment: {}", e.getMessage());
-            throw new RuntimeException("Failed to verify credit card payment: " + e.getMessage(), e);
         }
+        return hedgingMinDelay;
     }
 
     /**
@@ -84,8 +231,21 @@ public class CreditCardPaymentService {
                 paymentReference, e.getMessage());
         // Return false or throw a custom exception depending on business rules
         // For now, we'll throw an ExternalServiceException to indicate service
-        // unavailability
-        throw new ExternalServiceException(
-                "Credit card payment verification service is currently unavailable. Please try again later.");
+        // unavailability; the cause tells callers whether the breaker was open
+        throw serviceUnavailable(e);
+    }
+
+    /**
+     * Fallback method for verifyPaymentReactive circuit breaker
+     */
+    public Mono<Boolean> verifyPaymentReactiveFallback(String paymentReference, Exception e) {
+        logger.error("Circuit breaker triggered for credit card payment verification. Reference: {}, Error: {}",
+                paymentReference, e.getMessage());
+        return Mono.error(serviceUnavailable(e));
+    }
+
+    private static ExternalServiceException serviceUnavailable(Exception cause) {
+        return new ExternalServiceException(
+                "Credit card payment verification service is currently unavailable. Please try again later.", cause);
     }
 }
@@ -0,0 +1,213 @@
+package com.assignments.service;
+
+import com.assignments.exception.PaymentRejectedException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects payment-status lookups into calls to the provider's batch endpoint.
+ *
+ * A batch is sent once it holds {@code max-batch-size} lookups or {@code max-wait} after
+ * its first lookup, whichever comes first; each caller receives the status entry of its
+ * own reference. Only when the provider has no batch endpoint (404, 405, 501), or its
+ * answer lacks a reference, do the affected callers get a {@link BatchUnavailableException}
+ * and fall back to the single-call endpoint; the provider is then not asked for batches
+ * again for {@code unsupported-backoff}. Any other failure of the batch call is passed to
+ * every waiting caller as is, so breaker and time limiter count it like a failed single call.
+ */
+@Component
+@ConditionalOnProperty(name = "credit.card.payment.batching.enabled", havingValue = "true")
+public class PaymentStatusBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentStatusBatcher.class);
+
+    /** {@code maxItems} of the batch request in the provider's API */
+    static final int MAX_BATCH_SIZE = 100;
+
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final String batchUrl;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final Duration unsupportedBackoff;
+    private final DistributionSummary batchSizes;
+    private final Counter fallbacks;
+
+    private final Object lock = new Object();
+    private Batch open;
+    private volatile long unsupportedUntil = System.nanoTime();
+
+    public PaymentStatusBatcher(WebClient.Builder webClientBuilder, ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${credit.card.payment.service.url:http://localhost:9090/credit-card-payment-api}") String paymentServiceUrl,
+            @Value("${credit.card.payment.batching.max-batch-size:20}") int maxBatchSize,
+            @Value("${credit.card.payment.batching.max-wait:5ms}") Duration maxWait,
+            @Value("${credit.card.payment.batching.unsupported-backoff:5m}") Duration unsupportedBackoff) {
+        if (maxBatchSize < 1 || maxBatchSize > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("credit.card.payment.batching.max-batch-size must be between 1 and "
+                    + MAX_BATCH_SIZE + ": " + maxBatchSize);
+        }
+        this.webClient = webClientBuilder.build();
+        this.objectMapper = objectMapper;
+        this.batchUrl = paymentServiceUrl + "/payment-status/batch";
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.unsupportedBackoff = unsupportedBackoff;
+        this.batchSizes = DistributionSummary.builder("credit.card.payment.batch.size")
+                .description("Payment references per batch call")
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("credit.card.payment.batch.fallbacks")
+                .description("Lookups answered by the single-call endpoint instead of a batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Status entry ({@code {"paymentReference":..,"status":..}}) of one reference, emitted
+     * when its batch is answered. Unknown references fail with {@link PaymentRejectedException}.
+     */
+    public Mono<String> paymentStatus(String paymentReference) {
+        return Mono.create(sink -> {
+            if (System.nanoTime() - unsupportedUntil < 0) {
+                fallback(sink, null);
+                return;
+            }
+            enqueue(new Lookup(paymentReference, sink));
+        });
+    }
+
+    private void enqueue(Lookup lookup) {
+        Batch full = null;
+        synchronized (lock) {
+            if (open == null) {
+                Batch batch = new Batch();
+                open = batch;
+                Schedulers.parallel().schedule(() -> flushIfOpen(batch), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            }
+            open.lookups.add(lookup);
+            if (open.lookups.size() >= maxBatchSize) {
+                full = open;
+                open = null;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+    }
+
+    private void flushIfOpen(Batch batch) {
+        synchronized (lock) {
+            // Already sent because it filled up
+            if (open != batch) {
+                return;
+            }
+            open = null;
+        }
+        send(batch);
+    }
+
+    private void send(Batch batch) {
+        Map<String, List<MonoSink<String>>> waiting = new LinkedHashMap<>();
+        for (Lookup lookup : batch.lookups) {
+            waiting.computeIfAbsent(lookup.paymentReference(), reference -> new ArrayList<>()).add(lookup.sink());
+        }
+        batchSizes.record(waiting.size());
+
+        String requestBody;
+        try {
+            requestBody = objectMapper.writeValueAsString(Map.of("paymentReferences", waiting.keySet()));
+        } catch (JsonProcessingException e) {
+            fail(waiting, e);
+            return;
+        }
+        webClient.post()
+                .uri(batchUrl)
+                .header("Content-Type", "application/json")
+                .bodyValue(requestBody)
+                .retrieve()
+                .bodyToMono(String.class)
+                .subscribe(body -> answer(waiting, body), e -> fail(waiting, e));
+    }
+
+    private void answer(Map<String, List<MonoSink<String>>> waiting, String body) {
+        try {
+            for (JsonNode result : objectMapper.readTree(body).path("results")) {
+                List<MonoSink<String>> sinks = waiting.remove(result.path("paymentReference").asText());
+                if (sinks == null) {
+                    continue;
+                }
+                if ("NOT_FOUND".equals(result.path("status").asText())) {
+                    sinks.forEach(sink -> sink.error(new PaymentRejectedException("Payment not found or invalid")));
+                } else {
+                    String entry = result.toString();
+                    sinks.forEach(sink -> sink.success(entry));
+                }
+            }
+        } catch (JsonProcessingException e) {
+            fail(waiting, e);
+            return;
+        }
+        // References the provider left out of its answer
+        waiting.values().forEach(sinks -> sinks.forEach(sink -> fallback(sink, null)));
+    }
+
+    private void fail(Map<String, List<MonoSink<String>>> waiting, Throwable e) {
+        if (e instanceof WebClientResponseException response && isUnsupported(response.getStatusCode().value())) {
+            logger.warn("Payment service has no batch endpoint ({}), using single calls for {}",
+                    response.getStatusCode(), unsupportedBackoff);
+            unsupportedUntil = System.nanoTime() + unsupportedBackoff.toNanos();
+            waiting.values().forEach(sinks -> sinks.forEach(sink -> fallback(sink, e)));
+            return;
+        }
+        logger.warn("Batch payment-status call for {} references failed: {}", waiting.size(), e.getMessage());
+        waiting.values().forEach(sinks -> sinks.forEach(sink -> sink.error(e)));
+    }
+
+    private void fallback(MonoSink<String> sink, Throwable cause) {
+        fallbacks.increment();
+        sink.error(new BatchUnavailableException(cause));
+    }
+
+    private static boolean isUnsupported(int status) {
+        return status == HttpStatus.NOT_FOUND.value()
+                || status == HttpStatus.METHOD_NOT_ALLOWED.value()
+                || status == HttpStatus.NOT_IMPLEMENTED.value();
+    }
+
+    private record Lookup(String paymentReference, MonoSink<String> sink) {
+    }
+
+    private static class Batch {
+        private final List<Lookup> lookups = new ArrayList<>();
+    }
+
+    /**
+     * The batch could not answer a lookup; the caller should use the single-call endpoint
+     */
+    static class BatchUnavailableException extends RuntimeException {
+        BatchUnavailableException(Throwable cause) {
+            super("Batch payment-status lookup unavailable", cause);
+        }
+    }
+}
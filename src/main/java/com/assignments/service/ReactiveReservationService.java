@@ -0,0 +1,124 @@
+package com.assignments.service;
+
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationRow;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.repository.ReactiveReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+
+/**
+ * Non-blocking counterpart of {@link ReservationService#confirmReservation} for the
+ * reactive profile. Validation and pricing rules are shared with the servlet stack;
+ * the credit card verification and the insert are chained instead of blocking. The
+ * state change event is published on the bounded elastic scheduler, since its
+ * synchronous listeners may block.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveReservationService.class);
+
+    private final ReservationService reservationService;
+    private final ReactiveReservationRepository reservationRepository;
+    private final CreditCardPaymentService creditCardPaymentService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ReactiveReservationService(ReservationService reservationService,
+            ReactiveReservationRepository reservationRepository,
+            CreditCardPaymentService creditCardPaymentService,
+            ApplicationEventPublisher eventPublisher) {
+        this.reservationService = reservationService;
+        this.reservationRepository = reservationRepository;
+        this.creditCardPaymentService = creditCardPaymentService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Create a new reservation based on payment mode. The property is stored as given:
+     * the reactive profile runs on a single database and does not shard.
+     */
+    public Mono<ReservationEntity> confirmReservation(
+            String propertyId,
+            String customerName,
+            String roomNumber,
+            LocalDate startDate,
+            LocalDate endDate,
+            ReservationEntity.RoomSegment roomSegment,
+            ReservationEntity.ModeOfPayment modeOfPayment,
+            String paymentReference) {
+
+        return Mono.fromCallable(() -> {
+                    reservationService.validateReservationDuration(startDate, endDate);
+
+                    ReservationEntity reservation = new ReservationEntity();
+                    if (propertyId != null) {
+                        reservation.setPropertyId(propertyId);
+                    }
+                    reservation.setCustomerName(customerName);
+                    reservation.setRoomNumber(roomNumber);
+                    reservation.setStartDate(startDate);
+                    reservation.setEndDate(endDate);
+                    reservation.setRoomSegment(roomSegment);
+                    reservation.setModeOfPayment(modeOfPayment);
+                    reservation.setPaymentReference(paymentReference);
+                    reservation.setTotalAmount(reservationService.calculateTotalAmount(roomSegment, startDate, endDate));
+                    return reservation;
+                })
+                .flatMap(this::applyPayment)
+                .flatMap(reservation -> reservationRepository.save(ReservationRow.newRow(reservation))
+                        .thenReturn(reservation))
+                // The listeners block (journal fsync, synchronized projections): keep them off the event loop
+                .publishOn(Schedulers.boundedElastic())
+                .doOnNext(saved -> eventPublisher.publishEvent(ReservationStateChangedEvent.created(saved)));
+    }
+
+    private Mono<ReservationEntity> applyPayment(ReservationEntity reservation) {
+        switch (reservation.getModeOfPayment()) {
+            case CASH:
+                // Cash payments are confirmed immediately
+                confirm(reservation);
+                logger.info("Cash payment - Reservation confirmed immediately: {}", reservation.getReservationId());
+                return Mono.just(reservation);
+
+            case CREDIT_CARD:
+                String paymentReference = reservation.getPaymentReference();
+                if (paymentReference == null || paymentReference.isEmpty()) {
+                    return Mono.error(new IllegalArgumentException(
+                            "Payment reference is required for credit card payments"));
+                }
+                return creditCardPaymentService.verifyPaymentReactive(paymentReference)
+                        .flatMap(paymentConfirmed -> {
+                            if (!paymentConfirmed) {
+                                return Mono.error(new RuntimeException("Credit card payment verification failed"));
+                            }
+                            confirm(reservation);
+                            logger.info("Credit card payment confirmed: {}", reservation.getReservationId());
+                            return Mono.just(reservation);
+                        });
+
+            case BANK_TRANSFER:
+                // Bank transfer reservations start as pending
+                reservation.setStatus(ReservationEntity.ReservationStatus.PENDING_PAYMENT);
+                logger.info("Bank transfer - Reservation pending payment: {}", reservation.getReservationId());
+                return Mono.just(reservation);
+
+            default:
+                return Mono.error(new IllegalArgumentException(
+                        "Unsupported payment mode: " + reservation.getModeOfPayment()));
+        }
+    }
+
+    private static void confirm(ReservationEntity reservation) {
+        reservation.setStatus(ReservationEntity.ReservationStatus.CONFIRMED);
+        reservation.setAmountReceived(reservation.getTotalAmount());
+    }
+}
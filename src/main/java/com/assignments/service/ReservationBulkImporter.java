@@ -0,0 +1,776 @@
+package com.assignments.service;
+
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationExportRow;
+import com.assignments.model.ReservationIds;
+import com.assignments.model.ReservationsImportedEvent;
+import com.assignments.service.ReservationExportService.Format;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Loads historical reservations from a CSV or NDJSON file straight into the reservations
+ * table, for migrations where going through the API or JPA would take hours.
+ *
+ * The file is split into chunks of whole records that are memory-mapped and parsed in
+ * parallel. A CSV record may span several lines when quoted fields contain line breaks,
+ * as in the export. Every row is validated with the same duration and pricing rules as a booking,
+ * then inserted with JDBC batches, one transaction per batch and shard. Invalid rows are
+ * skipped and reported with their line number; the rest of the file is still imported.
+ *
+ * The columns are those of the reservation export (CSV header or NDJSON field names).
+ * reservationId, propertyId, paymentReference, status, totalAmount and amountReceived are
+ * optional: a missing ID is generated on the property's shard, the property defaults to
+ * "default", the status to what a new booking gets, and the amounts are derived from the price.
+ *
+ * No state change events are published for imported rows; projections are rebuilt once
+ * the import is done, or once it has failed after committing some batches. Exposed as the
+ * actuator write operation POST /actuator/reservationimport once added to
+ * management.endpoints.web.exposure.include (not exposed by default).
+ */
+@Component
+@Endpoint(id = "reservationimport")
+public class ReservationBulkImporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationBulkImporter.class);
+
+    private static final String INSERT_SQL = "insert into reservations (reservation_id, property_id, customer_name,"
+            + " room_number, start_date, end_date, room_segment, mode_of_payment, payment_reference, status,"
+            + " total_amount, amount_received) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DUPLICATE_KEY = "23505";
+    private static final int MAX_ID_ATTEMPTS = 3;
+    private static final int SCAN_BLOCK = 8 * 1024;
+    private static final Pattern PROPERTY_ID = Pattern.compile("[A-Za-z0-9_-]{1,32}");
+    private static final List<String> COLUMNS = List.of("reservationId", "propertyId", "customerName",
+            "roomNumber", "roomSegment", "startDate", "endDate", "modeOfPayment", "paymentReference", "status",
+            "totalAmount", "amountReceived");
+    private static final List<String> REQUIRED_COLUMNS = List.of("customerName", "roomNumber", "roomSegment",
+            "startDate", "endDate", "modeOfPayment");
+
+    private final ReservationService reservationService;
+    private final ShardRouter shardRouter;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader ndjsonReader;
+    private final Path directory;
+    private final boolean packedIds;
+    private final int threads;
+    private final long chunkSize;
+    private final int batchSize;
+    private final int maxReportedErrors;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public ReservationBulkImporter(ReservationService reservationService, ShardRouter shardRouter,
+            JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            @Value("${reservation.import.directory:imports}") Path directory,
+            @Value("${reservation.id-storage:VARCHAR}") String idStorage,
+            @Value("${reservation.import.threads:4}") int threads,
+            @Value("${reservation.import.chunk-size:8MB}") DataSize chunkSize,
+            @Value("${reservation.import.batch-size:1000}") int batchSize,
+            @Value("${reservation.import.max-reported-errors:1000}") int maxReportedErrors) {
+        this.reservationService = reservationService;
+        this.shardRouter = shardRouter;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.ndjsonReader = objectMapper.readerFor(ReservationExportRow.class);
+        this.directory = directory.toAbsolutePath().normalize();
+        this.packedIds = idStorage.equalsIgnoreCase("BIGINT");
+        this.threads = Math.max(1, threads);
+        this.chunkSize = Math.min(Math.max(SCAN_BLOCK, chunkSize.toBytes()), Integer.MAX_VALUE / 2);
+        this.batchSize = Math.max(1, batchSize);
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Import a file from {@code reservation.import.directory}
+     *
+     * @param file   path relative to the import directory
+     * @param format csv or ndjson; taken from the file extension when null
+     */
+    @WriteOperation
+    public ImportResult importFile(String file, @Nullable String format) {
+        Path path = directory.resolve(file).normalize();
+        if (!path.startsWith(directory)) {
+            throw new IllegalArgumentException("Import file must be inside " + directory);
+        }
+        return importReservations(path, format == null ? null : Format.of(format));
+    }
+
+    /**
+     * Import every valid row of the file; only one import runs at a time
+     *
+     * @param format CSV or NDJSON; taken from the file extension when null
+     */
+    public ImportResult importReservations(Path file, @Nullable Format format) {
+        Format fileFormat = format != null ? format
+                : file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv") ? Format.CSV : Format.NDJSON;
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A reservation import is already running");
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return importReservations(file, fileFormat, channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read " + file, e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private ImportResult importReservations(Path file, Format format, FileChannel channel) throws IOException {
+        long started = System.nanoTime();
+        long size = channel.size();
+        long dataStart = startsWithByteOrderMark(channel) ? 3 : 0;
+        int[] columns = null;
+        long firstLine = 1;
+        if (format == Format.CSV) {
+            long headerEnd = nextLineStart(channel, dataStart, size);
+            columns = csvColumns(readLine(channel, dataStart, headerEnd));
+            dataStart = headerEnd;
+            firstLine = 2;
+        }
+
+        // Chunk boundaries fall right after a record's line break, so every record is parsed by one worker
+        List<long[]> chunks = new ArrayList<>();
+        for (long start = dataStart; start < size; ) {
+            long end = start + chunkSize >= size ? size
+                    : nextRecordStart(channel, format, start, start + chunkSize - 1, size);
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Line too long after byte " + start);
+            }
+            chunks.add(new long[] {start, end});
+            start = end;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, chunks.size())),
+                new ImportThreadFactory());
+        List<ChunkResult> results = new ArrayList<>();
+        List<ChunkReader> readers = new ArrayList<>();
+        List<Future<ChunkResult>> futures = new ArrayList<>();
+        long committed = 0;
+        try {
+            for (long[] chunk : chunks) {
+                ChunkReader reader = new ChunkReader(format, columns,
+                        channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], chunk[1] - chunk[0]));
+                readers.add(reader);
+                futures.add(executor.submit(reader::read));
+            }
+            for (Future<ChunkResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            committed = stop(executor, futures, readers);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reservation import interrupted after " + committed
+                    + " rows were imported", e);
+        } catch (ExecutionException e) {
+            committed = stop(executor, futures, readers);
+            throw new IllegalStateException("Reservation import of " + file + " failed after " + committed
+                    + " rows were imported", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            // Batches committed before a failure stay in the database; the projections must see them
+            if (committed > 0) {
+                eventPublisher.publishEvent(new ReservationsImportedEvent(committed));
+            }
+        }
+
+        // Chunk-relative line numbers become file line numbers once the line counts are known
+        long lines = 0;
+        long imported = 0;
+        long rejected = 0;
+        List<LineError> errors = new ArrayList<>();
+        for (ChunkResult result : results) {
+            for (LineError error : result.errors) {
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new LineError(firstLine + lines + error.line() - 1, error.message()));
+                }
+            }
+            lines += result.lines;
+            imported += result.imported;
+            rejected += result.rejected;
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        double rowsPerSecond = seconds > 0 ? imported / seconds : 0;
+        logger.info("Imported {} reservations from {} in {} s ({} rows/s), {} lines rejected", imported, file,
+                String.format(Locale.ROOT, "%.1f", seconds), Math.round(rowsPerSecond), rejected);
+        if (imported > 0) {
+            eventPublisher.publishEvent(new ReservationsImportedEvent(imported));
+        }
+        return new ImportResult(file.toString(), format.name(), lines, imported, rejected, seconds,
+                rowsPerSecond, errors);
+    }
+
+    /**
+     * Stop the chunks after a failure and wait for the running ones to commit their
+     * current batch
+     *
+     * @return rows committed by all chunks
+     */
+    private static long stop(ExecutorService executor, List<Future<ChunkResult>> futures,
+            List<ChunkReader> readers) {
+        readers.forEach(reader -> reader.stopped = true);
+        futures.forEach(future -> future.cancel(false));
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Reservation import chunks still running; the imported count may be too low");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return readers.stream().mapToLong(reader -> reader.result.imported).sum();
+    }
+
+    /**
+     * Parses, validates and inserts the records of one chunk
+     */
+    private final class ChunkReader {
+        private final Format format;
+        private final int[] columns;
+        private final MappedByteBuffer buffer;
+        // JSON strings cannot hold raw line breaks, so only CSV records span lines
+        private final CsvQuoting quoting;
+        private final ChunkResult result = new ChunkResult(maxReportedErrors);
+        private final Map<String, List<ValidRow>> batches = new HashMap<>();
+        private byte[] line = new byte[1024];
+        private volatile boolean stopped;
+
+        ChunkReader(Format format, int[] columns, MappedByteBuffer buffer) {
+            this.format = format;
+            this.columns = columns;
+            this.buffer = buffer;
+            this.quoting = format == Format.CSV ? new CsvQuoting() : null;
+        }
+
+        ChunkResult read() {
+            int limit = buffer.limit();
+            int start = 0;
+            while (start < limit && !stopped) {
+                // Errors are reported on the first line of their record
+                long firstLine = result.lines + 1;
+                int end = start;
+                while (end < limit) {
+                    byte b = buffer.get(end);
+                    if (quoting == null ? b == '\n' : quoting.endsRecord(b)) {
+                        break;
+                    }
+                    if (b == '\n') {
+                        result.lines++;
+                    }
+                    end++;
+                }
+                int length = end - start;
+                if (length > 0 && buffer.get(end - 1) == '\r') {
+                    length--;
+                }
+                result.lines++;
+                parse(start, length, firstLine);
+                start = end + 1;
+            }
+            if (stopped) {
+                return result;
+            }
+            batches.keySet().forEach(this::flush);
+            // Rows rejected by the database are reported after the parse errors of their batch
+            result.errors.sort(Comparator.comparingLong(LineError::line));
+            return result;
+        }
+
+        private void parse(int start, int length, long lineNumber) {
+            if (line.length < length) {
+                line = new byte[Math.max(length, line.length * 2)];
+            }
+            buffer.get(start, line, 0, length);
+            if (isBlank(line, length)) {
+                return;
+            }
+            try {
+                ReservationExportRow row = format == Format.CSV
+                        ? csvRow(columns, new String(line, 0, length, StandardCharsets.UTF_8))
+                        : ndjsonReader.readValue(line, 0, length);
+                // Chunk-relative line number, made absolute when the chunks are merged
+                ValidRow valid = validate(row, lineNumber);
+                List<ValidRow> batch = batches.computeIfAbsent(valid.shard(), shard -> new ArrayList<>());
+                batch.add(valid);
+                if (batch.size() >= batchSize) {
+                    flush(valid.shard());
+                }
+            } catch (JsonProcessingException e) {
+                result.reject(lineNumber, e.getOriginalMessage());
+                return;
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                result.reject(lineNumber, e.getMessage());
+                return;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flush(String shard) {
+            List<ValidRow> batch = batches.get(shard);
+            if (batch.isEmpty()) {
+                return;
+            }
+            ConnectionCallback<Integer> insertBatch = connection -> insert(connection, batch, result);
+            Integer inserted = ShardContext.call(shard,
+                    () -> transactionTemplate.execute(status -> jdbcTemplate.execute(insertBatch)));
+            result.imported += inserted == null ? 0 : inserted;
+            batch.clear();
+        }
+    }
+
+    private int insert(Connection connection, List<ValidRow> rows, ChunkResult result) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+            for (ValidRow row : rows) {
+                bind(insert, row);
+                insert.addBatch();
+            }
+            int[] counts;
+            try {
+                counts = insert.executeBatch();
+            } catch (BatchUpdateException e) {
+                counts = e.getUpdateCounts();
+                insert.clearBatch();
+            }
+            int inserted = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                if (i < counts.length && counts[i] != Statement.EXECUTE_FAILED) {
+                    inserted++;
+                } else {
+                    // Rare: retried on its own to find out why it failed
+                    inserted += insertOne(insert, rows.get(i), result);
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private int insertOne(PreparedStatement insert, ValidRow row, ChunkResult result) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                bind(insert, row);
+                insert.executeUpdate();
+                return 1;
+            } catch (SQLException e) {
+                boolean duplicate = DUPLICATE_KEY.equals(e.getSQLState());
+                if (duplicate && row.generatedId() && attempt < MAX_ID_ATTEMPTS) {
+                    row = row.withReservationId(shardRouter.newReservationId(row.shard()));
+                    continue;
+                }
+                result.reject(row.line(), duplicate ? "Reservation ID already exists: " + row.reservationId()
+                        : "Rejected by the database: " + e.getMessage());
+                return 0;
+            }
+        }
+    }
+
+    private void bind(PreparedStatement insert, ValidRow row) throws SQLException {
+        if (packedIds) {
+            insert.setLong(1, ReservationIds.pack(row.reservationId()));
+        } else {
+            insert.setString(1, row.reservationId());
+        }
+        insert.setString(2, row.propertyId());
+        insert.setString(3, row.customerName());
+        insert.setString(4, row.roomNumber());
+        insert.setObject(5, row.startDate());
+        insert.setObject(6, row.endDate());
+        insert.setString(7, row.roomSegment().name());
+        insert.setString(8, row.modeOfPayment().name());
+        insert.setString(9, row.paymentReference());
+        insert.setString(10, row.status().name());
+        insert.setBigDecimal(11, row.totalAmount().toBigDecimal());
+        insert.setBigDecimal(12, row.amountReceived().toBigDecimal());
+    }
+
+    /**
+     * Apply the booking rules to a parsed row and fill in the optional columns
+     */
+    ValidRow validate(ReservationExportRow row, long line) {
+        String customerName = required(row.customerName(), "customerName");
+        String roomNumber = required(row.roomNumber(), "roomNumber");
+        LocalDate startDate = required(row.startDate(), "startDate");
+        LocalDate endDate = required(row.endDate(), "endDate");
+        ReservationEntity.RoomSegment roomSegment = required(row.roomSegment(), "roomSegment");
+        ReservationEntity.ModeOfPayment modeOfPayment = required(row.modeOfPayment(), "modeOfPayment");
+
+        reservationService.validateReservationDuration(startDate, endDate);
+        Money totalAmount = reservationService.calculateTotalAmount(roomSegment, startDate, endDate);
+        if (row.totalAmount() != null && !row.totalAmount().equals(totalAmount)) {
+            throw new IllegalArgumentException(String.format("totalAmount %s does not match the price %s",
+                    row.totalAmount(), totalAmount));
+        }
+        String paymentReference = blankToNull(row.paymentReference());
+        if (modeOfPayment == ReservationEntity.ModeOfPayment.CREDIT_CARD && paymentReference == null) {
+            throw new IllegalArgumentException("Payment reference is required for credit card payments");
+        }
+
+        ReservationEntity.ReservationStatus status = row.status() != null ? row.status()
+                : modeOfPayment == ReservationEntity.ModeOfPayment.BANK_TRANSFER
+                        ? ReservationEntity.ReservationStatus.PENDING_PAYMENT
+                        : ReservationEntity.ReservationStatus.CONFIRMED;
+        Money amountReceived = row.amountReceived() != null ? row.amountReceived()
+                : status == ReservationEntity.ReservationStatus.CONFIRMED ? totalAmount : Money.ZERO;
+        if (amountReceived.isLessThan(Money.ZERO) || totalAmount.isLessThan(amountReceived)) {
+            throw new IllegalArgumentException(String.format("amountReceived %s must be between 0 and %s",
+                    amountReceived, totalAmount));
+        }
+        if (status == ReservationEntity.ReservationStatus.CONFIRMED && amountReceived.isLessThan(totalAmount)) {
+            throw new IllegalArgumentException("A confirmed reservation must be fully paid");
+        }
+        if (status == ReservationEntity.ReservationStatus.PENDING_PAYMENT && !amountReceived.isLessThan(totalAmount)) {
+            throw new IllegalArgumentException("A fully paid reservation cannot be pending payment");
+        }
+
+        String propertyId = blankToNull(row.propertyId());
+        if (propertyId == null) {
+            propertyId = ReservationEntity.DEFAULT_PROPERTY_ID;
+        } else if (!PROPERTY_ID.matcher(propertyId).matches()) {
+            throw new IllegalArgumentException("Invalid propertyId: " + propertyId);
+        }
+        String shard = shardRouter.shardOfProperty(propertyId);
+        String reservationId = blankToNull(row.reservationId());
+        if (reservationId != null && ReservationIds.pack(reservationId) == 0) {
+            throw new IllegalArgumentException("reservationId must be 8 ASCII characters: " + reservationId);
+        }
+        // The ID prefix must name the shard the row goes to, or payments could not find it
+        if (reservationId != null && !shardRouter.shardOfReservation(reservationId).equals(shard)) {
+            throw new IllegalArgumentException(String.format("reservationId %s does not belong to shard %s of"
+                    + " property %s", reservationId, shard, propertyId));
+        }
+        return new ValidRow(line, shard, reservationId != null ? reservationId : shardRouter.newReservationId(shard),
+                reservationId == null, propertyId, customerName.trim(), roomNumber.trim(), startDate, endDate,
+                roomSegment, modeOfPayment, paymentReference, status, totalAmount, amountReceived);
+    }
+
+    /**
+     * Position of each known column in the CSV header, -1 when absent
+     */
+    static int[] csvColumns(String header) {
+        if (header.isBlank()) {
+            throw new IllegalArgumentException("CSV header is missing");
+        }
+        List<String> names = csvFields(header);
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            positions.put(names.get(i).trim(), i);
+        }
+        for (String required : REQUIRED_COLUMNS) {
+            if (!positions.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header has no " + required + " column");
+            }
+        }
+        int[] columns = new int[COLUMNS.size() + 1];
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            columns[i] = positions.getOrDefault(COLUMNS.get(i), -1);
+        }
+        columns[COLUMNS.size()] = names.size();
+        return columns;
+    }
+
+    static ReservationExportRow csvRow(int[] columns, String line) {
+        List<String> fields = csvFields(line);
+        int expected = columns[COLUMNS.size()];
+        if (fields.size() != expected) {
+            throw new IllegalArgumentException(String.format("Expected %d fields, found %d", expected, fields.size()));
+        }
+        return new ReservationExportRow(
+                field(fields, columns[0]),
+                field(fields, columns[1]),
+                field(fields, columns[2]),
+                field(fields, columns[3]),
+                enumField(ReservationEntity.RoomSegment.class, fields, columns[4], "roomSegment"),
+                dateField(fields, columns[5]),
+                dateField(fields, columns[6]),
+                enumField(ReservationEntity.ModeOfPayment.class, fields, columns[7], "modeOfPayment"),
+                field(fields, columns[8]),
+                enumField(ReservationEntity.ReservationStatus.class, fields, columns[9], "status"),
+                moneyField(fields, columns[10]),
+                moneyField(fields, columns[11]));
+    }
+
+    /**
+     * RFC 4180 fields of one record; quoted fields may contain line breaks
+     */
+    static List<String> csvFields(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static String field(List<String> fields, int column) {
+        return column < 0 ? null : blankToNull(fields.get(column));
+    }
+
+    private static LocalDate dateField(List<String> fields, int column) {
+        String value = field(fields, column);
+        return value == null ? null : LocalDate.parse(value.trim());
+    }
+
+    private static Money moneyField(List<String> fields, int column) {
+        String value = field(fields, column);
+        return value == null ? null : Money.valueOf(value);
+    }
+
+    private static <E extends Enum<E>> E enumField(Class<E> type, List<String> fields, int column, String name) {
+        String value = field(fields, column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    private static <T> T required(T value, String name) {
+        if (value == null || value instanceof String text && text.isBlank()) {
+            throw new IllegalArgumentException(name + " is required");
+        }
+        return value;
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static boolean isBlank(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != ' ' && bytes[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWithByteOrderMark(FileChannel channel) throws IOException {
+        ByteBuffer bom = ByteBuffer.allocate(3);
+        channel.read(bom, 0);
+        return bom.position() == 3 && (bom.get(0) & 0xFF) == 0xEF && (bom.get(1) & 0xFF) == 0xBB
+                && (bom.get(2) & 0xFF) == 0xBF;
+    }
+
+    /**
+     * Position after the first line break at or after {@code from}, or the file size
+     */
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+        for (long position = from; position < size; position += block.limit()) {
+            block.clear();
+            channel.read(block, position);
+            block.flip();
+            for (int i = 0; i < block.limit(); i++) {
+                if (block.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Position after the first line break at or after {@code target} that ends a record, or the
+     * file size. A CSV line break inside a quoted field does not end a record; the quoting is
+     * tracked from {@code from}, which must be the start of a record.
+     */
+    private static long nextRecordStart(FileChannel channel, Format format, long from, long target, long size)
+            throws IOException {
+        if (format != Format.CSV) {
+            return nextLineStart(channel, target, size);
+        }
+        CsvQuoting quoting = new CsvQuoting();
+        ByteBuffer block = ByteBuffer.allocate(SCAN_BLOCK);
+        for (long position = from; position < size; position += block.limit()) {
+            block.clear();
+            channel.read(block, position);
+            block.flip();
+            for (int i = 0; i < block.limit(); i++) {
+                if (quoting.endsRecord(block.get(i)) && position + i >= target) {
+                    return position + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    private static String readLine(FileChannel channel, long start, long end) throws IOException {
+        if (end - start > SCAN_BLOCK * 8) {
+            throw new IllegalArgumentException("CSV header is too long");
+        }
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        channel.read(bytes, start);
+        return new String(bytes.array(), 0, bytes.position(), StandardCharsets.UTF_8).strip();
+    }
+
+    /**
+     * RFC 4180 quoting state fed one byte at a time, the same way {@link #csvFields} reads a
+     * record: a quote only opens a field at its start, and a doubled quote inside is escaped.
+     * UTF-8 continuation bytes never equal the ASCII bytes looked at here.
+     */
+    private static final class CsvQuoting {
+        private boolean quoted;
+        private boolean fieldStart = true;
+        // A quote was seen inside a quoted field: closes it unless the next byte is a quote too
+        private boolean closing;
+
+        /**
+         * Whether the byte is a line break ending the record
+         */
+        boolean endsRecord(byte b) {
+            if (closing) {
+                closing = false;
+                if (b == '"') {
+                    return false;
+                }
+                quoted = false;
+            }
+            if (quoted) {
+                closing = b == '"';
+                return false;
+            }
+            if (b == '"' && fieldStart) {
+                quoted = true;
+                fieldStart = false;
+                return false;
+            }
+            fieldStart = b == ',' || b == '\n';
+            return b == '\n';
+        }
+    }
+
+    private static final class ChunkResult {
+        private final List<LineError> errors = new ArrayList<>();
+        private final int maxErrors;
+        private long lines;
+        private long imported;
+        private long rejected;
+
+        ChunkResult(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        void reject(long line, String message) {
+            rejected++;
+            if (errors.size() < maxErrors) {
+                errors.add(new LineError(line, message));
+            }
+        }
+    }
+
+    private static final class ImportThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "reservation-import-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Row ready for insertion, with the line it came from and the shard it goes to
+     */
+    record ValidRow(long line, String shard, String reservationId, boolean generatedId, String propertyId,
+            String customerName, String roomNumber, LocalDate startDate, LocalDate endDate,
+            ReservationEntity.RoomSegment roomSegment, ReservationEntity.ModeOfPayment modeOfPayment,
+            String paymentReference, ReservationEntity.ReservationStatus status, Money totalAmount,
+            Money amountReceived) {
+
+        ValidRow withReservationId(String id) {
+            return new ValidRow(line, shard, id, generatedId, propertyId, customerName, roomNumber, startDate,
+                    endDate, roomSegment, modeOfPayment, paymentReference, status, totalAmount, amountReceived);
+        }
+    }
+
+    /**
+     * A rejected line of the file (1-based, header included) and why it was rejected
+     */
+    public record LineError(long line, String message) {
+    }
+
+    /**
+     * Outcome of an import: data lines read, rows imported and rejected, throughput and the
+     * first {@code reservation.import.max-reported-errors} line errors
+     */
+    public record ImportResult(String file, String format, long lines, long imported, long rejected,
+            double seconds, double rowsPerSecond, List<LineError> errors) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.assignments.service;
+
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationExportRow;
+import com.assignments.repository.ArchivedReservationRepository;
+import com.assignments.repository.ReservationRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes reservation extracts row by row from a database cursor, so memory use does
+ * not depend on the number of reservations exported. Shards are exported one after the
+ * other: the current reservations in date order, then (unless left out) the archived ones
+ * in date order, through the same writer. A reservation archived while the export runs
+ * may appear in both parts.
+ */
+@Service
+public class ReservationExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReservationExportService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "reservationId,propertyId,customerName,roomNumber,roomSegment,"
+            + "startDate,endDate,modeOfPayment,paymentReference,status,totalAmount,amountReceived";
+
+    public enum Format {
+        NDJSON, CSV;
+
+        /**
+         * Format from a request parameter such as {@code csv}
+         */
+        public static Format of(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + name + " (ndjson or csv)");
+            }
+        }
+    }
+
+    private final ReservationRepository reservationRepository;
+    private final ArchivedReservationRepository archivedReservationRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter ndjsonWriter;
+
+    public ReservationExportService(ReservationRepository reservationRepository,
+            ArchivedReservationRepository archivedReservationRepository, ShardRouter shardRouter,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper) {
+        this.reservationRepository = reservationRepository;
+        this.archivedReservationRepository = archivedReservationRepository;
+        this.shardRouter = shardRouter;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.ndjsonWriter = objectMapper.writerFor(ReservationExportRow.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(SerializationFeature.CLOSE_CLOSEABLE);
+    }
+
+    /**
+     * Write the reservations starting in [from, to] in the given status (null matches
+     * everything), archived ones included, to the output, one line per reservation
+     *
+     * @return number of reservations written
+     */
+    public long export(LocalDate from, LocalDate to, ReservationEntity.ReservationStatus status, Format format,
+            OutputStream output) throws IOException {
+        return export(from, to, status, true, format, output);
+    }
+
+    /**
+     * Same as {@link #export(LocalDate, LocalDate, ReservationEntity.ReservationStatus, Format, OutputStream)},
+     * leaving out the reservations_archive table unless {@code includeArchived}
+     */
+    public long export(LocalDate from, LocalDate to, ReservationEntity.ReservationStatus status,
+            boolean includeArchived, Format format, OutputStream output) throws IOException {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE);
+        SequenceWriter json = null;
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        } else {
+            // One generator for the whole export, writing straight into the buffer
+            json = ndjsonWriter.writeValues(writer);
+        }
+        long rows = 0;
+        for (String shard : shardRouter.shards()) {
+            SequenceWriter shardJson = json;
+            try {
+                // The cursor needs an open transaction, on the shard's connection
+                rows += ShardContext.call(shard, () -> readOnlyTransaction.execute(transaction -> writeRows(
+                        () -> reservationRepository.streamForExport(from, to, status), writer, shardJson)));
+                if (includeArchived) {
+                    rows += ShardContext.call(shard, () -> readOnlyTransaction.execute(transaction -> writeRows(
+                            () -> archivedReservationRepository.streamForExport(from, to, status), writer,
+                            shardJson)));
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        if (json != null) {
+            // The generator buffers on its own: drain it before the closing newline
+            json.flush();
+            if (rows > 0) {
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+        logger.info("Exported {} reservations as {} (from {}, to {}, status {}, archived {})", rows, format, from, to,
+                status, includeArchived);
+        return rows;
+    }
+
+    /**
+     * Write the rows of the cursor, as CSV or, given a generator, as NDJSON
+     */
+    private static long writeRows(Supplier<Stream<ReservationExportRow>> cursor, Writer writer,
+            SequenceWriter json) {
+        long rows = 0;
+        try (Stream<ReservationExportRow> stream = cursor.get()) {
+            Iterator<ReservationExportRow> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                if (json == null) {
+                    writeCsv(writer, iterator.next());
+                    writer.write('\n');
+                } else {
+                    json.write(iterator.next());
+                }
+                rows++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rows;
+    }
+
+    private static void writeCsv(Writer writer, ReservationExportRow row) throws IOException {
+        writer.write(csv(row.reservationId()));
+        writer.write(',');
+        writer.write(csv(row.propertyId()));
+        writer.write(',');
+        writer.write(csv(row.customerName()));
+        writer.write(',');
+        writer.write(csv(row.roomNumber()));
+        writer.write(',');
+        writer.write(csv(row.roomSegment()));
+        writer.write(',');
+        writer.write(csv(row.startDate()));
+        writer.write(',');
+        writer.write(csv(row.endDate()));
+        writer.write(',');
+        writer.write(csv(row.modeOfPayment()));
+        writer.write(',');
+        writer.write(csv(row.paymentReference()));
+        writer.write(',');
+        writer.write(csv(row.status()));
+        writer.write(',');
+        writer.write(csv(row.totalAmount()));
+        writer.write(',');
+        writer.write(csv(row.amountReceived()));
+    }
+
+    /**
+     * RFC 4180 field: quoted when it contains a separator, quote or line break
+     */
+    static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,16 +1,29 @@
 package com.assignments.service;
 
+import com.assignments.config.ShardContext;
+import com.assignments.config.ShardRouter;
+import com.assignments.exception.ExternalServiceException;
+import com.assignments.model.ArchivedReservationEntity;
+import com.assignments.model.DeferredCardVerification;
+import com.assignments.model.Money;
 import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.repository.ArchivedReservationRepository;
+import com.assignments.repository.DeferredCardVerificationRepository;
 import com.assignments.repository.ReservationRepository;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,31 +34,46 @@ import java.util.Optional;
 public class ReservationService {
 
     private static final Logger logger = LoggerFactory.getLogger(ReservationService.class);
-    private static final int MAX_RESERVATION_DAYS = 30;
+    public static final int MAX_RESERVATION_DAYS = 30;
 
     private final ReservationRepository reservationRepository;
+    private final ArchivedReservationRepository archivedReservationRepository;
+    private final DeferredCardVerificationRepository deferredCardVerificationRepository;
     private final CreditCardPaymentService creditCardPaymentService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ShardRouter shardRouter;
 
     @Value("${reservation.pricing.small:100.00}")
-    private BigDecimal priceSmall;
+    private Money priceSmall;
 
     @Value("${reservation.pricing.medium:150.00}")
-    private BigDecimal priceMedium;
+    private Money priceMedium;
 
     @Value("${reservation.pricing.large:200.00}")
-    private BigDecimal priceLarge;
+    private Money priceLarge;
 
     @Value("${reservation.pricing.extra-large:300.00}")
-    private BigDecimal priceExtraLarge;
+    private Money priceExtraLarge;
+
+    @Value("${reservation.credit-card.deferred-verification.enabled:false}")
+    private boolean deferCardVerification;
 
     public ReservationService(ReservationRepository reservationRepository,
-            CreditCardPaymentService creditCardPaymentService) {
+            ArchivedReservationRepository archivedReservationRepository,
+            DeferredCardVerificationRepository deferredCardVerificationRepository,
+            CreditCardPaymentService creditCardPaymentService,
+            ApplicationEventPublisher eventPublisher,
+            ShardRouter shardRouter) {
         this.reservationRepository = reservationRepository;
+        this.archivedReservationRepository = archivedReservationRepository;
+        this.deferredCardVerificationRepository = deferredCardVerificationRepository;
         this.creditCardPaymentService = creditCardPaymentService;
+        this.eventPublisher = eventPublisher;
+        this.shardRouter = shardRouter;
     }
 
     /**
-     * Create a new reservation based on payment mode
+     * Create a new reservation for the default property based on payment mode
      */
     @Transactional
     public ReservationEntity confirmReservation(
@@ -56,12 +84,40 @@ public class ReservationService {
             ReservationEntity.RoomSegment roomSegment,
             ReservationEntity.ModeOfPayment modeOfPayment,
             String paymentReference) {
+        return confirmReservation(ReservationEntity.DEFAULT_PROPERTY_ID, customerName, roomNumber, startDate,
+                endDate, roomSegment, modeOfPayment, paymentReference);
+    }
+
+    /**
+     * Create a new reservation based on payment mode. With sharding enabled the caller must
+     * have bound the property's shard ({@link ShardRouter#shardOfProperty}) in
+     * {@link ShardContext} before calling.
+     */
+    @Transactional
+    public ReservationEntity confirmReservation(
+            String propertyId,
+            String customerName,
+            String roomNumber,
+            LocalDate startDate,
+            LocalDate endDate,
+            ReservationEntity.RoomSegment roomSegment,
+            ReservationEntity.ModeOfPayment modeOfPayment,
+            String paymentReference) {
 
         // Validate reservation duration
         validateReservationDuration(startDate, endDate);
 
-        // Create reservation entity
+        String property = propertyId == null ? ReservationEntity.DEFAULT_PROPERTY_ID : propertyId;
+        String shard = shardRouter.shardOfProperty(property);
+        if (shardRouter.isEnabled() && !shard.equals(ShardContext.current())) {
+            throw new IllegalStateException("Reservation for property " + property + " must be made on shard "
+                    + shard + ", not " + ShardContext.current());
+        }
+
+        // Create reservation entity, with an ID naming its shard
         ReservationEntity reservation = new ReservationEntity();
+        reservation.setReservationId(shardRouter.newReservationId(shard));
+        reservation.setPropertyId(property);
         reservation.setCustomerName(customerName);
         reservation.setRoomNumber(roomNumber);
         reservation.setStartDate(startDate);
@@ -71,7 +127,7 @@ public class ReservationService {
         reservation.setPaymentReference(paymentReference);
 
         // Calculate total amount based on room segment and duration
-        BigDecimal totalAmount = calculateTotalAmount(roomSegment, startDate, endDate);
+        Money totalAmount = calculateTotalAmount(roomSegment, startDate, endDate);
         reservation.setTotalAmount(totalAmount);
 
         // Process based on payment mode
@@ -88,7 +144,21 @@ public class ReservationService {
                 if (paymentReference == null || paymentReference.isEmpty()) {
                     throw new IllegalArgumentException("Payment reference is required for credit card payments");
                 }
-                boolean paymentConfirmed = creditCardPaymentService.verifyPayment(paymentReference);
+                boolean paymentConfirmed;
+                try {
+                    paymentConfirmed = creditCardPaymentService.verifyPayment(paymentReference);
+                } catch (ExternalServiceException e) {
+                    if (!deferCardVerification || !(e.getCause() instanceof CallNotPermittedException)) {
+                        throw e;
+                    }
+                    // Breaker open: accept the booking and verify the payment once the provider is back
+                    reservation.setStatus(ReservationEntity.ReservationStatus.PENDING_PAYMENT);
+                    deferredCardVerificationRepository.save(new DeferredCardVerification(
+                            reservation.getReservationId(), paymentReference, Instant.now()));
+                    logger.warn("Credit card verification deferred, reservation pending payment: {}",
+                            reservation.getReservationId());
+                    break;
+                }
                 if (paymentConfirmed) {
                     reservation.setStatus(ReservationEntity.ReservationStatus.CONFIRMED);
                     reservation.setAmountReceived(totalAmount);
@@ -108,13 +178,45 @@ public class ReservationService {
                 throw new IllegalArgumentException("Unsupported payment mode: " + modeOfPayment);
         }
 
-        return reservationRepository.save(reservation);
+        ReservationEntity saved = reservationRepository.save(reservation);
+        eventPublisher.publishEvent(ReservationStateChangedEvent.created(saved));
+        return saved;
+    }
+
+    /**
+     * Settle a reservation whose credit card verification was deferred: confirm it when the
+     * provider confirmed the payment, cancel it otherwise, and remove it from the queue.
+     * Does nothing to reservations that are no longer pending payment.
+     */
+    @Transactional
+    public void completeDeferredCardVerification(String reservationId, boolean paymentConfirmed) {
+        deferredCardVerificationRepository.deleteById(reservationId);
+        Optional<ReservationEntity> optionalReservation = reservationRepository.findForUpdate(reservationId);
+        if (optionalReservation.isEmpty()
+                || optionalReservation.get().getStatus() != ReservationEntity.ReservationStatus.PENDING_PAYMENT) {
+            logger.warn("Deferred credit card verification for {} ignored: reservation no longer pending",
+                    reservationId);
+            return;
+        }
+        ReservationEntity reservation = optionalReservation.get();
+        Money previousAmount = reservation.getAmountReceived();
+        if (paymentConfirmed) {
+            reservation.setStatus(ReservationEntity.ReservationStatus.CONFIRMED);
+            reservation.setAmountReceived(reservation.getTotalAmount());
+            logger.info("Deferred credit card payment confirmed: {}", reservationId);
+        } else {
+            reservation.setStatus(ReservationEntity.ReservationStatus.CANCELLED);
+            logger.info("Deferred credit card payment not accepted, reservation cancelled: {}", reservationId);
+        }
+        reservationRepository.save(reservation);
+        eventPublisher.publishEvent(new ReservationStateChangedEvent(
+                reservation, ReservationEntity.ReservationStatus.PENDING_PAYMENT, previousAmount));
     }
 
     /**
      * Validate that reservation duration does not exceed 30 days
      */
-    private void validateReservationDuration(LocalDate startDate, LocalDate endDate) {
+    void validateReservationDuration(LocalDate startDate, LocalDate endDate) {
         if (startDate.isAfter(endDate)) {
             throw new IllegalArgumentException("Start date must be before end date");
         }
@@ -130,12 +232,12 @@ public class ReservationService {
     /**
      * Calculate total amount based on room segment and duration
      */
-    private BigDecimal calculateTotalAmount(ReservationEntity.RoomSegment segment,
+    Money calculateTotalAmount(ReservationEntity.RoomSegment segment,
             LocalDate startDate, LocalDate endDate) {
         long days = ChronoUnit.DAYS.between(startDate, endDate);
 
         // Price per day based on room segment
-        BigDecimal pricePerDay;
+        Money pricePerDay;
         switch (segment) {
             case SMALL:
                 pricePerDay = priceSmall;
@@ -153,18 +255,21 @@ public class ReservationService {
                 pricePerDay = priceSmall;
         }
 
-        return pricePerDay.multiply(BigDecimal.valueOf(days));
+        return pricePerDay.times(days);
     }
 
     /**
      * Process bank transfer payment update
      */
     @Transactional
-    public void processBankTransferPayment(String reservationId, BigDecimal amountReceived) {
+    public void processBankTransferPayment(String reservationId, Money amountReceived) {
         logger.info("Processing bank transfer payment for reservation: {}, amount: {}",
                 reservationId, amountReceived);
 
-        Optional<ReservationEntity> optionalReservation = reservationRepository.findByReservationId(reservationId);
+        // Locked: concurrent installments and the cancellation sweep must not overwrite each other
+        Optional<ReservationEntity> optionalReservation = reservationRepository.findForUpdate(reservationId)
+                .or(() -> archivedReservationRepository.findByReservationId(reservationId)
+                        .map(ArchivedReservationEntity::toReservation));
 
         if (optionalReservation.isEmpty()) {
             logger.warn("Reservation not found: {}", reservationId);
@@ -180,13 +285,21 @@ public class ReservationService {
             return;
         }
 
+        // A deferred CREDIT_CARD reservation is also pending, but only its card verification may confirm it
+        if (reservation.getModeOfPayment() != ReservationEntity.ModeOfPayment.BANK_TRANSFER) {
+            logger.warn("Reservation {} is paid by {}, ignoring bank transfer payment",
+                    reservationId, reservation.getModeOfPayment());
+            return;
+        }
+
         // Update amount received
-        BigDecimal currentAmount = reservation.getAmountReceived();
-        BigDecimal newAmount = currentAmount.add(amountReceived);
+        ReservationEntity.ReservationStatus previousStatus = reservation.getStatus();
+        Money currentAmount = reservation.getAmountReceived();
+        Money newAmount = currentAmount.plus(amountReceived);
         reservation.setAmountReceived(newAmount);
 
         // Check if full payment received
-        if (newAmount.compareTo(reservation.getTotalAmount()) >= 0) {
+        if (!newAmount.isLessThan(reservation.getTotalAmount())) {
             reservation.setStatus(ReservationEntity.ReservationStatus.CONFIRMED);
             logger.info("Reservation {} confirmed - full payment received", reservationId);
         } else {
@@ -195,6 +308,42 @@ public class ReservationService {
         }
 
         reservationRepository.save(reservation);
+        eventPublisher.publishEvent(new ReservationStateChangedEvent(reservation, previousStatus, currentAmount));
+    }
+
+    /**
+     * Find a reservation by ID in the hot table, falling back to the archive.
+     * Archived reservations are returned as detached copies; they are finished and never change.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ReservationEntity> findReservation(String reservationId) {
+        Optional<ReservationEntity> reservation = reservationRepository.findByReservationId(reservationId);
+        if (reservation.isPresent()) {
+            return reservation;
+        }
+        return archivedReservationRepository.findByReservationId(reservationId)
+                .map(ArchivedReservationEntity::toReservation);
+    }
+
+    /**
+     * Move up to {@code limit} finished reservations that ended before the cutoff into the
+     * archive, in one transaction
+     *
+     * @return number of reservations archived
+     */
+    @Transactional
+    public int archiveFinishedReservations(LocalDate cutoff, int limit) {
+        int copied = archivedReservationRepository.copyFinishedReservations(cutoff, LocalDate.now(), limit);
+        if (copied == 0) {
+            return 0;
+        }
+        int deleted = reservationRepository.deleteArchived(cutoff);
+        if (deleted != copied) {
+            // Rolls back the chunk
+            throw new IllegalStateException(
+                    String.format("Archived %d reservations but deleted %d from the hot table", copied, deleted));
+        }
+        return deleted;
     }
 
     /**
@@ -203,27 +352,84 @@ public class ReservationService {
      */
     @Transactional
     public void cancelUnpaidReservations() {
-        LocalDate twoDaysFromNow = LocalDate.now().plusDays(2);
+        LocalDate twoDaysFromNow = cancellationCutoff();
 
         // Query for bank transfer reservations that haven't been paid and are starting
         // within 2 days
         List<ReservationEntity> pendingReservations = reservationRepository
-                .findByStatusAndModeOfPaymentAndStartDateBefore(
+                .findByStatusAndModeOfPaymentAndStartDateBeforeOrderByReservationId(
                         ReservationEntity.ReservationStatus.PENDING_PAYMENT,
                         ReservationEntity.ModeOfPayment.BANK_TRANSFER,
                         twoDaysFromNow);
 
         for (ReservationEntity reservation : pendingReservations) {
-            // Check if full payment not received
-            if (reservation.getAmountReceived().compareTo(reservation.getTotalAmount()) < 0) {
-                reservation.setStatus(ReservationEntity.ReservationStatus.CANCELLED);
-                reservationRepository.save(reservation);
-                logger.info("Cancelled reservation {} - payment not received 2 days before start date. " +
-                        "Required: {}, Received: {}",
-                        reservation.getReservationId(),
-                        reservation.getTotalAmount(),
-                        reservation.getAmountReceived());
+            cancelIfUnpaid(reservation);
+        }
+    }
+
+    /**
+     * IDs of the reservations {@link #cancelUnpaidReservations()} would cancel right now
+     */
+    @Transactional(readOnly = true)
+    public List<String> findCancellationCandidateIds() {
+        return findCancellationCandidateIds(Sort.unsorted());
+    }
+
+    /**
+     * Same as {@link #findCancellationCandidateIds()}, in the given order
+     */
+    @Transactional(readOnly = true)
+    public List<String> findCancellationCandidateIds(Sort sort) {
+        return reservationRepository.findUnpaidReservationIds(
+                ReservationEntity.ReservationStatus.PENDING_PAYMENT,
+                ReservationEntity.ModeOfPayment.BANK_TRANSFER,
+                cancellationCutoff(), sort);
+    }
+
+    /**
+     * Cancel the given reservations if they are still unpaid pending bank transfers
+     * starting within 2 days. Used by sweeps that split the candidates into batches.
+     *
+     * @return number of reservations cancelled
+     */
+    @Transactional
+    public int cancelUnpaidReservations(Collection<String> reservationIds) {
+        LocalDate twoDaysFromNow = cancellationCutoff();
+        int cancelled = 0;
+        for (ReservationEntity reservation : reservationRepository.findAllForUpdate(reservationIds)) {
+            // Re-check: the reservation may have been paid since it was selected
+            if (reservation.getStatus() == ReservationEntity.ReservationStatus.PENDING_PAYMENT
+                    && reservation.getModeOfPayment() == ReservationEntity.ModeOfPayment.BANK_TRANSFER
+                    && reservation.getStartDate().isBefore(twoDaysFromNow)
+                    && cancelIfUnpaid(reservation)) {
+                cancelled++;
             }
         }
+        return cancelled;
+    }
+
+    /**
+     * Unpaid bank transfer reservations starting before this date are cancelled
+     */
+    public static LocalDate cancellationCutoff() {
+        return LocalDate.now().plusDays(2);
+    }
+
+    private boolean cancelIfUnpaid(ReservationEntity reservation) {
+        // Check if full payment not received
+        if (!reservation.getAmountReceived().isLessThan(reservation.getTotalAmount())) {
+            return false;
+        }
+        ReservationEntity.ReservationStatus previousStatus = reservation.getStatus();
+        reservation.setStatus(ReservationEntity.ReservationStatus.CANCELLED);
+        reservationRepository.save(reservation);
+        eventPublisher.publishEvent(new ReservationStateChangedEvent(
+                reservation, previousStatus, reservation.getAmountReceived()));
+        logger.info("Cancelled reservation {} - payment not received 2 days before start date. " +
+                "Required: {}, Received: {}",
+                reservation.getReservationId(),
+                reservation.getTotalAmount(),
+                reservation.getAmountReceived());
+        return true;
     }
 }
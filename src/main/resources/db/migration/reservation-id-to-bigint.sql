@@ -0,0 +1,61 @@
+-- Switch the reservation_id columns of reservations, reservations_archive and deferred_card_verifications
+-- from VARCHAR to BIGINT (reservation.id-storage=BIGINT).
+-- Packs the 8 ASCII characters big-endian into a long, like ReservationIds.pack.
+-- Run once with the application stopped, e.g. RUNSCRIPT FROM 'classpath:db/migration/reservation-id-to-bigint.sql'.
+-- Every existing ID must be exactly 8 ASCII characters.
+
+ALTER TABLE reservations ADD COLUMN reservation_id_packed BIGINT;
+
+UPDATE reservations SET reservation_id_packed =
+      CAST(ASCII(SUBSTRING(reservation_id, 1, 1)) AS BIGINT) * 72057594037927936
+    + CAST(ASCII(SUBSTRING(reservation_id, 2, 1)) AS BIGINT) * 281474976710656
+    + CAST(ASCII(SUBSTRING(reservation_id, 3, 1)) AS BIGINT) * 1099511627776
+    + CAST(ASCII(SUBSTRING(reservation_id, 4, 1)) AS BIGINT) * 4294967296
+    + CAST(ASCII(SUBSTRING(reservation_id, 5, 1)) AS BIGINT) * 16777216
+    + CAST(ASCII(SUBSTRING(reservation_id, 6, 1)) AS BIGINT) * 65536
+    + CAST(ASCII(SUBSTRING(reservation_id, 7, 1)) AS BIGINT) * 256
+    + CAST(ASCII(SUBSTRING(reservation_id, 8, 1)) AS BIGINT);
+
+DROP INDEX IF EXISTS idx_reservations_start_date;
+ALTER TABLE reservations DROP PRIMARY KEY;
+ALTER TABLE reservations DROP COLUMN reservation_id;
+ALTER TABLE reservations ALTER COLUMN reservation_id_packed RENAME TO reservation_id;
+ALTER TABLE reservations ALTER COLUMN reservation_id SET NOT NULL;
+ALTER TABLE reservations ADD PRIMARY KEY (reservation_id);
+CREATE INDEX idx_reservations_start_date ON reservations (start_date, reservation_id);
+
+ALTER TABLE reservations_archive ADD COLUMN reservation_id_packed BIGINT;
+
+UPDATE reservations_archive SET reservation_id_packed =
+      CAST(ASCII(SUBSTRING(reservation_id, 1, 1)) AS BIGINT) * 72057594037927936
+    + CAST(ASCII(SUBSTRING(reservation_id, 2, 1)) AS BIGINT) * 281474976710656
+    + CAST(ASCII(SUBSTRING(reservation_id, 3, 1)) AS BIGINT) * 1099511627776
+    + CAST(ASCII(SUBSTRING(reservation_id, 4, 1)) AS BIGINT) * 4294967296
+    + CAST(ASCII(SUBSTRING(reservation_id, 5, 1)) AS BIGINT) * 16777216
+    + CAST(ASCII(SUBSTRING(reservation_id, 6, 1)) AS BIGINT) * 65536
+    + CAST(ASCII(SUBSTRING(reservation_id, 7, 1)) AS BIGINT) * 256
+    + CAST(ASCII(SUBSTRING(reservation_id, 8, 1)) AS BIGINT);
+
+ALTER TABLE reservations_archive DROP PRIMARY KEY;
+ALTER TABLE reservations_archive DROP COLUMN reservation_id;
+ALTER TABLE reservations_archive ALTER COLUMN reservation_id_packed RENAME TO reservation_id;
+ALTER TABLE reservations_archive ALTER COLUMN reservation_id SET NOT NULL;
+ALTER TABLE reservations_archive ADD PRIMARY KEY (reservation_id);
+
+ALTER TABLE deferred_card_verifications ADD COLUMN reservation_id_packed BIGINT;
+
+UPDATE deferred_card_verifications SET reservation_id_packed =
+      CAST(ASCII(SUBSTRING(reservation_id, 1, 1)) AS BIGINT) * 72057594037927936
+    + CAST(ASCII(SUBSTRING(reservation_id, 2, 1)) AS BIGINT) * 281474976710656
+    + CAST(ASCII(SUBSTRING(reservation_id, 3, 1)) AS BIGINT) * 1099511627776
+    + CAST(ASCII(SUBSTRING(reservation_id, 4, 1)) AS BIGINT) * 4294967296
+    + CAST(ASCII(SUBSTRING(reservation_id, 5, 1)) AS BIGINT) * 16777216
+    + CAST(ASCII(SUBSTRING(reservation_id, 6, 1)) AS BIGINT) * 65536
+    + CAST(ASCII(SUBSTRING(reservation_id, 7, 1)) AS BIGINT) * 256
+    + CAST(ASCII(SUBSTRING(reservation_id, 8, 1)) AS BIGINT);
+
+ALTER TABLE deferred_card_verifications DROP PRIMARY KEY;
+ALTER TABLE deferred_card_verifications DROP COLUMN reservation_id;
+ALTER TABLE deferred_card_verifications ALTER COLUMN reservation_id_packed RENAME TO reservation_id;
+ALTER TABLE deferred_card_verifications ALTER COLUMN reservation_id SET NOT NULL;
+ALTER TABLE deferred_card_verifications ADD PRIMARY KEY (reservation_id);
@@ -0,0 +1,175 @@
+package com.assignments;
+
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationResponse;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.projection.AvailabilityIndex;
+import com.assignments.repository.ReservationRepository;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the reactive profile: WebFlux controller, R2DBC insert and
+ * non-blocking credit card verification, on a database shared with JPA
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // SpringBootTest deduces the web application type before profile properties are read
+        "spring.main.web-application-type=reactive",
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "spring.datasource.url=jdbc:h2:mem:reactivedb",
+        "spring.r2dbc.url=r2dbc:h2:mem:///reactivedb"
+})
+@ActiveProfiles("reactive")
+class ReactiveReservationIntegrationTest {
+
+    private static final MockWebServer PAYMENT_SERVICE = new MockWebServer();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @DynamicPropertySource
+    static void paymentService(DynamicPropertyRegistry registry) throws IOException {
+        PAYMENT_SERVICE.start();
+        registry.add("credit.card.payment.service.url", () -> PAYMENT_SERVICE.url("/api").toString());
+    }
+
+    @AfterAll
+    static void stopPaymentService() throws IOException {
+        PAYMENT_SERVICE.shutdown();
+    }
+
+    @Test
+    void cashReservationIsStoredAndVisibleToJpaAndProjections() {
+        LocalDate startDate = LocalDate.now().plusDays(40);
+
+        ReservationResponse response = post(request("John Doe", "101A", startDate, startDate.plusDays(3),
+                "SMALL", "CASH", null))
+                .expectStatus().isOk()
+                .expectBody(ReservationResponse.class)
+                .returnResult().getResponseBody();
+
+        assertNotNull(response);
+        assertEquals(ReservationResponse.StatusEnum.CONFIRMED, response.getStatus());
+
+        ReservationEntity stored = reservationRepository.findByReservationId(response.getReservationId())
+                .orElseThrow();
+        assertEquals(ReservationEntity.ModeOfPayment.CASH, stored.getModeOfPayment());
+        assertEquals(0, Money.valueOf("300.00").compareTo(stored.getTotalAmount()));
+        assertEquals(0, stored.getTotalAmount().compareTo(stored.getAmountReceived()));
+
+        assertFalse(availabilityIndex.findFreeRooms(ReservationEntity.DEFAULT_PROPERTY_ID,
+                ReservationEntity.RoomSegment.SMALL,
+                startDate, startDate.plusDays(3)).contains("101A"));
+    }
+
+    @Test
+    void creditCardReservationIsVerifiedWithoutBlocking() {
+        PAYMENT_SERVICE.enqueue(new MockResponse()
+                .setBody("{\"status\":\"CONFIRMED\"}")
+                .addHeader("Content-Type", "application/json"));
+        LocalDate startDate = LocalDate.now().plusDays(50);
+
+        post(request("Jane Smith", "201B", startDate, startDate.plusDays(2), "MEDIUM", "CREDIT_CARD", "REF-1"))
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("CONFIRMED");
+    }
+
+    @Test
+    void bankTransferReservationIsPending() {
+        LocalDate startDate = LocalDate.now().plusDays(60);
+
+        post(request("Bob Johnson", "301C", startDate, startDate.plusDays(2), "LARGE", "BANK_TRANSFER", null))
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("PENDING_PAYMENT");
+    }
+
+    @Test
+    void stateChangeListenersRunOffTheEventLoop() {
+        LocalDate startDate = LocalDate.now().plusDays(70);
+
+        String reservationId = post(request("Eve Listener", "402D", startDate, startDate.plusDays(1), "MEDIUM",
+                "CASH", null))
+                .expectStatus().isOk()
+                .expectBody(ReservationResponse.class)
+                .returnResult().getResponseBody().getReservationId();
+
+        String thread = ListenerThreads.BY_RESERVATION.get(reservationId);
+        assertNotNull(thread);
+        assertTrue(thread.startsWith("boundedElastic"), thread);
+    }
+
+    @Test
+    void tooLongReservationIsRejected() {
+        LocalDate startDate = LocalDate.now().plusDays(5);
+
+        post(request("Invalid User", "505E", startDate, startDate.plusDays(31), "LARGE", "CASH", null))
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").value(message -> assertTrue(message.toString().contains("30 days")));
+    }
+
+    @Test
+    void missingFieldsAreRejected() {
+        post("{\"roomNumber\":\"101A\"}")
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.error").isEqualTo("Validation Failed");
+    }
+
+    private WebTestClient.ResponseSpec post(String body) {
+        return webTestClient.post().uri("/reservations")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange();
+    }
+
+    private static String request(String customerName, String roomNumber, LocalDate startDate, LocalDate endDate,
+            String roomSegment, String modeOfPayment, String paymentReference) {
+        return String.format("""
+                {"customerName":"%s","roomNumber":"%s","startDate":"%s","endDate":"%s",\
+                "roomSegment":"%s","modeOfPayment":"%s"%s}""",
+                customerName, roomNumber, startDate, endDate, roomSegment, modeOfPayment,
+                paymentReference == null ? "" : ",\"paymentReference\":\"" + paymentReference + "\"");
+    }
+
+    /**
+     * Records the thread each created reservation's state change event is delivered on
+     */
+    @TestConfiguration
+    static class ListenerThreads {
+        static final Map<String, String> BY_RESERVATION = new ConcurrentHashMap<>();
+
+        @EventListener
+        void onStateChanged(ReservationStateChangedEvent event) {
+            BY_RESERVATION.put(event.getReservationId(), Thread.currentThread().getName());
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.assignments;
+
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Many threads booking the same rooms, paying the same reservations in installments and
+ * sweeping unpaid reservations at the same time. Every committed state change is recorded
+ * and the history of each reservation is checked afterwards: no payment may be lost and
+ * no reservation may leave CONFIRMED or CANCELLED.
+ *
+ * The work is generated from a fixed seed; scale it with the system properties
+ * stress.reservations, stress.threads and stress.seed.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api",
+        "spring.datasource.url=jdbc:h2:mem:stress",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.assignments=WARN"
+})
+@Import(ReservationConcurrencyStressTest.CommittedChanges.class)
+class ReservationConcurrencyStressTest {
+
+    private static final int RESERVATIONS = Integer.getInteger("stress.reservations", 60);
+    private static final int THREADS = Integer.getInteger("stress.threads", 8);
+    private static final long SEED = Long.getLong("stress.seed", 42);
+    private static final List<String> ROOMS = List.of("101A", "102A", "103A", "104A", "105A");
+    // One SMALL night is 100.00, paid in up to four installments
+    private static final Money INSTALLMENT = Money.valueOf("25.00");
+    private static final int FULL_PAYMENT = 4;
+    private static final int PARTIAL_PAYMENT = 2;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CommittedChanges committedChanges;
+
+    @Test
+    void concurrentBookingsPaymentsAndSweepsKeepEveryReservationConsistent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 2);
+        try {
+            List<String> ids = book(executor);
+            pay(executor, ids);
+
+            // Whatever is still unpaid now is cancelled
+            reservationService.cancelUnpaidReservations();
+
+            for (int i = 0; i < ids.size(); i++) {
+                assertConsistent(ids.get(i), i % 2 == 0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Concurrent bank transfer and cash bookings for a handful of rooms, starting tomorrow
+     * so the cancellation sweep considers the unpaid ones
+     *
+     * @return IDs of the bank transfer reservations
+     */
+    private List<String> book(ExecutorService executor) throws Exception {
+        LocalDate start = LocalDate.now().plusDays(1);
+        List<Future<ReservationEntity>> bookings = new ArrayList<>();
+        CountDownLatch go = new CountDownLatch(1);
+        long begin = System.nanoTime();
+        for (int i = 0; i < RESERVATIONS * 2; i++) {
+            String room = ROOMS.get(i % ROOMS.size());
+            ReservationEntity.ModeOfPayment mode = i % 2 == 0
+                    ? ReservationEntity.ModeOfPayment.BANK_TRANSFER : ReservationEntity.ModeOfPayment.CASH;
+            bookings.add(executor.submit(() -> {
+                go.await();
+                return reservationService.confirmReservation("Stress Guest", room, start, start.plusDays(1),
+                        ReservationEntity.RoomSegment.SMALL, mode, "STRESS");
+            }));
+        }
+        go.countDown();
+        List<String> bankTransfers = new ArrayList<>();
+        Set<String> allIds = new HashSet<>();
+        for (Future<ReservationEntity> booking : bookings) {
+            ReservationEntity reservation = booking.get(60, TimeUnit.SECONDS);
+            allIds.add(reservation.getReservationId());
+            if (reservation.getModeOfPayment() == ReservationEntity.ModeOfPayment.BANK_TRANSFER) {
+                bankTransfers.add(reservation.getReservationId());
+            }
+        }
+        report("bookings", bookings.size(), begin);
+
+        assertEquals(bookings.size(), allIds.size(), "duplicate reservation IDs");
+        assertEquals(bookings.size(), reservationRepository.findAllById(allIds).size());
+        Collections.sort(bankTransfers);
+        return bankTransfers;
+    }
+
+    /**
+     * Installments for all reservations in a seeded random order on THREADS threads, while
+     * two sweepers (the full one and the batched one) keep cancelling unpaid reservations.
+     * Even-indexed reservations get the full amount, odd-indexed ones only half of it.
+     */
+    private void pay(ExecutorService executor, List<String> ids) throws Exception {
+        List<String> installments = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            for (int n = 0; n < (i % 2 == 0 ? FULL_PAYMENT : PARTIAL_PAYMENT); n++) {
+                installments.add(ids.get(i));
+            }
+        }
+        Collections.shuffle(installments, new Random(SEED));
+        ConcurrentLinkedQueue<String> pending = new ConcurrentLinkedQueue<>(installments);
+
+        AtomicBoolean paying = new AtomicBoolean(true);
+        AtomicInteger sweeps = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                go.await();
+                for (String id = pending.poll(); id != null; id = pending.poll()) {
+                    reservationService.processBankTransferPayment(id, INSTALLMENT);
+                }
+                return null;
+            }));
+        }
+        List<Future<?>> sweepers = List.of(
+                executor.submit(() -> {
+                    go.await();
+                    while (paying.get()) {
+                        reservationService.cancelUnpaidReservations();
+                        sweeps.incrementAndGet();
+                    }
+                    return null;
+                }),
+                executor.submit(() -> {
+                    go.await();
+                    while (paying.get()) {
+                        reservationService.cancelUnpaidReservations(reservationService.findCancellationCandidateIds());
+                        sweeps.incrementAndGet();
+                    }
+                    return null;
+                }));
+
+        long begin = System.nanoTime();
+        go.countDown();
+        try {
+            for (Future<?> worker : workers) {
+                worker.get(120, TimeUnit.SECONDS);
+            }
+        } finally {
+            paying.set(false);
+        }
+        report("payments", installments.size(), begin);
+        for (Future<?> sweeper : sweepers) {
+            sweeper.get(60, TimeUnit.SECONDS);
+        }
+        System.out.printf("cancellation sweeps during payments: %d%n", sweeps.get());
+    }
+
+    /**
+     * The committed changes of one reservation form a single chain starting at creation,
+     * nothing follows CONFIRMED or CANCELLED, and the stored row is the end of the chain
+     */
+    private void assertConsistent(String id, boolean fullyPaid) {
+        List<ReservationStateChangedEvent> changes = committedChanges.of(id);
+        ReservationEntity stored = reservationRepository.findById(id).orElseThrow();
+
+        Money applied = Money.ZERO;
+        Set<String> previousStates = new HashSet<>();
+        for (ReservationStateChangedEvent change : changes) {
+            if (change.isCreated()) {
+                continue;
+            }
+            assertEquals(ReservationStatus.PENDING_PAYMENT, change.getPreviousStatus(),
+                    id + " changed after leaving PENDING_PAYMENT: " + describe(changes));
+            assertTrue(previousStates.add(change.getPreviousAmountReceived().toString()),
+                    id + " has two changes from the same state (lost update): " + describe(changes));
+            applied = applied.plus(change.getAmountReceived().minus(change.getPreviousAmountReceived()));
+        }
+        assertEquals(applied, stored.getAmountReceived(), id + " lost a payment: " + describe(changes));
+
+        if (!stored.getAmountReceived().isLessThan(stored.getTotalAmount())) {
+            assertEquals(ReservationStatus.CONFIRMED, stored.getStatus(), id + " paid in full but " + stored.getStatus());
+        } else {
+            assertEquals(ReservationStatus.CANCELLED, stored.getStatus(), id + " unpaid but " + stored.getStatus());
+        }
+        if (!fullyPaid) {
+            assertEquals(ReservationStatus.CANCELLED, stored.getStatus());
+        }
+    }
+
+    private static String describe(List<ReservationStateChangedEvent> changes) {
+        return changes.stream()
+                .map(change -> change.getPreviousStatus() + "/" + change.getPreviousAmountReceived()
+                        + " -> " + change.getStatus() + "/" + change.getAmountReceived())
+                .toList()
+                .toString();
+    }
+
+    private static void report(String operation, int count, long beginNanos) {
+        double seconds = (System.nanoTime() - beginNanos) / 1e9;
+        System.out.printf("%s: %d in %.2f s, %.0f/s on %d threads%n", operation, count, seconds, count / seconds,
+                THREADS);
+    }
+
+    /**
+     * Reservation state changes whose transaction committed, per reservation
+     */
+    @TestComponent
+    static class CommittedChanges {
+
+        private final Map<String, List<ReservationStateChangedEvent>> changes = new ConcurrentHashMap<>();
+
+        @TransactionalEventListener
+        void onCommit(ReservationStateChangedEvent event) {
+            changes.computeIfAbsent(event.getReservationId(), id -> Collections.synchronizedList(new ArrayList<>()))
+                    .add(event);
+        }
+
+        List<ReservationStateChangedEvent> of(String reservationId) {
+            return List.copyOf(changes.getOrDefault(reservationId, List.of()));
+        }
+    }
+}
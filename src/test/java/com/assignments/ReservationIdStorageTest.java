@@ -0,0 +1,87 @@
+package com.assignments;
+
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationIds;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * VARCHAR and BIGINT reservation ID storage, and the migration between them
+ */
+class ReservationIdStorageTest {
+
+    private static final String URL = "jdbc:h2:mem:idstorage;DB_CLOSE_DELAY=-1";
+
+    @Test
+    void packedIdsRoundTripAndSortLikeStrings() {
+        assertEquals("P4145478", ReservationIds.unpack(ReservationIds.pack("P4145478")));
+        assertTrue(ReservationIds.pack("P00000FF") < ReservationIds.pack("P0000100"));
+        assertEquals(0, ReservationIds.pack("SHORT"));
+        assertEquals(0, ReservationIds.pack("P414547é"));
+    }
+
+    @Test
+    void migratedBigintStorageKeepsIdsAndApiFormat() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(10);
+        String reservationId;
+        try (ConfigurableApplicationContext varchar = start("VARCHAR", "create")) {
+            reservationId = varchar.getBean(ReservationService.class).confirmReservation("Before Migration",
+                    "101A", startDate, startDate.plusDays(2), ReservationEntity.RoomSegment.SMALL,
+                    ReservationEntity.ModeOfPayment.BANK_TRANSFER, null).getReservationId();
+        }
+
+        try (Connection connection = DriverManager.getConnection(URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("RUNSCRIPT FROM 'classpath:db/migration/reservation-id-to-bigint.sql'");
+            ResultSet column = statement.executeQuery("SELECT DATA_TYPE FROM INFORMATION_SCHEMA.COLUMNS"
+                    + " WHERE TABLE_NAME = 'RESERVATIONS' AND COLUMN_NAME = 'RESERVATION_ID'");
+            assertTrue(column.next());
+            assertEquals("BIGINT", column.getString(1));
+            ResultSet packed = statement.executeQuery("SELECT RESERVATION_ID FROM RESERVATIONS");
+            assertTrue(packed.next());
+            assertEquals(reservationId, ReservationIds.unpack(packed.getLong(1)));
+        }
+
+        try (ConfigurableApplicationContext bigint = start("BIGINT", "validate")) {
+            ReservationService service = bigint.getBean(ReservationService.class);
+            ReservationRepository repository = bigint.getBean(ReservationRepository.class);
+
+            ReservationEntity migrated = repository.findByReservationId(reservationId).orElseThrow();
+            service.processBankTransferPayment(reservationId, migrated.getTotalAmount());
+            assertEquals(ReservationEntity.ReservationStatus.CONFIRMED,
+                    repository.findById(reservationId).orElseThrow().getStatus());
+
+            String created = service.confirmReservation("After Migration", "102A", startDate,
+                    startDate.plusDays(1), ReservationEntity.RoomSegment.SMALL,
+                    ReservationEntity.ModeOfPayment.CASH, null).getReservationId();
+            assertEquals(List.of(created, reservationId).stream().sorted().toList(),
+                    repository.findAll().stream().map(ReservationEntity::getReservationId).sorted().toList());
+            assertEquals(Money.valueOf("100.00"), repository.findById(created).orElseThrow().getTotalAmount());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String storage, String ddlAuto) {
+        return new SpringApplicationBuilder(RoomReservationApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=" + URL,
+                "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                "--spring.jpa.show-sql=false",
+                "--reservation.id-storage=" + storage,
+                "--spring.kafka.bootstrap-servers=localhost:9092",
+                "--kafka.retry.auto-create-topics=false",
+                "--credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api");
+    }
+}
@@ -1,16 +1,18 @@
 package com.assignments;
 
 import com.assignments.model.BankTransferPaymentEvent;
+import com.assignments.model.Money;
 import com.assignments.model.ReservationEntity;
 import com.assignments.repository.ReservationRepository;
 import com.assignments.service.ReservationService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.TestPropertySource;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +22,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @SpringBootTest
 @TestPropertySource(properties = {
         "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
         "credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api"
 })
 class ReservationServiceIntegrationTest {
@@ -50,7 +53,7 @@ class ReservationServiceIntegrationTest {
         assertNotNull(reservation);
         assertNotNull(reservation.getReservationId());
         assertEquals(ReservationEntity.ReservationStatus.CONFIRMED, reservation.getStatus());
-        assertEquals(new BigDecimal("600.00"), reservation.getTotalAmount()); // 3 days * $200/day
+        assertEquals(Money.valueOf("600.00"), reservation.getTotalAmount()); // 3 days * $200/day
         assertEquals(reservation.getTotalAmount(), reservation.getAmountReceived());
     }
 
@@ -73,8 +76,8 @@ class ReservationServiceIntegrationTest {
         // Then
         assertNotNull(reservation);
         assertEquals(ReservationEntity.ReservationStatus.PENDING_PAYMENT, reservation.getStatus());
-        assertEquals(new BigDecimal("300.00"), reservation.getTotalAmount()); // 2 days * $150/day
-        assertEquals(BigDecimal.ZERO, reservation.getAmountReceived());
+        assertEquals(Money.valueOf("300.00"), reservation.getTotalAmount()); // 2 days * $150/day
+        assertEquals(Money.ZERO, reservation.getAmountReceived());
     }
 
     @Test
@@ -93,7 +96,7 @@ class ReservationServiceIntegrationTest {
                 null);
 
         String reservationId = reservation.getReservationId();
-        BigDecimal totalAmount = reservation.getTotalAmount(); // 2 days * $100 = $200
+        Money totalAmount = reservation.getTotalAmount(); // 2 days * $100 = $200
 
         // When - Process full payment
         reservationService.processBankTransferPayment(reservationId, totalAmount);
@@ -120,10 +123,10 @@ class ReservationServiceIntegrationTest {
                 null);
 
         String reservationId = reservation.getReservationId();
-        BigDecimal totalAmount = reservation.getTotalAmount(); // 4 days * $300 = $1200
+        Money totalAmount = reservation.getTotalAmount(); // 4 days * $300 = $1200
 
         // When - Process partial payment
-        BigDecimal partialPayment = new BigDecimal("500.00");
+        Money partialPayment = Money.valueOf("500.00");
         reservationService.processBankTransferPayment(reservationId, partialPayment);
 
         // Then - Should still be pending
@@ -132,7 +135,7 @@ class ReservationServiceIntegrationTest {
         assertEquals(partialPayment, updatedReservation.getAmountReceived());
 
         // When - Process remaining payment
-        BigDecimal remainingPayment = totalAmount.subtract(partialPayment);
+        Money remainingPayment = totalAmount.minus(partialPayment);
         reservationService.processBankTransferPayment(reservationId, remainingPayment);
 
         // Then - Should be confirmed
@@ -166,7 +169,7 @@ class ReservationServiceIntegrationTest {
         BankTransferPaymentEvent event = new BankTransferPaymentEvent(
                 "PAY123",
                 "ACC789",
-                new BigDecimal("450.00"),
+                Money.valueOf("450.00"),
                 "1401541457 P4145478");
 
         // When
@@ -220,4 +223,24 @@ class ReservationServiceIntegrationTest {
                 .orElseThrow();
         assertEquals(ReservationEntity.ReservationStatus.PENDING_PAYMENT, pendingReservation.getStatus());
     }
+
+    @Test
+    void testCancellationCandidatesOrderedByStartDate() {
+        // Given
+        LocalDate today = LocalDate.now();
+        String later = reservationService.confirmReservation("Late Guest", "808H", today.plusDays(1),
+                today.plusDays(2), ReservationEntity.RoomSegment.SMALL,
+                ReservationEntity.ModeOfPayment.BANK_TRANSFER, null).getReservationId();
+        String earlier = reservationService.confirmReservation("Early Guest", "809H", today,
+                today.plusDays(2), ReservationEntity.RoomSegment.SMALL,
+                ReservationEntity.ModeOfPayment.BANK_TRANSFER, null).getReservationId();
+
+        // When
+        List<String> candidates = reservationService.findCancellationCandidateIds(
+                Sort.by("startDate", "reservationId"));
+
+        // Then
+        assertTrue(candidates.indexOf(earlier) >= 0);
+        assertTrue(candidates.indexOf(earlier) < candidates.indexOf(later));
+    }
 }
@@ -0,0 +1,103 @@
+package com.assignments.config;
+
+import com.assignments.config.SqlStatementCounter.Kind;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+
+import static com.assignments.config.SqlStatementAssertions.assertStatements;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Statement-count budgets of the main write paths
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api",
+        "spring.datasource.url=jdbc:h2:mem:profiling",
+        "spring.jpa.show-sql=false",
+        "persistence.profiling.enabled=true"
+})
+class PersistenceProfilingTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private SqlStatementCounter statementCounter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void confirmReservationLooksUpTheAssignedIdAndInserts() {
+        LocalDate start = LocalDate.now().plusDays(30);
+        // save() merges because the ID is assigned: one SELECT, then the INSERT at commit
+        SqlStatementCounter.Snapshot statements = assertStatements(statementCounter, 2,
+                () -> bankTransferReservation("101A", start));
+        assertEquals(1, statements.count(Kind.SELECT));
+        assertEquals(1, statements.count(Kind.INSERT));
+    }
+
+    @Test
+    void bankTransferPaymentSelectsAndUpdatesOnce() {
+        ReservationEntity reservation = bankTransferReservation("102A", LocalDate.now().plusDays(30));
+
+        SqlStatementCounter.Snapshot statements = assertStatements(statementCounter, 2,
+                () -> reservationService.processBankTransferPayment(reservation.getReservationId(),
+                        Money.valueOf("50.00")));
+        assertEquals(1, statements.count(Kind.UPDATE));
+
+        // Unknown reservation: the hot lookup, then the archive lookup
+        assertStatements(statementCounter, 2,
+                () -> reservationService.processBankTransferPayment("P9999999", Money.valueOf("50.00")));
+    }
+
+    @Test
+    void cancellationSweepSelectsOnceAndUpdatesEachUnpaidReservation() {
+        reservationRepository.deleteAll();
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        bankTransferReservation("201A", tomorrow);
+        bankTransferReservation("202A", tomorrow);
+        ReservationEntity paid = bankTransferReservation("203A", tomorrow);
+        reservationService.processBankTransferPayment(paid.getReservationId(), paid.getTotalAmount());
+        bankTransferReservation("204A", LocalDate.now().plusDays(30));
+
+        SqlStatementCounter.Snapshot statements = assertStatements(statementCounter, 3,
+                () -> reservationService.cancelUnpaidReservations());
+        assertEquals(1, statements.count(Kind.SELECT));
+        assertEquals(2, statements.count(Kind.UPDATE));
+    }
+
+    @Test
+    void publishesRepositoryAndHibernateMetrics() {
+        ReservationEntity reservation = bankTransferReservation("301A", LocalDate.now().plusDays(30));
+        reservationService.processBankTransferPayment(reservation.getReservationId(), Money.valueOf("10.00"));
+
+        assertTrue(meterRegistry.get("persistence.repository.calls")
+                .tags("repository", "ReservationRepository", "method", "findForUpdate")
+                .timer().count() >= 1);
+        assertTrue(meterRegistry.get("persistence.repository.statements")
+                .tags("method", "findForUpdate").summary().max() >= 1);
+        assertTrue(meterRegistry.get("persistence.hibernate.entities.inserted").functionCounter().count() >= 1);
+        assertTrue(meterRegistry.get("persistence.hibernate.flushes").functionCounter().count() >= 1);
+    }
+
+    private ReservationEntity bankTransferReservation(String roomNumber, LocalDate start) {
+        return reservationService.confirmReservation("Profiled Guest", roomNumber, start, start.plusDays(2),
+                ReservationEntity.RoomSegment.SMALL, ReservationEntity.ModeOfPayment.BANK_TRANSFER, null);
+    }
+}
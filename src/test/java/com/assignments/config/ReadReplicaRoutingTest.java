@@ -0,0 +1,149 @@
+package com.assignments.config;
+
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Read/write routing against a second in-memory H2 standing in for the replica.
+ * Replication is simulated by copying the primary with SCRIPT / RUNSCRIPT.
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api",
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.enabled=true",
+        "spring.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.username=sa",
+        "spring.datasource.replica.maximum-pool-size=4",
+        "spring.datasource.replica.max-lag=300ms"
+})
+class ReadReplicaRoutingTest {
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @BeforeEach
+    void replicateSchema() throws Exception {
+        replicate();
+    }
+
+    @Test
+    void readsFallBackToPrimaryWithinLagWindowThenUseReplica() throws Exception {
+        // Given
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        String reservationId = reservationService.confirmReservation("Replica Guest", "901R", startDate,
+                startDate.plusDays(2), ReservationEntity.RoomSegment.SMALL,
+                ReservationEntity.ModeOfPayment.BANK_TRANSFER, null).getReservationId();
+
+        // Read-your-writes: right after the commit, read-only lookups still go to the primary
+        assertTrue(reservationRepository.findByReservationId(reservationId).isPresent());
+        assertTrue(reservationService.findCancellationCandidateIds().contains(reservationId));
+
+        // Once the lag window passed, reads go to the (not yet replicated) replica
+        Thread.sleep(400);
+        assertFalse(reservationService.findCancellationCandidateIds().contains(reservationId));
+        assertTrue(reservationRepository.findByReservationId(reservationId).isEmpty());
+
+        // After replication the replica serves the reservation
+        replicate();
+        assertTrue(reservationRepository.findByReservationId(reservationId).isPresent());
+    }
+
+    @Test
+    void readWriteTransactionsAlwaysUsePrimary() throws Exception {
+        // Given
+        Thread.sleep(400);
+        LocalDate startDate = LocalDate.now().plusDays(12);
+        String reservationId = reservationService.confirmReservation("Writer", "902R", startDate,
+                startDate.plusDays(1), ReservationEntity.RoomSegment.SMALL,
+                ReservationEntity.ModeOfPayment.BANK_TRANSFER, null).getReservationId();
+        Thread.sleep(400);
+
+        // When - the payment update looks the reservation up inside its read-write transaction
+        reservationService.processBankTransferPayment(reservationId, Money.valueOf("50.00"));
+
+        // Then
+        replicate();
+        assertEquals(0, Money.valueOf("50.00").compareTo(
+                reservationRepository.findByReservationId(reservationId).orElseThrow().getAmountReceived()));
+    }
+
+    @Test
+    void onlyCommitsOfTheSameThreadKeepReadsOnPrimary() throws Exception {
+        // Given - a reservation on the primary only, with the lag window long gone
+        LocalDate startDate = LocalDate.now().plusDays(20);
+        String reservationId = reservationService.confirmReservation("Other Thread", "903R", startDate,
+                startDate.plusDays(1), ReservationEntity.RoomSegment.SMALL,
+                ReservationEntity.ModeOfPayment.BANK_TRANSFER, null).getReservationId();
+        Thread.sleep(400);
+
+        // A commit on another thread does not move this thread's reads to the primary
+        CompletableFuture.runAsync(() -> reservationService.confirmReservation("Other Thread", "904R", startDate,
+                startDate.plusDays(1), ReservationEntity.RoomSegment.SMALL,
+                ReservationEntity.ModeOfPayment.BANK_TRANSFER, null)).get();
+        assertTrue(reservationRepository.findByReservationId(reservationId).isEmpty());
+
+        // Neither does a rolled back write on this thread
+        transactionTemplate.executeWithoutResult(status -> {
+            reservationRepository.findForUpdate(reservationId).orElseThrow();
+            status.setRollbackOnly();
+        });
+        assertTrue(reservationRepository.findByReservationId(reservationId).isEmpty());
+
+        // Reads that must see every commit can still ask for the primary
+        assertTrue(ReplicaLagGuard.onPrimary(() -> reservationRepository.findByReservationId(reservationId))
+                .isPresent());
+    }
+
+    private void replicate() throws SQLException, IOException {
+        Path script = Files.createTempFile("replica", ".sql");
+        try {
+            try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("SCRIPT TO '" + script.toAbsolutePath() + "'");
+            }
+            try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("DROP ALL OBJECTS");
+                statement.execute("RUNSCRIPT FROM '" + script.toAbsolutePath() + "'");
+            }
+        } finally {
+            Files.deleteIfExists(script);
+        }
+    }
+}
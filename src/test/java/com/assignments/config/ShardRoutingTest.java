@@ -0,0 +1,198 @@
+package com.assignments.config;
+
+import com.assignments.kafka.BankTransferPaymentConsumer;
+import com.assignments.model.BankTransferPaymentEvent;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.projection.AvailabilityIndex;
+import com.assignments.projection.CustomerHistoryProjection;
+import com.assignments.service.ReservationBulkImporter;
+import com.assignments.service.ReservationExportService;
+import com.assignments.service.ReservationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reservations sharded by property across three in-memory H2 databases
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api",
+        "spring.datasource.url=jdbc:h2:mem:shard-main;DB_CLOSE_DELAY=-1",
+        "spring.jpa.show-sql=false",
+        "reservation.sharding.enabled=true",
+        "reservation.sharding.shards=main:P,east:E,west:W",
+        "reservation.sharding.properties=boston:east,denver:west",
+        "reservation.sharding.datasource.east.jdbc-url=jdbc:h2:mem:shard-east;DB_CLOSE_DELAY=-1",
+        "reservation.sharding.datasource.east.username=sa",
+        "reservation.sharding.datasource.east.maximum-pool-size=4",
+        "reservation.sharding.datasource.west.jdbc-url=jdbc:h2:mem:shard-west;DB_CLOSE_DELAY=-1",
+        "reservation.sharding.datasource.west.username=sa",
+        "reservation.sharding.datasource.west.maximum-pool-size=4"
+})
+class ShardRoutingTest {
+
+    private final LocalDate start = LocalDate.now().plusDays(20);
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private BankTransferPaymentConsumer bankTransferPaymentConsumer;
+
+    @Autowired
+    private CustomerHistoryProjection customerHistoryProjection;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ReservationExportService reservationExportService;
+
+    @Autowired
+    private ReservationBulkImporter importer;
+
+    @Test
+    void reservationsAreStoredOnTheirPropertysShardWithItsIdPrefix() throws Exception {
+        String bostonId = book("boston", "Shard Guest", ReservationEntity.ModeOfPayment.CASH, start);
+        String denverId = book("denver", "Shard Guest", ReservationEntity.ModeOfPayment.CASH, start);
+        String defaultId = book(null, "Shard Guest", ReservationEntity.ModeOfPayment.CASH, start);
+        String unlistedId = book("chicago", "Shard Guest", ReservationEntity.ModeOfPayment.CASH, start);
+
+        assertEquals('E', bostonId.charAt(0));
+        assertEquals('W', denverId.charAt(0));
+        assertEquals('P', defaultId.charAt(0));
+        assertEquals('P', unlistedId.charAt(0));
+        assertEquals("boston", propertyOf("shard-east", bostonId));
+        assertEquals("denver", propertyOf("shard-west", denverId));
+        assertEquals("default", propertyOf("shard-main", defaultId));
+        assertEquals("chicago", propertyOf("shard-main", unlistedId));
+        assertNull(propertyOf("shard-main", bostonId));
+        assertNull(propertyOf("shard-west", bostonId));
+
+        // Read models and exports cover every shard
+        assertEquals(4, customerHistoryProjection.history("shard guest").size());
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        assertEquals(4, reservationExportService.export(start, start, null, ReservationExportService.Format.CSV,
+                csv));
+        assertTrue(csv.toString(StandardCharsets.UTF_8).contains(bostonId + ",boston,"));
+        // Room 101A is booked in each of those properties, but not in this one
+        assertFalse(availabilityIndex.findFreeRooms("boston", ReservationEntity.RoomSegment.SMALL, start,
+                start.plusDays(1)).contains("101A"));
+        assertTrue(availabilityIndex.findFreeRooms("seattle", ReservationEntity.RoomSegment.SMALL, start,
+                start.plusDays(1)).contains("101A"));
+    }
+
+    @Test
+    void bankTransferPaymentsAreRoutedByTheReservationIdPrefix() throws Exception {
+        String denverId = book("denver", "Transfer Guest", ReservationEntity.ModeOfPayment.BANK_TRANSFER,
+                start.plusDays(10));
+        assertEquals("PENDING_PAYMENT", statusOf("shard-west", denverId));
+
+        BankTransferPaymentEvent event = new BankTransferPaymentEvent();
+        event.setPaymentId("PAY-SHARD");
+        event.setAmountReceived(Money.valueOf("200.00"));
+        event.setTransactionDescription("1234567890 " + denverId);
+        bankTransferPaymentConsumer.consumePaymentUpdate(event);
+
+        assertEquals("CONFIRMED", statusOf("shard-west", denverId));
+    }
+
+    @Test
+    void reservationsMustBeMadeOnTheirPropertysShard() throws Exception {
+        assertThrows(IllegalStateException.class, () -> reservationService.confirmReservation("boston", "Unbound",
+                "301C", start, start.plusDays(1), ReservationEntity.RoomSegment.SMALL,
+                ReservationEntity.ModeOfPayment.CASH, null));
+
+        // Imported rows go to their property's shard; an ID must carry that shard's prefix
+        Path file = Files.writeString(directory.resolve("sharded.csv"), String.join("\n",
+                "reservationId,propertyId,customerName,roomNumber,roomSegment,startDate,endDate,modeOfPayment",
+                "E0000001,boston,Import Guest,101A,SMALL,2024-03-01,2024-03-03,CASH",
+                "P0000002,boston,Import Guest,101A,SMALL,2024-03-01,2024-03-03,CASH",
+                ",denver,Import Guest,101A,SMALL,2024-03-01,2024-03-03,CASH") + "\n");
+        ReservationBulkImporter.ImportResult result = importer.importReservations(file, null);
+
+        assertEquals(2, result.imported());
+        assertEquals(List.of(3L), result.errors().stream().map(ReservationBulkImporter.LineError::line).toList());
+        assertEquals("boston", propertyOf("shard-east", "E0000001"));
+        List<CustomerHistoryProjection.Entry> history = customerHistoryProjection.history("import guest");
+        assertEquals(2, history.size());
+        assertTrue(history.stream().anyMatch(entry -> entry.reservationId().startsWith("W")));
+    }
+
+    private String book(String propertyId, String customerName, ReservationEntity.ModeOfPayment modeOfPayment,
+            LocalDate startDate) throws Exception {
+        Map<String, Object> request = new LinkedHashMap<>();
+        if (propertyId != null) {
+            request.put("propertyId", propertyId);
+        }
+        request.put("customerName", customerName);
+        request.put("roomNumber", "101A");
+        request.put("startDate", startDate.toString());
+        request.put("endDate", startDate.plusDays(2).toString());
+        request.put("roomSegment", "SMALL");
+        request.put("modeOfPayment", modeOfPayment.name());
+        String response = mockMvc.perform(post("/reservations")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("reservationId").asText();
+    }
+
+    private static String propertyOf(String database, String reservationId) throws SQLException {
+        return column(database, "property_id", reservationId);
+    }
+
+    private static String statusOf(String database, String reservationId) throws SQLException {
+        return column(database, "status", reservationId);
+    }
+
+    private static String column(String database, String column, String reservationId) throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:" + database, "sa", "");
+                PreparedStatement query = connection.prepareStatement(
+                        "select " + column + " from reservations where reservation_id = ?")) {
+            query.setString(1, reservationId);
+            try (ResultSet rows = query.executeQuery()) {
+                return rows.next() ? rows.getString(1) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.assignments.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Asserts the exact number of SQL statements an action executes on the calling thread,
+ * so an extra query or a lost batch fails the build. Needs persistence.profiling.enabled=true.
+ */
+public final class SqlStatementAssertions {
+
+    private SqlStatementAssertions() {
+    }
+
+    public static SqlStatementCounter.Snapshot assertStatements(SqlStatementCounter counter, long expected,
+            Runnable action) {
+        SqlStatementCounter.Snapshot before = counter.currentThread();
+        action.run();
+        SqlStatementCounter.Snapshot statements = counter.currentThread().since(before);
+        assertEquals(expected, statements.total(), () -> "Unexpected SQL statement count: " + statements);
+        return statements;
+    }
+}
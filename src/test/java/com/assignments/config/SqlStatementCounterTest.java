@@ -0,0 +1,44 @@
+package com.assignments.config;
+
+import com.assignments.config.SqlStatementCounter.Kind;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlStatementCounterTest {
+
+    private final SqlStatementCounter counter = new SqlStatementCounter();
+
+    @Test
+    void classifiesStatements() {
+        assertEquals(Kind.SELECT, SqlStatementCounter.kindOf("\n    select r1_0.reservation_id from reservations r1_0"));
+        assertEquals(Kind.SELECT, SqlStatementCounter.kindOf("WITH t AS (SELECT 1) SELECT * FROM t"));
+        assertEquals(Kind.INSERT, SqlStatementCounter.kindOf("insert into reservations values (?)"));
+        assertEquals(Kind.UPDATE, SqlStatementCounter.kindOf("update reservations set status=?"));
+        assertEquals(Kind.DELETE, SqlStatementCounter.kindOf("delete from reservations"));
+        assertEquals(Kind.OTHER, SqlStatementCounter.kindOf("call next value for seq"));
+    }
+
+    @Test
+    void countsPerThread() throws InterruptedException {
+        SqlStatementCounter.Snapshot before = counter.currentThread();
+        counter.inspect("select 1");
+        counter.inspect("update reservations set status=?");
+
+        AtomicReference<SqlStatementCounter.Snapshot> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> {
+            counter.inspect("select 2");
+            other.set(counter.currentThread());
+        });
+        thread.start();
+        thread.join();
+
+        SqlStatementCounter.Snapshot delta = counter.currentThread().since(before);
+        assertEquals(2, delta.total());
+        assertEquals(1, delta.count(Kind.UPDATE));
+        assertEquals("2 statements (SELECT=1, INSERT=0, UPDATE=1, DELETE=0, OTHER=0)", delta.toString());
+        assertEquals(1, other.get().total());
+    }
+}
@@ -0,0 +1,102 @@
+package com.assignments.controller;
+
+import com.assignments.exception.OverloadedException;
+import com.assignments.model.ReservationEntity.ModeOfPayment;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void creditCardRequestsOnlyUseTheirShareOfTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            permits.add(limiter.acquire(ModeOfPayment.CREDIT_CARD));
+        }
+        OverloadedException shed = assertThrows(OverloadedException.class,
+                () -> limiter.acquire(ModeOfPayment.CREDIT_CARD));
+        assertEquals(Duration.ofSeconds(1), shed.getRetryAfter());
+
+        // Cash still gets the reserved slots
+        for (int i = 0; i < 5; i++) {
+            permits.add(limiter.acquire(ModeOfPayment.CASH));
+        }
+        assertThrows(OverloadedException.class, () -> limiter.acquire(ModeOfPayment.BANK_TRANSFER));
+        assertEquals(10, limiter.getInFlight());
+        assertEquals(1, meterRegistry.get("reservation.concurrency.rejected").tag("priority", "low").counter().count());
+        assertEquals(1, meterRegistry.get("reservation.concurrency.rejected").tag("priority", "high").counter().count());
+
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::releaseIgnored);
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRisesAndRecoversAfterwards() {
+        AdaptiveConcurrencyLimiter limiter = limiter(40);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(FAST, 40);
+        }
+        int healthy = limiter.getLimit();
+        assertTrue(healthy > 40, "limit grows while latency is stable and the limit is in use: " + healthy);
+
+        for (int i = 0; i < 30; i++) {
+            limiter.onSample(SLOW, healthy);
+        }
+        assertEquals(4, limiter.getLimit());
+
+        for (int i = 0; i < 200; i++) {
+            limiter.onSample(FAST, limiter.getLimit());
+        }
+        assertTrue(limiter.getLimit() > 20, "limit recovers: " + limiter.getLimit());
+    }
+
+    @Test
+    void latencyIsAveragedOverTheSampleWindow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(meterRegistry, true, 40, 4, 200, 1.5,
+                0.2, 4, 60, 0.5, Duration.ofSeconds(1));
+        // Each window holds one slow (credit card) and three fast requests: a steady mix, no reason to shrink
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(i % 4 == 0 ? SLOW : FAST, 40);
+        }
+        assertTrue(limiter.getLimit() > 40, "limit: " + limiter.getLimit());
+    }
+
+    @Test
+    void limitDoesNotGrowWhileMostlyUnused() {
+        AdaptiveConcurrencyLimiter limiter = limiter(40);
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(FAST, 3);
+        }
+        assertEquals(40, limiter.getLimit());
+        assertEquals(40, meterRegistry.get("reservation.concurrency.limit").gauge().value());
+    }
+
+    @Test
+    void disabledLimiterAdmitsEverything() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(meterRegistry, false, 1, 1, 1,
+                1.5, 0.2, 1, 60, 0.5, Duration.ofSeconds(1));
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(ModeOfPayment.CREDIT_CARD);
+        }
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(meterRegistry, true, initialLimit, 4, 200, 1.5, 0.2, 1, 60, 0.5,
+                Duration.ofSeconds(1));
+    }
+}
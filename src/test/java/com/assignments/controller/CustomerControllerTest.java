@@ -0,0 +1,62 @@
+package com.assignments.controller;
+
+import com.assignments.exception.GlobalExceptionHandler;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.projection.CustomerHistoryProjection;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CustomerController.class)
+@Import(GlobalExceptionHandler.class)
+class CustomerControllerTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private CustomerHistoryProjection customerHistoryProjection;
+
+        @Test
+        void testGetCustomerHistory() throws Exception {
+                LocalDate start = LocalDate.of(2030, 1, 10);
+                when(customerHistoryProjection.history("Jane Smith")).thenReturn(List.of(
+                                new CustomerHistoryProjection.Entry("RES002", "default", "Jane Smith", "202B",
+                                                ReservationEntity.RoomSegment.MEDIUM, start, start.plusDays(2),
+                                                ReservationEntity.ReservationStatus.PENDING_PAYMENT,
+                                                Money.valueOf("300.00"), Money.valueOf("100.00")),
+                                new CustomerHistoryProjection.Entry("RES001", "boston", "jane smith", "101A",
+                                                ReservationEntity.RoomSegment.SMALL, start.minusYears(1),
+                                                start.minusYears(1).plusDays(1),
+                                                ReservationEntity.ReservationStatus.CONFIRMED,
+                                                Money.valueOf("100.00"), Money.valueOf("100.00"))));
+
+                mockMvc.perform(get("/customers/reservations").param("customerName", "Jane Smith"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.customerKey").value("jane smith"))
+                                .andExpect(jsonPath("$.totalOutstanding").value(200.00))
+                                .andExpect(jsonPath("$.reservations.length()").value(2))
+                                .andExpect(jsonPath("$.reservations[0].reservationId").value("RES002"))
+                                .andExpect(jsonPath("$.reservations[0].balance").value(200.00))
+                                .andExpect(jsonPath("$.reservations[1].propertyId").value("boston"))
+                                .andExpect(jsonPath("$.reservations[1].status").value("CONFIRMED"));
+        }
+
+        @Test
+        void testBlankCustomerNameIsRejected() throws Exception {
+                mockMvc.perform(get("/customers/reservations").param("customerName", "   "))
+                                .andExpect(status().isBadRequest());
+        }
+}
@@ -0,0 +1,69 @@
+package com.assignments.controller;
+
+import com.assignments.exception.GlobalExceptionHandler;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.projection.OccupancyRollup;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ReportController.class)
+@Import(GlobalExceptionHandler.class)
+class ReportControllerTest {
+
+        @Autowired
+        private MockMvc mockMvc;
+
+        @MockBean
+        private OccupancyRollup occupancyRollup;
+
+        @Test
+        void testGetOccupancyReport() throws Exception {
+                LocalDate day = LocalDate.of(2030, 1, 10);
+                when(occupancyRollup.confirmedRooms("default", day, ReservationEntity.RoomSegment.SMALL)).thenReturn(3L);
+                when(occupancyRollup.pendingRooms("default", day, ReservationEntity.RoomSegment.SMALL)).thenReturn(1L);
+
+                mockMvc.perform(get("/reports/occupancy").param("from", "2030-01-10").param("to", "2030-01-11"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.propertyId").value("default"))
+                                .andExpect(jsonPath("$.nights.length()").value(2))
+                                .andExpect(jsonPath("$.nights[0].segments[0].roomSegment").value("SMALL"))
+                                .andExpect(jsonPath("$.nights[0].segments[0].confirmedRooms").value(3))
+                                .andExpect(jsonPath("$.nights[0].segments[0].pendingRooms").value(1));
+        }
+
+        @Test
+        void testGetReceivablesReport() throws Exception {
+                when(occupancyRollup.outstandingAmount(any(), any(), any(), any())).thenReturn(Money.ZERO);
+                when(occupancyRollup.outstandingAmount(eq("boston"), any(), any(),
+                                eq(ReservationEntity.RoomSegment.LARGE)))
+                                .thenReturn(Money.valueOf("450.00"));
+
+                mockMvc.perform(get("/reports/receivables").param("from", "2030-01-01").param("to", "2030-01-31")
+                                .param("propertyId", "boston"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.propertyId").value("boston"))
+                                .andExpect(jsonPath("$.totalOutstanding").value(450.00))
+                                .andExpect(jsonPath("$.segments[2].roomSegment").value("LARGE"));
+        }
+
+        @Test
+        void testReportRangeValidation() throws Exception {
+                mockMvc.perform(get("/reports/occupancy").param("from", "2030-02-01").param("to", "2030-01-01"))
+                                .andExpect(status().isBadRequest())
+                                .andExpect(jsonPath("$.error").value("Bad Request"));
+        }
+}
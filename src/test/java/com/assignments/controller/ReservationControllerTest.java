@@ -1,10 +1,13 @@
 package com.assignments.controller;
 
+import com.assignments.config.ShardRouter;
 import com.assignments.exception.GlobalExceptionHandler;
+import com.assignments.exception.OverloadedException;
 import com.assignments.model.ReservationEntity;
 import com.assignments.model.ReservationRequest;
 import com.assignments.service.ReservationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -13,16 +16,19 @@ import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.time.Duration;
 import java.time.LocalDate;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ReservationController.class)
-@Import(GlobalExceptionHandler.class)
+@Import({GlobalExceptionHandler.class, ShardRouter.class})
 class ReservationControllerTest {
 
         @Autowired
@@ -31,9 +37,17 @@ class ReservationControllerTest {
         @MockBean
         private ReservationService reservationService;
 
+        @MockBean
+        private AdaptiveConcurrencyLimiter concurrencyLimiter;
+
         @Autowired
         private ObjectMapper objectMapper;
 
+        @BeforeEach
+        void admitRequests() {
+                when(concurrencyLimiter.acquire(any())).thenReturn(AdaptiveConcurrencyLimiter.Permit.NONE);
+        }
+
         @Test
         void testConfirmReservation_Success() throws Exception {
                 // Given
@@ -49,7 +63,7 @@ class ReservationControllerTest {
                 entity.setReservationId("RES-123");
                 entity.setStatus(ReservationEntity.ReservationStatus.CONFIRMED);
 
-                when(reservationService.confirmReservation(any(), any(), any(), any(), any(), any(), any()))
+                when(reservationService.confirmReservation(any(), any(), any(), any(), any(), any(), any(), any()))
                                 .thenReturn(entity);
 
                 // When/Then
@@ -72,7 +86,7 @@ class ReservationControllerTest {
                 request.setRoomSegment(ReservationRequest.RoomSegmentEnum.SMALL);
                 request.setModeOfPayment(ReservationRequest.ModeOfPaymentEnum.CASH);
 
-                when(reservationService.confirmReservation(any(), any(), any(), any(), any(), any(), any()))
+                when(reservationService.confirmReservation(any(), any(), any(), any(), any(), any(), any(), any()))
                                 .thenThrow(new IllegalArgumentException("Invalid reservation duration"));
 
                 // When/Then
@@ -95,7 +109,7 @@ class ReservationControllerTest {
                 request.setRoomSegment(ReservationRequest.RoomSegmentEnum.SMALL);
                 request.setModeOfPayment(ReservationRequest.ModeOfPaymentEnum.CREDIT_CARD);
 
-                when(reservationService.confirmReservation(any(), any(), any(), any(), any(), any(), any()))
+                when(reservationService.confirmReservation(any(), any(), any(), any(), any(), any(), any(), any()))
                                 .thenThrow(new RuntimeException("Credit card payment failed"));
 
                 // When/Then
@@ -107,4 +121,29 @@ class ReservationControllerTest {
                                 .andExpect(jsonPath("$.message")
                                                 .value("An unexpected error occurred. Please try again later."));
         }
+
+        @Test
+        void testConfirmReservation_shedWhenOverloaded() throws Exception {
+                // Given
+                ReservationRequest request = new ReservationRequest();
+                request.setCustomerName("Test Customer");
+                request.setRoomNumber("101");
+                request.setStartDate(LocalDate.now());
+                request.setEndDate(LocalDate.now().plusDays(2));
+                request.setRoomSegment(ReservationRequest.RoomSegmentEnum.SMALL);
+                request.setModeOfPayment(ReservationRequest.ModeOfPaymentEnum.CREDIT_CARD);
+
+                when(concurrencyLimiter.acquire(ReservationEntity.ModeOfPayment.CREDIT_CARD))
+                                .thenThrow(new OverloadedException("Too many concurrent reservation requests",
+                                                Duration.ofMillis(1500)));
+
+                // When/Then
+                mockMvc.perform(post("/reservations")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(objectMapper.writeValueAsString(request)))
+                                .andExpect(status().isServiceUnavailable())
+                                .andExpect(header().string("Retry-After", "2"))
+                                .andExpect(jsonPath("$.error").value("Service Unavailable"));
+                verifyNoInteractions(reservationService);
+        }
 }
@@ -0,0 +1,235 @@
+package com.assignments.journal;
+
+import com.assignments.RoomReservationApplication;
+import com.assignments.journal.JournalRecord.Source;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ReservationJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() throws InterruptedException {
+        for (ReservationJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void replaysRecordsInOrderFromAGivenSequence() throws Exception {
+        ReservationJournal journal = open(DataSize.ofMegabytes(1), false);
+
+        journal.append("P0000001", null, ReservationStatus.PENDING_PAYMENT, 0, Source.RESERVATION_REQUEST);
+        journal.append("P0000001", ReservationStatus.PENDING_PAYMENT, ReservationStatus.PENDING_PAYMENT, 5_000,
+                Source.BANK_TRANSFER);
+        journal.append("P0000001", ReservationStatus.PENDING_PAYMENT, ReservationStatus.CONFIRMED, 15_000,
+                Source.BANK_TRANSFER);
+
+        List<JournalRecord> records = new ArrayList<>();
+        assertEquals(3, journal.replay(1, records::add));
+        JournalRecord last = records.get(2);
+        assertEquals(3, last.sequence());
+        assertEquals("P0000001", last.reservationId());
+        assertEquals(ReservationStatus.PENDING_PAYMENT, last.previousStatus());
+        assertEquals(ReservationStatus.CONFIRMED, last.status());
+        assertEquals(Money.ofMinor(15_000), last.amountDelta());
+        assertEquals(Source.BANK_TRANSFER, last.source());
+        assertNull(records.get(0).previousStatus());
+
+        List<JournalRecord> tail = new ArrayList<>();
+        assertEquals(2, journal.replay(2, tail::add));
+        assertEquals(2, tail.get(0).sequence());
+    }
+
+    @Test
+    void rollsSegmentsAndResumesAfterRestart() throws Exception {
+        DataSize threeRecords = DataSize.ofBytes(ReservationJournal.HEADER_SIZE + 3L * ReservationJournal.RECORD_SIZE);
+        ReservationJournal journal = open(threeRecords, false);
+        for (int i = 0; i < 10; i++) {
+            journal.append(id(i), null, ReservationStatus.PENDING_PAYMENT, 0, Source.RESERVATION_REQUEST);
+        }
+        journal.close();
+        opened.remove(journal);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("00000000000000000001.journal", "00000000000000000004.journal",
+                    "00000000000000000007.journal", "00000000000000000010.journal"),
+                    files.map(path -> path.getFileName().toString()).sorted().toList());
+        }
+
+        ReservationJournal reopened = open(threeRecords, false);
+        assertEquals(10, reopened.lastSequence());
+        assertEquals(11, reopened.append(id(10), null, ReservationStatus.PENDING_PAYMENT, 0,
+                Source.RESERVATION_REQUEST));
+
+        List<String> ids = new ArrayList<>();
+        assertEquals(6, reopened.replay(6, record -> ids.add(record.reservationId())));
+        assertEquals(List.of(id(5), id(6), id(7), id(8), id(9), id(10)), ids);
+    }
+
+    @Test
+    void tornRecordIsDiscardedOnRecovery() throws Exception {
+        ReservationJournal journal = open(DataSize.ofKilobytes(4), false);
+        for (int i = 0; i < 3; i++) {
+            journal.append(id(i), null, ReservationStatus.PENDING_PAYMENT, 0, Source.RESERVATION_REQUEST);
+        }
+        journal.close();
+        opened.remove(journal);
+
+        // Simulate a crash in the middle of writing the third record
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("00000000000000000001.journal").toFile(),
+                "rw")) {
+            file.seek(ReservationJournal.HEADER_SIZE + 2L * ReservationJournal.RECORD_SIZE + 20);
+            file.write(0x7F);
+        }
+
+        assertEquals(2, ReservationJournal.replay(directory, 1, record -> { }));
+        ReservationJournal reopened = open(DataSize.ofKilobytes(4), false);
+        assertEquals(2, reopened.lastSequence());
+        assertEquals(3, reopened.append(id(9), null, ReservationStatus.PENDING_PAYMENT, 0,
+                Source.RESERVATION_REQUEST));
+
+        List<String> ids = new ArrayList<>();
+        reopened.replay(1, record -> ids.add(record.reservationId()));
+        assertEquals(List.of(id(0), id(1), id(9)), ids);
+    }
+
+    @Test
+    void syncCommitSharesFsyncsAcrossConcurrentAppends() throws Exception {
+        ReservationJournal journal = open(DataSize.ofMegabytes(1), true);
+        int threads = 8;
+        int perThread = 200;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.append(id(thread * perThread + i), null, ReservationStatus.PENDING_PAYMENT, 0,
+                                Source.RESERVATION_REQUEST);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        double records = meterRegistry.get("reservation.journal.records").counter().count();
+        double fsyncs = meterRegistry.get("reservation.journal.fsyncs").counter().count();
+        assertEquals(threads * perThread, records);
+        assertTrue(fsyncs < records, "fsyncs " + fsyncs + " should be shared by several records");
+        assertEquals(threads * perThread, journal.replay(1, record -> { }));
+    }
+
+    @Test
+    void listenerRecordsSourceAndAmountDelta() throws Exception {
+        ReservationJournal journal = open(DataSize.ofMegabytes(1), false);
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setModeOfPayment(ReservationEntity.ModeOfPayment.BANK_TRANSFER);
+        reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+        reservation.setTotalAmount(Money.valueOf("200.00"));
+        journal.onReservationStateChanged(ReservationStateChangedEvent.created(reservation));
+
+        reservation.setAmountReceived(Money.valueOf("200.00"));
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        journal.onReservationStateChanged(new ReservationStateChangedEvent(reservation,
+                ReservationStatus.PENDING_PAYMENT, Money.ZERO));
+
+        List<JournalRecord> records = new ArrayList<>();
+        journal.replay(1, records::add);
+        assertEquals(Source.RESERVATION_REQUEST, records.get(0).source());
+        assertEquals(Money.ZERO, records.get(0).amountDelta());
+        assertEquals(Source.BANK_TRANSFER, records.get(1).source());
+        assertEquals(Money.valueOf("200.00"), records.get(1).amountDelta());
+        assertEquals(reservation.getReservationId(), records.get(1).reservationId());
+    }
+
+    @Test
+    void replayReconstructsReservationStateOfTheApplication() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(RoomReservationApplication.class)
+                .run("--reservation.journal.enabled=true",
+                        "--reservation.journal.directory=" + directory,
+                        "--spring.datasource.url=jdbc:h2:mem:journal",
+                        "--spring.kafka.bootstrap-servers=localhost:9092",
+                        "--kafka.retry.auto-create-topics=false",
+                        "--credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api",
+                        "--spring.main.web-application-type=none",
+                        "--spring.jpa.show-sql=false")) {
+            ReservationService service = context.getBean(ReservationService.class);
+            LocalDate start = LocalDate.now().plusDays(20);
+            ReservationEntity paid = service.confirmReservation("Journal Guest", "101A", start, start.plusDays(2),
+                    ReservationEntity.RoomSegment.SMALL, ReservationEntity.ModeOfPayment.BANK_TRANSFER, null);
+            ReservationEntity partial = service.confirmReservation("Journal Guest", "102A", start, start.plusDays(1),
+                    ReservationEntity.RoomSegment.SMALL, ReservationEntity.ModeOfPayment.BANK_TRANSFER, null);
+            ReservationEntity cash = service.confirmReservation("Journal Guest", "103A", start, start.plusDays(1),
+                    ReservationEntity.RoomSegment.SMALL, ReservationEntity.ModeOfPayment.CASH, null);
+            service.processBankTransferPayment(paid.getReservationId(), Money.valueOf("50.00"));
+            service.processBankTransferPayment(paid.getReservationId(), Money.valueOf("150.00"));
+            service.processBankTransferPayment(partial.getReservationId(), Money.valueOf("40.00"));
+
+            Map<String, ReservationStatus> statuses = new HashMap<>();
+            Map<String, Money> received = new HashMap<>();
+            long replayed = context.getBean(ReservationJournal.class).replay(1, record -> {
+                statuses.put(record.reservationId(), record.status());
+                received.merge(record.reservationId(), record.amountDelta(), Money::plus);
+            });
+
+            assertEquals(6, replayed);
+            assertEquals(ReservationStatus.CONFIRMED, statuses.get(paid.getReservationId()));
+            assertEquals(Money.valueOf("200.00"), received.get(paid.getReservationId()));
+            assertEquals(ReservationStatus.PENDING_PAYMENT, statuses.get(partial.getReservationId()));
+            assertEquals(Money.valueOf("40.00"), received.get(partial.getReservationId()));
+            assertEquals(ReservationStatus.CONFIRMED, statuses.get(cash.getReservationId()));
+            assertEquals(Money.valueOf("100.00"), received.get(cash.getReservationId()));
+        }
+    }
+
+    private ReservationJournal open(DataSize segmentSize, boolean syncCommit) throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        ReservationJournal journal = new ReservationJournal(meterRegistry, directory, segmentSize,
+                Duration.ofMillis(5), syncCommit);
+        opened.add(journal);
+        return journal;
+    }
+
+    private static String id(int i) {
+        return String.format("P%07d", i);
+    }
+}
@@ -1,17 +1,20 @@
 package com.assignments.kafka;
 
+import com.assignments.config.ShardRouter;
 import com.assignments.model.BankTransferPaymentEvent;
+import com.assignments.model.Money;
 import com.assignments.service.ReservationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.math.BigDecimal;
-
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -21,6 +24,12 @@ public class BankTransferPaymentConsumerTest {
     @Mock
     private ReservationService reservationService;
 
+    @Mock
+    private ConsumerBackpressure consumerBackpressure;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.unsharded();
+
     @InjectMocks
     private BankTransferPaymentConsumer bankTransferPaymentConsumer;
 
@@ -31,7 +40,7 @@ public class BankTransferPaymentConsumerTest {
         validEvent = new BankTransferPaymentEvent();
         validEvent.setPaymentId("PAY123");
         validEvent.setDebtorAccountNumber("ACC-123");
-        validEvent.setAmountReceived(new BigDecimal("1500.00"));
+        validEvent.setAmountReceived(Money.valueOf("1500.00"));
         validEvent.setTransactionDescription("1234567890 P1234567");
     }
 
@@ -39,13 +48,14 @@ public class BankTransferPaymentConsumerTest {
     void consumePaymentUpdate_WithValidEvent_ShouldProcessPayment() {
         // Given
         String expectedReservationId = "P1234567";
-        BigDecimal expectedAmount = new BigDecimal("1500.00");
+        Money expectedAmount = Money.valueOf("1500.00");
 
         // When
         bankTransferPaymentConsumer.consumePaymentUpdate(validEvent);
 
         // Then
         verify(reservationService, times(1)).processBankTransferPayment(eq(expectedReservationId), eq(expectedAmount));
+        verify(consumerBackpressure).recordProcessing(anyLong());
     }
 
     @Test
@@ -98,15 +108,15 @@ public class BankTransferPaymentConsumerTest {
     }
 
     @Test
-    void consumePaymentUpdate_WithPoisonPill_ShouldHandleExceptionGracefully() {
+    void consumePaymentUpdate_WithPoisonPill_ShouldRethrowForRetryTopics() {
         // Given
         doThrow(new RuntimeException("Severe Runtime Error"))
                 .when(reservationService).processBankTransferPayment(any(), any());
 
-        // When
-        bankTransferPaymentConsumer.consumePaymentUpdate(validEvent);
-
-        // Then
+        // When / Then
+        assertThrows(RuntimeException.class, () -> bankTransferPaymentConsumer.consumePaymentUpdate(validEvent));
         verify(reservationService, times(1)).processBankTransferPayment(any(), any());
+        // Slow failures count towards the processing latency as well
+        verify(consumerBackpressure).recordProcessing(anyLong());
     }
 }
@@ -0,0 +1,142 @@
+package com.assignments.kafka;
+
+import com.assignments.model.BankTransferPaymentEvent;
+import com.assignments.model.Money;
+import com.assignments.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Retry topics, dead-letter topic and replay against an embedded broker
+ */
+@SpringBootTest(properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "kafka.retry.attempts=3",
+        "kafka.retry.backoff.delay-ms=200",
+        "kafka.retry.backoff.multiplier=2",
+        "kafka.retry.backoff.max-delay-ms=1000",
+        // Backpressure is only checked when the test asks for it
+        "kafka.backpressure.check-interval=PT1H",
+        "kafka.backpressure.min-pause=0s",
+        // The reservations only exist in the mocked service
+        "reservation.working-set.enabled=false"
+})
+@EmbeddedKafka(partitions = 1, topics = "bank-transfer-payment-update")
+class BankTransferRetryTopicsTest {
+
+    private static final Money AMOUNT = Money.valueOf("300.00");
+
+    @MockBean
+    private ReservationService reservationService;
+
+    @Autowired
+    private KafkaTemplate<String, BankTransferPaymentEvent> kafkaTemplate;
+
+    @Autowired
+    private DeadLetterReplayer deadLetterReplayer;
+
+    @Autowired
+    private ConsumerBackpressure consumerBackpressure;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Value("${kafka.topic.bank-transfer-payment}")
+    private String topic;
+
+    @Test
+    void failingEventIsRetriedWithoutBlockingAndReplayedFromDeadLetterTopic() {
+        doThrow(new DataAccessResourceFailureException("database unavailable"))
+                .when(reservationService).processBankTransferPayment(eq("P0000001"), any());
+
+        send("P0000001");
+        send("P0000002");
+
+        // The healthy event behind the failing one is processed right away
+        verify(reservationService, timeout(10_000)).processBankTransferPayment("P0000002", AMOUNT);
+        // The failing event gets one attempt per topic: main, retry-0, retry-1, then the dead-letter topic
+        verify(reservationService, timeout(30_000).times(3)).processBankTransferPayment("P0000001", AMOUNT);
+
+        // Once the database is back, the dead letter is replayed and processed
+        doNothing().when(reservationService).processBankTransferPayment(eq("P0000001"), any());
+        DeadLetterReplayer.ReplayResult result = awaitReplay();
+        assertEquals(1, result.replayed());
+        assertEquals(0, result.remaining());
+        verify(reservationService, timeout(10_000).times(4)).processBankTransferPayment("P0000001", AMOUNT);
+
+        // A second replay finds nothing new
+        assertEquals(0, deadLetterReplayer.replay(null).replayed());
+    }
+
+    @Test
+    void consumptionPausesWhileDatabaseIsSaturatedAndResumesAfterwards() throws InterruptedException {
+        // Drain the timings of records processed by earlier tests
+        consumerBackpressure.check();
+        assertFalse(consumerBackpressure.isPaused());
+        // Slow processing above kafka.backpressure.max-processing-latency (2s)
+        consumerBackpressure.recordProcessing(TimeUnit.SECONDS.toNanos(5));
+        consumerBackpressure.check();
+        assertTrue(consumerBackpressure.isPaused());
+        awaitContainers(true);
+        assertFalse(listenerRegistry.getListenerContainer(BankTransferPaymentConsumer.LISTENER_ID + "-dlt")
+                .isPauseRequested());
+
+        send("P0000009");
+        verify(reservationService, after(2_000).never()).processBankTransferPayment(eq("P0000009"), any());
+
+        // No slow records since the last check and no connection waiters: resume
+        consumerBackpressure.check();
+        assertFalse(consumerBackpressure.isPaused());
+        verify(reservationService, timeout(10_000)).processBankTransferPayment("P0000009", AMOUNT);
+    }
+
+    /**
+     * Wait until the main and retry containers have actually paused or resumed their consumers
+     */
+    private void awaitContainers(boolean paused) throws InterruptedException {
+        List<MessageListenerContainer> containers = listenerRegistry.getAllListenerContainers().stream()
+                .filter(container -> container.getListenerId().startsWith(BankTransferPaymentConsumer.LISTENER_ID)
+                        && !container.getListenerId().endsWith("-dlt"))
+                .toList();
+        assertTrue(containers.size() >= 3, "main and retry containers");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (containers.stream().anyMatch(container -> container.isContainerPaused() != paused)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        containers.forEach(container -> assertEquals(paused, container.isContainerPaused(), container.getListenerId()));
+    }
+
+    private DeadLetterReplayer.ReplayResult awaitReplay() {
+        // The dead letter is published after the last failed attempt returns
+        long deadline = System.currentTimeMillis() + 10_000;
+        DeadLetterReplayer.ReplayResult result = deadLetterReplayer.replay(null);
+        while (result.replayed() == 0 && System.currentTimeMillis() < deadline) {
+            result = deadLetterReplayer.replay(null);
+        }
+        return result;
+    }
+
+    private void send(String reservationId) {
+        kafkaTemplate.send(topic, reservationId,
+                new BankTransferPaymentEvent("PAY-" + reservationId, "ACC-1", AMOUNT, "1234567890 " + reservationId));
+    }
+}
@@ -0,0 +1,165 @@
+package com.assignments.kafka;
+
+import com.assignments.config.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ConsumerBackpressureTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private ObjectProvider<HikariDataSource> dataSources;
+
+    @Mock
+    private ObjectProvider<ShardRoutingDataSource> shardRouting;
+
+    @Mock
+    private HikariDataSource replicaPool;
+
+    @Mock
+    private HikariDataSource primaryPool;
+
+    @Mock
+    private HikariPoolMXBean primaryPoolBean;
+
+    @Mock
+    private HikariDataSource shardPool;
+
+    @Mock
+    private HikariPoolMXBean shardPoolBean;
+
+    @Mock
+    private MessageListenerContainer mainContainer;
+
+    @Mock
+    private MessageListenerContainer retryContainer;
+
+    @Mock
+    private MessageListenerContainer deadLetterContainer;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        when(replicaPool.isReadOnly()).thenReturn(true);
+        when(primaryPool.getHikariPoolMXBean()).thenReturn(primaryPoolBean);
+        when(dataSources.orderedStream()).thenAnswer(invocation -> Stream.of(replicaPool, primaryPool));
+        when(mainContainer.getListenerId()).thenReturn("bankTransferPayments");
+        when(retryContainer.getListenerId()).thenReturn("bankTransferPayments-retry-0");
+        when(deadLetterContainer.getListenerId()).thenReturn("bankTransferPayments-dlt");
+        when(listenerRegistry.getAllListenerContainers())
+                .thenReturn(List.of(mainContainer, retryContainer, deadLetterContainer));
+    }
+
+    @Test
+    void pausesOnConnectionWaitersAndResumesOnceThePoolRecovers() {
+        ConsumerBackpressure backpressure = backpressure(Duration.ZERO);
+
+        when(primaryPoolBean.getThreadsAwaitingConnection()).thenReturn(3);
+        backpressure.check();
+
+        assertTrue(backpressure.isPaused());
+        verify(mainContainer).pause();
+        verify(retryContainer).pause();
+        verify(deadLetterContainer, never()).pause();
+        verify(replicaPool, never()).getHikariPoolMXBean();
+        assertEquals(1, meterRegistry.get("kafka.consumer.backpressure.paused").gauge().value());
+        assertEquals(1, meterRegistry.get("kafka.consumer.backpressure.pauses")
+                .tag("reason", "pending-connections").counter().count());
+
+        // Still above half the threshold: stay paused
+        when(primaryPoolBean.getThreadsAwaitingConnection()).thenReturn(2);
+        backpressure.check();
+        assertTrue(backpressure.isPaused());
+
+        when(primaryPoolBean.getThreadsAwaitingConnection()).thenReturn(1);
+        backpressure.check();
+        assertFalse(backpressure.isPaused());
+        verify(mainContainer).resume();
+        verify(retryContainer).resume();
+        assertEquals(0, meterRegistry.get("kafka.consumer.backpressure.paused").gauge().value());
+    }
+
+    @Test
+    void pausesOnSlowProcessingAndHonoursTheMinimumPause() {
+        ConsumerBackpressure backpressure = backpressure(Duration.ofHours(1));
+
+        backpressure.recordProcessing(TimeUnit.MILLISECONDS.toNanos(500));
+        backpressure.check();
+        assertFalse(backpressure.isPaused());
+
+        backpressure.recordProcessing(TimeUnit.SECONDS.toNanos(3));
+        backpressure.recordProcessing(TimeUnit.SECONDS.toNanos(2));
+        backpressure.check();
+        assertTrue(backpressure.isPaused());
+        assertEquals(1, meterRegistry.get("kafka.consumer.backpressure.pauses")
+                .tag("reason", "processing-latency").counter().count());
+
+        // Healthy again, but the minimum pause has not elapsed
+        backpressure.check();
+        assertTrue(backpressure.isPaused());
+        verify(mainContainer, never()).resume();
+    }
+
+    @Test
+    void watchesThePoolsOfEveryShard() {
+        when(shardPool.getHikariPoolMXBean()).thenReturn(shardPoolBean);
+        ShardRoutingDataSource routing = new ShardRoutingDataSource("main", primaryPool, Map.of("east", shardPool));
+        doAnswer(invocation -> {
+            invocation.<Consumer<ShardRoutingDataSource>>getArgument(0).accept(routing);
+            return null;
+        }).when(shardRouting).ifAvailable(any());
+        ConsumerBackpressure backpressure = backpressure(Duration.ZERO);
+
+        when(primaryPoolBean.getThreadsAwaitingConnection()).thenReturn(0);
+        when(shardPoolBean.getThreadsAwaitingConnection()).thenReturn(3);
+        backpressure.check();
+        assertTrue(backpressure.isPaused());
+
+        when(shardPoolBean.getThreadsAwaitingConnection()).thenReturn(1);
+        backpressure.check();
+        assertFalse(backpressure.isPaused());
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        ConsumerBackpressure backpressure = new ConsumerBackpressure(listenerRegistry, dataSources, shardRouting,
+                meterRegistry, false, 2, Duration.ofSeconds(2), Duration.ZERO);
+
+        when(primaryPoolBean.getThreadsAwaitingConnection()).thenReturn(10);
+        backpressure.check();
+
+        assertFalse(backpressure.isPaused());
+        verify(mainContainer, never()).pause();
+    }
+
+    private ConsumerBackpressure backpressure(Duration minPause) {
+        return new ConsumerBackpressure(listenerRegistry, dataSources, shardRouting, meterRegistry,
+                true, 2, Duration.ofSeconds(2), minPause);
+    }
+}
@@ -0,0 +1,45 @@
+package com.assignments.kafka;
+
+import com.assignments.model.BankTransferPaymentEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadLetterReplayerTest {
+
+    @Mock
+    private ConsumerFactory<String, BankTransferPaymentEvent> consumerFactory;
+
+    @Mock
+    private KafkaTemplate<String, BankTransferPaymentEvent> kafkaTemplate;
+
+    @Mock
+    private Consumer<String, BankTransferPaymentEvent> consumer;
+
+    @Test
+    void missingOrEmptyDeadLetterTopicReplaysNothing() {
+        // Given - unknown topic (null) on the first replay, no partitions on the second
+        when(consumerFactory.createConsumer(eq("group-dlt-replay"), any(), any(), any())).thenReturn(consumer);
+        when(consumer.partitionsFor("payments-dlt")).thenReturn(null, List.of());
+        DeadLetterReplayer replayer = new DeadLetterReplayer(consumerFactory, kafkaTemplate, "payments", "group", 10);
+
+        // When / Then
+        assertEquals(new DeadLetterReplayer.ReplayResult(0, 0), replayer.replay(null));
+        assertEquals(new DeadLetterReplayer.ReplayResult(0, 0), replayer.replay(5));
+        verify(consumer, never()).assign(any());
+        verify(consumer, times(2)).close();
+        verifyNoInteractions(kafkaTemplate);
+    }
+}
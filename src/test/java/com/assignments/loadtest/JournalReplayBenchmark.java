@@ -0,0 +1,123 @@
+package com.assignments.loadtest;
+
+import com.assignments.journal.JournalRecord.Source;
+import com.assignments.journal.ReservationJournal;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rebuilding the status of every reservation: sequential replay of the transition
+ * journal versus a full scan of the reservations table on a file-based H2 database.
+ * Every reservation has two transitions (created, then confirmed or cancelled).
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=JournalReplayBenchmark
+ * Tunables (system properties): benchmark.journal.reservations
+ */
+@Tag("benchmark")
+class JournalReplayBenchmark {
+
+    private static final int RESERVATIONS = Integer.getInteger("benchmark.journal.reservations", 500_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayVersusTableScan() throws Exception {
+        ReservationJournal journal = new ReservationJournal(new SimpleMeterRegistry(), directory.resolve("journal"),
+                DataSize.ofMegabytes(16), Duration.ofMillis(10), false);
+        long appendStarted = System.nanoTime();
+        for (int i = 0; i < RESERVATIONS; i++) {
+            journal.append(id(i), null, ReservationStatus.PENDING_PAYMENT, 0, Source.RESERVATION_REQUEST);
+        }
+        for (int i = 0; i < RESERVATIONS; i++) {
+            boolean paid = i % 4 != 0;
+            journal.append(id(i), ReservationStatus.PENDING_PAYMENT,
+                    paid ? ReservationStatus.CONFIRMED : ReservationStatus.CANCELLED, paid ? 20_000 : 0,
+                    paid ? Source.BANK_TRANSFER : Source.CANCELLATION);
+        }
+        long appendNanos = System.nanoTime() - appendStarted;
+        journal.close();
+
+        String url = "jdbc:h2:" + directory.resolve("db").toAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            load(connection);
+
+            // Warm-up, then measure
+            long replayNanos = 0;
+            long scanNanos = 0;
+            for (int round = 0; round < 2; round++) {
+                Map<String, ReservationStatus> fromJournal = new HashMap<>(RESERVATIONS * 2);
+                long started = System.nanoTime();
+                ReservationJournal.replay(directory.resolve("journal"), 1,
+                        record -> fromJournal.put(record.reservationId(), record.status()));
+                replayNanos = System.nanoTime() - started;
+
+                Map<String, ReservationStatus> fromTable = new HashMap<>(RESERVATIONS * 2);
+                started = System.nanoTime();
+                try (Statement statement = connection.createStatement();
+                        ResultSet rs = statement.executeQuery("SELECT reservation_id, status FROM reservations")) {
+                    while (rs.next()) {
+                        fromTable.put(rs.getString(1), ReservationStatus.valueOf(rs.getString(2)));
+                    }
+                }
+                scanNanos = System.nanoTime() - started;
+                assertEquals(fromTable, fromJournal);
+            }
+
+            long records = 2L * RESERVATIONS;
+            System.out.printf("%n=== Journal replay, %d reservations / %d records ===%n", RESERVATIONS, records);
+            System.out.printf("append (async flush): %8.0f records/s%n", records * 1e9 / appendNanos);
+            System.out.printf("journal replay:       %8.0f ms (%.0f records/s)%n", replayNanos / 1e6,
+                    records * 1e9 / replayNanos);
+            System.out.printf("table scan:           %8.0f ms (%.0f rows/s)%n", scanNanos / 1e6,
+                    RESERVATIONS * 1e9 / scanNanos);
+        }
+    }
+
+    private static void load(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE reservations (reservation_id VARCHAR(255) PRIMARY KEY,"
+                    + " customer_name VARCHAR(255), status VARCHAR(32), total_amount NUMERIC(19,2),"
+                    + " amount_received NUMERIC(19,2))");
+        }
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO reservations VALUES (?, ?, ?, 200.00, ?)")) {
+            for (int i = 0; i < RESERVATIONS; i++) {
+                boolean paid = i % 4 != 0;
+                insert.setString(1, id(i));
+                insert.setString(2, "Guest " + i);
+                insert.setString(3, paid ? "CONFIRMED" : "CANCELLED");
+                insert.setBigDecimal(4, paid ? new BigDecimal("200.00") : BigDecimal.ZERO);
+                insert.addBatch();
+                if (i % 1000 == 999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    private static String id(int i) {
+        return String.format("P%07X", i);
+    }
+}
@@ -0,0 +1,92 @@
+package com.assignments.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and throughput bookkeeping for the load tests.
+ * Latencies are recorded in microseconds into HdrHistogram recorders, one per scenario.
+ */
+public class LoadReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private final Map<String, Recorder> recorders = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final List<Step> steps = new ArrayList<>();
+
+    public void record(String scenario, long latencyNanos, int httpStatus) {
+        recorders.computeIfAbsent(scenario, key -> new Recorder(HIGHEST_TRACKABLE_MICROS, 3))
+                .recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+        outcomes.computeIfAbsent(scenario + " " + httpStatus, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Drain the recorders collected since the last call, keyed by scenario
+     */
+    public Map<String, Histogram> drain() {
+        Map<String, Histogram> histograms = new TreeMap<>();
+        recorders.forEach((scenario, recorder) -> histograms.put(scenario, recorder.getIntervalHistogram()));
+        return histograms;
+    }
+
+    public Map<String, Long> outcomes() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        outcomes.forEach((key, count) -> snapshot.put(key, count.sum()));
+        return snapshot;
+    }
+
+    public void addStep(int concurrency, long requests, long elapsedNanos, Histogram latency) {
+        steps.add(new Step(concurrency, requests * 1e9 / elapsedNanos, latency));
+    }
+
+    public List<Step> steps() {
+        return steps;
+    }
+
+    /**
+     * First step whose throughput improved less than {@code minGain} over the previous step,
+     * i.e. the concurrency level at which the service stopped scaling.
+     */
+    public Step saturationPoint(double minGain) {
+        for (int i = 1; i < steps.size(); i++) {
+            if (steps.get(i).throughput() < steps.get(i - 1).throughput() * (1 + minGain)) {
+                return steps.get(i - 1);
+            }
+        }
+        return steps.isEmpty() ? null : steps.get(steps.size() - 1);
+    }
+
+    public static String percentiles(String label, Histogram histogram) {
+        return String.format(Locale.ROOT,
+                "%-28s n=%-8d p50=%8.2fms p90=%8.2fms p99=%8.2fms p99.9=%8.2fms max=%8.2fms",
+                label,
+                histogram.getTotalCount(),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    public record Step(int concurrency, double throughput, Histogram latency) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "concurrency=%-4d %10.1f req/s  %s", concurrency, throughput,
+                    percentiles("", latency).trim());
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.assignments.loadtest;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for the credit card payment service.
+ * Answers POST /payment-status with CONFIRMED after a configurable latency
+ * and fails a configurable fraction of calls with HTTP 500.
+ *
+ * Runs on Reactor Netty and delays responses without holding a thread, so the
+ * stand-in itself does not cap throughput when the latency is high.
+ */
+public class PaymentProviderStandIn {
+
+    private static final String CONTEXT_PATH = "/credit-card-payment-api";
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    private volatile long latencyMillis;
+    private volatile double errorRate;
+    private LoopResources loopResources;
+    private DisposableServer server;
+
+    public PaymentProviderStandIn(long latencyMillis, double errorRate) {
+        this.latencyMillis = latencyMillis;
+        this.errorRate = errorRate;
+    }
+
+    public void start() {
+        // Own event loops: the global ones are disposed when a Spring context using WebClient shuts down
+        loopResources = LoopResources.create("payment-stand-in");
+        server = HttpServer.create()
+                .runOn(loopResources)
+                .host("localhost")
+                .port(0)
+                .route(routes -> routes.post(CONTEXT_PATH + "/payment-status", (request, response) -> {
+                    calls.incrementAndGet();
+                    boolean fail = errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+                    if (fail) {
+                        errors.incrementAndGet();
+                    }
+                    return request.receive().then()
+                            .then(Mono.delay(Duration.ofMillis(latencyMillis)))
+                            .then(fail
+                                    ? response.status(HttpResponseStatus.INTERNAL_SERVER_ERROR)
+                                            .sendString(Mono.just("{\"error\":\"Internal server error\"}")).then()
+                                    : response.header("Content-Type", "application/json")
+                                            .sendString(Mono.just(
+                                                    "{\"lastUpdateDate\":\"2024-01-01T00:00:00Z\",\"status\":\"CONFIRMED\"}"))
+                                            .then());
+                }))
+                .bindNow();
+    }
+
+    public void shutdown() {
+        if (server != null) {
+            server.disposeNow();
+            loopResources.dispose();
+        }
+    }
+
+    /**
+     * Base URL to use as credit.card.payment.service.url
+     */
+    public String baseUrl() {
+        return "http://localhost:" + server.port() + CONTEXT_PATH;
+    }
+
+    public void setLatencyMillis(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public long getCalls() {
+        return calls.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+}
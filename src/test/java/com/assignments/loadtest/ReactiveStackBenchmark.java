@@ -0,0 +1,182 @@
+package com.assignments.loadtest;
+
+import com.assignments.RoomReservationApplication;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Servlet/JPA stack versus the reactive profile (WebFlux on Netty, R2DBC, non-blocking
+ * WebClient) under high concurrency against a slow credit card payment provider.
+ * Each stack is booted on its own in-memory database and driven with closed-loop
+ * CREDIT_CARD reservations.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=ReactiveStackBenchmark
+ * Tunables (system properties): benchmark.concurrency-levels, benchmark.step-seconds,
+ * benchmark.payment.latency-ms
+ */
+@Tag("benchmark")
+class ReactiveStackBenchmark {
+
+    @Test
+    void servletVersusReactiveWithSlowPaymentProvider() throws Exception {
+        int[] concurrencyLevels = parseLevels(System.getProperty("benchmark.concurrency-levels", "32,128,512"));
+        long stepNanos = TimeUnit.SECONDS.toNanos(Long.getLong("benchmark.step-seconds", 5));
+        PaymentProviderStandIn paymentProvider = new PaymentProviderStandIn(
+                Long.getLong("benchmark.payment.latency-ms", 200), 0);
+        paymentProvider.start();
+
+        Map<String, List<String>> results = new LinkedHashMap<>();
+        try {
+            for (String stack : List.of("servlet", "reactive")) {
+                results.put(stack, runStack(stack, paymentProvider.baseUrl(), concurrencyLevels, stepNanos));
+            }
+        } finally {
+            paymentProvider.shutdown();
+        }
+
+        System.out.printf("%n=== CREDIT_CARD reservations, payment provider latency %d ms ===%n",
+                Long.getLong("benchmark.payment.latency-ms", 200));
+        results.forEach((stack, lines) -> {
+            System.out.println(stack + ":");
+            lines.forEach(line -> System.out.println("  " + line));
+        });
+        assertFalse(results.get("reactive").isEmpty());
+    }
+
+    private List<String> runStack(String stack, String paymentUrl, int[] concurrencyLevels, long stepNanos)
+            throws InterruptedException {
+        List<String> lines = new ArrayList<>();
+        ConfigurableApplicationContext context = start(stack, paymentUrl);
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        try {
+            URI uri = URI.create("http://localhost:"
+                    + context.getEnvironment().getProperty("local.server.port") + "/reservations");
+
+            // Warm-up: JIT, connection pools, Hibernate metadata
+            runStep(httpClient, uri, 16, TimeUnit.SECONDS.toNanos(2), new LoadReport());
+
+            for (int concurrency : concurrencyLevels) {
+                LoadReport report = new LoadReport();
+                long requests = runStep(httpClient, uri, concurrency, stepNanos, report);
+                Histogram latency = new Histogram(3);
+                report.drain().values().forEach(latency::add);
+                report.addStep(concurrency, requests, stepNanos, latency);
+                lines.add(report.steps().get(0) + "  outcomes=" + report.outcomes());
+            }
+        } finally {
+            context.close();
+        }
+        return lines;
+    }
+
+    private static ConfigurableApplicationContext start(String stack, String paymentUrl) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + stack,
+                "--spring.r2dbc.url=r2dbc:h2:mem:///benchmark-" + stack,
+                "--credit.card.payment.service.url=" + paymentUrl,
+                // Measure the stacks, not the bulkhead, time limiter and circuit breaker
+                "--resilience4j.bulkhead.instances.creditCardPaymentService.max-concurrent-calls=100000",
+                "--resilience4j.timelimiter.instances.creditCardPaymentService.timeout-duration=30s",
+                "--resilience4j.circuitbreaker.instances.creditCardPaymentService.minimum-number-of-calls=100000",
+                "--credit.card.payment.pending-acquire-timeout=30s",
+                "--kafka.retry.auto-create-topics=false",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.assignments=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.apache.kafka=ERROR"));
+        if ("reactive".equals(stack)) {
+            args.add("--spring.profiles.active=reactive");
+        }
+        return new SpringApplicationBuilder(RoomReservationApplication.class).run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Run {@code concurrency} closed-loop workers for {@code durationNanos}
+     *
+     * @return number of completed requests
+     */
+    private static long runStep(HttpClient httpClient, URI uri, int concurrency, long durationNanos,
+            LoadReport report) throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicLong completed = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long end = System.nanoTime() + durationNanos;
+
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        long started = System.nanoTime();
+                        int status = post(httpClient, uri);
+                        report.record("CREDIT_CARD", System.nanoTime() - started, status);
+                        completed.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        workers.shutdown();
+        return completed.get();
+    }
+
+    private static int post(HttpClient httpClient, URI uri) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate start = LocalDate.now().plusDays(5 + random.nextInt(300));
+        String body = String.format("""
+                {"customerName":"Bench %d","roomNumber":"%d","startDate":"%s","endDate":"%s",\
+                "roomSegment":"SMALL","modeOfPayment":"CREDIT_CARD","paymentReference":"REF%d"}""",
+                random.nextInt(1_000_000), 100 + random.nextInt(400), start, start.plusDays(2),
+                random.nextInt(1_000_000));
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private static int[] parseLevels(String levels) {
+        String[] parts = levels.split(",");
+        int[] parsed = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            parsed[i] = Integer.parseInt(parts[i].trim());
+        }
+        return parsed;
+    }
+}
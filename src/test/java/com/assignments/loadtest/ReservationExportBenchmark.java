@@ -0,0 +1,146 @@
+package com.assignments.loadtest;
+
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationIds;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationExportService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rows/s and live heap (after a full GC, sampled four times per export) of the streaming
+ * export for a growing number of rows, next to loading the same rows with findAll().
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=ReservationExportBenchmark
+ * Tunables (system properties): benchmark.export.rows (largest export)
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "spring.datasource.url=jdbc:h2:mem:exportbenchmark;LAZY_QUERY_EXECUTION=TRUE",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.assignments=WARN"
+})
+class ReservationExportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.export.rows", 400_000);
+
+    @Autowired
+    private ReservationExportService reservationExportService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${reservation.id-storage:VARCHAR}")
+    private String idStorage;
+
+    @Test
+    void heapStaysFlatAsRowsGrow() throws Exception {
+        LocalDate first = LocalDate.of(2030, 1, 1);
+        insert(ROWS, first);
+
+        System.out.printf("%n=== Reservation export, up to %d rows ===%n", ROWS);
+        for (int rows = ROWS / 8; rows <= ROWS; rows *= 2) {
+            // 100 rows per day: the date range selects the first `rows` rows
+            LocalDate last = first.plusDays((rows - 1) / 100);
+            int expected = ((rows - 1) / 100 + 1) * 100;
+            for (ReservationExportService.Format format : ReservationExportService.Format.values()) {
+                long baseline = liveHeap();
+                LiveHeapProbe output = new LiveHeapProbe(expected / 4);
+                long started = System.nanoTime();
+                assertEquals(expected, reservationExportService.export(first, last, null, format, output));
+                report("stream " + format, expected, System.nanoTime() - started, output.maxLiveHeap - baseline);
+            }
+        }
+
+        long baseline = liveHeap();
+        long[] retained = new long[1];
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ReservationEntity> all = reservationRepository.findAll();
+            retained[0] = liveHeap();
+            assertEquals(ROWS, all.size());
+        });
+        report("findAll()", ROWS, System.nanoTime() - started, retained[0] - baseline);
+    }
+
+    private void insert(int rows, LocalDate first) {
+        String sql = "insert into reservations (reservation_id, customer_name, room_number, start_date, end_date,"
+                + " room_segment, mode_of_payment, payment_reference, status, total_amount, amount_received)"
+                + " values (?, ?, ?, ?, ?, 'SMALL', 'BANK_TRANSFER', ?, 'PENDING_PAYMENT', 100.00, 0.00)";
+        boolean packed = idStorage.equalsIgnoreCase("BIGINT");
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            String id = String.format("P%07X", i);
+            LocalDate start = first.plusDays(i / 100);
+            batch.add(new Object[] {packed ? ReservationIds.pack(id) : id, "Guest " + i, "R" + (i % 100),
+                    Date.valueOf(start), Date.valueOf(start.plusDays(1)), "REF-" + i});
+            if (batch.size() == 5000) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        jdbcTemplate.batchUpdate(sql, batch);
+    }
+
+    private static void report(String label, int rows, long nanos, long liveHeapGrowth) {
+        System.out.println(String.format(Locale.ROOT, "%-14s %8d rows  %8.0f rows/s  live heap +%6.1f MB",
+                label, rows, rows * 1e9 / nanos, liveHeapGrowth / 1e6));
+    }
+
+    private static long liveHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Discards the export and measures the live heap every {@code interval} lines
+     */
+    private static final class LiveHeapProbe extends OutputStream {
+        private final long interval;
+        private long lines;
+        private long maxLiveHeap;
+
+        LiveHeapProbe(long interval) {
+            this.interval = Math.max(1, interval);
+        }
+
+        @Override
+        public void write(int b) {
+            if (b == '\n' && ++lines % interval == 0) {
+                maxLiveHeap = Math.max(maxLiveHeap, liveHeap());
+            }
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                write(bytes[i]);
+            }
+        }
+    }
+}
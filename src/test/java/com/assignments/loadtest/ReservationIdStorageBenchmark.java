@@ -0,0 +1,158 @@
+package com.assignments.loadtest;
+
+import com.assignments.model.ReservationIds;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * VARCHAR versus BIGINT reservation ID storage on a file-based H2 database: size of
+ * the reservations table and of a payments table referencing it, primary key lookup
+ * latency and join latency.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=ReservationIdStorageBenchmark
+ * Tunables (system properties): benchmark.id-storage.rows, benchmark.id-storage.lookups
+ */
+@Tag("benchmark")
+class ReservationIdStorageBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.id-storage.rows", 200_000);
+    private static final int LOOKUPS = Integer.getInteger("benchmark.id-storage.lookups", 100_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compareVarcharAndBigintKeys() throws SQLException {
+        Result varchar = measure("VARCHAR(255)");
+        Result bigint = measure("BIGINT");
+
+        System.out.printf("%n=== Reservation ID storage, %d rows, %d lookups ===%n", ROWS, LOOKUPS);
+        System.out.println(varchar);
+        System.out.println(bigint);
+
+        // Sizes are reported, not asserted: H2 stores both an 8-character VARCHAR and a
+        // packed long in about 9 bytes, the gain there is in comparison cost
+        assertEquals(LOOKUPS, bigint.lookup().getTotalCount());
+        assertEquals(LOOKUPS, varchar.lookup().getTotalCount());
+    }
+
+    private Result measure(String idType) throws SQLException {
+        boolean packed = idType.equals("BIGINT");
+        String url = "jdbc:h2:" + directory.resolve(packed ? "bigint" : "varchar").toAbsolutePath();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE reservations (reservation_id " + idType + " PRIMARY KEY,"
+                        + " customer_name VARCHAR(255), status VARCHAR(32), total_amount NUMERIC(38,2))");
+                statement.execute("CREATE TABLE payments (payment_id BIGINT PRIMARY KEY, reservation_id " + idType
+                        + " NOT NULL REFERENCES reservations(reservation_id), amount NUMERIC(38,2))");
+            }
+
+            connection.setAutoCommit(false);
+            try (PreparedStatement reservation = connection.prepareStatement(
+                    "INSERT INTO reservations VALUES (?, ?, 'PENDING_PAYMENT', 200.00)");
+                    PreparedStatement payment = connection.prepareStatement(
+                            "INSERT INTO payments VALUES (?, ?, 100.00)")) {
+                for (int i = 0; i < ROWS; i++) {
+                    String id = id(i);
+                    bindId(reservation, 1, id, packed);
+                    reservation.setString(2, "Guest " + i);
+                    reservation.addBatch();
+                    payment.setLong(1, i);
+                    bindId(payment, 2, id, packed);
+                    payment.addBatch();
+                    if (i % 1000 == 999) {
+                        reservation.executeBatch();
+                        payment.executeBatch();
+                    }
+                }
+                reservation.executeBatch();
+                payment.executeBatch();
+            }
+            connection.commit();
+            connection.setAutoCommit(true);
+
+            long reservationsBytes;
+            long paymentsBytes;
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CHECKPOINT SYNC");
+                reservationsBytes = diskSpace(statement, "RESERVATIONS");
+                paymentsBytes = diskSpace(statement, "PAYMENTS");
+            }
+
+            Histogram lookup = timeQueries(connection,
+                    "SELECT customer_name FROM reservations WHERE reservation_id = ?", packed);
+            Histogram join = timeQueries(connection, "SELECT p.amount, r.status FROM payments p"
+                    + " JOIN reservations r ON r.reservation_id = p.reservation_id WHERE p.reservation_id = ?", packed);
+            return new Result(idType, reservationsBytes, paymentsBytes, lookup, join);
+        }
+    }
+
+    private static Histogram timeQueries(Connection connection, String sql, boolean packed) throws SQLException {
+        Histogram histogram = new Histogram(TimeUnit.SECONDS.toNanos(1), 3);
+        Random random = new Random(7);
+        try (PreparedStatement query = connection.prepareStatement(sql)) {
+            // Warm-up, then measure
+            for (int round = 0; round < 2; round++) {
+                histogram.reset();
+                for (int i = 0; i < LOOKUPS; i++) {
+                    bindId(query, 1, id(random.nextInt(ROWS)), packed);
+                    long started = System.nanoTime();
+                    try (ResultSet rs = query.executeQuery()) {
+                        rs.next();
+                    }
+                    histogram.recordValue(Math.min(System.nanoTime() - started, histogram.getHighestTrackableValue()));
+                }
+            }
+        }
+        return histogram;
+    }
+
+    private static long diskSpace(Statement statement, String table) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("CALL DISK_SPACE_USED('" + table + "')")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static void bindId(PreparedStatement statement, int index, String id, boolean packed)
+            throws SQLException {
+        if (packed) {
+            statement.setLong(index, ReservationIds.pack(id));
+        } else {
+            statement.setString(index, id);
+        }
+    }
+
+    // Same shape as generated IDs: P + 7 upper-case hex digits, in random order
+    private static String id(int i) {
+        return String.format("P%07X", (i * 0x9E3779B1L) & 0xFFFFFFFL);
+    }
+
+    private record Result(String idType, long reservationsBytes, long paymentsBytes, Histogram lookup,
+            Histogram join) {
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "%-13s reservations=%6.1f MB payments=%6.1f MB  lookup p50=%5.1fus p99=%6.1fus"
+                            + "  join p50=%5.1fus p99=%6.1fus",
+                    idType, reservationsBytes / 1e6, paymentsBytes / 1e6,
+                    lookup.getValueAtPercentile(50) / 1e3, lookup.getValueAtPercentile(99) / 1e3,
+                    join.getValueAtPercentile(50) / 1e3, join.getValueAtPercentile(99) / 1e3);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.assignments.loadtest;
+
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationBulkImporter;
+import com.assignments.service.ReservationExportService.Format;
+import com.assignments.service.ReservationService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rows/s of the bulk import for CSV and NDJSON files with 1, 2 and 4 workers, next to
+ * saving the same reservations through JPA in batches of 1000.
+ *
+ * Run with: mvn test -Pbenchmark -Dtest=ReservationImportBenchmark
+ * Tunables (system properties): benchmark.import.rows, benchmark.import.jpa-rows
+ */
+@Tag("benchmark")
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "spring.datasource.url=jdbc:h2:mem:importbenchmark",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.assignments=WARN"
+})
+class ReservationImportBenchmark {
+
+    private static final int ROWS = Integer.getInteger("benchmark.import.rows", 500_000);
+    private static final int JPA_ROWS = Integer.getInteger("benchmark.import.jpa-rows", 50_000);
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${reservation.id-storage:VARCHAR}")
+    private String idStorage;
+
+    @Test
+    void importThroughput() throws Exception {
+        Path csv = write(directory.resolve("reservations.csv"), Format.CSV);
+        Path ndjson = write(directory.resolve("reservations.ndjson"), Format.NDJSON);
+        System.out.printf("%n=== Reservation bulk import, %d rows (CSV %.0f MB, NDJSON %.0f MB) ===%n", ROWS,
+                Files.size(csv) / 1e6, Files.size(ndjson) / 1e6);
+
+        // Warm-up, not reported
+        importer(1).importReservations(csv, null);
+        jdbcTemplate.execute("truncate table reservations");
+        importer(1).importReservations(ndjson, null);
+
+        for (int threads : new int[] {1, 2, 4}) {
+            for (Path file : List.of(csv, ndjson)) {
+                jdbcTemplate.execute("truncate table reservations");
+                ReservationBulkImporter.ImportResult result = importer(threads).importReservations(file, null);
+                assertEquals(ROWS, result.imported());
+                report(result.format() + ", " + threads + " thread" + (threads > 1 ? "s" : ""), ROWS,
+                        result.rowsPerSecond());
+            }
+        }
+
+        jdbcTemplate.execute("truncate table reservations");
+        long started = System.nanoTime();
+        List<ReservationEntity> batch = new ArrayList<>();
+        for (int i = 0; i < JPA_ROWS; i++) {
+            batch.add(entity(i));
+            if (batch.size() == 1000) {
+                List<ReservationEntity> chunk = List.copyOf(batch);
+                transactionTemplate.executeWithoutResult(status -> reservationRepository.saveAll(chunk));
+                batch.clear();
+            }
+        }
+        List<ReservationEntity> rest = List.copyOf(batch);
+        transactionTemplate.executeWithoutResult(status -> reservationRepository.saveAll(rest));
+        report("JPA saveAll", JPA_ROWS, JPA_ROWS * 1e9 / (System.nanoTime() - started));
+    }
+
+    private ReservationBulkImporter importer(int threads) {
+        return new ReservationBulkImporter(reservationService, shardRouter, jdbcTemplate, transactionTemplate,
+                eventPublisher, objectMapper, directory, idStorage, threads, DataSize.ofMegabytes(8), 1000, 1000);
+    }
+
+    private Path write(Path file, Format format) throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            if (format == Format.CSV) {
+                writer.write("reservationId,customerName,roomNumber,roomSegment,startDate,endDate,modeOfPayment,"
+                        + "paymentReference\n");
+            }
+            for (int i = 0; i < ROWS; i++) {
+                LocalDate start = LocalDate.of(2020, 1, 1).plusDays(i / 100);
+                String id = String.format("H%07X", i);
+                String mode = i % 2 == 0 ? "CASH" : "BANK_TRANSFER";
+                if (format == Format.CSV) {
+                    writer.write(String.format("%s,\"Guest, %d\",R%d,SMALL,%s,%s,%s,REF-%d%n",
+                            id, i, i % 100, start, start.plusDays(2), mode, i));
+                } else {
+                    writer.write(String.format("{\"reservationId\":\"%s\",\"customerName\":\"Guest %d\","
+                                    + "\"roomNumber\":\"R%d\",\"roomSegment\":\"SMALL\",\"startDate\":\"%s\","
+                                    + "\"endDate\":\"%s\",\"modeOfPayment\":\"%s\",\"paymentReference\":\"REF-%d\"}%n",
+                            id, i, i % 100, start, start.plusDays(2), mode, i));
+                }
+            }
+        }
+        return file;
+    }
+
+    private static ReservationEntity entity(int i) {
+        LocalDate start = LocalDate.of(2020, 1, 1).plusDays(i / 100);
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setCustomerName("Guest " + i);
+        reservation.setRoomNumber("R" + (i % 100));
+        reservation.setStartDate(start);
+        reservation.setEndDate(start.plusDays(2));
+        reservation.setRoomSegment(ReservationEntity.RoomSegment.SMALL);
+        reservation.setModeOfPayment(ReservationEntity.ModeOfPayment.CASH);
+        reservation.setPaymentReference("REF-" + i);
+        reservation.setStatus(ReservationEntity.ReservationStatus.CONFIRMED);
+        reservation.setTotalAmount(Money.valueOf("200.00"));
+        reservation.setAmountReceived(reservation.getTotalAmount());
+        return reservation;
+    }
+
+    private static void report(String label, int rows, double rowsPerSecond) {
+        System.out.println(String.format(Locale.ROOT, "%-22s %8d rows  %8.0f rows/s", label, rows, rowsPerSecond));
+    }
+}
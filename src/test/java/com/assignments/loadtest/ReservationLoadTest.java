@@ -0,0 +1,274 @@
+package com.assignments.loadtest;
+
+import com.assignments.model.BankTransferPaymentEvent;
+import com.assignments.model.ReservationEntity;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationService;
+import org.HdrHistogram.Histogram;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * End-to-end load test: boots the whole service against a local payment
+ * stand-in and an embedded Kafka broker, drives mixed reservation traffic at
+ * increasing concurrency and reports throughput, HdrHistogram percentiles and the
+ * saturation point.
+ *
+ * Run with: mvn test -Pload-test
+ * Tunables (system properties): loadtest.concurrency-levels, loadtest.step-seconds,
+ * loadtest.mix, loadtest.payment.latency-ms, loadtest.payment.error-rate, loadtest.burst.events
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.assignments=WARN",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+@EmbeddedKafka(partitions = 1, topics = "bank-transfer-payment-update")
+class ReservationLoadTest {
+
+    private static final PaymentProviderStandIn PAYMENT_PROVIDER = new PaymentProviderStandIn(
+            Long.getLong("loadtest.payment.latency-ms", 50),
+            Double.parseDouble(System.getProperty("loadtest.payment.error-rate", "0.01")));
+
+    @LocalServerPort
+    private int port;
+
+    @Value("${spring.embedded.kafka.brokers}")
+    private String brokers;
+
+    @Value("${kafka.topic.bank-transfer-payment}")
+    private String paymentTopic;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+
+    @DynamicPropertySource
+    static void paymentProvider(DynamicPropertyRegistry registry) {
+        PAYMENT_PROVIDER.start();
+        registry.add("credit.card.payment.service.url", PAYMENT_PROVIDER::baseUrl);
+    }
+
+    @AfterAll
+    static void stopPaymentProvider() {
+        PAYMENT_PROVIDER.shutdown();
+    }
+
+    @Test
+    void mixedTrafficThroughputAndSaturation() throws Exception {
+        int[] concurrencyLevels = parseLevels(System.getProperty("loadtest.concurrency-levels", "1,4,16,32,64"));
+        long stepNanos = TimeUnit.SECONDS.toNanos(Long.getLong("loadtest.step-seconds", 5));
+        Map<String, Integer> mix = parseMix(System.getProperty("loadtest.mix", "CASH:40,CREDIT_CARD:30,BANK_TRANSFER:30"));
+
+        // Warm-up: JIT, connection pools, Hibernate metadata
+        runStep(4, TimeUnit.SECONDS.toNanos(2), mix, new LoadReport());
+
+        LoadReport report = new LoadReport();
+        for (int concurrency : concurrencyLevels) {
+            long requests = runStep(concurrency, stepNanos, mix, report);
+            Map<String, Histogram> byMode = report.drain();
+            Histogram overall = new Histogram(3);
+            byMode.values().forEach(overall::add);
+            report.addStep(concurrency, requests, stepNanos, overall);
+
+            System.out.printf("%n=== concurrency %d: %.1f req/s ===%n", concurrency, requests * 1e9 / stepNanos);
+            byMode.forEach((mode, histogram) -> System.out.println(LoadReport.percentiles(mode, histogram)));
+        }
+
+        System.out.println("\n=== Throughput by concurrency ===");
+        report.steps().forEach(System.out::println);
+        LoadReport.Step saturation = report.saturationPoint(0.10);
+        System.out.printf("Saturation point: concurrency %d at %.1f req/s (next step gained < 10%%)%n",
+                saturation.concurrency(), saturation.throughput());
+        System.out.println("Outcomes (mode status -> count): " + report.outcomes());
+        System.out.printf("Payment stand-in: %d calls, %d injected errors%n",
+                PAYMENT_PROVIDER.getCalls(), PAYMENT_PROVIDER.getErrors());
+
+        assertTrue(report.outcomes().entrySet().stream()
+                .anyMatch(entry -> entry.getKey().endsWith(" 200") && entry.getValue() > 0));
+    }
+
+    @Test
+    void bankTransferEventBurst() throws Exception {
+        int events = Integer.getInteger("loadtest.burst.events", 2000);
+        List<ReservationEntity> reservations = new ArrayList<>(events);
+        LocalDate startDate = LocalDate.now().plusDays(20);
+        for (int i = 0; i < events; i++) {
+            reservations.add(reservationService.confirmReservation("Burst Guest " + i, "B" + i,
+                    startDate, startDate.plusDays(2), ReservationEntity.RoomSegment.SMALL,
+                    ReservationEntity.ModeOfPayment.BANK_TRANSFER, null));
+        }
+
+        KafkaTemplate<String, BankTransferPaymentEvent> kafkaTemplate = kafkaTemplate();
+        long begin = System.nanoTime();
+        for (int i = 0; i < events; i++) {
+            ReservationEntity reservation = reservations.get(i);
+            kafkaTemplate.send(paymentTopic, reservation.getReservationId(), new BankTransferPaymentEvent(
+                    "PAY" + i, "ACC" + i, reservation.getTotalAmount(),
+                    String.format("%010d %s", i, reservation.getReservationId())));
+        }
+        kafkaTemplate.flush();
+        long published = System.nanoTime();
+
+        List<String> ids = reservations.stream().map(ReservationEntity::getReservationId).toList();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        long confirmed = 0;
+        while (System.nanoTime() < deadline) {
+            confirmed = reservationRepository.findAllById(ids).stream()
+                    .filter(r -> r.getStatus() == ReservationEntity.ReservationStatus.CONFIRMED)
+                    .count();
+            if (confirmed == events) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        long drained = System.nanoTime();
+        kafkaTemplate.destroy();
+
+        System.out.printf("%n=== Bank transfer burst: %d events ===%n", events);
+        System.out.printf("publish: %.1f events/s, end-to-end: %.1f events/s (%.2fs until all confirmed)%n",
+                events * 1e9 / (published - begin),
+                confirmed * 1e9 / (drained - begin),
+                (drained - begin) / 1e9);
+
+        assertEquals(events, confirmed, "all bank transfer reservations should be confirmed");
+    }
+
+    /**
+     * Run {@code concurrency} closed-loop workers for {@code durationNanos}
+     *
+     * @return number of completed requests
+     */
+    private long runStep(int concurrency, long durationNanos, Map<String, Integer> mix, LoadReport report)
+            throws InterruptedException {
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        AtomicLong completed = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long end = System.nanoTime() + durationNanos;
+        int totalWeight = mix.values().stream().mapToInt(Integer::intValue).sum();
+
+        for (int w = 0; w < concurrency; w++) {
+            workers.execute(() -> {
+                try {
+                    while (System.nanoTime() < end) {
+                        String mode = pick(mix, totalWeight);
+                        long started = System.nanoTime();
+                        int status = post(mode);
+                        report.record(mode, System.nanoTime() - started, status);
+                        completed.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        workers.shutdown();
+        return completed.get();
+    }
+
+    private int post(String mode) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDate start = LocalDate.now().plusDays(5 + random.nextInt(300));
+        String body = String.format("""
+                {"customerName":"Load %d","roomNumber":"%d","startDate":"%s","endDate":"%s",\
+                "roomSegment":"%s","modeOfPayment":"%s","paymentReference":"REF%d"}""",
+                random.nextInt(1_000_000), 100 + random.nextInt(400), start, start.plusDays(1 + random.nextInt(5)),
+                ReservationEntity.RoomSegment.values()[random.nextInt(4)], mode, random.nextInt(1_000_000));
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/reservations"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        try {
+            return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private KafkaTemplate<String, BankTransferPaymentEvent> kafkaTemplate() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, brokers);
+        config.put(ProducerConfig.LINGER_MS_CONFIG, 5);
+        DefaultKafkaProducerFactory<String, BankTransferPaymentEvent> producerFactory =
+                new DefaultKafkaProducerFactory<>(config, new StringSerializer(), new JsonSerializer<>());
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    private static String pick(Map<String, Integer> mix, int totalWeight) {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("empty traffic mix");
+    }
+
+    private static int[] parseLevels(String levels) {
+        String[] parts = levels.split(",");
+        int[] parsed = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            parsed[i] = Integer.parseInt(parts[i].trim());
+        }
+        return parsed;
+    }
+
+    private static Map<String, Integer> parseMix(String mix) {
+        Map<String, Integer> parsed = new LinkedHashMap<>();
+        for (String part : mix.split(",")) {
+            String[] modeAndWeight = part.split(":");
+            parsed.put(ReservationEntity.ModeOfPayment.valueOf(modeAndWeight[0].trim()).name(),
+                    Integer.parseInt(modeAndWeight[1].trim()));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,90 @@
+package com.assignments.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotPathSamplingFilterTest {
+
+    private LoggerContext loggerContext;
+    private HotPathSamplingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        loggerContext = new LoggerContext();
+        filter = new HotPathSamplingFilter();
+        filter.setContext(loggerContext);
+        filter.setLoggers("com.assignments.controller, com.assignments.kafka");
+        filter.setPermitsPerSecond(3);
+        filter.start();
+    }
+
+    @Test
+    void infoEventsBeyondPermitsAreDenied() {
+        Logger logger = loggerContext.getLogger("com.assignments.controller.ReservationController");
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(logger, Level.INFO));
+        }
+        assertEquals(FilterReply.DENY, decide(logger, Level.INFO));
+        assertEquals(1, filter.getSuppressedCount());
+    }
+
+    @Test
+    void loggersUnderSamePrefixShareTheWindow() {
+        Logger first = loggerContext.getLogger("com.assignments.kafka.BankTransferPaymentConsumer");
+        Logger second = loggerContext.getLogger("com.assignments.kafka.Other");
+
+        decide(first, Level.INFO);
+        decide(first, Level.INFO);
+        decide(second, Level.INFO);
+
+        assertEquals(FilterReply.DENY, decide(second, Level.INFO));
+    }
+
+    @Test
+    void warnAndErrorAreNeverSampled() {
+        Logger logger = loggerContext.getLogger("com.assignments.controller.ReservationController");
+        for (int i = 0; i < 10; i++) {
+            decide(logger, Level.INFO);
+        }
+
+        assertEquals(FilterReply.NEUTRAL, decide(logger, Level.WARN));
+        assertEquals(FilterReply.NEUTRAL, decide(logger, Level.ERROR));
+    }
+
+    @Test
+    void unlistedLoggersAreNotSampled() {
+        Logger logger = loggerContext.getLogger("com.assignments.scheduler.ReservationCancellationScheduler");
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(logger, Level.INFO));
+        }
+        assertEquals(0, filter.getSuppressedCount());
+    }
+
+    @Test
+    void disabledLevelsAndEnabledChecksLeaveInfoPermitsUntouched() {
+        Logger logger = loggerContext.getLogger("com.assignments.kafka.BankTransferPaymentConsumer");
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(logger, Level.DEBUG));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, null, null, null));
+        }
+        for (int i = 0; i < 3; i++) {
+            assertEquals(FilterReply.NEUTRAL, decide(logger, Level.INFO));
+        }
+        assertEquals(FilterReply.DENY, decide(logger, Level.INFO));
+        assertEquals(1, filter.getSuppressedCount());
+    }
+
+    private FilterReply decide(Logger logger, Level level) {
+        return filter.decide(null, logger, level, "message {}", new Object[] { "arg" }, null);
+    }
+}
@@ -0,0 +1,190 @@
+package com.assignments.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.JsonEncoder;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares hot-path logging throughput of the default synchronous console setup
+ * with the prod profile setup (async JSON appender + sampling).
+ *
+ * The async appender blocks when its queue is full instead of dropping events, so
+ * every event that passes the sampler reaches the sink. The timing runs until the sink
+ * has written the last event: the reported events/s are delivered events, and events
+ * dropped by the sampler are reported separately.
+ * Run with: mvn test -Pbenchmark -Dtest=LoggingThroughputBenchmark
+ */
+@Tag("benchmark")
+class LoggingThroughputBenchmark {
+
+    private static final int THREADS = 8;
+    private static final int EVENTS_PER_THREAD = 5_000;
+    // Simulated cost of one console write (terminal / container log driver)
+    private static final long SINK_WRITE_NANOS = 20_000;
+
+    @Test
+    void asyncSampledLoggingOutperformsSynchronousConsole() throws Exception {
+        Result sync = measure("sync-console", false, false);
+        Result async = measure("async-json", true, false);
+        Result asyncSampled = measure("async-json+sampling", true, true);
+
+        System.out.printf("%-22s %12s %12s %12s%n", "", "calls/s", "delivered/s", "sampled out");
+        sync.print();
+        async.print();
+        asyncSampled.print();
+
+        assertEquals(THREADS * EVENTS_PER_THREAD, async.delivered(), "the async appender must not drop events");
+        assertTrue(async.callsPerSecond() > sync.callsPerSecond(),
+                "async appender should not slow down the logging threads more than the synchronous console");
+        assertTrue(asyncSampled.callsPerSecond() > sync.callsPerSecond(),
+                "sampled async logging should not be slower than the synchronous console");
+    }
+
+    private Result measure(String name, boolean async, boolean sampled) throws Exception {
+        LoggerContext context = new LoggerContext();
+        context.setName(name);
+        // A context outside logback's own bootstrap has no MDC adapter, and every append would fail without one
+        context.setMDCAdapter(new LogbackMDCAdapter());
+
+        OutputStreamAppender<ILoggingEvent> sink = new OutputStreamAppender<>();
+        sink.setContext(context);
+        sink.setEncoder(async ? jsonEncoder(context) : patternEncoder(context));
+        SlowSink output = new SlowSink();
+        sink.setOutputStream(output);
+        sink.start();
+
+        Appender<ILoggingEvent> appender = sink;
+        AsyncAppender asyncAppender = null;
+        if (async) {
+            asyncAppender = new AsyncAppender();
+            asyncAppender.setContext(context);
+            asyncAppender.setQueueSize(8192);
+            asyncAppender.setDiscardingThreshold(0);
+            // Block when full: with neverBlock the dropped events would count as throughput
+            asyncAppender.setNeverBlock(false);
+            // Wait for the queue to drain on stop
+            asyncAppender.setMaxFlushTime(0);
+            asyncAppender.addAppender(sink);
+            asyncAppender.start();
+            appender = asyncAppender;
+        }
+        if (sampled) {
+            HotPathSamplingFilter filter = new HotPathSamplingFilter();
+            filter.setContext(context);
+            filter.setLoggers("com.assignments");
+            filter.setPermitsPerSecond(20);
+            filter.start();
+            context.addTurboFilter(filter);
+        }
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+        Logger logger = context.getLogger("com.assignments.controller.ReservationController");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < EVENTS_PER_THREAD; i++) {
+                        logger.info("Received reservation request for customer: {}, room: {}, payment mode: {}",
+                                "Customer " + i, "101A", "CASH");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long calling = System.nanoTime() - begin;
+        if (asyncAppender != null) {
+            asyncAppender.stop();
+        }
+        long delivering = System.nanoTime() - begin;
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        context.stop();
+
+        long events = (long) THREADS * EVENTS_PER_THREAD;
+        long delivered = output.events.get();
+        return new Result(name, perSecond(events, calling), perSecond(delivered, delivering), delivered,
+                events - delivered);
+    }
+
+    private static double perSecond(long events, long nanos) {
+        return (double) events / nanos * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private Encoder<ILoggingEvent> patternEncoder(LoggerContext context) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %5level [%15.15thread] %-40.40logger{39} : %msg%n");
+        encoder.start();
+        return encoder;
+    }
+
+    private Encoder<ILoggingEvent> jsonEncoder(LoggerContext context) {
+        JsonEncoder encoder = new JsonEncoder();
+        encoder.setContext(context);
+        encoder.start();
+        return encoder;
+    }
+
+    /**
+     * Logging calls per second seen by the logging threads, and events per second written to the sink
+     */
+    private record Result(String name, double callsPerSecond, double deliveredPerSecond, long delivered,
+            long sampledOut) {
+
+        void print() {
+            System.out.printf("%-22s %12.0f %12.0f %12d%n", name, callsPerSecond, deliveredPerSecond, sampledOut);
+        }
+    }
+
+    /**
+     * Each encoded event arrives as one write
+     */
+    private static final class SlowSink extends OutputStream {
+        private final AtomicLong events = new AtomicLong();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            events.incrementAndGet();
+            LockSupport.parkNanos(SINK_WRITE_NANOS);
+        }
+    }
+}
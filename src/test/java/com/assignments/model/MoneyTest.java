@@ -0,0 +1,69 @@
+package com.assignments.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void arithmeticWorksOnMinorUnits() {
+        Money price = Money.valueOf("150.00");
+
+        assertEquals(45_000, price.times(3).getMinorUnits());
+        assertEquals(Money.valueOf("150.01"), price.plus(Money.ofMinor(1)));
+        assertEquals(Money.valueOf("-0.01"), price.minus(Money.valueOf("150.01")));
+        assertTrue(Money.valueOf("99.99").isLessThan(Money.valueOf("100")));
+        assertFalse(Money.valueOf("100.0").isLessThan(Money.valueOf("100.00")));
+        assertEquals("150.00", price.toString());
+        assertEquals(new BigDecimal("150.00"), price.toBigDecimal());
+    }
+
+    @Test
+    void rejectsAmountsThatCannotBeHeldExactly() {
+        assertThrows(IllegalArgumentException.class, () -> Money.valueOf("10.005"));
+        assertThrows(IllegalArgumentException.class, () -> Money.valueOf("1e30"));
+        assertThrows(IllegalArgumentException.class, () -> Money.valueOf("ten"));
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> Money.ZERO.plus(Money.ofMinor(1, Currency.getInstance("EUR"))));
+    }
+
+    @Test
+    void jsonUsesPlainDecimalNumbers() throws Exception {
+        BankTransferPaymentEvent event = new BankTransferPaymentEvent("PAY1", "ACC1", Money.valueOf("1500.5"),
+                "1401541457 P4145478");
+
+        String json = objectMapper.writeValueAsString(event);
+
+        assertTrue(json.contains("\"amountReceived\":1500.50"), json);
+        assertEquals(Money.valueOf("1500.50"),
+                objectMapper.readValue(json, BankTransferPaymentEvent.class).getAmountReceived());
+    }
+
+    @Test
+    void jsonAcceptsIntegersDecimalsAndStrings() throws Exception {
+        assertEquals(Money.ofMinor(30_000), objectMapper.readValue("300", Money.class));
+        assertEquals(Money.ofMinor(30_050), objectMapper.readValue("300.5", Money.class));
+        assertEquals(Money.ofMinor(30_050), objectMapper.readValue("\"300.50\"", Money.class));
+        assertNull(objectMapper.readValue("null", Money.class));
+        assertThrows(InvalidFormatException.class, () -> objectMapper.readValue("300.001", Money.class));
+    }
+
+    @Test
+    void converterStoresFixedScaleDecimals() {
+        MoneyConverter converter = new MoneyConverter();
+
+        assertEquals(new BigDecimal("12.30"), converter.convertToDatabaseColumn(Money.valueOf("12.3")));
+        assertEquals(Money.ofMinor(1230), converter.convertToEntityAttribute(new BigDecimal("12.300000")));
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
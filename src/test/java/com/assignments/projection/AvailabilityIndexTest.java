@@ -0,0 +1,175 @@
+package com.assignments.projection;
+
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationEntity.RoomSegment;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityIndexTest {
+
+    private static final String DEFAULT = ReservationEntity.DEFAULT_PROPERTY_ID;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    private AvailabilityIndex index;
+
+    private final LocalDate startDate = LocalDate.now().plusDays(10);
+
+    private int reservationCount;
+
+    @BeforeEach
+    void setUp() {
+        index = new AvailabilityIndex(reservationRepository, ShardRouter.unsharded(),
+                List.of("101A", "102A", "103A"), List.of(), List.of("301C"), List.of());
+    }
+
+    @Test
+    void allInventoryRoomsAreFreeWithoutReservations() {
+        assertEquals(List.of("101A", "102A", "103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate, startDate.plusDays(30)));
+        assertEquals(List.of(), index.findFreeRooms(DEFAULT, RoomSegment.MEDIUM, startDate, startDate.plusDays(1)));
+    }
+
+    @Test
+    void overlappingStayMakesRoomUnavailable() {
+        index.onReservationStateChanged(ReservationStateChangedEvent.created(
+                reservation("102A", startDate, startDate.plusDays(3), ReservationStatus.CONFIRMED)));
+
+        // Overlaps the last night
+        assertEquals(List.of("101A", "103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate.plusDays(2), startDate.plusDays(5)));
+        // Starts on the check-out day
+        assertEquals(List.of("101A", "102A", "103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate.plusDays(3), startDate.plusDays(5)));
+        // Ends on the check-in day
+        assertEquals(List.of("101A", "102A", "103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate.minusDays(2), startDate));
+    }
+
+    @Test
+    void cancellationFreesTheRoom() {
+        ReservationEntity reservation = reservation("101A", startDate, startDate.plusDays(2),
+                ReservationStatus.PENDING_PAYMENT);
+        index.onReservationStateChanged(ReservationStateChangedEvent.created(reservation));
+        assertEquals(List.of("102A", "103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate, startDate.plusDays(1)));
+
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        index.onReservationStateChanged(new ReservationStateChangedEvent(reservation,
+                ReservationStatus.PENDING_PAYMENT, Money.ZERO));
+
+        assertEquals(List.of("101A", "102A", "103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate, startDate.plusDays(1)));
+    }
+
+    @Test
+    void roomsOutsideInventoryAreLearnedFromReservations() {
+        ReservationEntity reservation = reservation("999Z", startDate, startDate.plusDays(1),
+                ReservationStatus.CONFIRMED);
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        index.onReservationStateChanged(ReservationStateChangedEvent.created(reservation));
+
+        assertEquals(List.of("101A", "102A", "103A", "999Z"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate.plusDays(1), startDate.plusDays(2)));
+    }
+
+    @Test
+    void rebuildLoadsActiveReservations() {
+        when(reservationRepository.findByStatusNotAndEndDateAfter(eq(ReservationStatus.CANCELLED), any()))
+                .thenReturn(List.of(reservation("103A", startDate, startDate.plusDays(4), ReservationStatus.CONFIRMED)));
+
+        index.rebuild();
+
+        assertEquals(List.of("101A", "102A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate, startDate.plusDays(30)));
+    }
+
+    @Test
+    void doubleBookedRoomStaysOccupiedUntilEveryReservationIsCancelled() {
+        ReservationEntity first = reservation("101A", startDate, startDate.plusDays(1), ReservationStatus.CONFIRMED);
+        ReservationEntity second = reservation("101A", startDate, startDate.plusDays(1), ReservationStatus.CONFIRMED);
+        index.onReservationStateChanged(ReservationStateChangedEvent.created(first));
+        index.onReservationStateChanged(ReservationStateChangedEvent.created(second));
+
+        first.setStatus(ReservationStatus.CANCELLED);
+        index.onReservationStateChanged(new ReservationStateChangedEvent(first, ReservationStatus.CONFIRMED,
+                Money.ZERO));
+        // Replayed twice, e.g. around a rebuild
+        index.onReservationStateChanged(new ReservationStateChangedEvent(first, ReservationStatus.CONFIRMED,
+                Money.ZERO));
+        assertEquals(List.of("102A", "103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate, startDate.plusDays(1)));
+
+        second.setStatus(ReservationStatus.CANCELLED);
+        index.onReservationStateChanged(new ReservationStateChangedEvent(second, ReservationStatus.CONFIRMED,
+                Money.ZERO));
+        assertEquals(List.of("101A", "102A", "103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate, startDate.plusDays(1)));
+    }
+
+    @Test
+    void rebuildKeepsServingTheOldCalendarsAndReplaysChangesCommittedMeanwhile() {
+        ReservationEntity existing = reservation("101A", startDate, startDate.plusDays(2), ReservationStatus.CONFIRMED);
+        index.onReservationStateChanged(ReservationStateChangedEvent.created(existing));
+        ReservationEntity booked = reservation("102A", startDate, startDate.plusDays(2), ReservationStatus.CONFIRMED);
+        when(reservationRepository.findByStatusNotAndEndDateAfter(eq(ReservationStatus.CANCELLED), any()))
+                .thenAnswer(invocation -> {
+                    assertEquals(List.of("102A", "103A"),
+                            index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate, startDate.plusDays(1)));
+                    // Committed after the query's snapshot
+                    index.onReservationStateChanged(ReservationStateChangedEvent.created(booked));
+                    return List.of(existing);
+                });
+
+        index.rebuild();
+
+        assertEquals(List.of("103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate, startDate.plusDays(1)));
+    }
+
+    @Test
+    void sameRoomNumberIsBookedSeparatelyPerProperty() {
+        ReservationEntity boston = reservation("101A", startDate, startDate.plusDays(2), ReservationStatus.CONFIRMED);
+        boston.setReservationId("E0000001");
+        boston.setPropertyId("boston");
+        index.onReservationStateChanged(ReservationStateChangedEvent.created(boston));
+
+        assertEquals(List.of("102A", "103A"),
+                index.findFreeRooms("boston", RoomSegment.SMALL, startDate, startDate.plusDays(1)));
+        assertEquals(List.of("101A", "102A", "103A"),
+                index.findFreeRooms(DEFAULT, RoomSegment.SMALL, startDate, startDate.plusDays(1)));
+        assertEquals(List.of("101A", "102A", "103A"),
+                index.findFreeRooms("denver", RoomSegment.SMALL, startDate, startDate.plusDays(1)));
+    }
+
+    private ReservationEntity reservation(String room, LocalDate start, LocalDate end, ReservationStatus status) {
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setReservationId(String.format("P%07d", ++reservationCount));
+        reservation.setRoomNumber(room);
+        reservation.setRoomSegment(RoomSegment.SMALL);
+        reservation.setModeOfPayment(ReservationEntity.ModeOfPayment.BANK_TRANSFER);
+        reservation.setStartDate(start);
+        reservation.setEndDate(end);
+        reservation.setTotalAmount(Money.valueOf("100.00"));
+        reservation.setStatus(status);
+        return reservation;
+    }
+}
@@ -0,0 +1,155 @@
+package com.assignments.projection;
+
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationEntity.RoomSegment;
+import com.assignments.model.ReservationExportRow;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.repository.ArchivedReservationRepository;
+import com.assignments.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CustomerHistoryProjectionTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private ArchivedReservationRepository archivedReservationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CustomerHistoryProjection projection;
+
+    private final LocalDate startDate = LocalDate.now().plusDays(10);
+
+    @BeforeEach
+    void setUp() {
+        projection = new CustomerHistoryProjection(reservationRepository, archivedReservationRepository,
+                ShardRouter.unsharded(), transactionManager);
+    }
+
+    @Test
+    void customerKeyIgnoresCaseAccentsAndWhitespace() {
+        assertEquals("zoe o'neil", CustomerHistoryProjection.customerKey("  Zoë   O'Neil "));
+        assertEquals(CustomerHistoryProjection.customerKey("ZOE O'NEIL"),
+                CustomerHistoryProjection.customerKey("zoe\to'neil"));
+    }
+
+    @Test
+    void paymentsUpdateStatusAndBalanceUnderTheNormalizedName() {
+        ReservationEntity reservation = reservation("RES001", "Jane Smith", startDate);
+        projection.onReservationStateChanged(ReservationStateChangedEvent.created(reservation));
+
+        reservation.setAmountReceived(Money.valueOf("200.00"));
+        projection.onReservationStateChanged(new ReservationStateChangedEvent(reservation, ReservationStatus.PENDING_PAYMENT, Money.ZERO));
+
+        CustomerHistoryProjection.Entry entry = projection.history("jane  SMITH").get(0);
+        assertEquals(ReservationStatus.PENDING_PAYMENT, entry.status());
+        assertEquals(Money.valueOf("100.00"), entry.balance());
+
+        reservation.setAmountReceived(Money.valueOf("300.00"));
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        projection.onReservationStateChanged(new ReservationStateChangedEvent(reservation, ReservationStatus.PENDING_PAYMENT,
+                Money.valueOf("200.00")));
+
+        entry = projection.history("Jane Smith").get(0);
+        assertEquals(ReservationStatus.CONFIRMED, entry.status());
+        assertEquals(Money.ZERO, entry.balance());
+        assertTrue(projection.history("John Smith").isEmpty());
+    }
+
+    @Test
+    void staleChangeDoesNotOverwriteLaterState() {
+        ReservationEntity reservation = reservation("RES001", "Jane Smith", startDate);
+        reservation.setAmountReceived(Money.valueOf("100.00"));
+        ReservationStateChangedEvent partial = new ReservationStateChangedEvent(
+                reservation, ReservationStatus.PENDING_PAYMENT, Money.ZERO);
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        ReservationStateChangedEvent cancelled = new ReservationStateChangedEvent(
+                reservation, ReservationStatus.PENDING_PAYMENT, Money.valueOf("100.00"));
+
+        // Listeners of the two commits ran in the opposite order
+        projection.onReservationStateChanged(cancelled);
+        projection.onReservationStateChanged(partial);
+
+        assertEquals(ReservationStatus.CANCELLED, projection.history("Jane Smith").get(0).status());
+    }
+
+    @Test
+    void rebuildIncludesArchivedReservationsLatestStayFirst() {
+        ReservationEntity current = reservation("RES002", "Jane Smith", startDate);
+        ReservationEntity past = reservation("RES001", "jane smith", startDate.minusYears(1));
+        past.setStatus(ReservationStatus.CONFIRMED);
+        past.setAmountReceived(past.getTotalAmount());
+        when(reservationRepository.streamForProjection()).thenReturn(Stream.of(row(current)));
+        when(archivedReservationRepository.streamForProjection()).thenReturn(Stream.of(row(past)));
+
+        projection.rebuild();
+
+        List<CustomerHistoryProjection.Entry> history = projection.history("Jane Smith");
+        assertEquals(List.of("RES002", "RES001"),
+                history.stream().map(CustomerHistoryProjection.Entry::reservationId).toList());
+        assertEquals(Money.valueOf("300.00"), history.get(0).balance());
+    }
+
+    @Test
+    void rebuildReplaysChangesCommittedWhileReadingTheTables() {
+        ReservationEntity read = reservation("RES001", "Jane Smith", startDate);
+        ReservationEntity booked = reservation("RES002", "Jane Smith", startDate.plusDays(5));
+        when(reservationRepository.streamForProjection()).thenReturn(Stream.of(row(read)));
+        when(archivedReservationRepository.streamForProjection()).thenAnswer(invocation -> {
+            projection.onReservationStateChanged(ReservationStateChangedEvent.created(booked));
+            read.setStatus(ReservationStatus.CONFIRMED);
+            read.setAmountReceived(read.getTotalAmount());
+            projection.onReservationStateChanged(
+                    new ReservationStateChangedEvent(read, ReservationStatus.PENDING_PAYMENT, Money.ZERO));
+            return Stream.empty();
+        });
+
+        projection.rebuild();
+
+        List<CustomerHistoryProjection.Entry> history = projection.history("Jane Smith");
+        assertEquals(List.of("RES002", "RES001"),
+                history.stream().map(CustomerHistoryProjection.Entry::reservationId).toList());
+        assertEquals(ReservationStatus.CONFIRMED, history.get(1).status());
+    }
+
+    private static ReservationExportRow row(ReservationEntity reservation) {
+        return new ReservationExportRow(reservation.getReservationId(), reservation.getPropertyId(),
+                reservation.getCustomerName(), reservation.getRoomNumber(), reservation.getRoomSegment(),
+                reservation.getStartDate(), reservation.getEndDate(), reservation.getModeOfPayment(),
+                reservation.getPaymentReference(), reservation.getStatus(), reservation.getTotalAmount(),
+                reservation.getAmountReceived());
+    }
+
+    private ReservationEntity reservation(String reservationId, String customerName, LocalDate start) {
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setReservationId(reservationId);
+        reservation.setCustomerName(customerName);
+        reservation.setRoomNumber("101A");
+        reservation.setRoomSegment(RoomSegment.MEDIUM);
+        reservation.setModeOfPayment(ReservationEntity.ModeOfPayment.BANK_TRANSFER);
+        reservation.setStartDate(start);
+        reservation.setEndDate(start.plusDays(2));
+        reservation.setTotalAmount(Money.valueOf("300.00"));
+        reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+        return reservation;
+    }
+}
@@ -0,0 +1,182 @@
+package com.assignments.projection;
+
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationEntity.RoomSegment;
+import com.assignments.model.ReservationExportRow;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OccupancyRollupTest {
+
+    private static final String DEFAULT = ReservationEntity.DEFAULT_PROPERTY_ID;
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private OccupancyRollup rollup;
+
+    private final LocalDate startDate = LocalDate.now().plusDays(10);
+
+    @BeforeEach
+    void setUp() {
+        rollup = new OccupancyRollup(reservationRepository, ShardRouter.unsharded(), transactionManager,
+                31, 400);
+    }
+
+    @Test
+    void createdConfirmedReservationCountsEveryNight() {
+        ReservationEntity reservation = reservation(ReservationEntity.ModeOfPayment.CASH, ReservationStatus.CONFIRMED);
+        reservation.setAmountReceived(reservation.getTotalAmount());
+
+        rollup.onReservationStateChanged(ReservationStateChangedEvent.created(reservation));
+
+        assertEquals(1, rollup.confirmedRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(1, rollup.confirmedRooms(DEFAULT, startDate.plusDays(2), RoomSegment.LARGE));
+        // Check-out day is not an occupied night
+        assertEquals(0, rollup.confirmedRooms(DEFAULT, startDate.plusDays(3), RoomSegment.LARGE));
+        assertEquals(0, rollup.confirmedRooms(DEFAULT, startDate, RoomSegment.SMALL));
+    }
+
+    @Test
+    void partialAndFullBankTransferPaymentsUpdateReceivables() {
+        ReservationEntity reservation = reservation(ReservationEntity.ModeOfPayment.BANK_TRANSFER,
+                ReservationStatus.PENDING_PAYMENT);
+        rollup.onReservationStateChanged(ReservationStateChangedEvent.created(reservation));
+
+        assertEquals(1, rollup.pendingRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(Money.valueOf("600.00"),
+                rollup.outstandingAmount(DEFAULT, startDate, startDate, RoomSegment.LARGE));
+
+        // Partial payment
+        reservation.setAmountReceived(Money.valueOf("250.00"));
+        rollup.onReservationStateChanged(new ReservationStateChangedEvent(reservation, ReservationStatus.PENDING_PAYMENT, Money.ZERO));
+        assertEquals(Money.valueOf("350.00"),
+                rollup.outstandingAmount(DEFAULT, startDate, startDate, RoomSegment.LARGE));
+
+        // Remaining payment confirms
+        reservation.setAmountReceived(Money.valueOf("600.00"));
+        reservation.setStatus(ReservationStatus.CONFIRMED);
+        rollup.onReservationStateChanged(new ReservationStateChangedEvent(reservation, ReservationStatus.PENDING_PAYMENT,
+                Money.valueOf("250.00")));
+
+        assertEquals(Money.valueOf("0.00"), rollup.outstandingAmount(DEFAULT, startDate, startDate, RoomSegment.LARGE));
+        assertEquals(0, rollup.pendingRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(1, rollup.confirmedRooms(DEFAULT, startDate, RoomSegment.LARGE));
+    }
+
+    @Test
+    void cancellationReleasesNightsAndReceivables() {
+        ReservationEntity reservation = reservation(ReservationEntity.ModeOfPayment.BANK_TRANSFER,
+                ReservationStatus.PENDING_PAYMENT);
+        rollup.onReservationStateChanged(ReservationStateChangedEvent.created(reservation));
+
+        reservation.setStatus(ReservationStatus.CANCELLED);
+        rollup.onReservationStateChanged(new ReservationStateChangedEvent(reservation, ReservationStatus.PENDING_PAYMENT, Money.ZERO));
+
+        assertEquals(0, rollup.pendingRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(Money.valueOf("0.00"), rollup.outstandingAmount(DEFAULT, startDate, startDate, RoomSegment.LARGE));
+    }
+
+    @Test
+    void rebuildRecomputesFromRepository() {
+        ReservationEntity confirmed = reservation(ReservationEntity.ModeOfPayment.CASH, ReservationStatus.CONFIRMED);
+        confirmed.setAmountReceived(confirmed.getTotalAmount());
+        ReservationEntity pending = reservation(ReservationEntity.ModeOfPayment.BANK_TRANSFER,
+                ReservationStatus.PENDING_PAYMENT);
+        pending.setAmountReceived(Money.valueOf("100.00"));
+        LocalDate today = LocalDate.now();
+        when(reservationRepository.streamStayingBetween(today.minusDays(31), today.plusDays(401)))
+                .thenReturn(Stream.of(row(confirmed), row(pending)));
+
+        rollup.rebuild();
+
+        assertEquals(1, rollup.confirmedRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(1, rollup.pendingRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(Money.valueOf("500.00"),
+                rollup.outstandingAmount(DEFAULT, startDate.minusDays(5), startDate.plusDays(5), RoomSegment.LARGE));
+    }
+
+    @Test
+    void rebuildReplaysChangesCommittedWhileReadingExactlyOnce() {
+        ReservationEntity paid = reservation(ReservationEntity.ModeOfPayment.BANK_TRANSFER,
+                ReservationStatus.PENDING_PAYMENT);
+        paid.setReservationId("P0000001");
+        ReservationEntity booked = reservation(ReservationEntity.ModeOfPayment.CASH, ReservationStatus.CONFIRMED);
+        booked.setReservationId("P0000002");
+        when(reservationRepository.streamStayingBetween(any(), any())).thenAnswer(invocation -> {
+            // Committed before the read: already in the rows returned below
+            paid.setStatus(ReservationStatus.CONFIRMED);
+            paid.setAmountReceived(paid.getTotalAmount());
+            rollup.onReservationStateChanged(
+                    new ReservationStateChangedEvent(paid, ReservationStatus.PENDING_PAYMENT, Money.ZERO));
+            // Committed after the read: missing from the rows
+            rollup.onReservationStateChanged(ReservationStateChangedEvent.created(booked));
+            return Stream.of(row(paid));
+        });
+
+        rollup.rebuild();
+
+        assertEquals(2, rollup.confirmedRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(0, rollup.pendingRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(Money.valueOf("0.00"), rollup.outstandingAmount(DEFAULT, startDate, startDate, RoomSegment.LARGE));
+    }
+
+    @Test
+    void propertiesAreCountedSeparately() {
+        ReservationEntity boston = reservation(ReservationEntity.ModeOfPayment.BANK_TRANSFER,
+                ReservationStatus.PENDING_PAYMENT);
+        boston.setPropertyId("boston");
+        rollup.onReservationStateChanged(ReservationStateChangedEvent.created(boston));
+        rollup.onReservationStateChanged(ReservationStateChangedEvent.created(
+                reservation(ReservationEntity.ModeOfPayment.CASH, ReservationStatus.CONFIRMED)));
+
+        assertEquals(1, rollup.pendingRooms("boston", startDate, RoomSegment.LARGE));
+        assertEquals(0, rollup.confirmedRooms("boston", startDate, RoomSegment.LARGE));
+        assertEquals(Money.valueOf("600.00"), rollup.outstandingAmount("boston", startDate, startDate,
+                RoomSegment.LARGE));
+        assertEquals(0, rollup.pendingRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(1, rollup.confirmedRooms(DEFAULT, startDate, RoomSegment.LARGE));
+        assertEquals(Money.ZERO, rollup.outstandingAmount("denver", startDate, startDate, RoomSegment.LARGE));
+    }
+
+    private static ReservationExportRow row(ReservationEntity reservation) {
+        return new ReservationExportRow(reservation.getReservationId(), reservation.getPropertyId(),
+                reservation.getCustomerName(), reservation.getRoomNumber(), reservation.getRoomSegment(),
+                reservation.getStartDate(), reservation.getEndDate(), reservation.getModeOfPayment(),
+                reservation.getPaymentReference(), reservation.getStatus(), reservation.getTotalAmount(),
+                reservation.getAmountReceived());
+    }
+
+    private ReservationEntity reservation(ReservationEntity.ModeOfPayment mode, ReservationStatus status) {
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setCustomerName("Rollup Guest");
+        reservation.setRoomNumber("101A");
+        reservation.setRoomSegment(RoomSegment.LARGE);
+        reservation.setModeOfPayment(mode);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(startDate.plusDays(3));
+        reservation.setTotalAmount(Money.valueOf("600.00"));
+        reservation.setStatus(status);
+        return reservation;
+    }
+}
@@ -0,0 +1,128 @@
+package com.assignments.projection;
+
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.model.ReservationIds;
+import com.assignments.model.ReservationStateChangedEvent;
+import com.assignments.repository.ReservationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PendingPaymentWorkingSetTest {
+
+    @Mock
+    private ReservationRepository reservationRepository;
+
+    private PendingPaymentWorkingSet workingSet;
+
+    private final LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+    @BeforeEach
+    void setUp() {
+        workingSet = new PendingPaymentWorkingSet(reservationRepository, ShardRouter.unsharded(), true, false);
+    }
+
+    @Test
+    void answersNothingUntilLoaded() {
+        assertFalse(workingSet.isLoaded());
+    }
+
+    @Test
+    void rebuildLoadsPendingReservationsAndFollowsStateChanges() {
+        // Given
+        ReservationEntity unpaid = reservation("P0000001", tomorrow, "0.00");
+        ReservationEntity partiallyPaid = reservation("P0000002", tomorrow.minusDays(1), "50.00");
+        ReservationEntity later = reservation("P0000003", tomorrow.plusDays(20), "0.00");
+        when(reservationRepository.findByStatus(ReservationStatus.PENDING_PAYMENT))
+                .thenReturn(List.of(unpaid, partiallyPaid, later));
+
+        // When
+        workingSet.rebuild();
+
+        // Then
+        assertTrue(workingSet.isLoaded());
+        assertEquals(3, workingSet.size());
+        assertEquals(List.of("P0000002", "P0000001"), workingSet.findCancellationCandidates(tomorrow.plusDays(1)));
+
+        // Full payment confirms and removes the reservation
+        ReservationStatus previous = unpaid.getStatus();
+        unpaid.setAmountReceived(unpaid.getTotalAmount());
+        unpaid.setStatus(ReservationStatus.CONFIRMED);
+        workingSet.onReservationStateChanged(new ReservationStateChangedEvent(unpaid, previous, Money.ZERO));
+        assertEquals(List.of("P0000002"), workingSet.findCancellationCandidates(tomorrow.plusDays(1)));
+
+        // A partial payment keeps it pending with the new amount
+        Money before = partiallyPaid.getAmountReceived();
+        partiallyPaid.setAmountReceived(Money.valueOf("99.99"));
+        workingSet.onReservationStateChanged(
+                new ReservationStateChangedEvent(partiallyPaid, ReservationStatus.PENDING_PAYMENT, before));
+        assertEquals(List.of("P0000002"), workingSet.findCancellationCandidates(tomorrow.plusDays(1)));
+        partiallyPaid.setAmountReceived(Money.valueOf("100.00"));
+        workingSet.onReservationStateChanged(
+                new ReservationStateChangedEvent(partiallyPaid, ReservationStatus.PENDING_PAYMENT, before));
+        assertEquals(List.of(), workingSet.findCancellationCandidates(tomorrow.plusDays(1)));
+    }
+
+    @Test
+    void disabledOrClusteredWorkingSetNeverLoads() {
+        for (PendingPaymentWorkingSet disabled : List.of(
+                new PendingPaymentWorkingSet(reservationRepository, ShardRouter.unsharded(), false, false),
+                new PendingPaymentWorkingSet(reservationRepository, ShardRouter.unsharded(), true, true))) {
+            disabled.rebuild();
+            assertFalse(disabled.isLoaded());
+        }
+    }
+
+    @Test
+    void tableMatchesHashSetUnderRandomInsertsAndRemovals() {
+        PendingPaymentWorkingSet.LongTable table = new PendingPaymentWorkingSet.LongTable(0);
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(42);
+        List<Long> universe = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            universe.add(ReservationIds.pack(String.format("P%07X", random.nextInt(0x1000000))));
+        }
+        for (int i = 0; i < 50_000; i++) {
+            long key = universe.get(random.nextInt(universe.size()));
+            if (random.nextBoolean()) {
+                table.put(key, 100, 0, 1);
+                expected.add(key);
+            } else {
+                table.remove(key);
+                expected.remove(key);
+            }
+        }
+        assertEquals(expected.size(), table.size());
+        for (long key : universe) {
+            assertEquals(expected.contains(key), table.indexOf(key) >= 0);
+        }
+    }
+
+    private ReservationEntity reservation(String id, LocalDate startDate, String amountReceived) {
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setReservationId(id);
+        reservation.setStartDate(startDate);
+        reservation.setEndDate(startDate.plusDays(1));
+        reservation.setModeOfPayment(ReservationEntity.ModeOfPayment.BANK_TRANSFER);
+        reservation.setStatus(ReservationStatus.PENDING_PAYMENT);
+        reservation.setTotalAmount(Money.valueOf("100.00"));
+        reservation.setAmountReceived(Money.valueOf(amountReceived));
+        return reservation;
+    }
+}
@@ -0,0 +1,178 @@
+package com.assignments.scheduler;
+
+import com.assignments.exception.ExternalServiceException;
+import com.assignments.model.DeferredCardVerification;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.repository.DeferredCardVerificationRepository;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationService;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reservations accepted while the payment provider's breaker is open, verified later by the worker
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "spring.datasource.url=jdbc:h2:mem:deferred",
+        "spring.jpa.show-sql=false",
+        "reservation.credit-card.deferred-verification.enabled=true",
+        // Runs are triggered by the test
+        "reservation.credit-card.deferred-verification.interval=PT1H",
+        "reservation.credit-card.deferred-verification.batch-size=2",
+        "reservation.credit-card.deferred-verification.max-attempts=2",
+        // The first call of a cold WebClient can exceed the default on a busy build machine
+        "resilience4j.timelimiter.instances.creditCardPaymentService.timeout-duration=10s"
+})
+class DeferredCardVerificationWorkerTest {
+
+    private static final MockWebServer PAYMENT_SERVICE = new MockWebServer();
+
+    @Autowired
+    private DeferredCardVerificationWorker worker;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private DeferredCardVerificationRepository queue;
+
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @DynamicPropertySource
+    static void paymentService(DynamicPropertyRegistry registry) throws IOException {
+        PAYMENT_SERVICE.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String body = request.getBody().readUtf8();
+                if (body.contains("FAIL")) {
+                    return new MockResponse().setResponseCode(500);
+                }
+                String status = body.contains("REJECT") ? "REJECTED" : "CONFIRMED";
+                return new MockResponse().setBody("{\"status\":\"" + status + "\"}")
+                        .addHeader("Content-Type", "application/json");
+            }
+        });
+        PAYMENT_SERVICE.start();
+        registry.add("credit.card.payment.service.url", () -> PAYMENT_SERVICE.url("/api").toString());
+    }
+
+    @AfterAll
+    static void stopPaymentService() throws IOException {
+        PAYMENT_SERVICE.shutdown();
+    }
+
+    @AfterEach
+    void closeBreaker() {
+        breaker().reset();
+    }
+
+    @Test
+    void reservationsAcceptedWhileBreakerIsOpenAreSettledOnceItCloses() {
+        breaker().transitionToForcedOpenState();
+        ReservationEntity paid = creditCardReservation("101A", "REF-PAID");
+        ReservationEntity rejected = creditCardReservation("102A", "REF-REJECT");
+        ReservationEntity alsoPaid = creditCardReservation("103A", "REF-PAID-2");
+        assertEquals(ReservationStatus.PENDING_PAYMENT, paid.getStatus());
+        assertEquals(3, queue.count());
+        int requestsWhileOpen = PAYMENT_SERVICE.getRequestCount();
+
+        // Still open: nothing reaches the provider
+        worker.verifyDeferred();
+        assertEquals(requestsWhileOpen, PAYMENT_SERVICE.getRequestCount());
+        assertEquals(3, queue.count());
+
+        breaker().transitionToClosedState();
+        // At most batch-size verifications per run
+        worker.verifyDeferred();
+        assertEquals(requestsWhileOpen + 2, PAYMENT_SERVICE.getRequestCount());
+        assertEquals(ReservationStatus.CONFIRMED, status(paid));
+        assertEquals(paid.getTotalAmount(), reservationRepository.findById(paid.getReservationId()).orElseThrow()
+                .getAmountReceived());
+        assertEquals(ReservationStatus.CANCELLED, status(rejected));
+        assertEquals(ReservationStatus.PENDING_PAYMENT, status(alsoPaid));
+
+        worker.verifyDeferred();
+        assertEquals(ReservationStatus.CONFIRMED, status(alsoPaid));
+        assertEquals(0, queue.count());
+    }
+
+    @Test
+    void providerErrorsAreRetriedWithBackoffThenCancelled() {
+        breaker().transitionToForcedOpenState();
+        ReservationEntity failing = creditCardReservation("201A", "REF-FAIL");
+        breaker().transitionToClosedState();
+
+        worker.verifyDeferred();
+        DeferredCardVerification entry = queue.findById(failing.getReservationId()).orElseThrow();
+        assertEquals(1, entry.getAttempts());
+        assertTrue(entry.getNextAttemptAt().isAfter(Instant.now()));
+        assertEquals(ReservationStatus.PENDING_PAYMENT, status(failing));
+
+        // Due again: the second failure reaches max-attempts
+        entry.setNextAttemptAt(Instant.now());
+        queue.save(entry);
+        worker.verifyDeferred();
+        assertFalse(queue.existsById(failing.getReservationId()));
+        assertEquals(ReservationStatus.CANCELLED, status(failing));
+    }
+
+    @Test
+    void rejectedPaymentIsNotDeferred() {
+        // Only an open breaker defers; with the breaker closed a failure still fails the request
+        assertThrows(ExternalServiceException.class, () -> creditCardReservation("301A", "REF-REJECT"));
+        assertEquals(0, queue.count());
+        // The provider answered: a rejection is not a failure of the provider
+        assertEquals(0, breaker().getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    void bankTransferPaymentsCannotConfirmADeferredCardReservation() {
+        breaker().transitionToForcedOpenState();
+        ReservationEntity deferred = creditCardReservation("401A", "REF-UNVERIFIED");
+
+        reservationService.processBankTransferPayment(deferred.getReservationId(), deferred.getTotalAmount());
+
+        assertEquals(ReservationStatus.PENDING_PAYMENT, status(deferred));
+        queue.deleteById(deferred.getReservationId());
+    }
+
+    private ReservationEntity creditCardReservation(String roomNumber, String paymentReference) {
+        LocalDate start = LocalDate.now().plusDays(20);
+        return reservationService.confirmReservation("Deferred Guest", roomNumber, start, start.plusDays(2),
+                ReservationEntity.RoomSegment.SMALL, ReservationEntity.ModeOfPayment.CREDIT_CARD, paymentReference);
+    }
+
+    private ReservationStatus status(ReservationEntity reservation) {
+        return reservationRepository.findById(reservation.getReservationId()).orElseThrow().getStatus();
+    }
+
+    private CircuitBreaker breaker() {
+        return circuitBreakerRegistry.circuitBreaker("creditCardPaymentService");
+    }
+}
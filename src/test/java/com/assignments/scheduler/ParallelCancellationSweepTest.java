@@ -0,0 +1,97 @@
+package com.assignments.scheduler;
+
+import com.assignments.config.ShardRouter;
+import com.assignments.projection.PendingPaymentWorkingSet;
+import com.assignments.service.ReservationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ParallelCancellationSweepTest {
+
+    @Mock
+    private ReservationService reservationService;
+
+    @Mock
+    private PendingPaymentWorkingSet pendingPaymentWorkingSet;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private final List<String> ids = IntStream.range(0, 10).mapToObj(i -> String.format("P%07d", i)).toList();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void run_ShouldCancelEveryCandidateOnceInBoundedChunks() {
+        // Given
+        ParallelCancellationSweep sweep = new ParallelCancellationSweep(reservationService, pendingPaymentWorkingSet,
+                ShardRouter.unsharded(), meterRegistry, 2, 3, ParallelCancellationSweep.SplitBy.ID);
+        when(reservationService.findCancellationCandidateIds(Sort.by("reservationId"))).thenReturn(ids);
+        List<List<String>> chunks = new ArrayList<>();
+        when(reservationService.cancelUnpaidReservations(any())).thenAnswer(invocation -> {
+            Collection<String> chunk = invocation.getArgument(0);
+            synchronized (chunks) {
+                chunks.add(List.copyOf(chunk));
+            }
+            return chunk.size();
+        });
+
+        // When
+        ParallelCancellationSweep.SweepProgress progress = sweep.run();
+
+        // Then
+        assertEquals(new ParallelCancellationSweep.SweepProgress(10, 10, 10, 0), progress);
+        assertTrue(chunks.stream().allMatch(chunk -> chunk.size() <= 3));
+        assertEquals(ids, chunks.stream().flatMap(List::stream).sorted().toList());
+        assertEquals(10.0, meterRegistry.get("reservation.cancellation.sweep.cancelled").counter().count());
+        assertEquals(10.0, meterRegistry.get("reservation.cancellation.sweep.processed").gauge().value());
+        assertEquals(chunks.size(), (int) meterRegistry.get("reservation.cancellation.sweep.chunks")
+                .tag("outcome", "success").counter().count());
+    }
+
+    @Test
+    void run_ShouldSkipFailedChunkAndContinue() {
+        // Given
+        ParallelCancellationSweep sweep = new ParallelCancellationSweep(reservationService, pendingPaymentWorkingSet,
+                ShardRouter.unsharded(), meterRegistry, 4, 5, ParallelCancellationSweep.SplitBy.START_DATE);
+        when(reservationService.findCancellationCandidateIds(Sort.by("startDate", "reservationId")))
+                .thenReturn(ids);
+        Set<String> failing = ConcurrentHashMap.newKeySet();
+        failing.addAll(ids.subList(0, 5));
+        when(reservationService.cancelUnpaidReservations(any())).thenAnswer(invocation -> {
+            Collection<String> chunk = invocation.getArgument(0);
+            if (failing.containsAll(chunk)) {
+                throw new IllegalStateException("Deadlock detected");
+            }
+            return chunk.size();
+        });
+
+        // When
+        ParallelCancellationSweep.SweepProgress progress = sweep.run();
+
+        // Then
+        assertEquals(new ParallelCancellationSweep.SweepProgress(10, 10, 5, 1), progress);
+        assertEquals(1.0, meterRegistry.get("reservation.cancellation.sweep.chunks")
+                .tag("outcome", "failed").counter().count());
+        verify(reservationService, times(2)).cancelUnpaidReservations(any());
+    }
+}
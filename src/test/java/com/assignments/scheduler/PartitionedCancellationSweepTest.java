@@ -0,0 +1,170 @@
+package com.assignments.scheduler;
+
+import com.assignments.RoomReservationApplication;
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.SweepPartitionLease;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.repository.SweepPartitionLeaseRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two application contexts sharing one H2 database act as two cluster nodes
+ */
+class PartitionedCancellationSweepTest {
+
+    private static final int PARTITIONS = 8;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    private ReservationRepository reservationRepository;
+    private SweepPartitionLeaseRepository leaseRepository;
+
+    @BeforeAll
+    static void startNodes() {
+        // Started one after the other so only one node at a time creates the schema
+        nodeA = start("node-a");
+        nodeB = start("node-b");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @BeforeEach
+    void resetTables() {
+        reservationRepository = nodeA.getBean(ReservationRepository.class);
+        leaseRepository = nodeA.getBean(SweepPartitionLeaseRepository.class);
+        reservationRepository.deleteAll();
+        leaseRepository.deleteAll();
+    }
+
+    @Test
+    void concurrentNodesSweepDisjointPartitionsAndCancelEveryCandidate() {
+        List<String> unpaid = saveReservations(60, Money.ZERO);
+        List<String> paid = saveReservations(10, Money.valueOf("200.00"));
+        LocalDate runDate = LocalDate.now();
+
+        CompletableFuture<PartitionedCancellationSweep.SweepResult> a =
+                CompletableFuture.supplyAsync(() -> sweep(nodeA).run(runDate));
+        CompletableFuture<PartitionedCancellationSweep.SweepResult> b =
+                CompletableFuture.supplyAsync(() -> sweep(nodeB).run(runDate));
+        PartitionedCancellationSweep.SweepResult resultA = a.join();
+        PartitionedCancellationSweep.SweepResult resultB = b.join();
+
+        Set<Integer> partitionsA = new HashSet<>(resultA.partitions());
+        Set<Integer> overlap = new HashSet<>(partitionsA);
+        overlap.retainAll(resultB.partitions());
+        assertTrue(overlap.isEmpty(), "partitions swept by both nodes: " + overlap);
+        assertEquals(PARTITIONS, resultA.partitions().size() + resultB.partitions().size());
+        assertEquals(unpaid.size(), resultA.cancelled() + resultB.cancelled());
+
+        assertTrue(reservationRepository.findAllById(unpaid).stream()
+                .allMatch(r -> r.getStatus() == ReservationEntity.ReservationStatus.CANCELLED));
+        assertTrue(reservationRepository.findAllById(paid).stream()
+                .allMatch(r -> r.getStatus() == ReservationEntity.ReservationStatus.PENDING_PAYMENT));
+
+        // Every partition is done for today: a second run claims nothing
+        assertTrue(sweep(nodeB).run(runDate).partitions().isEmpty());
+    }
+
+    @Test
+    void expiredLeaseOfCrashedNodeIsTakenOverWithinTheSameRun() {
+        List<String> unpaid = saveReservations(20, Money.ZERO);
+        LocalDate runDate = LocalDate.now();
+
+        // Node A claims partition 0 and dies before completing it; its lease runs out shortly
+        IntStream.range(0, PARTITIONS).forEach(p -> leaseRepository.save(new SweepPartitionLease(p)));
+        assertEquals(1, leaseRepository.claim(0, "node-a", Instant.now().plusMillis(500), Instant.now(), runDate));
+
+        PartitionedCancellationSweep.SweepResult result = sweep(nodeB).run(runDate);
+        assertEquals(PARTITIONS, result.partitions().size());
+        assertTrue(result.partitions().contains(0));
+        assertEquals(PARTITIONS, leaseRepository.findAll().stream()
+                .filter(lease -> runDate.equals(lease.getCompletedRun())).count());
+        assertTrue(reservationRepository.findAllById(unpaid).stream()
+                .allMatch(r -> r.getStatus() == ReservationEntity.ReservationStatus.CANCELLED));
+    }
+
+    @Test
+    void partitionLeasedPastTheTakeoverDeadlineIsLeftForTheNextRun() {
+        saveReservations(20, Money.ZERO);
+        LocalDate runDate = LocalDate.now();
+
+        IntStream.range(0, PARTITIONS).forEach(p -> leaseRepository.save(new SweepPartitionLease(p)));
+        assertEquals(1, leaseRepository.claim(0, "node-a", Instant.now().plusSeconds(300), Instant.now(), runDate));
+
+        long started = System.nanoTime();
+        PartitionedCancellationSweep.SweepResult first = sweep(nodeB).run(runDate);
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        assertEquals(PARTITIONS - 1, first.partitions().size());
+        assertFalse(first.partitions().contains(0));
+        assertTrue(elapsedMillis >= 2_000, "gave up after " + elapsedMillis + " ms");
+
+        // The next run picks it up once the lease has expired
+        leaseRepository.findById(0).ifPresent(lease -> {
+            lease.setLeaseUntil(Instant.now().minusSeconds(1));
+            leaseRepository.save(lease);
+        });
+        assertEquals(List.of(0), sweep(nodeB).run(runDate).partitions());
+    }
+
+    private List<String> saveReservations(int count, Money amountReceived) {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        List<String> ids = new ArrayList<>();
+        IntStream.range(0, count).forEach(i -> {
+            ReservationEntity reservation = new ReservationEntity();
+            reservation.setCustomerName("Sweep Guest " + i);
+            reservation.setRoomNumber(String.valueOf(100 + i));
+            reservation.setStartDate(startDate);
+            reservation.setEndDate(startDate.plusDays(1));
+            reservation.setRoomSegment(ReservationEntity.RoomSegment.SMALL);
+            reservation.setModeOfPayment(ReservationEntity.ModeOfPayment.BANK_TRANSFER);
+            reservation.setStatus(ReservationEntity.ReservationStatus.PENDING_PAYMENT);
+            reservation.setTotalAmount(Money.valueOf("200.00"));
+            reservation.setAmountReceived(amountReceived);
+            ids.add(reservationRepository.save(reservation).getReservationId());
+        });
+        return ids;
+    }
+
+    private static PartitionedCancellationSweep sweep(ConfigurableApplicationContext node) {
+        return node.getBean(PartitionedCancellationSweep.class);
+    }
+
+    private static ConfigurableApplicationContext start(String nodeId) {
+        return new SpringApplicationBuilder(RoomReservationApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.datasource.url=jdbc:h2:mem:sweepcluster;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.hibernate.ddl-auto=update",
+                "--spring.jpa.show-sql=false",
+                "--spring.kafka.bootstrap-servers=localhost:9092",
+                "--kafka.retry.auto-create-topics=false",
+                "--credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api",
+                "--reservation.cancellation.cluster.enabled=true",
+                "--reservation.cancellation.cluster.node-id=" + nodeId,
+                "--reservation.cancellation.cluster.partitions=" + PARTITIONS,
+                "--reservation.cancellation.cluster.batch-size=3",
+                "--reservation.cancellation.cluster.lease-duration=PT1S",
+                "--reservation.cancellation.cluster.takeover-timeout=PT2S");
+    }
+}
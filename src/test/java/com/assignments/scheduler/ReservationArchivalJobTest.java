@@ -0,0 +1,90 @@
+package com.assignments.scheduler;
+
+import com.assignments.model.Money;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationEntity.ModeOfPayment;
+import com.assignments.model.ReservationEntity.ReservationStatus;
+import com.assignments.repository.ArchivedReservationRepository;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Archival of finished reservations and the read fall-through to the archive
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api",
+        "spring.datasource.url=jdbc:h2:mem:archival",
+        "spring.jpa.show-sql=false",
+        "reservation.archival.enabled=true",
+        "reservation.archival.chunk-size=2"
+})
+class ReservationArchivalJobTest {
+
+    @Autowired
+    private ReservationArchivalJob archivalJob;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ArchivedReservationRepository archivedReservationRepository;
+
+    @Test
+    void movesFinishedReservationsPastTheCutoffInChunks() {
+        LocalDate longAgo = LocalDate.now().minusDays(200);
+        List<String> finished = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            finished.add(reservation(longAgo.plusDays(i), ModeOfPayment.CASH).getReservationId());
+        }
+        // Unpaid bank transfer from long ago: cancelled by the sweep, then archivable
+        String cancelled = reservation(longAgo, ModeOfPayment.BANK_TRANSFER).getReservationId();
+        reservationService.cancelUnpaidReservations();
+        finished.add(cancelled);
+        String recent = reservation(LocalDate.now().minusDays(10), ModeOfPayment.CASH).getReservationId();
+        String upcoming = reservation(LocalDate.now().plusDays(10), ModeOfPayment.BANK_TRANSFER).getReservationId();
+
+        assertEquals(5, archivalJob.archive(LocalDate.now().minusDays(90)));
+
+        assertEquals(List.of(recent, upcoming).stream().sorted().toList(), reservationRepository.findAll().stream()
+                .map(ReservationEntity::getReservationId).sorted().toList());
+        assertEquals(5, archivedReservationRepository.count());
+        assertEquals(LocalDate.now(), archivedReservationRepository.findById(cancelled).orElseThrow().getArchivedOn());
+
+        // Reads fall through to the archive
+        ReservationEntity archived = reservationService.findReservation(finished.get(0)).orElseThrow();
+        assertEquals(ReservationStatus.CONFIRMED, archived.getStatus());
+        assertEquals(Money.valueOf("200.00"), archived.getAmountReceived());
+        assertEquals(ReservationStatus.CANCELLED, reservationService.findReservation(cancelled).orElseThrow()
+                .getStatus());
+        assertTrue(reservationService.findReservation(recent).isPresent());
+        assertTrue(reservationService.findReservation("P9999999").isEmpty());
+
+        // A late payment for an archived reservation is ignored like for any finished one
+        reservationService.processBankTransferPayment(cancelled, Money.valueOf("200.00"));
+        assertFalse(reservationRepository.existsById(cancelled));
+
+        // Nothing left to archive
+        assertEquals(0, archivalJob.archive(LocalDate.now().minusDays(90)));
+    }
+
+    private ReservationEntity reservation(LocalDate start, ModeOfPayment modeOfPayment) {
+        return reservationService.confirmReservation("Archived Guest", "101A", start, start.plusDays(2),
+                ReservationEntity.RoomSegment.SMALL, modeOfPayment, null);
+    }
+}
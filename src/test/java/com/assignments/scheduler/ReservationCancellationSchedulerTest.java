@@ -1,12 +1,17 @@
 package com.assignments.scheduler;
 
+import com.assignments.config.ShardRouter;
+import com.assignments.projection.PendingPaymentWorkingSet;
 import com.assignments.service.ReservationService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.List;
+
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -15,6 +20,12 @@ class ReservationCancellationSchedulerTest {
     @Mock
     private ReservationService reservationService;
 
+    @Mock
+    private PendingPaymentWorkingSet pendingPaymentWorkingSet;
+
+    @Spy
+    private ShardRouter shardRouter = ShardRouter.unsharded();
+
     @InjectMocks
     private ReservationCancellationScheduler scheduler;
 
@@ -43,4 +54,19 @@ class ReservationCancellationSchedulerTest {
         // Then
         verify(reservationService, times(1)).cancelUnpaidReservations();
     }
+
+    @Test
+    void testCancelUnpaidReservations_UsesLoadedWorkingSet() {
+        // Given
+        when(pendingPaymentWorkingSet.isLoaded()).thenReturn(true);
+        when(pendingPaymentWorkingSet.findCancellationCandidates(ReservationService.cancellationCutoff()))
+                .thenReturn(List.of("P0000001"));
+
+        // When
+        scheduler.cancelUnpaidReservations();
+
+        // Then
+        verify(reservationService).cancelUnpaidReservations(List.of("P0000001"));
+        verify(reservationService, never()).cancelUnpaidReservations();
+    }
 }
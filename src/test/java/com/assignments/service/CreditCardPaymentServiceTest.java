@@ -2,6 +2,9 @@ package com.assignments.service;
 
 import com.assignments.exception.ExternalServiceException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.AfterEach;
@@ -10,6 +13,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,6 +23,7 @@ class CreditCardPaymentServiceTest {
     private MockWebServer mockWebServer;
     private CreditCardPaymentService creditCardPaymentService;
     private ObjectMapper objectMapper = new ObjectMapper();
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @BeforeEach
     void setUp() throws IOException {
@@ -27,7 +33,11 @@ class CreditCardPaymentServiceTest {
         String baseUrl = mockWebServer.url("/").toString();
         WebClient.Builder webClientBuilder = WebClient.builder();
 
-        creditCardPaymentService = new CreditCardPaymentService(webClientBuilder, objectMapper);
+        TimeLimiterRegistry timeLimiterRegistry = TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+                .timeoutDuration(Duration.ofSeconds(2))
+                .build());
+        creditCardPaymentService = new CreditCardPaymentService(webClientBuilder, objectMapper,
+                meterRegistry, timeLimiterRegistry);
 
         // Use reflection to set the private field or just rely on the fact that we
         // can't easily set it without @SpringBootTest
@@ -37,6 +47,10 @@ class CreditCardPaymentServiceTest {
             java.lang.reflect.Field field = CreditCardPaymentService.class.getDeclaredField("paymentServiceUrl");
             field.setAccessible(true);
             field.set(creditCardPaymentService, baseUrl);
+
+            java.lang.reflect.Field minDelay = CreditCardPaymentService.class.getDeclaredField("hedgingMinDelay");
+            minDelay.setAccessible(true);
+            minDelay.set(creditCardPaymentService, Duration.ofMillis(100));
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -100,4 +114,110 @@ class CreditCardPaymentServiceTest {
 
         assertTrue(exception.getMessage().contains("unavailable"));
     }
+
+    @Test
+    void testVerifyPaymentReactive_Confirmed() {
+        // Given
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"status\":\"CONFIRMED\"}")
+                .addHeader("Content-Type", "application/json"));
+
+        // When
+        Boolean result = creditCardPaymentService.verifyPaymentReactive("REF123").block();
+
+        // Then
+        assertEquals(Boolean.TRUE, result);
+    }
+
+    @Test
+    void testVerifyPaymentReactive_RejectedSignalsError() {
+        // Given
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"status\":\"REJECTED\"}")
+                .addHeader("Content-Type", "application/json"));
+
+        // When/Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            creditCardPaymentService.verifyPaymentReactive("REF123").block();
+        });
+        assertTrue(exception.getMessage().contains("rejected"));
+    }
+
+    @Test
+    void testVerifyPaymentReactiveFallback() {
+        ExternalServiceException exception = assertThrows(ExternalServiceException.class, () -> {
+            creditCardPaymentService.verifyPaymentReactiveFallback("REF123", new RuntimeException("Open")).block();
+        });
+
+        assertTrue(exception.getMessage().contains("unavailable"));
+    }
+
+    @Test
+    void testVerifyPayment_TimeLimiterAbortsSlowResponse() {
+        // Given - slower than the 2s time limit
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"status\":\"CONFIRMED\"}")
+                .addHeader("Content-Type", "application/json")
+                .setHeadersDelay(4, TimeUnit.SECONDS));
+
+        // When/Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> {
+            creditCardPaymentService.verifyPayment("REF123");
+        });
+        assertTrue(exception.getMessage().contains("did not answer in time"));
+    }
+
+    @Test
+    void testVerifyPayment_HedgedRequestWinsOverSlowPrimary() throws Exception {
+        // Given - warmed-up HTTP client (outside the service so its latency stats stay clean);
+        // primary is slow, hedge answers immediately
+        mockWebServer.enqueue(new MockResponse().setBody("{}"));
+        WebClient.create(mockWebServer.url("/").toString()).get().retrieve().bodyToMono(String.class).block();
+        enableHedging();
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"status\":\"CONFIRMED\"}")
+                .addHeader("Content-Type", "application/json")
+                .setHeadersDelay(1500, TimeUnit.MILLISECONDS));
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"status\":\"CONFIRMED\"}")
+                .addHeader("Content-Type", "application/json"));
+
+        // When
+        long start = System.nanoTime();
+        boolean result = creditCardPaymentService.verifyPayment("REF123");
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(result);
+        assertEquals(3, mockWebServer.getRequestCount());
+        assertTrue(elapsedMillis < 1500, "hedge should answer before the slow primary, took " + elapsedMillis + "ms");
+        assertEquals(1.0, meterRegistry.get("credit.card.payment.hedges").tag("outcome", "won").counter().count());
+    }
+
+    @Test
+    void testVerifyPayment_NoHedgeWhenPrimaryIsFast() {
+        // Given
+        enableHedging();
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"status\":\"CONFIRMED\"}")
+                .addHeader("Content-Type", "application/json"));
+
+        // When
+        boolean result = creditCardPaymentService.verifyPayment("REF123");
+
+        // Then
+        assertTrue(result);
+        assertEquals(1, mockWebServer.getRequestCount());
+        assertEquals(0.0, meterRegistry.get("credit.card.payment.hedges").tag("outcome", "fired").counter().count());
+    }
+
+    private void enableHedging() {
+        try {
+            java.lang.reflect.Field field = CreditCardPaymentService.class.getDeclaredField("hedgingEnabled");
+            field.setAccessible(true);
+            field.set(creditCardPaymentService, true);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -0,0 +1,203 @@
+package com.assignments.service;
+
+import com.assignments.exception.PaymentRejectedException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifications fanned out of batch calls, against a MockWebServer stand-in of the payment service
+ */
+class PaymentStatusBatcherTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> batchBodies = new CopyOnWriteArrayList<>();
+    private final Map<String, Integer> singleCalls = new ConcurrentHashMap<>();
+    private volatile boolean batchSupported = true;
+    private volatile boolean batchFailing;
+    private MockWebServer paymentService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        paymentService = new MockWebServer();
+        paymentService.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                String body = request.getBody().readUtf8();
+                if (request.getPath().endsWith("/payment-status/batch")) {
+                    if (!batchSupported) {
+                        return new MockResponse().setResponseCode(404);
+                    }
+                    if (batchFailing) {
+                        return new MockResponse().setResponseCode(503);
+                    }
+                    batchBodies.add(body);
+                    return json(batchAnswer(body));
+                }
+                String reference = readTree(body).get("paymentReference").asText();
+                singleCalls.merge(reference, 1, Integer::sum);
+                return json("{\"status\":\"" + status(reference) + "\"}");
+            }
+        });
+        paymentService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        paymentService.shutdown();
+    }
+
+    @Test
+    void concurrentVerificationsShareOneBatchCall() {
+        CreditCardPaymentService service = service(4, Duration.ofSeconds(1));
+
+        List<Boolean> confirmed = new ArrayList<>();
+        List<Throwable> rejected = new ArrayList<>();
+        Flux.just("REF-1", "REF-2", "REF-REJECT", "REF-1")
+                .flatMap(reference -> service.verifyPaymentReactive(reference)
+                        .doOnError(rejected::add)
+                        .onErrorResume(e -> Mono.empty()))
+                .doOnNext(confirmed::add)
+                .blockLast(Duration.ofSeconds(5));
+
+        // Filled up: sent without waiting for max-wait; duplicate references are asked once
+        assertEquals(1, batchBodies.size());
+        assertEquals(List.of("REF-1", "REF-2", "REF-REJECT"), references(batchBodies.get(0)));
+        assertEquals(List.of(true, true, true), confirmed);
+        assertEquals(1, rejected.size());
+        assertInstanceOf(PaymentRejectedException.class, rejected.get(0));
+        assertTrue(singleCalls.isEmpty());
+    }
+
+    @Test
+    void partialBatchIsSentAfterMaxWait() {
+        CreditCardPaymentService service = service(10, Duration.ofMillis(50));
+
+        assertTrue(service.verifyPaymentReactive("REF-ALONE").block(Duration.ofSeconds(5)));
+        assertEquals(1, batchBodies.size());
+        assertEquals(List.of("REF-ALONE"), references(batchBodies.get(0)));
+    }
+
+    @Test
+    void unknownReferenceInBatchIsRejected() {
+        CreditCardPaymentService service = service(10, Duration.ofMillis(10));
+
+        assertThrows(PaymentRejectedException.class,
+                () -> service.verifyPaymentReactive("REF-UNKNOWN").block(Duration.ofSeconds(5)));
+        assertTrue(singleCalls.isEmpty());
+    }
+
+    @Test
+    void providerWithoutBatchEndpointIsAskedOneByOne() {
+        batchSupported = false;
+        CreditCardPaymentService service = service(10, Duration.ofMillis(10));
+
+        assertTrue(service.verifyPaymentReactive("REF-A").block(Duration.ofSeconds(5)));
+        assertEquals(1, paymentService.getRequestCount() - singleCalls.size());
+
+        // Remembered: no further batch attempt
+        assertTrue(service.verifyPaymentReactive("REF-B").block(Duration.ofSeconds(5)));
+        assertEquals(Map.of("REF-A", 1, "REF-B", 1), singleCalls);
+        assertEquals(3, paymentService.getRequestCount());
+        assertEquals(2.0, meterRegistry.get("credit.card.payment.batch.fallbacks").counter().count());
+    }
+
+    @Test
+    void serverErrorOfBatchCallFailsVerificationsWithoutSingleCalls() {
+        batchFailing = true;
+        CreditCardPaymentService service = service(10, Duration.ofMillis(10));
+
+        RuntimeException failure = assertThrows(RuntimeException.class,
+                () -> service.verifyPaymentReactive("REF-A").block(Duration.ofSeconds(5)));
+        assertInstanceOf(WebClientResponseException.ServiceUnavailable.class, failure.getCause());
+        assertTrue(singleCalls.isEmpty());
+        assertEquals(0.0, meterRegistry.get("credit.card.payment.batch.fallbacks").counter().count());
+    }
+
+    @Test
+    void batchSizeAboveTheApiLimitIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PaymentStatusBatcher(WebClient.builder(),
+                objectMapper, meterRegistry, "http://localhost", PaymentStatusBatcher.MAX_BATCH_SIZE + 1,
+                Duration.ofMillis(5), Duration.ofMinutes(5)));
+    }
+
+    private CreditCardPaymentService service(int maxBatchSize, Duration maxWait) {
+        String baseUrl = paymentService.url("/api").toString();
+        TimeLimiterRegistry timeLimiterRegistry = TimeLimiterRegistry.of(TimeLimiterConfig.custom()
+                .timeoutDuration(Duration.ofSeconds(2))
+                .build());
+        CreditCardPaymentService service = new CreditCardPaymentService(WebClient.builder(), objectMapper,
+                meterRegistry, timeLimiterRegistry);
+        try {
+            java.lang.reflect.Field field = CreditCardPaymentService.class.getDeclaredField("paymentServiceUrl");
+            field.setAccessible(true);
+            field.set(service, baseUrl);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        service.setBatcher(new PaymentStatusBatcher(WebClient.builder(), objectMapper, meterRegistry, baseUrl,
+                maxBatchSize, maxWait, Duration.ofMinutes(5)));
+        return service;
+    }
+
+    private String batchAnswer(String body) {
+        StringBuilder results = new StringBuilder();
+        for (String reference : references(body)) {
+            if (!results.isEmpty()) {
+                results.append(',');
+            }
+            results.append("{\"paymentReference\":\"").append(reference)
+                    .append("\",\"status\":\"").append(status(reference)).append("\"}");
+        }
+        return "{\"results\":[" + results + "]}";
+    }
+
+    private static String status(String reference) {
+        if (reference.contains("UNKNOWN")) {
+            return "NOT_FOUND";
+        }
+        return reference.contains("REJECT") ? "REJECTED" : "CONFIRMED";
+    }
+
+    private List<String> references(String body) {
+        List<String> references = new ArrayList<>();
+        readTree(body).get("paymentReferences").forEach(reference -> references.add(reference.asText()));
+        return references;
+    }
+
+    private JsonNode readTree(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static MockResponse json(String body) {
+        return new MockResponse().setBody(body).addHeader("Content-Type", "application/json");
+    }
+}
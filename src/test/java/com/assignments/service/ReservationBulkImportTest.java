@@ -0,0 +1,208 @@
+package com.assignments.service;
+
+import com.assignments.config.ShardRouter;
+import com.assignments.model.ReservationEntity;
+import com.assignments.model.ReservationsImportedEvent;
+import com.assignments.projection.CustomerHistoryProjection;
+import com.assignments.repository.ReservationRepository;
+import com.assignments.service.ReservationBulkImporter.ImportResult;
+import com.assignments.service.ReservationBulkImporter.LineError;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.spy;
+
+/**
+ * Bulk import of CSV and NDJSON files: validation, per-line errors across chunks and
+ * duplicate IDs
+ */
+@SpringBootTest
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api",
+        "spring.datasource.url=jdbc:h2:mem:bulkimport",
+        "spring.jpa.show-sql=false",
+        // Small chunks and batches so a test file spans several of each
+        "reservation.import.chunk-size=8KB",
+        "reservation.import.threads=3",
+        "reservation.import.batch-size=50"
+})
+class ReservationBulkImportTest {
+
+    private static final String HEADER = "reservationId,customerName,roomNumber,roomSegment,startDate,endDate,"
+            + "modeOfPayment,paymentReference,status,totalAmount,amountReceived";
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private ReservationBulkImporter importer;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private CustomerHistoryProjection customerHistoryProjection;
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void csvRowsAreValidatedAndErrorsKeepTheirLineNumbersAcrossChunks() throws Exception {
+        StringBuilder csv = new StringBuilder("\uFEFF").append(HEADER).append("\r\n");
+        for (int i = 0; i < 400; i++) {
+            csv.append(String.format("I%07d,\"Guest, %d\",101A,SMALL,2024-03-01,2024-03-03,CASH,,,,%n", i, i));
+        }
+        csv.append("I9000001,Too Long,101A,SMALL,2024-03-01,2024-05-01,CASH,,,,\n"); // line 402
+        csv.append("I9000002,Wrong Price,101A,SMALL,2024-03-01,2024-03-03,CASH,,,150.00,\n");
+        csv.append("I9000003,Bad Segment,101A,HUGE,2024-03-01,2024-03-03,CASH,,,,\n");
+        csv.append("I9000004,Bad Date,101A,SMALL,2024-02-30,2024-03-03,CASH,,,,\n");
+        csv.append("I9000005,Short Row,101A\n");
+        csv.append("\n");
+        csv.append("I9000006,Card Without Reference,101A,SMALL,2024-03-01,2024-03-03,CREDIT_CARD,,,,\n"); // line 408
+        csv.append("I9000007,Partly Paid,201B,MEDIUM,2024-03-01,2024-03-03,BANK_TRANSFER,REF-7,,,100.00");
+        Path file = write("history.csv", csv.toString());
+
+        ImportResult result = importer.importReservations(file, null);
+
+        assertEquals("CSV", result.format());
+        assertEquals(408, result.lines());
+        assertEquals(401, result.imported());
+        assertEquals(6, result.rejected());
+        assertEquals(List.of(402L, 403L, 404L, 405L, 406L, 408L),
+                result.errors().stream().map(LineError::line).toList());
+        assertTrue(result.errors().get(0).message().contains("cannot exceed 30 days"));
+        assertTrue(result.errors().get(1).message().contains("does not match the price 200.00"));
+
+        ReservationEntity guest = reservationRepository.findByReservationId("I0000399").orElseThrow();
+        assertEquals("Guest, 399", guest.getCustomerName());
+        assertEquals(ReservationEntity.ReservationStatus.CONFIRMED, guest.getStatus());
+        assertEquals("200.00", guest.getAmountReceived().toString());
+        ReservationEntity pending = reservationRepository.findByReservationId("I9000007").orElseThrow();
+        assertEquals(ReservationEntity.ReservationStatus.PENDING_PAYMENT, pending.getStatus());
+        assertEquals("300.00", pending.getTotalAmount().toString());
+        assertEquals("100.00", pending.getAmountReceived().toString());
+    }
+
+    @Test
+    void quotedLineBreaksKeepRecordsTogetherAcrossChunks() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER).append("\n");
+        for (int i = 0; i < 300; i++) {
+            // 8 KB chunk targets land inside some of these records
+            csv.append(String.format("Q%07d,\"Guest %d\r\nc/o \"\"Front\nDesk\"\"\",101A,SMALL,2024-03-01,2024-03-03,"
+                    + "CASH,,,,\n", i, i));
+        }
+        csv.append("Q9000001,Bad Segment,101A,HUGE,2024-03-01,2024-03-03,CASH,,,,\n"); // line 902
+        csv.append("Q9000002,\"Unterminated\n,101A,SMALL,2024-03-01,2024-03-03,CASH,,,,\n"); // lines 903-904
+        Path file = write("multiline.csv", csv.toString());
+
+        ImportResult result = importer.importReservations(file, null);
+
+        assertEquals(904, result.lines());
+        assertEquals(300, result.imported());
+        assertEquals(List.of(902L, 903L), result.errors().stream().map(LineError::line).toList());
+        assertTrue(result.errors().get(1).message().contains("Unterminated quoted field"));
+        assertEquals("Guest 299\r\nc/o \"Front\nDesk\"",
+                reservationRepository.findByReservationId("Q0000299").orElseThrow().getCustomerName());
+    }
+
+    @Test
+    void ndjsonDuplicatesAreRejectedAndMissingIdsGenerated() throws Exception {
+        Path file = write("history.ndjson", String.join("\n",
+                "{\"reservationId\":\"J0000001\",\"customerName\":\"Nora Import\",\"roomNumber\":\"301C\","
+                        + "\"roomSegment\":\"LARGE\",\"startDate\":\"2024-04-01\",\"endDate\":\"2024-04-05\","
+                        + "\"modeOfPayment\":\"CREDIT_CARD\",\"paymentReference\":\"CC-1\",\"status\":\"CANCELLED\","
+                        + "\"totalAmount\":800.00,\"amountReceived\":0}",
+                "{\"reservationId\":\"J0000001\",\"customerName\":\"Nora Import\",\"roomNumber\":\"302C\","
+                        + "\"roomSegment\":\"LARGE\",\"startDate\":\"2024-05-01\",\"endDate\":\"2024-05-02\","
+                        + "\"modeOfPayment\":\"CASH\"}",
+                "{\"customerName\":\"Nora Import\",\"roomNumber\":\"401D\",\"roomSegment\":\"EXTRA_LARGE\","
+                        + "\"startDate\":\"2024-06-01\",\"endDate\":\"2024-06-02\",\"modeOfPayment\":\"CASH\"}",
+                "{\"customerName\":\"Nora Import\",\"startDate\":\"not a date\"}",
+                "not json") + "\n");
+
+        ImportResult result = importer.importReservations(file, null);
+
+        assertEquals(2, result.imported());
+        assertEquals(List.of(2L, 4L, 5L), result.errors().stream().map(LineError::line).toList());
+        assertEquals("Reservation ID already exists: J0000001", result.errors().get(0).message());
+
+        List<CustomerHistoryProjection.Entry> history = customerHistoryProjection.history("nora import");
+        assertEquals(2, history.size());
+        assertEquals(LocalDate.of(2024, 6, 1), history.get(0).startDate());
+        assertEquals(8, history.get(0).reservationId().length());
+        assertEquals(ReservationEntity.ReservationStatus.CANCELLED, history.get(1).status());
+    }
+
+    @Test
+    void filesOutsideTheImportDirectoryAreRefused() {
+        assertThrows(IllegalArgumentException.class, () -> importer.importFile("../etc/passwd", "csv"));
+        assertThrows(IllegalArgumentException.class, () -> importer.importReservations(
+                write("no-header.csv", "customerName,roomNumber\nA,101A\n"), null));
+    }
+
+    @Test
+    void failedChunkStillReportsAndAnnouncesTheCommittedBatches() throws Exception {
+        StringBuilder csv = new StringBuilder(HEADER).append("\n");
+        for (int i = 0; i < 400; i++) {
+            csv.append(String.format("F%07d,Guest %d,101A,SMALL,2024-03-01,2024-03-03,CASH,,,,%n", i, i));
+        }
+        Path file = write("failing.csv", csv.toString());
+        // The third batch insert fails, after two batches were committed
+        JdbcTemplate failingJdbcTemplate = spy(jdbcTemplate);
+        doCallRealMethod().doCallRealMethod().doThrow(new DataAccessResourceFailureException("Disk full"))
+                .doCallRealMethod().when(failingJdbcTemplate).execute(any(ConnectionCallback.class));
+        List<Object> events = new CopyOnWriteArrayList<>();
+        ReservationBulkImporter failingImporter = new ReservationBulkImporter(reservationService, shardRouter,
+                failingJdbcTemplate, transactionTemplate, events::add, objectMapper, directory, "VARCHAR", 3,
+                DataSize.ofKilobytes(8), 50, 1000);
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> failingImporter.importReservations(file, null));
+
+        long committed = reservationRepository.findAll().stream()
+                .filter(reservation -> reservation.getReservationId().startsWith("F"))
+                .count();
+        assertTrue(committed >= 100 && committed < 400, committed + " rows committed");
+        assertTrue(failure.getMessage().contains("failed after " + committed + " rows were imported"),
+                failure.getMessage());
+        assertInstanceOf(DataAccessResourceFailureException.class, failure.getCause());
+        assertEquals(List.of(new ReservationsImportedEvent(committed)), events);
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.writeString(directory.resolve(name), content, StandardCharsets.UTF_8);
+    }
+}
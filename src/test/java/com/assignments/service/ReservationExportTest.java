@@ -0,0 +1,159 @@
+package com.assignments.service;
+
+import com.assignments.model.ReservationEntity;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Reservation extracts streamed from the database as NDJSON and CSV
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "spring.kafka.bootstrap-servers=localhost:9092",
+        "kafka.retry.auto-create-topics=false",
+        "credit.card.payment.service.url=http://localhost:9090/credit-card-payment-api",
+        "spring.datasource.url=jdbc:h2:mem:export",
+        "spring.jpa.show-sql=false"
+})
+class ReservationExportTest {
+
+    private final LocalDate start = LocalDate.now().plusDays(40);
+
+    @Autowired
+    private ReservationService reservationService;
+
+    @Autowired
+    private ReservationExportService reservationExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String cashId;
+    private String bankTransferId;
+
+    @BeforeAll
+    void reservations() {
+        cashId = book("Cash Guest", start, ReservationEntity.ModeOfPayment.CASH).getReservationId();
+        bankTransferId = book("Doe, \"Jack\"", start.plusDays(1), ReservationEntity.ModeOfPayment.BANK_TRANSFER)
+                .getReservationId();
+        book("Later Guest", start.plusDays(60), ReservationEntity.ModeOfPayment.CASH);
+        LocalDate past = LocalDate.now().minusYears(1);
+        jdbcTemplate.update("insert into reservations_archive (reservation_id, property_id, customer_name,"
+                + " room_number, start_date, end_date, room_segment, mode_of_payment, payment_reference, status,"
+                + " total_amount, amount_received, archived_on) values ('A0000001', 'default', 'Archived Guest',"
+                + " '101A', ?, ?, 'SMALL', 'CASH', null, 'CONFIRMED', 100.00, 100.00, ?)",
+                past, past.plusDays(1), LocalDate.now());
+    }
+
+    @Test
+    void ndjsonHasOneObjectPerReservationInTheDateRange() throws Exception {
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : export(start, start.plusDays(30), null, ReservationExportService.Format.NDJSON)) {
+            rows.add(objectMapper.readTree(line));
+        }
+
+        assertEquals(List.of(cashId, bankTransferId), rows.stream().map(row -> row.get("reservationId").asText()).toList());
+        assertEquals("CONFIRMED", rows.get(0).get("status").asText());
+        assertEquals(start.toString(), rows.get(0).get("startDate").asText());
+        assertEquals(200.00, rows.get(0).get("totalAmount").asDouble());
+        assertEquals(0.0, rows.get(1).get("amountReceived").asDouble());
+    }
+
+    @Test
+    void csvFiltersByStatusAndQuotesFields() throws Exception {
+        List<String> lines = export(null, null, ReservationEntity.ReservationStatus.PENDING_PAYMENT,
+                ReservationExportService.Format.CSV);
+
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).startsWith("reservationId,propertyId,customerName,"));
+        assertTrue(lines.get(1).startsWith(bankTransferId + ",default,\"Doe, \"\"Jack\"\"\",102A,MEDIUM,"));
+        assertTrue(lines.get(1).endsWith(",BANK_TRANSFER,REF,PENDING_PAYMENT,300.00,0.00"));
+    }
+
+    @Test
+    void archivedReservationsFollowTheCurrentOnesUnlessLeftOut() throws Exception {
+        List<String> lines = export(null, null, ReservationEntity.ReservationStatus.CONFIRMED,
+                ReservationExportService.Format.CSV);
+
+        assertEquals(4, lines.size());
+        assertTrue(lines.get(3).startsWith("A0000001,default,Archived Guest,101A,SMALL,"));
+
+        ByteArrayOutputStream current = new ByteArrayOutputStream();
+        assertEquals(2, reservationExportService.export(null, null, ReservationEntity.ReservationStatus.CONFIRMED,
+                false, ReservationExportService.Format.CSV, current));
+        assertFalse(current.toString(StandardCharsets.UTF_8).contains("A0000001"));
+    }
+
+    @Test
+    void endpointStreamsTheExportAsAnAttachment() throws Exception {
+        MvcResult started = mockMvc.perform(get("/exports/reservations")
+                        .param("from", start.toString()).param("to", start.plusDays(30).toString())
+                        .param("format", "csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"reservations.csv\""))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(3, body.lines().count());
+    }
+
+    @Test
+    void invalidParametersAreRejectedBeforeStreaming() throws Exception {
+        mockMvc.perform(get("/exports/reservations").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/exports/reservations").param("status", "PAID"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/exports/reservations")
+                        .param("from", start.plusDays(1).toString()).param("to", start.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<String> export(LocalDate from, LocalDate to, ReservationEntity.ReservationStatus status,
+            ReservationExportService.Format format) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        reservationExportService.export(from, to, status, format, output);
+        return output.toString(StandardCharsets.UTF_8).lines().toList();
+    }
+
+    private ReservationEntity book(String customerName, LocalDate startDate, ReservationEntity.ModeOfPayment mode) {
+        boolean cash = mode == ReservationEntity.ModeOfPayment.CASH;
+        return reservationService.confirmReservation(customerName, cash ? "101A" : "102A", startDate,
+                startDate.plusDays(2), cash ? ReservationEntity.RoomSegment.SMALL : ReservationEntity.RoomSegment.MEDIUM,
+                mode, "REF");
+    }
+}
@@ -7,9 +7,9 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,7 +17,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.context.ApplicationEventPublisher;
+
+import com.assignments.config.ShardRouter;
+import com.assignments.model.Money;
 import com.assignments.model.ReservationEntity;
+import com.assignments.repository.ArchivedReservationRepository;
+import com.assignments.repository.DeferredCardVerificationRepository;
 import com.assignments.repository.ReservationRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,14 +32,24 @@ class ReservationServiceTest {
     @Mock
     private ReservationRepository reservationRepository;
 
+    @Mock
+    private ArchivedReservationRepository archivedReservationRepository;
+
+    @Mock
+    private DeferredCardVerificationRepository deferredCardVerificationRepository;
+
     @Mock
     private CreditCardPaymentService creditCardPaymentService;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     private ReservationService reservationService;
 
     @BeforeEach
     void setUp() {
-        reservationService = new ReservationService(reservationRepository, creditCardPaymentService);
+        reservationService = new ReservationService(reservationRepository, archivedReservationRepository,
+                deferredCardVerificationRepository, creditCardPaymentService, eventPublisher, ShardRouter.unsharded());
     }
 
     @Test
@@ -42,24 +58,24 @@ class ReservationServiceTest {
         ReservationEntity unpaidReservation = new ReservationEntity();
         unpaidReservation.setReservationId("RES001");
         unpaidReservation.setStatus(ReservationEntity.ReservationStatus.PENDING_PAYMENT);
-        unpaidReservation.setTotalAmount(new BigDecimal("100.00"));
-        unpaidReservation.setAmountReceived(BigDecimal.ZERO);
+        unpaidReservation.setTotalAmount(Money.valueOf("100.00"));
+        unpaidReservation.setAmountReceived(Money.ZERO);
 
         ReservationEntity paidReservation = new ReservationEntity();
         paidReservation.setReservationId("RES002");
         paidReservation.setStatus(ReservationEntity.ReservationStatus.PENDING_PAYMENT); // Still pending but fully paid
                                                                                         // (maybe status update lagged?)
 
-        paidReservation.setTotalAmount(new BigDecimal("100.00"));
-        paidReservation.setAmountReceived(new BigDecimal("100.00"));
+        paidReservation.setTotalAmount(Money.valueOf("100.00"));
+        paidReservation.setAmountReceived(Money.valueOf("100.00"));
 
         ReservationEntity partialPaidReservation = new ReservationEntity();
         partialPaidReservation.setReservationId("RES003");
         partialPaidReservation.setStatus(ReservationEntity.ReservationStatus.PENDING_PAYMENT);
-        partialPaidReservation.setTotalAmount(new BigDecimal("100.00"));
-        partialPaidReservation.setAmountReceived(new BigDecimal("50.00"));
+        partialPaidReservation.setTotalAmount(Money.valueOf("100.00"));
+        partialPaidReservation.setAmountReceived(Money.valueOf("50.00"));
 
-        when(reservationRepository.findByStatusAndModeOfPaymentAndStartDateBefore(
+        when(reservationRepository.findByStatusAndModeOfPaymentAndStartDateBeforeOrderByReservationId(
                 eq(ReservationEntity.ReservationStatus.PENDING_PAYMENT),
                 eq(ReservationEntity.ModeOfPayment.BANK_TRANSFER),
                 any(LocalDate.class)))
@@ -80,4 +96,36 @@ class ReservationServiceTest {
         // Should NOT cancel RES002 (fully paid)
         verify(reservationRepository, never()).save(paidReservation);
     }
+
+    @Test
+    void cancelUnpaidReservationsById_ShouldRecheckEachReservation() {
+        // Given
+        ReservationEntity unpaid = pendingBankTransfer("RES001", LocalDate.now().plusDays(1), Money.ZERO);
+        ReservationEntity paidMeanwhile = pendingBankTransfer("RES002", LocalDate.now().plusDays(1),
+                Money.valueOf("100.00"));
+        ReservationEntity startsLater = pendingBankTransfer("RES003", LocalDate.now().plusDays(10), Money.ZERO);
+        List<String> ids = List.of("RES001", "RES002", "RES003");
+        when(reservationRepository.findAllForUpdate(ids)).thenReturn(List.of(unpaid, paidMeanwhile, startsLater));
+
+        // When
+        int cancelled = reservationService.cancelUnpaidReservations(ids);
+
+        // Then
+        assertEquals(1, cancelled);
+        assertEquals(ReservationEntity.ReservationStatus.CANCELLED, unpaid.getStatus());
+        verify(reservationRepository).save(unpaid);
+        verify(reservationRepository, never()).save(paidMeanwhile);
+        verify(reservationRepository, never()).save(startsLater);
+    }
+
+    private static ReservationEntity pendingBankTransfer(String id, LocalDate startDate, Money amountReceived) {
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setReservationId(id);
+        reservation.setStatus(ReservationEntity.ReservationStatus.PENDING_PAYMENT);
+        reservation.setModeOfPayment(ReservationEntity.ModeOfPayment.BANK_TRANSFER);
+        reservation.setStartDate(startDate);
+        reservation.setTotalAmount(Money.valueOf("100.00"));
+        reservation.setAmountReceived(amountReceived);
+        return reservation;
+    }
 }